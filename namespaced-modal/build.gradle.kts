@@ -46,6 +46,15 @@ tasks.test {
     jvmArgs("--enable-preview")
 }
 
+// Benchmarks aus src/test/java/bench: ./gradlew bench -Pbenchmark=PackedSumBenchmark
+tasks.register<JavaExec>("bench") {
+    group = "verification"
+    description = "Runs a benchmark main class from src/test/java/bench"
+    classpath = sourceSets["test"].runtimeClasspath
+    mainClass.set("bench." + (project.findProperty("benchmark") ?: "PackedSumBenchmark"))
+    maxHeapSize = "4g"
+}
+
 tasks.withType<JavaExec> {
     jvmArgs(
         "--enable-preview",
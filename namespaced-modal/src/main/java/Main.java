@@ -1,18 +1,175 @@
+import core.EvaluationStrategy;
+import core.ResultStore;
+import core.RuleIndex;
+import core.RuleProfile;
 import core.RuleSet;
+import core.RuleSetOptimizer;
+import core.Term;
+import core.TermEvaluator;
+import debug.Debugger;
+import io.ModuleLoader;
 import io.REPL;
+import io.RuleFileWatcher;
 import io.RuleParser;
+import io.TermParser;
+import io.WorkerPool;
+
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 
 public class Main {
+    /**
+     * Usage: Main [--eager] [--watch] [--store results.store] [--profile rules.profile]
+     *             [--batch terms.txt [--workers n] [--worker-heap size] [--worker-timeout seconds]]
+     *             [--index rules.index] [--write-index rules.index] [file.modal ...]
+     * The standard modules are loaded on first use, or all at once with --eager.
+     * With --index the rules are mapped from a compiled index instead, which
+     * --write-index creates from the rules loaded otherwise.
+     * Rule files are loaded on top of them; with --watch they are reloaded
+     * whenever they change. With --store results are kept on disk for the next run.
+     * With --profile rules are tried in the order learned from their hits, and the
+     * hits are saved on exit. With --batch the terms of the file, one per line,
+     * are evaluated instead of starting the REPL, by n worker JVMs with --workers.
+     * Then stdout carries only the results, the other messages go to stderr.
+     */
     public static void main(String[] args) {
         try {
-            System.out.println("Loading rules...");
-            RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
-            System.out.println("Rules loaded successfully!");
+            java.util.List<String> arguments = java.util.List.of(args);
+            // Im Batch-Betrieb gehört stdout den Ergebnissen
+            PrintStream log = arguments.contains("--batch") ? System.err : System.out;
+            log.println("Loading rules...");
+            boolean eager = arguments.contains("--eager");
+            int indexArgument = arguments.indexOf("--index");
+            RuleSet ruleSet;
+            if (indexArgument >= 0 && indexArgument + 1 < args.length) {
+                RuleIndex index = RuleIndex.open(Path.of(args[indexArgument + 1]));
+                ruleSet = index.load();
+                if (eager) {
+                    ruleSet.loadAllModules();
+                }
+            } else {
+                ruleSet = eager
+                        ? RuleParser.loadFromResource("rules/standard.modal")
+                        : ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+            }
+
+            boolean watch = false;
+            Path store = null;
+            Path profileFile = null;
+            Path batch = null;
+            int workers = 0;
+            String workerHeap = null;
+            Duration workerTimeout = null;
+            Path writeIndex = null;
+            RuleFileWatcher watcher = new RuleFileWatcher(ruleSet);
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--watch")) {
+                    watch = true;
+                } else if (args[i].equals("--store") && i + 1 < args.length) {
+                    store = Path.of(args[++i]);
+                } else if (args[i].equals("--profile") && i + 1 < args.length) {
+                    profileFile = Path.of(args[++i]);
+                } else if (args[i].equals("--batch") && i + 1 < args.length) {
+                    batch = Path.of(args[++i]);
+                } else if (args[i].equals("--workers") && i + 1 < args.length) {
+                    workers = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--worker-heap") && i + 1 < args.length) {
+                    workerHeap = args[++i];
+                } else if (args[i].equals("--worker-timeout") && i + 1 < args.length) {
+                    workerTimeout = Duration.ofSeconds(Long.parseLong(args[++i]));
+                } else if (args[i].equals("--index") && i + 1 < args.length) {
+                    i++;
+                } else if (args[i].equals("--write-index") && i + 1 < args.length) {
+                    writeIndex = Path.of(args[++i]);
+                } else if (!args[i].equals("--eager")) {
+                    watcher.load(Path.of(args[i]));
+                }
+            }
+            log.println("Rules loaded successfully!");
+            log.println(RuleSetOptimizer.optimize(ruleSet).summary());
+            if (!eager) {
+                // Nachgeladene Module werden wie die übrigen Regeln optimiert
+                ruleSet.setModuleListener(namespace -> RuleSetOptimizer.optimize(ruleSet));
+            }
+
+            if (writeIndex != null) {
+                RuleIndex.write(ruleSet, writeIndex);
+                System.out.println("Wrote " + ruleSet.size() + " rules to " + writeIndex);
+                return;
+            }
+
+            if (batch != null) {
+                runBatch(ruleSet, batch, workers, workerHeap, workerTimeout);
+                return;
+            }
 
-            new REPL(ruleSet).run();
+            if (watch && !watcher.getFiles().isEmpty()) {
+                watcher.start();
+                System.out.println("Watching " + watcher.getFiles().size() + " rule files for changes");
+            }
+
+            RuleProfile profile = null;
+            if (profileFile != null) {
+                profile = Files.exists(profileFile) ? RuleProfile.load(profileFile) : new RuleProfile();
+            }
+
+            if (store == null) {
+                run(new REPL(ruleSet), profile);
+            } else {
+                try (ResultStore resultStore = ResultStore.open(store)) {
+                    System.out.println("Result store " + store + ": " + resultStore.size() + " results");
+                    run(new REPL(ruleSet, resultStore), profile);
+                }
+            }
+            if (profile != null) {
+                profile.save(profileFile);
+            }
         } catch (Exception e) {
             System.err.println("Error starting application: " + e.getMessage());
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Prints one result per term, in the order of the file.
+     */
+    private static void runBatch(RuleSet ruleSet, Path file, int workers, String heap, Duration timeout)
+            throws java.io.IOException {
+        java.util.List<Term> terms = new java.util.ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                terms.add(TermParser.parse(line));
+            }
+        }
+        if (workers > 0) {
+            try (WorkerPool pool = new WorkerPool(ruleSet, EvaluationStrategy.OUTERMOST, workers, heap)) {
+                if (timeout != null) {
+                    pool.setTimeout(timeout);
+                }
+                pool.evaluate(terms).forEach(System.out::println);
+                if (pool.getRestarts() > 0) {
+                    System.err.println(pool.getRestarts() + " workers restarted");
+                }
+            }
+            return;
+        }
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        for (Term term : terms) {
+            try {
+                System.out.println(evaluator.evaluate(term));
+            } catch (RuntimeException | StackOverflowError e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void run(REPL repl, RuleProfile profile) throws java.io.IOException {
+        if (profile != null) {
+            repl.setRuleProfile(profile);
+        }
+        repl.run();
+    }
+}
@@ -0,0 +1,48 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Which function symbols changed with which version of a {@link RuleSet}, for the
+ * last {@link #SIZE} versions, so caches can drop only what a change affects.
+ * Symbols are noted while a change is made and committed with its version.
+ * Guarded by the lock of the rule set.
+ */
+final class ChangeLog {
+    static final int SIZE = 1024;
+
+    private final ArrayDeque<Map.Entry<Long, Set<String>>> entries = new ArrayDeque<>();
+    private final Set<String> pending = new HashSet<>();
+
+    void note(String functionSymbol) {
+        pending.add(functionSymbol);
+    }
+
+    void noteAll(Collection<String> functionSymbols) {
+        pending.addAll(functionSymbols);
+    }
+
+    void commit(long version) {
+        entries.addLast(Map.entry(version, Set.copyOf(pending)));
+        if (entries.size() > SIZE) {
+            entries.removeFirst();
+        }
+        pending.clear();
+    }
+
+    /**
+     * The symbols committed after the given version, or null if that version is too old to tell.
+     */
+    Set<String> since(long sinceVersion) {
+        if (entries.isEmpty() || entries.peekFirst().getKey() > sinceVersion + 1) {
+            return null;
+        }
+        Set<String> symbols = new HashSet<>();
+        for (Map.Entry<Long, Set<String>> change : entries) {
+            if (change.getKey() > sinceVersion) {
+                symbols.addAll(change.getValue());
+            }
+        }
+        return symbols;
+    }
+}
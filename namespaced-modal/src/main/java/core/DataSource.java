@@ -0,0 +1,330 @@
+package core;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * The atoms of a text file, separated by whitespace, as the chain
+ * (a1 . (a2 . ... ())) the list rules consume with (?head . ?tail).
+ * (data-file path) evaluates to it.
+ *
+ * The file is memory-mapped and read in place. A cell is only the position of
+ * its atom in the file; its tail is created when it is accessed and not kept, so
+ * walking the chain needs constant memory no matter how large the file is.
+ * Like a lazy cell, a data cell is a value: evaluating it returns it unchanged.
+ *
+ * sum, product and length read the file directly (see {@link #sum(Term)}), and
+ * {@link ListFusion} folds it for fold-left. The rules still work on the chain,
+ * but recurse once per element.
+ */
+public final class DataSource {
+    static final String SYMBOL = "data-file";
+
+    private static final Term DOT = Term.atom(".");
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final Path file;
+    // Mappings sind auf 2 GB begrenzt, größere Dateien werden in Segmenten abgebildet
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    private DataSource(Path file, MappedByteBuffer[] segments, long size) {
+        this.file = file;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    public static DataSource open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_MASK + 1, size - start));
+            }
+            return new DataSource(file, segments, size);
+        }
+    }
+
+    /**
+     * The intrinsic behind (data-file path).
+     */
+    static Term read(Term.List call, TermEvaluator evaluator) {
+        if (!(call.elements().get(1) instanceof Term.Atom path) || path.isVariable()) {
+            return null;
+        }
+        try {
+            return open(Path.of(path.value())).chain();
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Cannot read data file " + path.value() + ": " + e.getMessage(), e);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * The first cell, or () for a file without atoms.
+     */
+    public Term chain() {
+        return cellAt(0);
+    }
+
+    /**
+     * The data cell the term is, or null.
+     */
+    static Cell cellOf(Term term) {
+        return term instanceof Term.List list && list.elements() instanceof Cell cell ? cell : null;
+    }
+
+    private static boolean isNil(Term term) {
+        return term instanceof Term.List list && list.isEmpty();
+    }
+
+    private Term cellAt(long position) {
+        long start = skipSpace(position);
+        if (start == size) {
+            return Term.nil();
+        }
+        long end = start;
+        while (end < size && !isSpace(byteAt(end))) {
+            end++;
+        }
+        return new Term.List(new Cell(this, start, end));
+    }
+
+    private long skipSpace(long position) {
+        while (position < size && isSpace(byteAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private byte byteAt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    private String text(long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        int segment = (int) (start >>> SEGMENT_BITS);
+        if (segment == (int) ((end - 1) >>> SEGMENT_BITS)) {
+            segments[segment].get((int) (start & SEGMENT_MASK), bytes);
+        } else {
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = byteAt(start + i);
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Same result as (sum cell) with the standard rules, or null if an atom is
+     * not a number or the term is neither a data cell nor (). Reads the file
+     * once from the end back to the cell.
+     */
+    static Term sum(Term term) {
+        return fold(term, true);
+    }
+
+    static Term product(Term term) {
+        return fold(term, false);
+    }
+
+    private static Term fold(Term term, boolean sum) {
+        Cell cell = cellOf(term);
+        if (cell == null) {
+            return isNil(term) ? Term.number(sum ? 0 : 1) : null;
+        }
+        Evaluator.RightFold fold = new Evaluator.RightFold(sum);
+        Cursor cursor = cell.atoms(true);
+        while (cursor.advance()) {
+            double value = cursor.number();
+            if (Double.isNaN(value) && !cursor.atom().isNumber()) {
+                return null;
+            }
+            fold.add(value);
+        }
+        return fold.result();
+    }
+
+    /**
+     * Same result as (length cell), or null beyond the int range.
+     */
+    static Term length(Term term) {
+        Cell cell = cellOf(term);
+        if (cell == null) {
+            return isNil(term) ? Term.number(0) : null;
+        }
+        Cursor cursor = cell.atoms(false);
+        int count = 0;
+        while (cursor.advance()) {
+            if (++count == Integer.MAX_VALUE) {
+                return null;
+            }
+        }
+        return Term.number(count);
+    }
+
+    /**
+     * Walks the atoms from a position to the end of the file, or backwards from
+     * the end down to it. Only the bounds of the current atom are kept.
+     */
+    final class Cursor implements Iterator<Term> {
+        private final long limit;
+        private final boolean backwards;
+        private long start;
+        private long end;
+        private boolean ready;
+
+        Cursor(long from, boolean backwards) {
+            this.backwards = backwards;
+            this.limit = backwards ? from : size;
+            this.start = backwards ? size : from;
+            this.end = this.start;
+        }
+
+        boolean advance() {
+            ready = false;
+            if (backwards) {
+                long position = start;
+                while (position > limit && isSpace(byteAt(position - 1))) {
+                    position--;
+                }
+                if (position == limit) {
+                    return false;
+                }
+                end = position;
+                while (position > limit && !isSpace(byteAt(position - 1))) {
+                    position--;
+                }
+                start = position;
+            } else {
+                start = skipSpace(end);
+                if (start == size) {
+                    return false;
+                }
+                end = start;
+                while (end < size && !isSpace(byteAt(end))) {
+                    end++;
+                }
+            }
+            return true;
+        }
+
+        Term.Atom atom() {
+            return new Term.Atom(text(start, end));
+        }
+
+        /**
+         * The value of the current atom as {@link Term.Atom#asDouble()} reads it,
+         * NaN if it is not a number. Plain integers are read without a string.
+         */
+        double number() {
+            long position = start;
+            boolean negative = byteAt(position) == '-';
+            if (negative) {
+                position++;
+            }
+            long digits = end - position;
+            if (digits > 0 && digits <= 18) {
+                long value = 0;
+                for (; position < end; position++) {
+                    byte b = byteAt(position);
+                    if (b < '0' || b > '9') {
+                        break;
+                    }
+                    value = value * 10 + (b - '0');
+                }
+                if (position == end) {
+                    return negative ? -value : value;
+                }
+            }
+            Term.Atom atom = atom();
+            return atom.isNumber() ? atom.asDouble() : Double.NaN;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready) {
+                ready = advance();
+            }
+            return ready;
+        }
+
+        @Override
+        public Term next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            return atom();
+        }
+    }
+
+    /**
+     * Element list of a data cell (atom . tail), with the atom's position in the file.
+     */
+    static final class Cell extends AbstractList<Term> implements RandomAccess {
+        private final DataSource source;
+        private final long start;
+        private final long end;
+
+        private Cell(DataSource source, long start, long end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        DataSource source() {
+            return source;
+        }
+
+        /**
+         * The atoms from this cell on, first to last or last to first.
+         */
+        Cursor atoms(boolean backwards) {
+            return source.new Cursor(start, backwards);
+        }
+
+        @Override
+        public Term get(int index) {
+            return switch (index) {
+                case 0 -> new Term.Atom(source.text(start, end));
+                case 1 -> DOT;
+                case 2 -> source.cellAt(end);
+                default -> throw new IndexOutOfBoundsException(index);
+            };
+        }
+
+        @Override
+        public int size() {
+            return 3;
+        }
+
+        /**
+         * Cells are equal at the same position of the same source. Comparing the
+         * atoms would read the rest of the file; the chains of both end in the
+         * same (), which is where exhausted cells meet.
+         */
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Cell other && other.source == source && other.start == start;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(source) + Long.hashCode(start);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package core;
+
+import java.util.*;
+
+/**
+ * The directives of a rule set besides its rules: @strategy per namespace,
+ * @strict and @table per function symbol, and @import between namespaces.
+ * Guarded by the lock of the owning {@link RuleSet}.
+ */
+final class Declarations {
+    private final Map<String, Set<String>> imports = new HashMap<>();
+    private final Map<String, EvaluationStrategy> namespaceStrategies = new HashMap<>();
+    private final Map<String, boolean[]> strictness = new HashMap<>();
+    private final Map<String, Tabling> tabling = new HashMap<>();
+
+    void addImports(String namespace, Collection<String> importedNamespaces) {
+        imports.computeIfAbsent(namespace, k -> new LinkedHashSet<>()).addAll(importedNamespaces);
+    }
+
+    Set<String> getImports(String namespace) {
+        return Collections.unmodifiableSet(imports.getOrDefault(namespace, Collections.emptySet()));
+    }
+
+    Map<String, Set<String>> imports() {
+        return Collections.unmodifiableMap(imports);
+    }
+
+    void setNamespaceStrategy(String namespace, EvaluationStrategy strategy) {
+        namespaceStrategies.put(namespace, strategy);
+    }
+
+    EvaluationStrategy getNamespaceStrategy(String namespace) {
+        return namespaceStrategies.get(namespace);
+    }
+
+    Map<String, EvaluationStrategy> namespaceStrategies() {
+        return Collections.unmodifiableMap(namespaceStrategies);
+    }
+
+    void setStrictness(String functionSymbol, boolean[] strictArguments) {
+        strictness.put(functionSymbol, strictArguments.clone());
+    }
+
+    boolean[] getStrictness(String functionSymbol) {
+        return strictness.get(functionSymbol);
+    }
+
+    Map<String, boolean[]> strictness() {
+        return Collections.unmodifiableMap(strictness);
+    }
+
+    void setTabling(String functionSymbol, Tabling declaration) {
+        tabling.put(functionSymbol, declaration);
+    }
+
+    Tabling getTabling(String functionSymbol) {
+        return tabling.get(functionSymbol);
+    }
+
+    Map<String, Tabling> tabling() {
+        return Collections.unmodifiableMap(tabling);
+    }
+
+    /**
+     * Takes over the declarations of a loaded module; imports are added to those
+     * already declared for a namespace.
+     */
+    void addAll(Declarations other) {
+        namespaceStrategies.putAll(other.namespaceStrategies);
+        strictness.putAll(other.strictness);
+        tabling.putAll(other.tabling);
+        other.imports.forEach(this::addImports);
+    }
+}
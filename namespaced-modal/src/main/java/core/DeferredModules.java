@@ -0,0 +1,127 @@
+package core;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Modules registered with a {@link RuleSet} whose rules are not loaded yet, by
+ * namespace and by the function symbols they define. The rule set loads them
+ * itself under its write lock; this class keeps track of what is left and
+ * finds the modules a term needs. Guarded by the lock of the rule set.
+ */
+final class DeferredModules {
+
+    /**
+     * The rules of one namespace, defining exactly the given function symbols.
+     */
+    record Module(String namespace, Set<String> symbols, Supplier<RuleSet> source) {
+
+        /**
+         * Parses the module; it must not define anything its manifest entry does not declare.
+         */
+        RuleSet parse() {
+            RuleSet parsed = source.get();
+            for (Rule rule : parsed.getAllRules()) {
+                String symbol = rule.pattern() instanceof Term.List list && !list.isEmpty() ? list.getFunctionSymbol() : null;
+                if (!rule.namespace().equals(namespace) || !symbols.contains(symbol)) {
+                    throw new IllegalStateException("Module " + namespace + " defines " + rule.fullName() +
+                            ", which its manifest entry does not declare");
+                }
+            }
+            return parsed;
+        }
+    }
+
+    private final Map<String, Module> bySymbol = new HashMap<>();
+    private final Map<String, Module> byNamespace = new LinkedHashMap<>();
+    // Funktionssymbole, die Zahlen sind
+    private int numberSymbols;
+
+    void add(Module module) {
+        byNamespace.put(module.namespace(), module);
+        for (String symbol : module.symbols()) {
+            if (bySymbol.put(symbol, module) == null && RuleSet.isNumberSymbol(symbol)) {
+                numberSymbols++;
+            }
+        }
+    }
+
+    /**
+     * Takes the module out before its rules are added; false if another thread
+     * has loaded it meanwhile.
+     */
+    boolean remove(Module module) {
+        if (byNamespace.get(module.namespace()) != module) {
+            return false;
+        }
+        byNamespace.remove(module.namespace());
+        for (String symbol : module.symbols()) {
+            if (bySymbol.remove(symbol) != null && RuleSet.isNumberSymbol(symbol)) {
+                numberSymbols--;
+            }
+        }
+        return true;
+    }
+
+    boolean isEmpty() {
+        return byNamespace.isEmpty();
+    }
+
+    Module forSymbol(String functionSymbol) {
+        return bySymbol.isEmpty() || functionSymbol == null ? null : bySymbol.get(functionSymbol);
+    }
+
+    Module forNamespace(String namespace) {
+        return byNamespace.isEmpty() ? null : byNamespace.get(namespace);
+    }
+
+    Module forRule(String fullName) {
+        int dot = fullName.indexOf('.');
+        return dot > 0 ? forNamespace(fullName.substring(0, dot)) : null;
+    }
+
+    java.util.List<Module> all() {
+        return java.util.List.copyOf(byNamespace.values());
+    }
+
+    Set<String> namespaces() {
+        return Collections.unmodifiableSet(byNamespace.keySet());
+    }
+
+    Set<String> symbols() {
+        return Collections.unmodifiableSet(bySymbol.keySet());
+    }
+
+    boolean hasNumberSymbols() {
+        return numberSymbols > 0;
+    }
+
+    /**
+     * Loads the modules of the symbols in the term and, transitively, of the symbols
+     * in the replacements of their rules, into the rule set they were registered with.
+     */
+    void loadFor(Term term, RuleSet ruleSet) {
+        Set<String> seen = new HashSet<>();
+        Deque<Term> pending = new ArrayDeque<>();
+        pending.push(term);
+        while (!pending.isEmpty() && !bySymbol.isEmpty()) {
+            Term next = pending.pop();
+            if (next instanceof Term.Atom atom) {
+                if (seen.add(atom.value())) {
+                    ruleSet.loadModuleFor(atom.value());
+                    for (Rule rule : ruleSet.loadedRulesFor(atom.value())) {
+                        pending.push(rule.replacement());
+                    }
+                }
+            } else if (next instanceof Term.List list) {
+                // Lazy Zellen nicht erzwingen
+                if (!list.isOpaque()) {
+                    list.elements().forEach(pending::push);
+                }
+            } else if (next instanceof Term.Cons cons) {
+                pending.push(cons.car());
+                pending.push(cons.cdr());
+            }
+        }
+    }
+}
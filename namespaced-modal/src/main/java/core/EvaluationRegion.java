@@ -0,0 +1,49 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Scratch objects of one {@link TermEvaluator} that only live while a rule is
+ * matched or a special operator is evaluated: binding maps and dependency sets.
+ * They are taken and returned in stack order, so nested evaluations (a lazy
+ * tail forced during matching, an if inside an if) each get their own.
+ *
+ * Nothing taken from the region may end up in a result or a cache entry.
+ * Objects that grew unusually large are not kept, so one huge match does not
+ * pin its memory for the rest of the session.
+ *
+ * The region only covers these two kinds of object. Terms, element lists, memo
+ * entries and everything else an evaluation allocates stay ordinary heap objects
+ * that the garbage collector reclaims; it is a pool, not an arena for results.
+ */
+final class EvaluationRegion {
+    private static final int MAX_POOLED = 32;
+    private static final int MAX_RETAINED_ENTRIES = 64;
+
+    private final ArrayDeque<HashMap<String, Term>> bindings = new ArrayDeque<>();
+    private final ArrayDeque<HashSet<String>> symbolSets = new ArrayDeque<>();
+
+    HashMap<String, Term> acquireBindings() {
+        HashMap<String, Term> map = bindings.poll();
+        return map != null ? map : new HashMap<>();
+    }
+
+    void release(HashMap<String, Term> map) {
+        if (map.size() <= MAX_RETAINED_ENTRIES && bindings.size() < MAX_POOLED) {
+            map.clear();
+            bindings.push(map);
+        }
+    }
+
+    HashSet<String> acquireSymbols() {
+        HashSet<String> set = symbolSets.poll();
+        return set != null ? set : new HashSet<>();
+    }
+
+    void release(HashSet<String> set) {
+        if (set.size() <= MAX_RETAINED_ENTRIES && symbolSets.size() < MAX_POOLED) {
+            set.clear();
+            symbolSets.push(set);
+        }
+    }
+}
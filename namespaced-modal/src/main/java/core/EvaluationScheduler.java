@@ -0,0 +1,202 @@
+package core;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Time-slices many evaluations over a fixed number of threads, so one huge
+ * evaluation cannot hold up many small ones. Each job runs as a
+ * {@link ThreadedEvaluation} on a thread of its own; a scheduler thread lets
+ * one job run for a slice, waits for it and puts it back. The number of
+ * scheduler threads is therefore the number of jobs running at once.
+ *
+ * The next slice goes to the job that has had the fewest slices so far, ties in
+ * order of submission. A short job therefore finishes within its first slices,
+ * while long jobs share the time left over. Each job needs its own evaluator;
+ * evaluators of different jobs may share a {@link SharedMemo}.
+ *
+ * A started job keeps its thread, and the stack reserved for it, until it is
+ * done. So at most a fixed number of jobs are started at a time
+ * ({@link #DEFAULT_LIVE_PER_THREAD} per thread unless given); further jobs wait
+ * for their first slice until one of them has finished.
+ */
+public final class EvaluationScheduler implements AutoCloseable {
+    static final int DEFAULT_LIVE_PER_THREAD = 4;
+
+    private record Job(ThreadedEvaluation evaluation, long sequence, CompletableFuture<Term> future)
+            implements Comparable<Job> {
+        @Override
+        public int compareTo(Job other) {
+            int bySlices = Integer.compare(evaluation.getSlices(), other.evaluation.getSlices());
+            return bySlices != 0 ? bySlices : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final int sliceSteps;
+    private final int maxLive;
+    private final Thread[] threads;
+    // Gestartete Jobs nach Zeitscheiben, noch nicht gestartete in Reihenfolge der Abgabe
+    private final PriorityQueue<Job> queue = new PriorityQueue<>();
+    private final ArrayDeque<Job> waiting = new ArrayDeque<>();
+    private int live;
+    // Auswerter, deren Job noch läuft
+    private final Set<TermEvaluator> busy = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long submitted;
+    private boolean closed;
+
+    public EvaluationScheduler(int threads, int sliceSteps) {
+        this(threads, sliceSteps, DEFAULT_LIVE_PER_THREAD * threads);
+    }
+
+    /**
+     * @param maxLive number of jobs started but not done at a time, each with a thread of its own
+     */
+    public EvaluationScheduler(int threads, int sliceSteps, int maxLive) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed: " + threads);
+        }
+        if (sliceSteps < 1) {
+            throw new IllegalArgumentException("Slice must have at least one step: " + sliceSteps);
+        }
+        if (maxLive < 1) {
+            throw new IllegalArgumentException("At least one job must be able to run: " + maxLive);
+        }
+        this.sliceSteps = sliceSteps;
+        this.maxLive = maxLive;
+        this.threads = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            this.threads[i] = new Thread(this::work, "modal-scheduler-" + i);
+            this.threads[i].setDaemon(true);
+            this.threads[i].start();
+        }
+    }
+
+    public int getSliceSteps() {
+        return sliceSteps;
+    }
+
+    public int getMaxLive() {
+        return maxLive;
+    }
+
+    /**
+     * Number of jobs waiting for their next slice, started or not.
+     */
+    public synchronized int getQueued() {
+        return queue.size() + waiting.size();
+    }
+
+    /**
+     * Number of jobs started and not done yet.
+     */
+    public synchronized int getLive() {
+        return live;
+    }
+
+    public CompletableFuture<Term> submit(TermEvaluator evaluator, Term term) {
+        CompletableFuture<Term> future = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed) {
+                throw new RejectedExecutionException("Scheduler is closed");
+            }
+            if (!busy.add(evaluator)) {
+                throw new IllegalArgumentException("Evaluator is used by another job");
+            }
+            waiting.add(new Job(new ThreadedEvaluation(evaluator, term, sliceSteps), submitted++, future));
+            notify();
+        }
+        return future;
+    }
+
+    private void work() {
+        while (true) {
+            Job job = null;
+            synchronized (this) {
+                while (!closed && (job = next()) == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            if (!job.evaluation.resume()) {
+                synchronized (this) {
+                    if (!closed) {
+                        queue.add(job);
+                        notify();
+                        continue;
+                    }
+                }
+                job.evaluation.cancel();
+            }
+            finish(job);
+        }
+    }
+
+    /**
+     * A job not started yet while there is room, it has had fewer slices than
+     * any started one; otherwise the started job with the fewest slices.
+     */
+    private Job next() {
+        if (!waiting.isEmpty() && live < maxLive) {
+            live++;
+            return waiting.poll();
+        }
+        return queue.poll();
+    }
+
+    private void finish(Job job) {
+        synchronized (this) {
+            busy.remove(job.evaluation.getEvaluator());
+            if (job.evaluation.getSlices() > 0) {
+                live--;
+                notifyAll();
+            }
+        }
+        try {
+            job.future.complete(job.evaluation.getResult());
+        } catch (RuntimeException e) {
+            job.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stops the threads after their current slice; unfinished jobs are cancelled.
+     */
+    @Override
+    public void close() {
+        java.util.List<Job> pending;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending = new java.util.ArrayList<>(queue);
+            pending.addAll(waiting);
+            queue.clear();
+            waiting.clear();
+            notifyAll();
+        }
+        for (Job job : pending) {
+            job.evaluation.cancel();
+            finish(job);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package core;
+
+/**
+ * Order in which a call and its arguments are reduced.
+ */
+public enum EvaluationStrategy {
+    /** Try a rewrite on the unevaluated arguments first (lazy, the default). */
+    OUTERMOST,
+    /** Evaluate all arguments first, then rewrite (strict). */
+    INNERMOST;
+
+    public static EvaluationStrategy parse(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+}
@@ -1,33 +1,12 @@
 package core;
 
-import java.util.HashMap;
-import java.util.Map;
-
 public class Evaluator {
 
-    private final Map<Term, Term> evaluationCache = new HashMap<>();
-
-    public static class Thunk {
-        private final Term expression;
-        private final TermEvaluator evaluator;
-        private Term cachedResult = null;
-        private boolean evaluated = false;
-
-        public Thunk(Term expression, TermEvaluator evaluator) {
-            this.expression = expression;
-            this.evaluator = evaluator;
-        }
-
-        public Term force() {
-            if (!evaluated) {
-                cachedResult = evaluator.evaluate(expression);
-                evaluated = true;
-            }
-            return cachedResult;
-        }
+    public boolean isSpecialOperator(String operator) {
+        return isSpecial(operator);
     }
 
-    public boolean isSpecialOperator(String operator) {
+    static boolean isSpecial(String operator) {
         return switch (operator) {
             case ":", "if", "+", "-", "*", "/", "%",
                  ">", "<", ">=", "<=", "=", "!=" -> true;
@@ -35,23 +14,18 @@ public class Evaluator {
         };
     }
 
+    /**
+     * Results are memoized by the calling {@link TermEvaluator} like any other call.
+     */
     public Term evaluate(Term.List list, TermEvaluator evaluator) {
-        if (evaluationCache.containsKey(list)) {
-            return evaluationCache.get(list);
-        }
-
         String funcSymbol = list.getFunctionSymbol();
-
-        Term result = switch (funcSymbol) {
+        return switch (funcSymbol) {
             case ":" -> evaluateArithmeticLazy(list, evaluator);
             case "if" -> evaluateIfLazy(list, evaluator);
             case "+", "-", "*", "/", "%", ">", "<", ">=", "<=", "=", "!=" ->
                     evaluateInfixOperatorLazy(list, evaluator);
             default -> throw new IllegalArgumentException("Not a special operator: " + funcSymbol);
         };
-
-        evaluationCache.put(list, result);
-        return result;
     }
 
     private Term evaluateIfLazy(Term.List list, TermEvaluator evaluator) {
@@ -79,19 +53,7 @@ public class Evaluator {
             throw new IllegalArgumentException("Binary operator requires 2 arguments");
         }
 
-        String op = list.getFunctionSymbol();
-
-        Thunk arg1Thunk = new Thunk(list.elements().get(1), evaluator);
-        Thunk arg2Thunk = new Thunk(list.elements().get(2), evaluator);
-
-        Term colonExpr = new Term.List(
-                Term.atom(":"),
-                Term.atom(op),
-                Term.atom("thunk1"),
-                Term.atom("thunk2")
-        );
-
-        return evaluateArithmeticWithThunks((Term.List) colonExpr, arg1Thunk, arg2Thunk);
+        return evaluateOperands(list.getFunctionSymbol(), list.elements().get(1), list.elements().get(2), evaluator);
     }
 
     private Term evaluateArithmeticLazy(Term.List list, TermEvaluator evaluator) {
@@ -99,37 +61,28 @@ public class Evaluator {
             throw new IllegalArgumentException("Arithmetic requires (: op arg1 arg2)");
         }
 
-        Term operator = list.elements().get(1);
-
-        // Erstelle Thunks für die Argumente
-        Thunk arg1Thunk = new Thunk(list.elements().get(2), evaluator);
-        Thunk arg2Thunk = new Thunk(list.elements().get(3), evaluator);
-
-        if (!(operator instanceof Term.Atom opAtom)) {
+        if (!(list.elements().get(1) instanceof Term.Atom opAtom)) {
             throw new IllegalArgumentException("Operator must be atom");
         }
 
-        return evaluateArithmeticWithThunks(list, arg1Thunk, arg2Thunk);
+        return evaluateOperands(opAtom.value(), list.elements().get(2), list.elements().get(3), evaluator);
     }
 
-    private Term evaluateArithmeticWithThunks(Term.List list, Thunk arg1Thunk, Thunk arg2Thunk) {
-        Term operator = list.elements().get(1);
-
-        if (!(operator instanceof Term.Atom opAtom)) {
-            throw new IllegalArgumentException("Operator must be atom");
-        }
-
-        Term arg1 = arg1Thunk.force();
-        Term arg2 = arg2Thunk.force();
+    /**
+     * Both operands are needed, so they are evaluated directly, left to right.
+     */
+    private Term evaluateOperands(String op, Term left, Term right, TermEvaluator evaluator) {
+        Term arg1 = evaluator.evaluate(left);
+        Term arg2 = evaluator.evaluate(right);
 
         if (!(arg1 instanceof Term.Atom a1) || !(arg2 instanceof Term.Atom a2)) {
             throw new IllegalArgumentException("Args must be atoms: " + arg1 + ", " + arg2);
         }
 
-        return evaluateBinaryOp(opAtom.value(), a1, a2);
+        return evaluateBinaryOp(op, a1, a2);
     }
 
-    private Term evaluateBinaryOp(String op, Term.Atom arg1, Term.Atom arg2) {
+    static Term evaluateBinaryOp(String op, Term.Atom arg1, Term.Atom arg2) {
         switch (op) {
             case "=", "==" -> {
                 return Term.bool(arg1.equals(arg2));
@@ -171,4 +124,39 @@ public class Evaluator {
 
         return Term.number(result);
     }
+
+    /**
+     * Folds numbers from the right like (+ ?head (sum ?tail)), one element at a
+     * time, last element first, without keeping them. Every intermediate result
+     * is rounded the way {@link Term#number(double)} prints it, since the next
+     * step reads it back from that atom.
+     */
+    static final class RightFold {
+        private final boolean sum;
+        private double acc;
+        private double last;
+        private boolean empty = true;
+
+        RightFold(boolean sum) {
+            this.sum = sum;
+            this.acc = sum ? 0 : 1;
+        }
+
+        void add(double value) {
+            last = sum ? value + acc : value * acc;
+            acc = printedValue(last);
+            empty = false;
+        }
+
+        Term result() {
+            return empty ? Term.number(sum ? 0 : 1) : Term.number(last);
+        }
+
+        private static double printedValue(double value) {
+            if (value == (int) value) {
+                return (int) value;
+            }
+            return Double.parseDouble(String.format(java.util.Locale.ROOT, "%.6g", value));
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package core;
+
+/**
+ * Native Java implementation of a rule-defined function.
+ * Returning null means "not applicable here" and lets the rules take over.
+ */
+@FunctionalInterface
+public interface Intrinsic {
+    Term apply(Term.List call, TermEvaluator evaluator);
+}
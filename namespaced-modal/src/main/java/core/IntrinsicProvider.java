@@ -0,0 +1,9 @@
+package core;
+
+/**
+ * Service provider interface for intrinsics, discovered via
+ * {@link java.util.ServiceLoader} (META-INF/services/core.IntrinsicProvider).
+ */
+public interface IntrinsicProvider {
+    void register(IntrinsicRegistry registry);
+}
@@ -0,0 +1,186 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Dispatch table from (function symbol, arity) to an {@link Intrinsic}.
+ * Symbols are mapped to dense ids once, lookups are then two array accesses.
+ */
+public class IntrinsicRegistry {
+
+    public static final class Binding {
+        private final String symbol;
+        private final int arity;
+        private final Intrinsic intrinsic;
+        private final Map<String, java.util.List<String>> definition;
+
+        private RuleSet checkedRuleSet;
+        private long checkedVersion = -1;
+        private boolean active;
+
+        private Binding(String symbol, int arity, Intrinsic intrinsic, Map<String, java.util.List<String>> definition) {
+            this.symbol = symbol;
+            this.arity = arity;
+            this.intrinsic = intrinsic;
+            this.definition = definition;
+        }
+
+        public String symbol() { return symbol; }
+        public int arity() { return arity; }
+        public Intrinsic intrinsic() { return intrinsic; }
+
+        /**
+         * The function symbols whose rules this intrinsic stands for.
+         */
+        public Set<String> definedSymbols() {
+            return definition.keySet();
+        }
+
+        public boolean replacesRules() {
+            return !definition.isEmpty();
+        }
+
+        /**
+         * An intrinsic that replaces rules is only used while the rule set still
+         * contains exactly those rules. An empty definition means "always active".
+         */
+        public boolean isActiveFor(RuleSet ruleSet) {
+            if (definition.isEmpty()) {
+                return true;
+            }
+            if (checkedRuleSet != ruleSet || checkedVersion != ruleSet.getVersion()) {
+                checkedRuleSet = ruleSet;
+                checkedVersion = ruleSet.getVersion();
+                active = matchesDefinition(ruleSet);
+            }
+            return active;
+        }
+
+        private boolean matchesDefinition(RuleSet ruleSet) {
+            for (Map.Entry<String, java.util.List<String>> entry : definition.entrySet()) {
+                if (!hasExactly(ruleSet, entry.getKey(), entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return symbol + "/" + arity;
+        }
+    }
+
+    /**
+     * True if the rules of the symbol are exactly these, as printed by {@link Rule#toString()},
+     * in this order. Optimized rules are compared in their original form.
+     */
+    static boolean hasExactly(RuleSet ruleSet, String symbol, java.util.List<String> definition) {
+        java.util.List<Rule> rules = ruleSet.getRulesForFunction(symbol);
+        if (rules.size() != definition.size()) {
+            return false;
+        }
+        for (int i = 0; i < rules.size(); i++) {
+            if (!ruleSet.sourceOf(rules.get(i)).toString().equals(definition.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private Binding[][] table = new Binding[16][];
+    private long version;
+
+    public static IntrinsicRegistry empty() {
+        return new IntrinsicRegistry();
+    }
+
+    public static IntrinsicRegistry loadDefault() {
+        IntrinsicRegistry registry = new IntrinsicRegistry();
+        for (IntrinsicProvider provider : ServiceLoader.load(IntrinsicProvider.class)) {
+            provider.register(registry);
+        }
+        return registry;
+    }
+
+    public void register(String symbol, int arity, Intrinsic intrinsic) {
+        register(symbol, arity, intrinsic, Map.of());
+    }
+
+    /**
+     * @param definition rules (as printed by {@link Rule#toString()}) per function symbol
+     *                   that the intrinsic is equivalent to
+     */
+    public void register(String symbol, int arity, Intrinsic intrinsic, Map<String, java.util.List<String>> definition) {
+        if (arity < 0) {
+            throw new IllegalArgumentException("Arity must not be negative: " + arity);
+        }
+
+        int id = symbolIds.computeIfAbsent(symbol, k -> symbolIds.size());
+        if (id >= table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+
+        Binding[] byArity = table[id];
+        if (byArity == null || byArity.length <= arity) {
+            byArity = byArity == null ? new Binding[arity + 1] : Arrays.copyOf(byArity, arity + 1);
+            table[id] = byArity;
+        }
+        byArity[arity] = new Binding(symbol, arity, intrinsic, Map.copyOf(definition));
+        version++;
+    }
+
+    public boolean unregister(String symbol, int arity) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null || table[id] == null || table[id].length <= arity || table[id][arity] == null) {
+            return false;
+        }
+        table[id][arity] = null;
+        version++;
+        return true;
+    }
+
+    /**
+     * Incremented on every registration and removal, so evaluators drop results
+     * computed with the previous bindings.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Binding lookup(String symbol, int arity) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null) {
+            return null;
+        }
+        Binding[] byArity = table[id];
+        return byArity != null && arity < byArity.length ? byArity[arity] : null;
+    }
+
+    public boolean defines(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id == null || table[id] == null) {
+            return false;
+        }
+        for (Binding binding : table[id]) {
+            if (binding != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public java.util.List<Binding> getBindings() {
+        java.util.List<Binding> bindings = new ArrayList<>();
+        for (Binding[] byArity : table) {
+            if (byArity == null) continue;
+            for (Binding binding : byArity) {
+                if (binding != null) {
+                    bindings.add(binding);
+                }
+            }
+        }
+        return bindings;
+    }
+}
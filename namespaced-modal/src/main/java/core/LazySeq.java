@@ -0,0 +1,119 @@
+package core;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Element list of a lazy cons cell (head . tail). The tail is a suspension that
+ * is computed when it is first accessed and then kept. Memory therefore grows
+ * only with the part of the sequence that is actually consumed.
+ *
+ * To everything else a lazy cell is the list (head . tail) the cons rule would
+ * have built: patterns match it the same way, so (?head . ?tail) binds the rest
+ * (. tail) - a view on the cell that does not force the tail either. Evaluating
+ * it returns it unchanged, printing, hashing or comparing it forces it.
+ */
+public final class LazySeq extends AbstractList<Term> implements RandomAccess {
+    private static final Term DOT = Term.atom(".");
+
+    private final Term head;
+    private Supplier<Term> suspension;
+    private Term tail;
+    // Die Zelle, auf die diese Liste ab offset zeigt; bei der Zelle selbst this
+    private final LazySeq cell;
+    private final int offset;
+
+    private LazySeq(Term head, Supplier<Term> suspension) {
+        this.head = head;
+        this.suspension = suspension;
+        this.cell = this;
+        this.offset = 0;
+    }
+
+    private LazySeq(LazySeq cell, int offset) {
+        this.head = null;
+        this.cell = cell;
+        this.offset = offset;
+    }
+
+    public static Term cell(Term head, Supplier<Term> tail) {
+        return new Term.List(new LazySeq(head, tail));
+    }
+
+    public static boolean isLazy(Term term) {
+        return term instanceof Term.List list && list.elements() instanceof LazySeq;
+    }
+
+    /**
+     * The integers from..to-1 as (from . (from+1 . ... ())), generated on demand.
+     */
+    public static Term range(long from, long to) {
+        if (from >= to) {
+            return Term.nil();
+        }
+        return cell(new Term.Atom(Long.toString(from)), () -> range(from + 1, to));
+    }
+
+    public Term head() {
+        return cell.head;
+    }
+
+    public Term tail() {
+        return cell.force();
+    }
+
+    public boolean isRealized() {
+        return cell.realized();
+    }
+
+    /**
+     * The elements after the first, as {@link Term.List#tail()} cuts them off.
+     */
+    Term.List rest() {
+        return new Term.List(new LazySeq(cell, offset + 1));
+    }
+
+    private synchronized Term force() {
+        if (suspension != null) {
+            tail = suspension.get();
+            suspension = null;
+        }
+        return tail;
+    }
+
+    private synchronized boolean realized() {
+        return suspension == null;
+    }
+
+    @Override
+    public Term get(int index) {
+        Objects.checkIndex(index, size());
+        return switch (index + offset) {
+            case 0 -> cell.head;
+            case 1 -> DOT;
+            default -> tail();
+        };
+    }
+
+    @Override
+    public int size() {
+        return 3 - offset;
+    }
+
+    /**
+     * Equal to any list with the same elements, eager or lazy, since it is also
+     * matched like one. Two views on the same cell are equal without forcing it.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof LazySeq other && other.cell == cell && other.offset == offset) {
+            return true;
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
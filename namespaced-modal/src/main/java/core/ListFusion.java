@@ -0,0 +1,128 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Deforestation for a consumer of a data file, e.g. (fold-left f 0 (data-file
+ * path)). The consumer (sum, product, length, fold-left) is evaluated atom by
+ * atom as the file is read, the chain of data cells is never walked by rules.
+ * sum and product read the file from the end, so even their right fold holds
+ * no more than the current element.
+ *
+ * This is the value the evaluation computes when the consumer evaluates its
+ * arguments first (innermost strategy or @strict): its rules walk a data cell
+ * by its tail. A list built by cons is not walked that way - (?head . ?tail)
+ * binds the rest of (h . t) as (. t) - so a range or the result of map, filter
+ * or take, lazy or not, never folds like this under the rules and is left to
+ * them. Anything else - another strategy, redefined rules of the consumer -
+ * leaves the call to the normal evaluation as well.
+ */
+final class ListFusion {
+    private static final Term APPLY2 = Term.atom("apply2");
+
+    // Regeln wie in rules/modules, gegen die geprüft wird
+    private static final Map<String, java.util.List<String>> DEFINITIONS = Map.of(
+            "sum", java.util.List.of(
+                    "<math.sum.empty> (sum ()) 0",
+                    "<math.sum> (sum (?head . ?tail)) (+ ?head (sum ?tail))"),
+            "product", java.util.List.of(
+                    "<math.product.empty> (product ()) 1",
+                    "<math.product> (product (?head . ?tail)) (* ?head (product ?tail))"),
+            "length", java.util.List.of(
+                    "<list.length.empty> (length ()) 0",
+                    "<list.length> (length (?head . ?tail)) (+ 1 (length ?tail))"),
+            "fold-left", java.util.List.of(
+                    "<hof.fold.left.empty> (fold-left ?fn ?acc ()) ?acc",
+                    "<hof.fold.left> (fold-left ?fn ?acc (?head . ?tail)) (fold-left ?fn (apply2 ?fn ?acc ?head) ?tail)"));
+
+    private static final Set<String> CONSUMERS = DEFINITIONS.keySet();
+
+    private final Map<String, Boolean> standard = new HashMap<>();
+    private RuleSet checkedRuleSet;
+    private long checkedVersion = -1;
+
+    static boolean isConsumer(String symbol) {
+        return CONSUMERS.contains(symbol);
+    }
+
+    /**
+     * The value of the consumer call, or null if it cannot be fused.
+     */
+    Term tryFuse(Term.List call, TermEvaluator evaluator) {
+        String consumer = call.getFunctionSymbol();
+        int arity = consumer.equals("fold-left") ? 3 : 1;
+        if (call.elements().size() != arity + 1) {
+            return null;
+        }
+        if (!(call.elements().get(arity) instanceof Term.List origin) || origin.elements().size() != 2
+                || !DataSource.SYMBOL.equals(origin.getFunctionSymbol())) {
+            return null;
+        }
+        if (!isStandard(consumer, evaluator) || !evaluator.evaluatesAllArguments(call)) {
+            return null;
+        }
+
+        // Argumente in der Reihenfolge, in der die Regeln sie auswerten würden
+        Term[] consumerArguments = new Term[arity - 1];
+        for (int i = 0; i < consumerArguments.length; i++) {
+            consumerArguments[i] = evaluator.evaluateNested(call.elements().get(i + 1));
+        }
+        Term value = evaluator.evaluateNested(origin);
+        Term result;
+        if (consumer.equals("fold-left")) {
+            // Die Regel faltet von links, ein Schritt pro Atom
+            Iterator<Term> elements = fileElements(value);
+            if (elements == null) {
+                return null;
+            }
+            Term acc = consumerArguments[1];
+            while (elements.hasNext()) {
+                acc = evaluator.evaluateNested(new Term.List(APPLY2, consumerArguments[0], acc, elements.next()));
+            }
+            result = acc;
+        } else {
+            // DataSource liest die Zahlen direkt, ohne Atome zu erzeugen
+            result = switch (consumer) {
+                case "sum" -> DataSource.sum(value);
+                case "product" -> DataSource.product(value);
+                default -> DataSource.length(value);
+            };
+        }
+        if (result != null) {
+            evaluator.recordDependencies(Set.of(consumer, DataSource.SYMBOL));
+        }
+        return result;
+    }
+
+    /**
+     * The atoms of the data file the call evaluated to, or null if it is something else.
+     */
+    private static Iterator<Term> fileElements(Term value) {
+        if (value instanceof Term.List list && list.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+        DataSource.Cell cell = DataSource.cellOf(value);
+        return cell != null ? cell.atoms(false) : null;
+    }
+
+    /**
+     * True while the rules of the symbol are the standard ones, checked once per rule set version.
+     */
+    private boolean isStandard(String symbol, TermEvaluator evaluator) {
+        RuleSet ruleSet = evaluator.getRuleSet();
+        if (checkedRuleSet != ruleSet || checkedVersion != ruleSet.getVersion()) {
+            standard.clear();
+            checkedRuleSet = ruleSet;
+            checkedVersion = ruleSet.getVersion();
+        }
+        Boolean known = standard.get(symbol);
+        if (known == null) {
+            known = IntrinsicRegistry.hasExactly(ruleSet, symbol, DEFINITIONS.get(symbol))
+                    && evaluator.seesAllRulesOf(symbol);
+            // Das Laden eines Moduls ändert die Version, das Ergebnis gilt trotzdem
+            checkedVersion = ruleSet.getVersion();
+            standard.put(symbol, known);
+        }
+        return known;
+    }
+}
@@ -0,0 +1,104 @@
+package core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Memoized results of one {@link TermEvaluator}. Every entry keeps the function
+ * symbols whose rules were consulted while it was computed, and an inverse index
+ * from symbol to entries, so a rule change drops exactly the results that could
+ * have used it: editing a unit rule leaves the math results warm.
+ *
+ * A bounded table evicts by its {@link Tabling.Eviction} policy once it is full.
+ */
+final class MemoTable {
+
+    record Entry(Term value, Set<String> symbols) {
+    }
+
+    private final Map<Term, Entry> entries;
+    private final Map<String, Set<Term>> dependents = new HashMap<>();
+    private long evictions;
+
+    MemoTable() {
+        entries = new HashMap<>();
+    }
+
+    MemoTable(Tabling tabling) {
+        boolean accessOrder = tabling.eviction() == Tabling.Eviction.LRU;
+        entries = new LinkedHashMap<>(16, 0.75f, accessOrder) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Term, Entry> eldest) {
+                if (size() <= tabling.capacity()) {
+                    return false;
+                }
+                unlink(eldest.getKey(), eldest.getValue().symbols());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    Entry get(Term term) {
+        return entries.get(term);
+    }
+
+    /**
+     * The symbol set must be immutable, it is shared with the caller.
+     */
+    void put(Term term, Term value, Set<String> symbols) {
+        Entry previous = entries.put(term, new Entry(value, symbols));
+        if (previous != null) {
+            unlink(term, previous.symbols());
+        }
+        for (String symbol : symbols) {
+            dependents.computeIfAbsent(symbol, k -> new HashSet<>()).add(term);
+        }
+    }
+
+    /**
+     * Drops every entry whose evaluation used a rule of one of these symbols.
+     */
+    int invalidate(Set<String> symbols) {
+        int removed = 0;
+        for (String symbol : symbols) {
+            Set<Term> terms = dependents.remove(symbol);
+            if (terms == null) {
+                continue;
+            }
+            for (Term term : terms) {
+                Entry entry = entries.remove(term);
+                if (entry != null) {
+                    removed++;
+                    unlink(term, entry.symbols());
+                }
+            }
+        }
+        return removed;
+    }
+
+    void clear() {
+        entries.clear();
+        dependents.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    private void unlink(Term term, Set<String> symbols) {
+        for (String symbol : symbols) {
+            Set<Term> terms = dependents.get(symbol);
+            if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                dependents.remove(symbol);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Which rules of a {@link RuleSet} are optimized versions of which loaded rules,
+ * and which symbols' forwarding rules were inlined into them, so the originals
+ * can come back when one of those symbols changes. Guarded by the lock of the
+ * rule set.
+ */
+final class Optimizations {
+    // Optimierte Regel -> Original, und Symbol -> Regeln, in die seine Regel eingesetzt wurde
+    private final Map<Rule, Rule> sources = new HashMap<>();
+    private final Map<String, Set<Rule>> inlinedInto = new HashMap<>();
+
+    Rule sourceOf(Rule rule) {
+        return sources.getOrDefault(rule, rule);
+    }
+
+    void record(Rule optimized, Rule source, Set<String> inlinedSymbols) {
+        if (optimized.equals(source)) {
+            return;
+        }
+        sources.put(optimized, source);
+        for (String symbol : inlinedSymbols) {
+            inlinedInto.computeIfAbsent(symbol, k -> new HashSet<>()).add(optimized);
+        }
+    }
+
+    /**
+     * The optimized rules the symbol was inlined into; they no longer depend on it.
+     */
+    Set<Rule> removeDependents(String functionSymbol) {
+        Set<Rule> dependents = inlinedInto.remove(functionSymbol);
+        return dependents != null ? dependents : Collections.emptySet();
+    }
+
+    Set<String> inlinedSymbolsOf(Rule optimized) {
+        if (!sources.containsKey(optimized)) {
+            return Collections.emptySet();
+        }
+        Set<String> symbols = new HashSet<>();
+        inlinedInto.forEach((symbol, dependents) -> {
+            if (dependents.contains(optimized)) {
+                symbols.add(symbol);
+            }
+        });
+        return symbols;
+    }
+
+    void forget(Rule rule) {
+        if (sources.remove(rule) != null) {
+            inlinedInto.values().forEach(dependents -> dependents.remove(rule));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Element list of a {@link Term.List} whose elements are all numbers, stored
+ * unboxed in a long[] (integers) or double[] (everything else).
+ * Atoms are created on access, so to the matcher it is just a list.
+ *
+ * Only atoms in canonical form are packed ("7", not "07" or "7.0"),
+ * so that every element prints exactly as it was written.
+ */
+public final class PackedNumbers extends AbstractList<Term> implements RandomAccess {
+    private final long[] longs;
+    private final double[] doubles;
+    private final int offset;
+    private final int size;
+
+    private PackedNumbers(long[] longs, double[] doubles, int offset, int size) {
+        this.longs = longs;
+        this.doubles = doubles;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    public static PackedNumbers ofLongs(long[] values) {
+        return new PackedNumbers(values, null, 0, values.length);
+    }
+
+    public static PackedNumbers ofDoubles(double[] values) {
+        return new PackedNumbers(null, values, 0, values.length);
+    }
+
+    /**
+     * Packs the elements if all of them are canonical numbers, otherwise returns null.
+     */
+    public static PackedNumbers tryPack(java.util.List<Term> elements) {
+        if (elements.isEmpty()) {
+            return null;
+        }
+        if (elements instanceof PackedNumbers packed) {
+            return packed;
+        }
+
+        long[] longs = new long[elements.size()];
+        boolean allLongs = true;
+        for (int i = 0; i < longs.length && allLongs; i++) {
+            if (!(elements.get(i) instanceof Term.Atom atom)) {
+                return null;
+            }
+            try {
+                longs[i] = Long.parseLong(atom.value());
+                allLongs = Long.toString(longs[i]).equals(atom.value());
+            } catch (NumberFormatException e) {
+                allLongs = false;
+            }
+        }
+        if (allLongs) {
+            return ofLongs(longs);
+        }
+
+        double[] doubles = new double[elements.size()];
+        for (int i = 0; i < doubles.length; i++) {
+            if (!(elements.get(i) instanceof Term.Atom atom) || !atom.isNumber()) {
+                return null;
+            }
+            doubles[i] = atom.asDouble();
+            if (!Term.number(doubles[i]).equals(atom)) {
+                return null;
+            }
+        }
+        return ofDoubles(doubles);
+    }
+
+    /**
+     * The numbers as the cons chain (x0 . (x1 . ... (xn . ()))) that rule-built
+     * lists have. Cells are views on the shared array and are created on access.
+     */
+    public Term toChain() {
+        return size == 0 ? Term.nil() : new Term.List(new ChainCell(this, 0));
+    }
+
+    static boolean isChain(java.util.List<Term> elements) {
+        return elements instanceof ChainCell;
+    }
+
+    public boolean isIntegral() {
+        return longs != null;
+    }
+
+    @Override
+    public Term get(int index) {
+        Objects.checkIndex(index, size);
+        return longs != null
+                ? new Term.Atom(Long.toString(longs[offset + index]))
+                : Term.number(doubles[offset + index]);
+    }
+
+    public double getDouble(int index) {
+        Objects.checkIndex(index, size);
+        return longs != null ? longs[offset + index] : doubles[offset + index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public PackedNumbers subList(int fromIndex, int toIndex) {
+        Objects.checkFromToIndex(fromIndex, toIndex, size);
+        return new PackedNumbers(longs, doubles, offset + fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * Same result as folding (+ ?head (sum ?tail)) from the right with the
+     * arithmetic of {@link Evaluator}, including its rounding per step.
+     */
+    public Term sum() {
+        if (longs != null) {
+            long sum = 0;
+            long sumAbs = 0;
+            boolean small = true;
+            for (int i = offset, end = offset + size; i < end; i++) {
+                long value = longs[i];
+                small &= value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+                sum += value;
+                sumAbs += Math.abs(value);
+            }
+            // Passen alle Teilsummen in ein int, rechnet die Regel exakt
+            if (small && sumAbs <= Integer.MAX_VALUE) {
+                return Term.number((int) sum);
+            }
+        }
+        return foldRight("+", "0");
+    }
+
+    /**
+     * Same result as folding (* ?head (product ?tail)) from the right.
+     */
+    public Term product() {
+        if (longs != null) {
+            long product = 1;
+            boolean exact = true;
+            for (int i = offset + size - 1; i >= offset && exact; i--) {
+                long value = longs[i];
+                exact = value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+                product *= value;
+                exact &= product >= Integer.MIN_VALUE && product <= Integer.MAX_VALUE;
+            }
+            if (exact) {
+                return Term.number((int) product);
+            }
+        }
+        return foldRight("*", "1");
+    }
+
+    private Term foldRight(String op, String identity) {
+        Term.Atom acc = new Term.Atom(identity);
+        for (int i = size - 1; i >= 0; i--) {
+            acc = (Term.Atom) Evaluator.evaluateBinaryOp(op, (Term.Atom) get(i), acc);
+        }
+        return acc;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (o instanceof PackedNumbers other && other.size == size && (other.longs != null) == (longs != null)) {
+            return longs != null
+                    ? Arrays.equals(longs, offset, offset + size, other.longs, other.offset, other.offset + size)
+                    : Arrays.equals(doubles, offset, offset + size, other.doubles, other.offset, other.offset + size);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    private static final class ChainCell extends AbstractList<Term> implements RandomAccess {
+        private static final Term DOT = Term.atom(".");
+
+        private final PackedNumbers numbers;
+        private final int index;
+
+        private ChainCell(PackedNumbers numbers, int index) {
+            this.numbers = numbers;
+            this.index = index;
+        }
+
+        @Override
+        public Term get(int i) {
+            return switch (i) {
+                case 0 -> numbers.get(index);
+                case 1 -> DOT;
+                case 2 -> index + 1 < numbers.size
+                        ? new Term.List(new ChainCell(numbers, index + 1))
+                        : Term.nil();
+                default -> throw new IndexOutOfBoundsException(i);
+            };
+        }
+
+        @Override
+        public int size() {
+            return 3;
+        }
+    }
+}
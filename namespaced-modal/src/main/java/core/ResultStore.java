@@ -0,0 +1,292 @@
+package core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Results kept on disk across processes, consulted by a {@link TermEvaluator}
+ * after its memo misses. The file is append-only:
+ *
+ *   header:  "MODALRS1"
+ *   record:  int length | long fingerprint | long term hash | key | value | symbols
+ *
+ * The fingerprint identifies rule set, strategy and scope the result was computed
+ * with (see {@link RuleSet#contentHash()}), records of other fingerprints are simply
+ * never found. Terms are stored in prefix form: 'A' + UTF string, or 'L' + count +
+ * elements. Symbols are the rule dependencies of the result, so a result read from
+ * the store is invalidated in memory like a computed one.
+ *
+ * Records are read from a memory mapping of the file; the index (fingerprint and
+ * term hash to offset) is rebuilt when the store is opened. New results are
+ * buffered and appended by {@link #flush()} under a file lock, so several processes
+ * may share one file. A torn record at the end, left by a crashed process, is cut off
+ * on open.
+ */
+public final class ResultStore implements AutoCloseable {
+    private static final byte[] MAGIC = "MODALRS1".getBytes(StandardCharsets.US_ASCII);
+    private static final int RECORD_HEADER = 4 + 8 + 8;
+
+    private final FileChannel channel;
+    private final Map<Long, Integer> index = new HashMap<>();
+    private final Set<Long> fingerprints = new HashSet<>();
+    private MappedByteBuffer mapped;
+    private long end;
+
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private final java.util.List<long[]> pendingKeys = new ArrayList<>();
+
+    private ResultStore(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static ResultStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ResultStore store = new ResultStore(channel);
+        try {
+            FileLock lock = channel.lock();
+            store.rebuildIndex();
+            lock.release();
+        } catch (IOException | RuntimeException e) {
+            // Schließen gibt auch die Sperre frei
+            channel.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void rebuildIndex() throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+            end = MAGIC.length;
+            return;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Result store too large: " + size + " bytes");
+        }
+        remap(size);
+        byte[] magic = new byte[MAGIC.length];
+        if (size >= MAGIC.length) {
+            mapped.get(0, magic);
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a result store");
+        }
+
+        int offset = MAGIC.length;
+        while (offset + RECORD_HEADER <= size) {
+            int length = mapped.getInt(offset);
+            if (length < RECORD_HEADER || offset + (long) length > size) {
+                break;
+            }
+            long fingerprint = mapped.getLong(offset + 4);
+            index.put(key(fingerprint, mapped.getLong(offset + 12)), offset);
+            fingerprints.add(fingerprint);
+            offset += length;
+        }
+        if (offset < size) {
+            channel.truncate(offset);
+        }
+        end = offset;
+    }
+
+    /**
+     * True if any result was stored for this fingerprint, so a lookup can be skipped cheaply.
+     */
+    public boolean contains(long fingerprint) {
+        return fingerprints.contains(fingerprint);
+    }
+
+    /**
+     * Number of indexed results, of all fingerprints.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    MemoTable.Entry get(long fingerprint, Term term) {
+        Integer offset = index.get(key(fingerprint, hash(term)));
+        if (offset == null) {
+            return null;
+        }
+        if (mapped == null || offset >= mapped.limit()) {
+            remap(end);
+        }
+        ByteBuffer record = mapped.duplicate().position(offset + RECORD_HEADER);
+        if (mapped.getLong(offset + 4) != fingerprint || !readTerm(record).equals(term)) {
+            return null;
+        }
+        Term value = readTerm(record);
+        int count = record.getInt();
+        Set<String> symbols = new HashSet<>(count);
+        for (int i = 0; i < count; i++) {
+            symbols.add(readString(record));
+        }
+        return new MemoTable.Entry(value, Set.copyOf(symbols));
+    }
+
+    /**
+     * Buffers a result until the next {@link #flush()}.
+     */
+    void put(long fingerprint, Term term, Term value, Set<String> symbols) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            long hash = hash(term);
+            out.writeInt(0);
+            out.writeLong(fingerprint);
+            out.writeLong(hash);
+            writeTerm(out, term);
+            writeTerm(out, value);
+            out.writeInt(symbols.size());
+            for (String symbol : symbols) {
+                writeString(out, symbol);
+            }
+            pendingKeys.add(new long[]{fingerprint, hash, pending.size()});
+        } catch (IOException e) {
+            // Atome über 64K werden nicht gespeichert
+            return;
+        }
+        byte[] record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(0, record.length);
+        pending.writeBytes(record);
+    }
+
+    /**
+     * Appends the buffered results to the file.
+     */
+    public void flush() {
+        if (pending.size() == 0) {
+            return;
+        }
+        try {
+            FileLock lock = channel.lock();
+            try {
+                append();
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write result store", e);
+        } finally {
+            pending.reset();
+            pendingKeys.clear();
+        }
+    }
+
+    private void append() throws IOException {
+        // Andere Prozesse können inzwischen angehängt haben
+        long start = channel.size();
+        if (start + pending.size() > Integer.MAX_VALUE) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+        long position = start;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        for (long[] key : pendingKeys) {
+            index.put(key(key[0], key[1]), (int) (start + key[2]));
+            fingerprints.add(key[0]);
+        }
+        end = position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void remap(long size) {
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map result store", e);
+        }
+    }
+
+    private static long key(long fingerprint, long termHash) {
+        return fingerprint * 0x9E3779B97F4A7C15L + termHash;
+    }
+
+    /**
+     * 64-bit FNV-1a over the structure of the term, the same in every process.
+     */
+    static long hash(Term term) {
+        long hash = 0xcbf29ce484222325L;
+        Deque<Term> stack = new ArrayDeque<>();
+        stack.push(term);
+        while (!stack.isEmpty()) {
+            Term current = stack.pop();
+            if (current instanceof Term.List list) {
+                java.util.List<Term> elements = list.elements();
+                hash = (hash ^ ('L' + 31L * elements.size())) * 0x100000001b3L;
+                for (int i = elements.size() - 1; i >= 0; i--) {
+                    stack.push(elements.get(i));
+                }
+            } else {
+                String value = current.toString();
+                hash = (hash ^ 'A') * 0x100000001b3L;
+                for (int i = 0; i < value.length(); i++) {
+                    hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+                }
+            }
+        }
+        return hash;
+    }
+
+    private static void writeTerm(DataOutputStream out, Term term) throws IOException {
+        if (term instanceof Term.List list) {
+            out.writeByte('L');
+            out.writeInt(list.elements().size());
+            for (Term element : list.elements()) {
+                writeTerm(out, element);
+            }
+        } else {
+            out.writeByte('A');
+            writeString(out, term.toString());
+        }
+    }
+
+    private static Term readTerm(ByteBuffer in) {
+        byte tag = in.get();
+        if (tag == 'A') {
+            return new Term.Atom(readString(in));
+        }
+        int size = in.getInt();
+        java.util.List<Term> elements = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            elements.add(readTerm(in));
+        }
+        return Term.List.wrap(elements);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for result store");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[Short.toUnsignedInt(in.getShort())];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
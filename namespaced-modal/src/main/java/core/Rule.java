@@ -1,17 +1,92 @@
 package core;
 
-public record Rule(String namespace, String name, Term pattern, Term replacement) {
+import java.util.Objects;
+
+public final class Rule {
+    private final String namespace;
+    private final String name;
+    private final Term pattern;
+    private final Term replacement;
+    private final String fullName;
+    // Beim ersten Zugriff bestimmt: 0 = noch offen, 1 = Base Case, 2 = nicht
+    private byte baseCase;
+    private Template template;
+
+    public Rule(String namespace, String name, Term pattern, Term replacement) {
+        this.namespace = namespace;
+        this.name = name;
+        this.pattern = pattern;
+        this.replacement = replacement;
+        // Wird bei jedem Entfernen und Nachschlagen gebraucht, daher nur einmal bauen
+        this.fullName = namespace + "." + name;
+    }
+
+    public String namespace() {
+        return namespace;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Term pattern() {
+        return pattern;
+    }
+
+    public Term replacement() {
+        return replacement;
+    }
 
     public String fullName() {
-        return namespace + "." + name;
+        return fullName;
+    }
+
+    /**
+     * The replacement compiled for instantiation, built on first use.
+     */
+    Template template() {
+        Template compiled = template;
+        if (compiled == null) {
+            compiled = Template.compile(replacement);
+            template = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * Base cases are tried before all other rules of a symbol. Classified once per
+     * rule; threads racing on the first access compute the same value.
+     */
+    boolean isBaseCase() {
+        byte known = baseCase;
+        if (known == 0) {
+            known = RuleRewriter.classifyBaseCase(this) ? (byte) 1 : (byte) 2;
+            baseCase = known;
+        }
+        return known == 1;
     }
 
     public boolean matches(String functionSymbol) {
         return name.equals(functionSymbol);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        return o instanceof Rule other &&
+                fullName.equals(other.fullName) &&
+                namespace.equals(other.namespace) &&
+                pattern.equals(other.pattern) &&
+                replacement.equals(other.replacement);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(namespace, name, pattern, replacement);
+    }
+
     @Override
     public String toString() {
         return "<" + fullName() + "> " + pattern + " " + replacement;
     }
-}
\ No newline at end of file
+}
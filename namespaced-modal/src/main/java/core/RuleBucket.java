@@ -0,0 +1,142 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Rules in insertion order, keyed by a sequence number so that a single rule
+ * can be removed in O(1). The list view grows with each added rule; only a
+ * removal or replacement rebuilds it, lazily on the next access.
+ */
+final class RuleBucket {
+    private final LinkedHashMap<Long, Rule> rules = new LinkedHashMap<>();
+    // Wird nur angehängt; jede Sicht liest nur ihren Anfang, daher teilen sie sich das Array
+    private Rule[] ordered = new Rule[0];
+    private int orderedSize;
+    private volatile java.util.List<Rule> snapshot = new Snapshot(ordered, 0);
+
+    void put(long seq, Rule rule) {
+        if (rules.put(seq, rule) == null && snapshot != null) {
+            if (orderedSize == ordered.length) {
+                ordered = Arrays.copyOf(ordered, Math.max(4, 2 * orderedSize));
+            }
+            ordered[orderedSize++] = rule;
+            snapshot = new Snapshot(ordered, orderedSize);
+        } else {
+            snapshot = null;
+        }
+    }
+
+    void remove(long seq) {
+        rules.remove(seq);
+        snapshot = null;
+    }
+
+    boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    int size() {
+        return rules.size();
+    }
+
+    /**
+     * The rules with their sequence numbers, in insertion order.
+     */
+    Set<Map.Entry<Long, Rule>> entries() {
+        return Collections.unmodifiableMap(rules).entrySet();
+    }
+
+    java.util.List<Rule> list() {
+        java.util.List<Rule> current = snapshot;
+        return current != null ? current : rebuild();
+    }
+
+    private synchronized java.util.List<Rule> rebuild() {
+        if (snapshot == null) {
+            ordered = rules.values().toArray(new Rule[0]);
+            orderedSize = ordered.length;
+            snapshot = new Snapshot(ordered, orderedSize);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Read-only view of the rules per key, following later changes of the buckets.
+     */
+    static final class Index extends AbstractMap<String, java.util.List<Rule>> {
+        private final Map<String, RuleBucket> buckets;
+
+        Index(Map<String, RuleBucket> buckets) {
+            this.buckets = buckets;
+        }
+
+        @Override
+        public java.util.List<Rule> get(Object key) {
+            RuleBucket bucket = buckets.get(key);
+            return bucket != null ? bucket.list() : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return buckets.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return buckets.size();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(buckets.keySet());
+        }
+
+        @Override
+        public Set<Map.Entry<String, java.util.List<Rule>>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, java.util.List<Rule>>> iterator() {
+                    Iterator<Map.Entry<String, RuleBucket>> entries = buckets.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, java.util.List<Rule>> next() {
+                            Map.Entry<String, RuleBucket> entry = entries.next();
+                            return Map.entry(entry.getKey(), entry.getValue().list());
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return buckets.size();
+                }
+            };
+        }
+    }
+
+    private static final class Snapshot extends AbstractList<Rule> implements RandomAccess {
+        private final Rule[] rules;
+        private final int size;
+
+        Snapshot(Rule[] rules, int size) {
+            this.rules = rules;
+            this.size = size;
+        }
+
+        @Override
+        public Rule get(int index) {
+            Objects.checkIndex(index, size);
+            return rules[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
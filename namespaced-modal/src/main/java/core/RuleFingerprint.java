@@ -0,0 +1,41 @@
+package core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Hash of all rules and directives that is the same in every process loading the
+ * same files, see {@link RuleSet#contentHash()}. Rules are hashed per function
+ * symbol in match order, so the order modules were loaded in does not matter.
+ */
+final class RuleFingerprint {
+
+    private RuleFingerprint() {
+    }
+
+    static long of(Map<String, java.util.List<Rule>> rulesByFunction, Declarations declarations) {
+        StringBuilder text = new StringBuilder();
+        new TreeMap<>(rulesByFunction).forEach((symbol, rules) -> {
+            for (Rule rule : rules) {
+                text.append(rule).append('\n');
+            }
+        });
+        new TreeMap<>(declarations.namespaceStrategies()).forEach((namespace, strategy) ->
+                text.append("@strategy ").append(namespace).append(' ').append(strategy.name()).append('\n'));
+        new TreeMap<>(declarations.strictness()).forEach((symbol, strict) ->
+                text.append("@strict ").append(symbol).append(' ').append(Arrays.toString(strict)).append('\n'));
+        new TreeMap<>(declarations.imports()).forEach((namespace, imported) ->
+                text.append("@import ").append(namespace).append(' ').append(new TreeSet<>(imported)).append('\n'));
+        new TreeMap<>(declarations.tabling()).forEach((symbol, declaration) ->
+                text.append("@table ").append(symbol).append(' ').append(declaration).append('\n'));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.toString().getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package core;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A rule set compiled into a read-only file that processes map instead of
+ * parsing it. All processes mapping the same file share one copy of the pages,
+ * and patterns and replacements are read straight from them: a rule's terms
+ * are views like those of {@link TermArena}, only the {@link Rule} objects of
+ * the rules actually used live on the heap.
+ *
+ *   header:  "MODALRI1" | counts | section offsets          (little endian)
+ *   symbols: int end offset per symbol | UTF-8 bytes
+ *   nodes:   int tag | int a | long b                      (as in TermArena)
+ *            ATOM: a = symbol, LIST: a = element count, b = first edge,
+ *            tag | GROUND if no variable occurs in the node
+ *   edges:   int node per list element
+ *   rules:   int namespace | int name | int pattern | int replacement
+ *   directives: ints, one record per @strategy, @strict, @import and @table
+ *
+ * Atoms are interned, equal lists stored once. {@link #load()} registers one
+ * module per namespace, so a namespace's rules are only created when one of its
+ * symbols is first looked up.
+ *
+ * The views are opaque to {@link Term.List}: node count and depth are not
+ * known and each access to an element allocates a new view. Only groundness is
+ * stored, so a {@link Template} keeps the ground parts of a replacement as one
+ * heap copy per rule. Patterns are matched on the views, which allocates on
+ * every match; that is the price of the shared pages.
+ */
+public final class RuleIndex {
+    private static final byte[] MAGIC = "MODALRI1".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_BYTES = 72;
+    private static final long NODE_BYTES = 16;
+    private static final int ATOM = 1;
+    private static final int LIST = 2;
+    private static final int GROUND = 1 << 8;
+    private static final int TAG_MASK = 0xff;
+
+    private static final int STRATEGY = 1;
+    private static final int STRICT = 2;
+    private static final int IMPORT = 3;
+    private static final int TABLE = 4;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Path file;
+    private final MemorySegment segment;
+    private final int symbolCount;
+    private final int nodeCount;
+    private final long edgeCount;
+    private final int ruleCount;
+    private final int directiveInts;
+    private final long symbolsOffset;
+    private final long nodesOffset;
+    private final long edgesOffset;
+    private final long rulesOffset;
+    private final long directivesOffset;
+    // Atome werden beim ersten Zugriff dekodiert und dann geteilt
+    private final Term.Atom[] atoms;
+
+    private RuleIndex(Path file, MemorySegment segment) throws IOException {
+        this.file = file;
+        this.segment = segment;
+        if (segment.byteSize() < HEADER_BYTES
+                || !Arrays.equals(segment.asSlice(0, MAGIC.length).toArray(ValueLayout.JAVA_BYTE), MAGIC)) {
+            throw new IOException("Not a rule index: " + file);
+        }
+        symbolCount = segment.get(INT, 8);
+        nodeCount = segment.get(INT, 12);
+        edgeCount = segment.get(LONG, 16);
+        ruleCount = segment.get(INT, 24);
+        directiveInts = segment.get(INT, 28);
+        symbolsOffset = segment.get(LONG, 32);
+        nodesOffset = segment.get(LONG, 40);
+        edgesOffset = segment.get(LONG, 48);
+        rulesOffset = segment.get(LONG, 56);
+        directivesOffset = segment.get(LONG, 64);
+        if (symbolCount < 0 || nodeCount < 0 || edgeCount < 0 || ruleCount < 0 || directiveInts < 0
+                || !fits(symbolsOffset, 4L * (symbolCount + 1)) || !fits(nodesOffset, NODE_BYTES * nodeCount)
+                || !fits(edgesOffset, 4 * edgeCount) || !fits(rulesOffset, 16L * ruleCount)
+                || !fits(directivesOffset, 4L * directiveInts)) {
+            throw new IOException("Corrupt rule index: " + file);
+        }
+        atoms = new Term.Atom[symbolCount];
+    }
+
+    private boolean fits(long offset, long length) {
+        return offset >= HEADER_BYTES && offset + length <= segment.byteSize();
+    }
+
+    /**
+     * Maps the file read-only. The mapping is released when the index and all
+     * rules created from it are no longer reachable.
+     */
+    public static RuleIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new RuleIndex(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto()));
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    public long byteSize() {
+        return segment.byteSize();
+    }
+
+    /**
+     * A rule set backed by this index, with the directives applied and the rules
+     * registered as one module per namespace.
+     */
+    public RuleSet load() {
+        RuleSet ruleSet = new RuleSet();
+        applyDirectives(ruleSet);
+
+        Map<String, java.util.List<Integer>> rulesByNamespace = new LinkedHashMap<>();
+        Map<String, Set<String>> symbolsByNamespace = new HashMap<>();
+        for (int rule = 0; rule < ruleCount; rule++) {
+            String namespace = symbol(ruleField(rule, 0));
+            String symbol = functionSymbol(ruleField(rule, 2));
+            if (symbol == null) {
+                // Ohne Funktionssymbol kann die Regel keinem Modul zugeordnet werden
+                ruleSet.addRule(rule(rule));
+                continue;
+            }
+            rulesByNamespace.computeIfAbsent(namespace, k -> new ArrayList<>()).add(rule);
+            symbolsByNamespace.computeIfAbsent(namespace, k -> new HashSet<>()).add(symbol);
+        }
+        rulesByNamespace.forEach((namespace, rules) ->
+                ruleSet.addModule(namespace, symbolsByNamespace.get(namespace), () -> {
+                    RuleSet module = new RuleSet();
+                    for (int rule : rules) {
+                        module.addRule(rule(rule));
+                    }
+                    return module;
+                }));
+        return ruleSet;
+    }
+
+    private Rule rule(int rule) {
+        return new Rule(symbol(ruleField(rule, 0)), symbol(ruleField(rule, 1)),
+                term(ruleField(rule, 2)), term(ruleField(rule, 3)));
+    }
+
+    private int ruleField(int rule, int field) {
+        return segment.get(INT, rulesOffset + 16L * rule + 4L * field);
+    }
+
+    /**
+     * What {@link Term.List#getFunctionSymbol()} returns for the pattern, or null if it is no call.
+     */
+    private String functionSymbol(int node) {
+        if (tag(node) != LIST || nodeA(node) == 0) {
+            return null;
+        }
+        int head = edge(nodeB(node));
+        return tag(head) == ATOM ? symbol(nodeA(head)) : "";
+    }
+
+    private void applyDirectives(RuleSet ruleSet) {
+        int position = 0;
+        while (position < directiveInts) {
+            int kind = directive(position++);
+            String symbol = symbol(directive(position++));
+            switch (kind) {
+                case STRATEGY -> ruleSet.setNamespaceStrategy(symbol, EvaluationStrategy.values()[directive(position++)]);
+                case STRICT -> {
+                    boolean[] strict = new boolean[directive(position++)];
+                    for (int i = 0; i < strict.length; i++) {
+                        strict[i] = directive(position++) != 0;
+                    }
+                    ruleSet.setStrictness(symbol, strict);
+                }
+                case IMPORT -> {
+                    java.util.List<String> imported = new ArrayList<>();
+                    for (int i = directive(position++); i > 0; i--) {
+                        imported.add(symbol(directive(position++)));
+                    }
+                    ruleSet.addImports(symbol, imported);
+                }
+                case TABLE -> {
+                    int capacity = directive(position++);
+                    ruleSet.setTabling(symbol, new Tabling(capacity, Tabling.Eviction.values()[directive(position++)]));
+                }
+                default -> throw new IllegalStateException("Corrupt rule index " + file + ": directive " + kind);
+            }
+        }
+    }
+
+    private int directive(int index) {
+        return segment.get(INT, directivesOffset + 4L * index);
+    }
+
+    /**
+     * A view on the stored node.
+     */
+    Term term(int node) {
+        return switch (tag(node)) {
+            case ATOM -> atom(nodeA(node));
+            case LIST -> new Term.List(new Elements(this, nodeB(node), nodeA(node), (flags(node) & GROUND) != 0));
+            default -> throw new IllegalStateException("Corrupt rule index " + file + ": node " + node);
+        };
+    }
+
+    private Term.Atom atom(int symbol) {
+        Term.Atom atom = atoms[symbol];
+        if (atom == null) {
+            atom = new Term.Atom(symbol(symbol));
+            atoms[symbol] = atom;
+        }
+        return atom;
+    }
+
+    private String symbol(int symbol) {
+        Objects.checkIndex(symbol, symbolCount);
+        long blob = symbolsOffset + 4L * (symbolCount + 1);
+        int start = segment.get(INT, symbolsOffset + 4L * symbol);
+        int end = segment.get(INT, symbolsOffset + 4L * (symbol + 1));
+        return new String(segment.asSlice(blob + start, end - start).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    private int tag(int node) {
+        return flags(node) & TAG_MASK;
+    }
+
+    private int flags(int node) {
+        Objects.checkIndex(node, nodeCount);
+        return segment.get(INT, nodesOffset + NODE_BYTES * node);
+    }
+
+    private int nodeA(int node) {
+        return segment.get(INT, nodesOffset + NODE_BYTES * node + 4);
+    }
+
+    private long nodeB(int node) {
+        return segment.get(LONG, nodesOffset + NODE_BYTES * node + 8);
+    }
+
+    private int edge(long index) {
+        return segment.get(INT, edgesOffset + 4 * index);
+    }
+
+    static boolean isView(java.util.List<Term> elements) {
+        return elements instanceof Elements;
+    }
+
+    /**
+     * True for a view on a list node without variables.
+     */
+    static boolean isGroundView(java.util.List<Term> elements) {
+        return elements instanceof Elements view && view.ground;
+    }
+
+    /**
+     * Element list of a stored list node.
+     */
+    private static final class Elements extends AbstractList<Term> implements RandomAccess {
+        private final RuleIndex index;
+        private final long firstEdge;
+        private final int size;
+        private final boolean ground;
+
+        private Elements(RuleIndex index, long firstEdge, int size, boolean ground) {
+            this.index = index;
+            this.firstEdge = firstEdge;
+            this.size = size;
+            this.ground = ground;
+        }
+
+        @Override
+        public Term get(int i) {
+            Objects.checkIndex(i, size);
+            return index.term(index.edge(firstEdge + i));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public java.util.List<Term> subList(int fromIndex, int toIndex) {
+            Objects.checkFromToIndex(fromIndex, toIndex, size);
+            return new Elements(index, firstEdge + fromIndex, toIndex - fromIndex, ground);
+        }
+    }
+
+    /**
+     * Compiles all rules and directives of the rule set, loading its deferred modules.
+     */
+    public static void write(RuleSet ruleSet, Path file) throws IOException {
+        ruleSet.loadAllModules();
+        Writer writer = new Writer();
+        java.util.List<Rule> rules = ruleSet.getAllRules();
+        int[] ruleInts = new int[4 * rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            ruleInts[4 * i] = writer.symbol(rule.namespace());
+            ruleInts[4 * i + 1] = writer.symbol(rule.name());
+            ruleInts[4 * i + 2] = writer.store(rule.pattern());
+            ruleInts[4 * i + 3] = writer.store(rule.replacement());
+        }
+        writer.directives(ruleSet);
+
+        byte[][] symbols = new byte[writer.symbols.size()][];
+        long symbolBytes = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = writer.symbols.get(i).getBytes(StandardCharsets.UTF_8);
+            symbolBytes += symbols[i].length;
+        }
+        long symbolsOffset = HEADER_BYTES;
+        long nodesOffset = align(symbolsOffset + 4L * (symbols.length + 1) + symbolBytes);
+        long edgesOffset = nodesOffset + NODE_BYTES * writer.nodeCount;
+        long rulesOffset = edgesOffset + 4L * writer.edges.size();
+        long directivesOffset = rulesOffset + 4L * ruleInts.length;
+        long size = directivesOffset + 4L * writer.directives.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Rule index too large: " + size + " bytes");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC).putInt(symbols.length).putInt(writer.nodeCount).putLong(writer.edges.size())
+                .putInt(rules.size()).putInt(writer.directives.size())
+                .putLong(symbolsOffset).putLong(nodesOffset).putLong(edgesOffset).putLong(rulesOffset).putLong(directivesOffset);
+        int end = 0;
+        buffer.putInt(end);
+        for (byte[] symbol : symbols) {
+            end += symbol.length;
+            buffer.putInt(end);
+        }
+        for (byte[] symbol : symbols) {
+            buffer.put(symbol);
+        }
+        buffer.position((int) nodesOffset);
+        for (int i = 0; i < writer.nodeCount; i++) {
+            buffer.putInt(writer.nodes.get(3 * i)).putInt(writer.nodes.get(3 * i + 1)).putLong(writer.nodes.get(3 * i + 2));
+        }
+        writer.edges.forEach(buffer::putInt);
+        for (int value : ruleInts) {
+            buffer.putInt(value);
+        }
+        writer.directives.forEach(buffer::putInt);
+
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static final class Writer {
+        final java.util.List<String> symbols = new ArrayList<>();
+        final Map<String, Integer> symbolIds = new HashMap<>();
+        // tag, a, b pro Knoten
+        final java.util.List<Integer> nodes = new ArrayList<>();
+        final java.util.List<Integer> edges = new ArrayList<>();
+        final java.util.List<Integer> directives = new ArrayList<>();
+        final Map<Integer, Integer> atomNodes = new HashMap<>();
+        final Map<java.util.List<Integer>, Integer> listNodes = new HashMap<>();
+        int nodeCount;
+
+        int symbol(String value) {
+            return symbolIds.computeIfAbsent(value, k -> {
+                symbols.add(k);
+                return symbols.size() - 1;
+            });
+        }
+
+        int store(Term term) {
+            if (term instanceof Term.Atom atom) {
+                int tag = atom.isVariable() ? ATOM : ATOM | GROUND;
+                return atomNodes.computeIfAbsent(symbol(atom.value()), symbol -> node(tag, symbol, 0));
+            }
+            if (!(term instanceof Term.List list)) {
+                throw new IllegalArgumentException("Only atoms and lists can be stored: " + term);
+            }
+            java.util.List<Integer> children = new ArrayList<>(list.elements().size());
+            int tag = LIST | GROUND;
+            for (Term element : list.elements()) {
+                int child = store(element);
+                children.add(child);
+                tag &= nodes.get(3 * child) | ~GROUND;
+            }
+            Integer node = listNodes.get(children);
+            if (node == null) {
+                int first = edges.size();
+                edges.addAll(children);
+                node = node(tag, children.size(), first);
+                listNodes.put(children, node);
+            }
+            return node;
+        }
+
+        private int node(int tag, int a, int b) {
+            nodes.add(tag);
+            nodes.add(a);
+            nodes.add(b);
+            return nodeCount++;
+        }
+
+        void directives(RuleSet ruleSet) {
+            new TreeMap<>(ruleSet.getNamespaceStrategies()).forEach((namespace, strategy) ->
+                    directive(STRATEGY, namespace, strategy.ordinal()));
+            new TreeMap<>(ruleSet.getStrictnessDeclarations()).forEach((symbol, strict) -> {
+                directive(STRICT, symbol, strict.length);
+                for (boolean argument : strict) {
+                    directives.add(argument ? 1 : 0);
+                }
+            });
+            new TreeMap<>(ruleSet.getImportDeclarations()).forEach((namespace, imported) -> {
+                directive(IMPORT, namespace, imported.size());
+                for (String other : imported) {
+                    directives.add(symbol(other));
+                }
+            });
+            new TreeMap<>(ruleSet.getTablingDeclarations()).forEach((symbol, tabling) -> {
+                directive(TABLE, symbol, tabling.capacity());
+                directives.add(tabling.eviction().ordinal());
+            });
+        }
+
+        private void directive(int kind, String symbol, int value) {
+            directives.add(kind);
+            directives.add(symbol(symbol));
+            directives.add(value);
+        }
+    }
+}
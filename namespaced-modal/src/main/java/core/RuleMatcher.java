@@ -12,6 +12,14 @@ public class RuleMatcher {
         return Optional.empty();
     }
 
+    /**
+     * Matches into the given map instead of a new one. On failure the map may
+     * hold partial bindings and has to be cleared before it is used again.
+     */
+    public static boolean matchInto(Term pattern, Term term, Map<String, Term> bindings) {
+        return matchInternal(pattern, term, bindings);
+    }
+
     public static Optional<Map<String, Term>> matchDebug(Term pattern, Term term) {
         System.out.println("DEBUG MATCH: pattern=" + pattern + ", term=" + term);
         Optional<Map<String, Term>> result = match(pattern, term);
@@ -70,6 +78,10 @@ public class RuleMatcher {
         List<Term> patElements = pattern.elements();
         List<Term> termElements = term.elements();
 
+        if (termElements instanceof TermStore.View view) {
+            return matchStoredList(patElements, view.store(), view.node(), view.from(), termElements.size(), bindings);
+        }
+
         if (patElements.size() == 3 &&
                 patElements.get(1) instanceof Term.Atom dotAtom &&
                 ".".equals(dotAtom.value())) {
@@ -87,11 +99,7 @@ public class RuleMatcher {
                 return false;
             }
 
-            Term termTail = termElements.size() == 1 ?
-                    new Term.List() :
-                    new Term.List(termElements.subList(1, termElements.size()));
-
-            return matchInternal(tailPattern, termTail, bindings);
+            return matchInternal(tailPattern, tail(term), bindings);
         }
 
         if (patElements.size() != termElements.size()) {
@@ -106,6 +114,84 @@ public class RuleMatcher {
         return true;
     }
 
+    /**
+     * Matches elements from..from+size-1 of a stored list node like matchList,
+     * reading the store by node id; only bound variables get a term.
+     */
+    private static boolean matchStoredList(List<Term> patElements, TermStore store, int node, int from, int size,
+                                           Map<String, Term> bindings) {
+        if (patElements.size() == 3 &&
+                patElements.get(1) instanceof Term.Atom dotAtom &&
+                ".".equals(dotAtom.value())) {
+
+            if (size == 0 || !matchNode(patElements.get(0), store, store.element(node, from), bindings)) {
+                return false;
+            }
+
+            Term tailPattern = patElements.get(2);
+            if (tailPattern instanceof Term.List tailList) {
+                return matchStoredList(tailList.elements(), store, node, from + 1, size - 1, bindings);
+            }
+            return matchInternal(tailPattern, store.slice(node, from + 1, size - 1), bindings);
+        }
+
+        if (patElements.size() != size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (!matchNode(patElements.get(i), store, store.element(node, from + i), bindings)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchNode(Term pattern, TermStore store, int node, Map<String, Term> bindings) {
+        if (pattern instanceof Term.Atom patAtom) {
+            if (patAtom.isVariable() && !bindings.containsKey(patAtom.value())) {
+                bindings.put(patAtom.value(), store.term(node));
+                return true;
+            }
+            if (!patAtom.isVariable()) {
+                return store.isAtom(node, patAtom.value());
+            }
+        } else if (pattern instanceof Term.List patList && store.isList(node)) {
+            return matchStoredList(patList.elements(), store, node, 0, store.size(node), bindings);
+        }
+        return matchInternal(pattern, store.term(node), bindings);
+    }
+
+    /**
+     * A list (h . t) is a cons cell, as patterns write (?head . ?tail).
+     */
+    public static boolean isConsCell(Term.List list) {
+        List<Term> elements = list.elements();
+        return elements.size() == 3 &&
+                elements.get(1) instanceof Term.Atom dotAtom &&
+                ".".equals(dotAtom.value());
+    }
+
+    /**
+     * A cell of range, map, filter, take or data-file whose tail is computed on access.
+     */
+    public static boolean isLazyCell(Term.List list) {
+        return list.elements() instanceof LazySeq || list.elements() instanceof DataSource.Cell;
+    }
+
+    /**
+     * Tail of a non-empty list as seen by the pattern (?head . ?tail). A data cell
+     * (h . t) binds t itself, forcing it only then; every other list binds the
+     * list of its remaining elements, also when it is written (h . t) - lazy
+     * cells included, which are matched like the cons cells they stand for.
+     */
+    public static Term tail(Term.List list) {
+        if (list.elements() instanceof DataSource.Cell) {
+            return list.elements().get(2);
+        }
+        return list.tail();
+    }
+
     private static boolean isConsPattern(List<Term> elements) {
         if (elements.size() != 2) return false;
         Term second = elements.get(1);
@@ -134,11 +220,15 @@ public class RuleMatcher {
         }
 
         if (template instanceof Term.List list) {
-            List<Term> newElements = new ArrayList<>();
+            if (list.isGround() && list.isPlain()) {
+                // Nichts einzusetzen, der Knoten kann geteilt werden
+                return list;
+            }
+            List<Term> newElements = new ArrayList<>(list.elements().size());
             for (Term element : list.elements()) {
                 newElements.add(substitute(element, bindings));
             }
-            return new Term.List(newElements);
+            return Term.List.wrap(newElements);
         }
 
         if (template instanceof Term.Cons cons) {
@@ -0,0 +1,229 @@
+package core;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Counts how often each rule fires and tries the rules of a symbol in order of
+ * their hits. The learned order is recomputed every {@link #REORDER_INTERVAL}
+ * hits of a symbol.
+ *
+ * Only rules whose patterns are provably disjoint trade places: no term matches
+ * both, so whichever is tried first, the same rule fires. Starting point is the
+ * order {@link RuleRewriter} uses without a profile, base cases first.
+ *
+ * Hits can be saved and loaded again, one "namespace.name hits" per line, so the
+ * next session starts with the learned order.
+ */
+public final class RuleProfile {
+    static final int REORDER_INTERVAL = 256;
+    private static final String HEADER = "# modal rule profile";
+
+    private final Map<Rule, long[]> hits = new IdentityHashMap<>();
+    // Aus einer Datei geladen, gilt für alle Regeln dieses Namens
+    private final Map<String, Long> loaded = new HashMap<>();
+    private final Map<String, Ordering> orderings = new HashMap<>();
+
+    /**
+     * Learned order of the candidates of one symbol. Hits are counted here by
+     * position and added to the totals when the order is learned again.
+     */
+    static final class Ordering {
+        private final java.util.List<Rule> source;
+        private java.util.List<Rule> rules;
+        private long[] pending;
+        private int hitsSinceOrder;
+
+        private Ordering(java.util.List<Rule> source) {
+            this.source = source;
+        }
+
+        java.util.List<Rule> rules() {
+            return rules;
+        }
+
+        void recordHit(int index) {
+            pending[index]++;
+            hitsSinceOrder++;
+        }
+    }
+
+    /**
+     * The candidates of the symbol in the order they should be tried.
+     */
+    Ordering ordering(String symbol, java.util.List<Rule> candidates) {
+        Ordering ordering = orderings.get(symbol);
+        if (ordering == null || ordering.source != candidates) {
+            if (ordering != null) {
+                flush(ordering);
+            }
+            ordering = new Ordering(candidates);
+            orderings.put(symbol, ordering);
+        }
+        if (ordering.rules == null || ordering.hitsSinceOrder >= REORDER_INTERVAL) {
+            flush(ordering);
+            ordering.rules = learnOrder(candidates);
+            ordering.pending = new long[ordering.rules.size()];
+            ordering.hitsSinceOrder = 0;
+        }
+        return ordering;
+    }
+
+    private void flush(Ordering ordering) {
+        if (ordering.rules == null) {
+            return;
+        }
+        for (int i = 0; i < ordering.pending.length; i++) {
+            if (ordering.pending[i] > 0) {
+                hits.computeIfAbsent(ordering.rules.get(i), r -> new long[1])[0] += ordering.pending[i];
+                ordering.pending[i] = 0;
+            }
+        }
+    }
+
+    private void flushAll() {
+        orderings.values().forEach(this::flush);
+    }
+
+    public long getHits(Rule rule) {
+        flushAll();
+        return totalHits(rule);
+    }
+
+    private long totalHits(Rule rule) {
+        long[] count = hits.get(rule);
+        return (count != null ? count[0] : 0) + loaded.getOrDefault(rule.fullName(), 0L);
+    }
+
+    /**
+     * Symbols whose learned order differs from the declared one, with that order.
+     */
+    public Map<String, java.util.List<Rule>> getLearnedOrders() {
+        flushAll();
+        Map<String, java.util.List<Rule>> learned = new TreeMap<>();
+        orderings.forEach((symbol, ordering) -> {
+            java.util.List<Rule> order = learnOrder(ordering.source);
+            if (!order.equals(declaredOrder(ordering.source))) {
+                learned.put(symbol, order);
+            }
+        });
+        return learned;
+    }
+
+    private java.util.List<Rule> learnOrder(java.util.List<Rule> candidates) {
+        java.util.List<Rule> order = declaredOrder(candidates);
+        long[] counts = new long[order.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = totalHits(order.get(i));
+        }
+        // Insertion Sort, getauscht werden nur Nachbarn mit disjunkten Mustern
+        for (int i = 1; i < order.size(); i++) {
+            for (int j = i; j > 0 && counts[j] > counts[j - 1]
+                    && disjoint(order.get(j - 1).pattern(), order.get(j).pattern()); j--) {
+                Collections.swap(order, j, j - 1);
+                long count = counts[j];
+                counts[j] = counts[j - 1];
+                counts[j - 1] = count;
+            }
+        }
+        return java.util.List.copyOf(order);
+    }
+
+    private static java.util.List<Rule> declaredOrder(java.util.List<Rule> candidates) {
+        java.util.List<Rule> order = new ArrayList<>(candidates.size());
+        for (Rule rule : candidates) {
+            if (RuleRewriter.isBaseCase(rule)) {
+                order.add(rule);
+            }
+        }
+        for (Rule rule : candidates) {
+            if (!RuleRewriter.isBaseCase(rule)) {
+                order.add(rule);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * True only if no term can match both patterns. Variables, cons patterns and
+     * the tails of (h . t) patterns are assumed to overlap with anything.
+     */
+    static boolean disjoint(Term left, Term right) {
+        if (isVariable(left) || isVariable(right)) {
+            return false;
+        }
+        if (left instanceof Term.Atom a && right instanceof Term.Atom b) {
+            return !a.value().equals(b.value());
+        }
+        if (left instanceof Term.Atom || right instanceof Term.Atom) {
+            // Ein festes Atom passt nur auf Atome, eine Liste nie
+            return true;
+        }
+        if (!(left instanceof Term.List a) || !(right instanceof Term.List b)) {
+            return false;
+        }
+        boolean leftCell = RuleMatcher.isConsCell(a);
+        boolean rightCell = RuleMatcher.isConsCell(b);
+        if (leftCell || rightCell) {
+            if (a.isEmpty() || b.isEmpty()) {
+                return true;
+            }
+            return disjoint(a.head(), b.head());
+        }
+        java.util.List<Term> leftElements = a.elements();
+        java.util.List<Term> rightElements = b.elements();
+        if (leftElements.size() != rightElements.size()) {
+            return true;
+        }
+        for (int i = 0; i < leftElements.size(); i++) {
+            if (disjoint(leftElements.get(i), rightElements.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isVariable(Term term) {
+        return term instanceof Term.Atom atom && atom.isVariable();
+    }
+
+    public void save(Path file) throws IOException {
+        flushAll();
+        Map<String, Long> totals = new TreeMap<>(loaded);
+        hits.forEach((rule, count) -> totals.merge(rule.fullName(), count[0], Long::sum));
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (Map.Entry<String, Long> entry : totals.entrySet()) {
+                writer.write(entry.getKey() + " " + entry.getValue());
+                writer.newLine();
+            }
+        }
+    }
+
+    public static RuleProfile load(Path file) throws IOException {
+        RuleProfile profile = new RuleProfile();
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            try {
+                if (parts.length != 2) {
+                    throw new NumberFormatException();
+                }
+                profile.loaded.merge(parts[0], Long.parseLong(parts[1]), Long::sum);
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ":" + lineNumber + ": expected 'namespace.name hits'");
+            }
+        }
+        return profile;
+    }
+}
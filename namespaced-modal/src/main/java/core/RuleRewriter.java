@@ -6,10 +6,37 @@ import java.util.*;
 public class RuleRewriter {
     private final RuleSet ruleSet;
     private final Debugger debugger;
+    private final EvaluationRegion region;
+    private RuleScope scope;
+    private RuleProfile profile;
 
     public RuleRewriter(RuleSet ruleSet, Debugger debugger) {
+        this(ruleSet, debugger, new EvaluationRegion());
+    }
+
+    RuleRewriter(RuleSet ruleSet, Debugger debugger, EvaluationRegion region) {
         this.ruleSet = ruleSet;
         this.debugger = debugger;
+        this.region = region;
+    }
+
+    /**
+     * Restricts the candidate rules to a scope, null means all rules.
+     */
+    public void setScope(RuleScope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * With a profile, rules are tried in the order learned from their hits; null
+     * keeps the declared order.
+     */
+    public void setProfile(RuleProfile profile) {
+        this.profile = profile;
+    }
+
+    public RuleProfile getProfile() {
+        return profile;
     }
 
     public Optional<Term> tryRewrite(Term term) {
@@ -18,38 +45,70 @@ public class RuleRewriter {
         }
 
         String funcSymbol = list.getFunctionSymbol();
-        var rules = ruleSet.getRulesForFunction(funcSymbol);
-
-        for (Rule rule : rules) {
-            if (isBaseCase(rule)) {
-                Optional<Map<String, Term>> match = RuleMatcher.match(rule.pattern(), term);
-                if (match.isPresent()) {
-                    Term result = RuleMatcher.substitute(rule.replacement(), match.get());
-
-                    // WICHTIG: Sicherstellen dass onRuleApplied aufgerufen wird
-                    debugger.onRuleApplied(rule, term, result);
+        var rules = scope != null ? scope.getRulesForFunction(funcSymbol) : ruleSet.getRulesForFunction(funcSymbol);
 
-                    return Optional.of(result);
+        // Die Bindungen leben nur bis zur Substitution, die Map kommt aus dem Pool
+        HashMap<String, Term> bindings = region.acquireBindings();
+        try {
+            if (profile != null) {
+                RuleProfile.Ordering ordering = profile.ordering(funcSymbol, rules);
+                java.util.List<Rule> ordered = ordering.rules();
+                for (int i = 0; i < ordered.size(); i++) {
+                    Term result = apply(ordered.get(i), term, bindings);
+                    if (result != null) {
+                        ordering.recordHit(i);
+                        return Optional.of(result);
+                    }
                 }
+                return Optional.empty();
             }
-        }
 
+            for (Rule rule : rules) {
+                if (isBaseCase(rule)) {
+                    Term result = apply(rule, term, bindings);
+                    if (result != null) {
+                        return Optional.of(result);
+                    }
+                }
+            }
 
-        for (Rule rule : rules) {
-            if (!isBaseCase(rule)) {
-                Optional<Map<String, Term>> match = RuleMatcher.match(rule.pattern(), term);
-                if (match.isPresent()) {
-                    Term result = RuleMatcher.substitute(rule.replacement(), match.get());
-                    debugger.onRuleApplied(rule, term, result);
-                    return Optional.of(result);
+            for (Rule rule : rules) {
+                if (!isBaseCase(rule)) {
+                    Term result = apply(rule, term, bindings);
+                    if (result != null) {
+                        return Optional.of(result);
+                    }
                 }
             }
+        } finally {
+            region.release(bindings);
         }
 
         return Optional.empty();
     }
 
-    private boolean isBaseCase(Rule rule) {
+    private Term apply(Rule rule, Term term, HashMap<String, Term> bindings) {
+        if (!RuleMatcher.matchInto(rule.pattern(), term, bindings)) {
+            bindings.clear();
+            return null;
+        }
+        Term result = rule.template().instantiate(bindings);
+        bindings.clear();
+
+        // WICHTIG: Sicherstellen dass onRuleApplied aufgerufen wird
+        debugger.onRuleApplied(rule, term, result);
+        return result;
+    }
+
+    /**
+     * Base cases are tried before all other rules of a symbol.
+     */
+    static boolean isBaseCase(Rule rule) {
+        return rule.isBaseCase();
+    }
+
+    // Baut Strings und Regex-Matcher, daher merkt sich die Regel das Ergebnis
+    static boolean classifyBaseCase(Rule rule) {
         String ruleId = rule.namespace() + "." + rule.name();
         if (ruleId.contains("base") || ruleId.contains("empty") || ruleId.contains("zero")) {
             return true;
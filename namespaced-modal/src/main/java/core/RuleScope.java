@@ -0,0 +1,109 @@
+package core;
+
+import java.util.*;
+
+/**
+ * The rules visible from a set of namespaces (and their imports).
+ * The candidate list of a symbol is resolved on its first lookup and kept until
+ * a rule of that symbol changes, so a lookup costs the same no matter how many
+ * other namespaces are loaded. Only a change of the visible namespaces drops all.
+ *
+ * Rules the optimizer inlined a forwarding rule into are replaced by their source
+ * unless the scope sees all rules of the inlined symbol; otherwise the scope would
+ * run a rule of a namespace it does not see.
+ */
+public class RuleScope {
+    private record Resolved(java.util.List<Rule> rules, boolean complete) {}
+
+    private final RuleSet ruleSet;
+    private final java.util.List<String> namespaces;
+
+    private volatile long resolvedVersion = -1;
+    private volatile Set<String> visible;
+    private final Map<String, Resolved> resolved = new java.util.concurrent.ConcurrentHashMap<>();
+
+    RuleScope(RuleSet ruleSet, java.util.List<String> namespaces) {
+        this.ruleSet = ruleSet;
+        this.namespaces = namespaces;
+    }
+
+    public java.util.List<Rule> getRulesForFunction(String functionSymbol) {
+        ruleSet.loadModuleFor(functionSymbol);
+        return resolve(functionSymbol).rules();
+    }
+
+    public Set<String> getVisibleNamespaces() {
+        refresh();
+        return visible;
+    }
+
+    public java.util.List<String> getNamespaces() {
+        return namespaces;
+    }
+
+    /**
+     * True if every rule of the symbol is visible, i.e. the scope does not change its meaning.
+     */
+    public boolean seesAllRulesOf(String functionSymbol) {
+        ruleSet.loadModuleFor(functionSymbol);
+        return resolve(functionSymbol).complete();
+    }
+
+    private Resolved resolve(String functionSymbol) {
+        refresh();
+        Resolved entry = resolved.get(functionSymbol);
+        if (entry == null) {
+            entry = compute(functionSymbol);
+            resolved.put(functionSymbol, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Drops the symbols changed since the last lookup, or all if the visible namespaces changed.
+     */
+    private void refresh() {
+        long version = ruleSet.getVersion();
+        if (resolvedVersion == version) {
+            return;
+        }
+        Set<String> changed = resolvedVersion < 0 ? null : ruleSet.changedSymbolsSince(resolvedVersion);
+        Set<String> nowVisible = Collections.unmodifiableSet(ruleSet.visibleNamespaces(namespaces));
+        synchronized (this) {
+            if (changed == null || !nowVisible.equals(visible)) {
+                resolved.clear();
+                visible = nowVisible;
+            } else {
+                resolved.keySet().removeAll(changed);
+            }
+            resolvedVersion = version;
+        }
+    }
+
+    private Resolved compute(String functionSymbol) {
+        java.util.List<Rule> all = ruleSet.loadedRulesFor(functionSymbol);
+        java.util.List<Rule> candidates = new ArrayList<>();
+        for (Rule rule : all) {
+            if (visible.contains(rule.namespace())) {
+                candidates.add(seesInlined(rule) ? rule : ruleSet.sourceOf(rule));
+            }
+        }
+        return new Resolved(java.util.List.copyOf(candidates), candidates.size() == all.size());
+    }
+
+    private boolean seesInlined(Rule rule) {
+        for (String symbol : ruleSet.inlinedSymbolsOf(rule)) {
+            for (Rule inlined : ruleSet.loadedRulesFor(symbol)) {
+                if (!visible.contains(inlined.namespace())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" ", namespaces);
+    }
+}
@@ -1,48 +1,383 @@
 package core;
 
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public class RuleSet {
-    private final Map<String, java.util.List<Rule>> rulesByFunction = new HashMap<>();
-    private final java.util.List<Rule> allRules = new ArrayList<>();
+    private final Map<String, RuleBucket> rulesByFunction = new HashMap<>();
+    private final RuleBucket allRules = new RuleBucket();
+    private final Map<String, RuleBucket> rulesByNamespace = new LinkedHashMap<>();
+    private final Map<String, RuleBucket> rulesByName = new HashMap<>();
+    private final Declarations declarations = new Declarations();
+
+    private final Optimizations optimizations = new Optimizations();
+    private long version;
+    private long nextSeq;
+
+    // Welche Funktionssymbole sich mit welcher Version geändert haben, für gezielte Cache-Invalidierung
+    private final ChangeLog changeLog = new ChangeLog();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, java.util.List<Rule>> functionIndex = new RuleBucket.Index(rulesByFunction);
+    // Geladene Funktionssymbole, die Zahlen sind
+    private int numberSymbols;
+    private long contentHashVersion = -1;
+    private long contentHash;
+
+    // Module, deren Regeln erst beim ersten Zugriff auf eines ihrer Symbole geladen werden
+    private final DeferredModules deferred = new DeferredModules();
+    private Consumer<String> moduleListener;
 
     public void addRule(Rule rule) {
-        allRules.add(rule);
+        lock.writeLock().lock();
+        try {
+            loadModuleFor(extractFunctionSymbol(rule.pattern()));
+            deoptimizeDependents(extractFunctionSymbol(rule.pattern()));
+            insert(nextSeq++, rule);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int removeRule(String fullName) {
+        lock.writeLock().lock();
+        try {
+            loadModuleOfRule(fullName);
+            int removedCount = removeAll(fullName);
+            if (removedCount > 0) {
+                changed();
+            }
+            return removedCount;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Held by {@link TermEvaluator} for a whole evaluation. Changes wait for the
+     * write lock, so an evaluation in flight finishes on the rules it started with.
+     * A change must not be made from within an evaluation on the same thread.
+     * Modules cannot be loaded while it is held, see {@link #read(Supplier)}.
+     */
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * Runs the action under the read lock. If the action needs a module that is not
+     * loaded yet, the lock is released, the module loaded and the action started
+     * again; anything it does must therefore be safe to repeat. An action on a
+     * thread that already holds the lock simply runs.
+     */
+    public <T> T read(Supplier<T> action) {
+        if (isLockedByCurrentThread()) {
+            return action.get();
+        }
+        while (true) {
+            DeferredModules.Module needed;
+            lock.readLock().lock();
+            try {
+                return action.get();
+            } catch (Restart e) {
+                needed = e.module;
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (needed != null) {
+                loadModule(needed);
+            }
+        }
+    }
+
+    /**
+     * Runs the pause with the read lock released, for an action of {@link #read(Supplier)}
+     * that waits for something else, e.g. a suspended {@link ThreadedEvaluation}.
+     * If the rules of a symbol the action has used so far changed meanwhile, the
+     * action starts again; other changes let it go on. A thread that holds the
+     * lock more than once keeps it during the pause.
+     */
+    void pauseReading(Runnable pause, Set<String> used) {
+        if (lock.getReadHoldCount() != 1 || lock.isWriteLockedByCurrentThread()) {
+            pause.run();
+            return;
+        }
+        long before = version;
+        lock.readLock().unlock();
+        try {
+            pause.run();
+        } finally {
+            lock.readLock().lock();
+        }
+        if (version != before) {
+            Set<String> changed = changedSymbolsSince(before);
+            if (changed == null || !Collections.disjoint(changed, used)) {
+                throw new Restart("Rules changed during a pause", null);
+            }
+        }
+    }
+
+    /**
+     * True if the current thread holds the read or the write lock.
+     */
+    boolean isLockedByCurrentThread() {
+        return lock.getReadHoldCount() > 0 || lock.isWriteLockedByCurrentThread();
+    }
+
+    /**
+     * Thrown under the read lock when the action of {@link #read(Supplier)} must
+     * start again: after loading the module, if one is needed, outside the lock.
+     * Code within an action that catches RuntimeException must let it through.
+     */
+    static final class Restart extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final transient DeferredModules.Module module;
+
+        Restart(String message, DeferredModules.Module module) {
+            super(message);
+            this.module = module;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * Function symbols whose rules or declarations changed after the given version,
+     * or null if that version is too old to tell.
+     */
+    public Set<String> changedSymbolsSince(long sinceVersion) {
+        lock.readLock().lock();
+        try {
+            if (sinceVersion == version) {
+                return Collections.emptySet();
+            }
+            return changeLog.since(sinceVersion);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void changed() {
+        changeLog.commit(++version);
+    }
+
+    private int removeAll(String fullName) {
+        RuleBucket named = rulesByName.get(fullName);
+        if (named == null) {
+            return 0;
+        }
+
+        int removedCount = 0;
+        for (Map.Entry<Long, Rule> entry : java.util.List.copyOf(named.entries())) {
+            deoptimizeDependents(extractFunctionSymbol(entry.getValue().pattern()));
+            delete(entry.getKey(), entry.getValue());
+            optimizations.forget(entry.getValue());
+            removedCount++;
+        }
+        return removedCount;
+    }
+
+    /**
+     * Collects additions and removals that are applied together by {@link Transaction#commit()}:
+     * either all of them or, if one is invalid, none. The version changes once per commit.
+     */
+    public Transaction transaction() {
+        return new Transaction();
+    }
+
+    public final class Transaction {
+        private final java.util.List<Object> operations = new ArrayList<>();
+
+        private Transaction() {
+        }
+
+        public Transaction add(Rule rule) {
+            operations.add(rule);
+            return this;
+        }
+
+        /**
+         * Removes all rules with this name; fails the commit if there is none at that point.
+         */
+        public Transaction remove(String fullName) {
+            operations.add(fullName);
+            return this;
+        }
+
+        public int size() {
+            return operations.size();
+        }
+
+        /**
+         * @return the number of rules added plus the number of rules removed
+         */
+        public int commit() {
+            lock.writeLock().lock();
+            try {
+                for (Object operation : operations) {
+                    if (operation instanceof Rule rule) {
+                        loadModuleFor(extractFunctionSymbol(rule.pattern()));
+                    } else {
+                        loadModuleOfRule((String) operation);
+                    }
+                }
+                validate();
+
+                int changes = 0;
+                for (Object operation : operations) {
+                    if (operation instanceof Rule rule) {
+                        deoptimizeDependents(extractFunctionSymbol(rule.pattern()));
+                        insert(nextSeq++, rule);
+                        changes++;
+                    } else {
+                        changes += removeAll((String) operation);
+                    }
+                }
+                operations.clear();
+                changed();
+                return changes;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void validate() {
+            Map<String, Integer> counts = new HashMap<>();
+            for (Object operation : operations) {
+                if (operation instanceof Rule rule) {
+                    counts.merge(rule.fullName(), 1, Integer::sum);
+                } else {
+                    String fullName = (String) operation;
+                    int present = counts.computeIfAbsent(fullName, name -> {
+                        RuleBucket named = rulesByName.get(name);
+                        return named == null ? 0 : named.size();
+                    });
+                    if (present == 0) {
+                        throw new IllegalArgumentException("Rule " + fullName + " not found");
+                    }
+                    counts.put(fullName, 0);
+                }
+            }
+        }
+    }
+
+    private void insert(long seq, Rule rule) {
+        allRules.put(seq, rule);
+        changeLog.note(String.valueOf(extractFunctionSymbol(rule.pattern())));
+        rulesByNamespace.computeIfAbsent(rule.namespace(), k -> new RuleBucket()).put(seq, rule);
+        rulesByName.computeIfAbsent(rule.fullName(), k -> new RuleBucket()).put(seq, rule);
 
-        // Extract function symbol from pattern
         String functionSymbol = extractFunctionSymbol(rule.pattern());
         if (functionSymbol != null) {
-            rulesByFunction.computeIfAbsent(functionSymbol, k -> new ArrayList<>()).add(rule);
+            RuleBucket bucket = rulesByFunction.get(functionSymbol);
+            if (bucket == null) {
+                bucket = new RuleBucket();
+                rulesByFunction.put(functionSymbol, bucket);
+                if (isNumberSymbol(functionSymbol)) {
+                    numberSymbols++;
+                }
+            }
+            bucket.put(seq, rule);
         }
     }
 
-    public int removeRule(String fullName) {
-        int removedCount = 0;
+    private void delete(long seq, Rule rule) {
+        allRules.remove(seq);
+        changeLog.note(String.valueOf(extractFunctionSymbol(rule.pattern())));
+        removeFrom(rulesByNamespace, rule.namespace(), seq);
+        removeFrom(rulesByName, rule.fullName(), seq);
 
-        // Remove from allRules list
-        Iterator<Rule> allRulesIterator = allRules.iterator();
-        while (allRulesIterator.hasNext()) {
-            Rule rule = allRulesIterator.next();
-            if (rule.fullName().equals(fullName)) {
-                allRulesIterator.remove();
-                removedCount++;
+        String functionSymbol = extractFunctionSymbol(rule.pattern());
+        if (functionSymbol != null) {
+            removeFrom(rulesByFunction, functionSymbol, seq);
+            if (!rulesByFunction.containsKey(functionSymbol) && isNumberSymbol(functionSymbol)) {
+                numberSymbols--;
             }
         }
+    }
 
-        // Remove from function index
-        Iterator<Map.Entry<String, java.util.List<Rule>>> functionIterator = rulesByFunction.entrySet().iterator();
-        while (functionIterator.hasNext()) {
-            Map.Entry<String, java.util.List<Rule>> entry = functionIterator.next();
-            java.util.List<Rule> rules = entry.getValue();
-            rules.removeIf(rule -> rule.fullName().equals(fullName));
+    private static void removeFrom(Map<String, RuleBucket> index, String key, long seq) {
+        RuleBucket bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(seq);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
 
-            // Remove empty lists from function index
-            if (rules.isEmpty()) {
-                functionIterator.remove();
+    private long seqOf(Rule rule) {
+        RuleBucket named = rulesByName.get(rule.fullName());
+        if (named != null) {
+            for (Map.Entry<Long, Rule> entry : named.entries()) {
+                if (entry.getValue().equals(rule)) {
+                    return entry.getKey();
+                }
             }
         }
+        return -1;
+    }
 
-        return removedCount;
+    /**
+     * Replaces a rule by an equivalent optimized version at the same position.
+     * If a rule of one of the inlined symbols changes later, the original comes back.
+     */
+    public void replaceRule(Rule rule, Rule optimized, Set<String> inlinedSymbols) {
+        lock.writeLock().lock();
+        try {
+            replace(rule, optimized, inlinedSymbols);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replace(Rule rule, Rule optimized, Set<String> inlinedSymbols) {
+        long seq = seqOf(rule);
+        if (seq < 0) {
+            throw new IllegalArgumentException("Rule not in rule set: " + rule);
+        }
+        if (!optimized.fullName().equals(rule.fullName()) ||
+                !Objects.equals(extractFunctionSymbol(optimized.pattern()), extractFunctionSymbol(rule.pattern()))) {
+            throw new IllegalArgumentException("Optimized rule must keep name and function symbol: " + optimized);
+        }
+
+        Rule source = sourceOf(rule);
+        // Ein zweiter Durchlauf über eine optimierte Regel behält ihre eingesetzten Symbole
+        inlinedSymbols = new HashSet<>(inlinedSymbols);
+        inlinedSymbols.addAll(inlinedSymbolsOf(rule));
+        optimizations.forget(rule);
+        // Gleiche Sequenznummer: LinkedHashMap behält beim Überschreiben die Position
+        insert(seq, optimized);
+        optimizations.record(optimized, source, inlinedSymbols);
+    }
+
+    /**
+     * The rule as it was loaded, before any optimization.
+     */
+    public Rule sourceOf(Rule rule) {
+        return optimizations.sourceOf(rule);
+    }
+
+    private void deoptimizeDependents(String functionSymbol) {
+        for (Rule optimized : optimizations.removeDependents(functionSymbol)) {
+            if (seqOf(optimized) >= 0) {
+                replace(optimized, sourceOf(optimized), Set.of());
+            }
+        }
+    }
+
+    /**
+     * Function symbols whose forwarding rules were inlined into this optimized rule.
+     */
+    Set<String> inlinedSymbolsOf(Rule optimized) {
+        return optimizations.inlinedSymbolsOf(optimized);
     }
 
     private String extractFunctionSymbol(Term pattern) {
@@ -52,32 +387,317 @@ public class RuleSet {
         return null;
     }
 
+    /**
+     * Registers a module: the rules of one namespace, defining exactly the given
+     * function symbols. The source is parsed and its rules added on the first
+     * lookup of one of these symbols or of the namespace.
+     */
+    public void addModule(String namespace, Collection<String> symbols, Supplier<RuleSet> source) {
+        lock.writeLock().lock();
+        try {
+            deferred.add(new DeferredModules.Module(namespace, Set.copyOf(symbols), source));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Set<String> getDeferredNamespaces() {
+        return deferred.namespaces();
+    }
+
+    public Set<String> getDeferredSymbols() {
+        return deferred.symbols();
+    }
+
+    public void loadAllModules() {
+        for (DeferredModules.Module module : deferred.all()) {
+            loadModule(module);
+        }
+    }
+
+    void loadModuleFor(String functionSymbol) {
+        DeferredModules.Module module = deferred.forSymbol(functionSymbol);
+        if (module != null) {
+            loadModule(module);
+        }
+    }
+
+    private void loadModuleOfNamespace(String namespace) {
+        DeferredModules.Module module = deferred.forNamespace(namespace);
+        if (module != null) {
+            loadModule(module);
+        }
+    }
+
+    private void loadModuleOfRule(String fullName) {
+        DeferredModules.Module module = deferred.forRule(fullName);
+        if (module != null) {
+            loadModule(module);
+        }
+    }
+
+    /**
+     * Loading takes the write lock. A thread that holds the read lock would give it
+     * up halfway through its evaluation, so it gets a Restart instead and
+     * {@link #read(Supplier)} loads the module once the lock is released.
+     */
+    private void loadModule(DeferredModules.Module module) {
+        if (!lock.isWriteLockedByCurrentThread() && lock.getReadHoldCount() > 0) {
+            throw new Restart("Module " + module.namespace() + " must be loaded outside the read lock", module);
+        }
+        RuleSet parsed = module.parse();
+
+        lock.writeLock().lock();
+        try {
+            // Ein anderer Thread kann das Modul inzwischen geladen haben
+            if (!deferred.remove(module)) {
+                return;
+            }
+            for (Rule rule : parsed.getAllRules()) {
+                insert(nextSeq++, rule);
+            }
+            declarations.addAll(parsed.declarations);
+            changeLog.noteAll(module.symbols());
+            changed();
+            if (moduleListener != null) {
+                moduleListener.accept(module.namespace());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called with the namespace of every module right after its rules were added,
+     * still under the write lock, e.g. to optimize them like eagerly loaded rules.
+     */
+    public void setModuleListener(Consumer<String> listener) {
+        this.moduleListener = listener;
+    }
+
+    /**
+     * Loads the modules of the symbols in the term and, transitively, of the symbols
+     * in the replacements of their rules, so that an evaluation of the term rarely
+     * has to start again for a module, see {@link #read(Supplier)}.
+     */
+    public void loadModulesFor(Term term) {
+        if (!deferred.isEmpty()) {
+            deferred.loadFor(term, this);
+        }
+    }
+
     public java.util.List<Rule> getRulesForFunction(String functionSymbol) {
-        return rulesByFunction.getOrDefault(functionSymbol, Collections.emptyList());
+        loadModuleFor(functionSymbol);
+        RuleBucket bucket = rulesByFunction.get(functionSymbol);
+        return bucket != null ? bucket.list() : Collections.emptyList();
+    }
+
+    /**
+     * The rules of a symbol loaded so far, without loading its module.
+     */
+    java.util.List<Rule> loadedRulesFor(String functionSymbol) {
+        RuleBucket bucket = rulesByFunction.get(functionSymbol);
+        return bucket != null ? bucket.list() : Collections.emptyList();
     }
 
     public java.util.List<Rule> getAllRules() {
-        return Collections.unmodifiableList(allRules);
+        return allRules.list();
     }
 
     public java.util.List<Rule> getRulesForNamespace(String namespace) {
-        return allRules.stream()
-                .filter(rule -> rule.namespace().equals(namespace))
-                .toList();
+        loadModuleOfNamespace(namespace);
+        RuleBucket bucket = rulesByNamespace.get(namespace);
+        return bucket != null ? bucket.list() : Collections.emptyList();
     }
 
+    public java.util.List<Rule> getRulesByName(String fullName) {
+        loadModuleOfRule(fullName);
+        RuleBucket bucket = rulesByName.get(fullName);
+        return bucket != null ? bucket.list() : Collections.emptyList();
+    }
+
+    /**
+     * Namespaces with rules, including those of modules not loaded yet.
+     */
     public Set<String> getNamespaces() {
-        return allRules.stream()
-                .map(Rule::namespace)
-                .collect(java.util.stream.Collectors.toSet());
+        if (deferred.isEmpty()) {
+            return Collections.unmodifiableSet(rulesByNamespace.keySet());
+        }
+        Set<String> namespaces = new LinkedHashSet<>(rulesByNamespace.keySet());
+        namespaces.addAll(deferred.namespaces());
+        return Collections.unmodifiableSet(namespaces);
+    }
+
+    /**
+     * Rules of the imported namespaces become visible wherever the namespace is in scope.
+     */
+    public void addImports(String namespace, Collection<String> importedNamespaces) {
+        lock.writeLock().lock();
+        try {
+            declarations.addImports(namespace, importedNamespaces);
+            // Sichtbarkeit ändert sich für alle Symbole der importierten Namespaces
+            for (String imported : importedNamespaces) {
+                getRulesForNamespace(imported).forEach(rule -> changeLog.note(String.valueOf(extractFunctionSymbol(rule.pattern()))));
+            }
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Map<String, Set<String>> getImportDeclarations() {
+        return declarations.imports();
+    }
+
+    public Set<String> getImports(String namespace) {
+        loadModuleOfNamespace(namespace);
+        return declarations.getImports(namespace);
+    }
+
+    /**
+     * The given namespaces plus everything they import, transitively.
+     */
+    public Set<String> visibleNamespaces(Collection<String> namespaces) {
+        Set<String> visible = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(namespaces);
+        while (!pending.isEmpty()) {
+            String namespace = pending.pop();
+            if (visible.add(namespace)) {
+                pending.addAll(getImports(namespace));
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * A view that only sees the rules of the given namespaces and their imports.
+     */
+    public RuleScope scope(String... namespaces) {
+        return new RuleScope(this, java.util.List.of(namespaces));
+    }
+
+    /**
+     * Strategy for calls whose rules live in this namespace, overrides the evaluator default.
+     */
+    public void setNamespaceStrategy(String namespace, EvaluationStrategy strategy) {
+        lock.writeLock().lock();
+        try {
+            declarations.setNamespaceStrategy(namespace, strategy);
+            getRulesForNamespace(namespace).forEach(rule -> changeLog.note(String.valueOf(extractFunctionSymbol(rule.pattern()))));
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public EvaluationStrategy getNamespaceStrategy(String namespace) {
+        loadModuleOfNamespace(namespace);
+        return declarations.getNamespaceStrategy(namespace);
+    }
+
+    public Map<String, EvaluationStrategy> getNamespaceStrategies() {
+        return declarations.namespaceStrategies();
+    }
+
+    /**
+     * Declares per argument whether it is evaluated before the rules of the symbol are tried.
+     * Arguments beyond the declaration are lazy.
+     */
+    public void setStrictness(String functionSymbol, boolean[] strictArguments) {
+        lock.writeLock().lock();
+        try {
+            declarations.setStrictness(functionSymbol, strictArguments);
+            changeLog.note(functionSymbol);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
+    public boolean[] getStrictness(String functionSymbol) {
+        loadModuleFor(functionSymbol);
+        return declarations.getStrictness(functionSymbol);
+    }
+
+    public Map<String, boolean[]> getStrictnessDeclarations() {
+        return declarations.strictness();
+    }
+
+    /**
+     * Results of a tabled symbol are kept per evaluated argument list across
+     * evaluations; its arguments are therefore always evaluated first.
+     */
+    public void setTabling(String functionSymbol, Tabling declaration) {
+        lock.writeLock().lock();
+        try {
+            declarations.setTabling(functionSymbol, declaration);
+            changeLog.note(functionSymbol);
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Tabling getTabling(String functionSymbol) {
+        loadModuleFor(functionSymbol);
+        return declarations.getTabling(functionSymbol);
+    }
+
+    public Map<String, Tabling> getTablingDeclarations() {
+        return declarations.tabling();
+    }
+
+    /**
+     * Fingerprint of all rules and directives that is the same in every process
+     * loading the same files, e.g. to key results kept on disk, see
+     * {@link RuleFingerprint}. Loads all deferred modules.
+     */
+    public long contentHash() {
+        loadAllModules();
+        lock.readLock().lock();
+        try {
+            synchronized (this) {
+                if (contentHashVersion != version) {
+                    contentHash = RuleFingerprint.of(functionIndex, declarations);
+                    contentHashVersion = version;
+                }
+                return contentHash;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Incremented on every change, lets caches detect a modified rule set cheaply.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Number of rules loaded so far; modules not used yet are not counted.
+     */
     public int size() {
         return allRules.size();
     }
 
-    // Debug method to see function indexing
+    /**
+     * Rules per function symbol. The view follows later changes, so iterate it
+     * under {@link #readLock()} if rules may change meanwhile.
+     */
     public Map<String, java.util.List<Rule>> getFunctionIndex() {
-        return Collections.unmodifiableMap(rulesByFunction);
+        return functionIndex;
+    }
+
+    /**
+     * True if a number is the function symbol of a rule, loaded or in a module.
+     */
+    public boolean hasNumberSymbols() {
+        return numberSymbols > 0 || deferred.hasNumberSymbols();
+    }
+
+    static boolean isNumberSymbol(String functionSymbol) {
+        return functionSymbol != null && new Term.Atom(functionSymbol).isNumber();
     }
-}
\ No newline at end of file
+}
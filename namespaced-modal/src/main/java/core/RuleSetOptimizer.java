@@ -0,0 +1,280 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Load-time pass over a {@link RuleSet}: folds constant operator calls in
+ * replacements, inlines calls to single-rule forwarding functions and reports
+ * rules that can never fire.
+ *
+ * Only positions whose value is all that matters are rewritten: the replacement
+ * itself and the arguments of special operators. Everywhere else a rule of the
+ * enclosing call could match the term as written, so it is left alone.
+ *
+ * Modules not loaded yet are not loaded by the optimizer; calls into them are
+ * inlined when it runs again after they were loaded, see {@link RuleSet#setModuleListener}.
+ */
+public class RuleSetOptimizer {
+    private static final int MAX_INLINE_DEPTH = 8;
+
+    public record Finding(Rule rule, String reason) {
+        @Override
+        public String toString() {
+            return rule.fullName() + ": " + reason;
+        }
+    }
+
+    public record Report(int foldedConstants, int inlinedCalls, int optimizedRules, java.util.List<Finding> deadRules) {
+        public String summary() {
+            return "Optimized " + optimizedRules + " rules (" + foldedConstants + " constants folded, " +
+                    inlinedCalls + " calls inlined), " + deadRules.size() + " rules never fire";
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(summary());
+            for (Finding finding : deadRules) {
+                sb.append("\n  never fires: ").append(finding);
+            }
+            return sb.toString();
+        }
+    }
+
+    private final RuleSet ruleSet;
+    private int folded;
+    private int inlined;
+
+    private RuleSetOptimizer(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    public static Report optimize(RuleSet ruleSet) {
+        return new RuleSetOptimizer(ruleSet).run();
+    }
+
+    /**
+     * Only reports dead rules, the rule set is not changed.
+     */
+    public static java.util.List<Finding> findDeadRules(RuleSet ruleSet) {
+        java.util.List<Finding> findings = new ArrayList<>();
+
+        for (Rule rule : ruleSet.getAllRules()) {
+            if (!(rule.pattern() instanceof Term.List pattern) || pattern.isEmpty()) {
+                findings.add(new Finding(rule, "pattern is not a call"));
+            } else if (Evaluator.isSpecial(pattern.getFunctionSymbol())) {
+                findings.add(new Finding(rule, "'" + pattern.getFunctionSymbol() + "' is a built-in operator"));
+            }
+        }
+
+        for (java.util.List<Rule> rules : ruleSet.getFunctionIndex().values()) {
+            java.util.List<Rule> order = tryOrder(rules);
+            for (int j = 1; j < order.size(); j++) {
+                for (int i = 0; i < j; i++) {
+                    if (subsumes(order.get(i), order.get(j))) {
+                        findings.add(new Finding(order.get(j), "shadowed by " + order.get(i).fullName()));
+                        break;
+                    }
+                }
+            }
+        }
+        return findings;
+    }
+
+    private Report run() {
+        java.util.List<Finding> dead = findDeadRules(ruleSet);
+        Set<Rule> deadRules = new HashSet<>();
+        dead.forEach(finding -> deadRules.add(finding.rule()));
+
+        int optimizedRules = 0;
+        for (Rule rule : java.util.List.copyOf(ruleSet.getAllRules())) {
+            if (deadRules.contains(rule)) {
+                continue;
+            }
+
+            int foldedBefore = folded;
+            int inlinedBefore = inlined;
+            Set<String> inlinedSymbols = new HashSet<>();
+            Term replacement = optimizeTerm(rule.replacement(), rule, inlinedSymbols, 0);
+            if (replacement.equals(rule.replacement())) {
+                continue;
+            }
+
+            Rule optimized = new Rule(rule.namespace(), rule.name(), rule.pattern(), replacement);
+            // Die Reihenfolge der Regeln hängt an isBaseCase, die darf sich nicht ändern
+            if (RuleRewriter.isBaseCase(optimized) != RuleRewriter.isBaseCase(rule)) {
+                folded = foldedBefore;
+                inlined = inlinedBefore;
+                continue;
+            }
+            ruleSet.replaceRule(rule, optimized, inlinedSymbols);
+            optimizedRules++;
+        }
+
+        return new Report(folded, inlined, optimizedRules, dead);
+    }
+
+    /**
+     * Optimizes a term in an evaluated position.
+     */
+    private Term optimizeTerm(Term term, Rule owner, Set<String> inlinedSymbols, int depth) {
+        if (!(term instanceof Term.List list) || list.isEmpty()) {
+            return term;
+        }
+
+        String symbol = list.getFunctionSymbol();
+        java.util.List<Term> elements = list.elements();
+
+        if (symbol.equals("if") && elements.size() == 4) {
+            Term condition = optimizeTerm(elements.get(1), owner, inlinedSymbols, depth);
+            Term thenBranch = optimizeTerm(elements.get(2), owner, inlinedSymbols, depth);
+            Term elseBranch = optimizeTerm(elements.get(3), owner, inlinedSymbols, depth);
+            if (condition instanceof Term.Atom atom && atom.isBoolean()) {
+                folded++;
+                return atom.asBoolean() ? thenBranch : elseBranch;
+            }
+            return rebuild(list, elements.get(0), condition, thenBranch, elseBranch);
+        }
+
+        if (symbol.equals(":") && elements.size() == 4) {
+            Term left = optimizeTerm(elements.get(2), owner, inlinedSymbols, depth);
+            Term right = optimizeTerm(elements.get(3), owner, inlinedSymbols, depth);
+            Term constant = elements.get(1) instanceof Term.Atom op ? fold(op.value(), left, right) : null;
+            return constant != null ? constant : rebuild(list, elements.get(0), elements.get(1), left, right);
+        }
+
+        if (Evaluator.isSpecial(symbol) && elements.size() == 3) {
+            Term left = optimizeTerm(elements.get(1), owner, inlinedSymbols, depth);
+            Term right = optimizeTerm(elements.get(2), owner, inlinedSymbols, depth);
+            Term constant = fold(symbol, left, right);
+            return constant != null ? constant : rebuild(list, elements.get(0), left, right);
+        }
+
+        Rule forward = forwardingRule(symbol, elements.size() - 1, owner);
+        if (forward != null && depth < MAX_INLINE_DEPTH) {
+            Optional<Map<String, Term>> bindings = RuleMatcher.match(forward.pattern(), list);
+            if (bindings.isPresent()) {
+                inlined++;
+                inlinedSymbols.add(symbol);
+                Term body = RuleMatcher.substitute(forward.replacement(), bindings.get());
+                return optimizeTerm(body, owner, inlinedSymbols, depth + 1);
+            }
+        }
+
+        return term;
+    }
+
+    private Term fold(String op, Term left, Term right) {
+        if (!(left instanceof Term.Atom a) || !(right instanceof Term.Atom b) || a.isVariable() || b.isVariable()) {
+            return null;
+        }
+        boolean comparison = op.equals("=") || op.equals("==") || op.equals("!=");
+        if (!comparison && (!a.isNumber() || !b.isNumber())) {
+            return null;
+        }
+        try {
+            Term result = Evaluator.evaluateBinaryOp(op, a, b);
+            folded++;
+            return result;
+        } catch (RuleSet.Restart e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // z.B. Division durch 0: der Fehler soll zur Laufzeit kommen
+            return null;
+        }
+    }
+
+    /**
+     * The single rule of a symbol if it is (symbol ?a ?b ...) with distinct variables,
+     * i.e. always fires, and its replacement uses no other variables.
+     */
+    private Rule forwardingRule(String symbol, int arity, Rule owner) {
+        // Nichts nachladen: Module, die noch fehlen, kommen beim Laden selbst dran
+        if (symbol.isEmpty() || Evaluator.isSpecial(symbol) || ruleSet.getDeferredSymbols().contains(symbol) ||
+                ruleSet.getStrictness(symbol) != null) {
+            return null;
+        }
+        java.util.List<Rule> rules = ruleSet.getRulesForFunction(symbol);
+        if (rules.size() != 1) {
+            return null;
+        }
+        Rule rule = rules.get(0);
+        if (rule.equals(owner) || ruleSet.getDeferredNamespaces().contains(rule.namespace()) ||
+                ruleSet.getNamespaceStrategy(rule.namespace()) != null ||
+                !(rule.pattern() instanceof Term.List pattern) || pattern.elements().size() != arity + 1) {
+            return null;
+        }
+
+        Set<String> variables = new HashSet<>();
+        for (Term element : pattern.elements().subList(1, pattern.elements().size())) {
+            if (!(element instanceof Term.Atom atom) || !atom.isVariable() || !variables.add(atom.value())) {
+                return null;
+            }
+        }
+        if (!variablesWithin(rule.replacement(), variables) || containsSymbol(rule.replacement(), symbol)) {
+            return null;
+        }
+        return rule;
+    }
+
+    private static Term rebuild(Term.List original, Term... elements) {
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] != original.elements().get(i)) {
+                return new Term.List(elements);
+            }
+        }
+        return original;
+    }
+
+    private static boolean variablesWithin(Term term, Set<String> variables) {
+        if (term instanceof Term.Atom atom) {
+            return !atom.isVariable() || variables.contains(atom.value());
+        }
+        if (term instanceof Term.List list) {
+            for (Term element : list.elements()) {
+                if (!variablesWithin(element, variables)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsSymbol(Term term, String symbol) {
+        if (term instanceof Term.Atom atom) {
+            return atom.value().equals(symbol);
+        }
+        if (term instanceof Term.List list) {
+            for (Term element : list.elements()) {
+                if (containsSymbol(element, symbol)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rules in the order RuleRewriter tries them: base cases first.
+     */
+    private static java.util.List<Rule> tryOrder(java.util.List<Rule> rules) {
+        java.util.List<Rule> order = new ArrayList<>();
+        for (Rule rule : rules) {
+            if (RuleRewriter.isBaseCase(rule)) order.add(rule);
+        }
+        for (Rule rule : rules) {
+            if (!RuleRewriter.isBaseCase(rule)) order.add(rule);
+        }
+        return order;
+    }
+
+    /**
+     * True if every term matched by the later rule is already matched by the earlier one.
+     * The later pattern is matched as a term, its variables act as unknown constants.
+     * A dotted tail in the later pattern stands for any number of elements, so such
+     * patterns are never reported.
+     */
+    private static boolean subsumes(Rule earlier, Rule later) {
+        return !containsSymbol(later.pattern(), ".") &&
+                RuleMatcher.match(earlier.pattern(), later.pattern()).isPresent();
+    }
+}
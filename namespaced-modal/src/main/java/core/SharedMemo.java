@@ -0,0 +1,354 @@
+package core;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Memoized results shared by the {@link TermEvaluator}s of several threads on one
+ * rule set, consulted after the evaluator's own memo misses. Only results the
+ * evaluator would keep itself are shared.
+ *
+ * The table is set-associative: a term's hash picks a bucket of {@link #WAYS}
+ * slots, and a lookup compares the stored hash before verifying the term with
+ * equals. Readers take no lock. Writers lock one of {@link #STRIPES} stripes; a
+ * full bucket evicts by CLOCK, i.e. the first slot not read since the last sweep.
+ *
+ * A thread that misses claims the term: threads asking for it meanwhile wait for
+ * its result instead of computing it again. A thread never waits on a claim that
+ * (through other waiting threads) waits on itself, it computes the term on its
+ * own instead. A claim whose result is not shared wakes the waiters empty-handed.
+ * Nor does a thread wait longer than {@link #setMaxWait the maximum wait}: an
+ * owner may itself be stuck behind the waiter, e.g. on the write lock of a
+ * module load while the waiter holds the read lock, so after that the waiter
+ * computes the term too.
+ */
+public final class SharedMemo {
+    static final int WAYS = 8;
+    static final int STRIPES = 64;
+    static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(1);
+
+    private static final class Slot {
+        final int hash;
+        final Object context;
+        final Term term;
+        volatile MemoTable.Entry entry;
+        // Gesetzt beim Lesen, gelöscht beim Verdrängen (CLOCK)
+        volatile boolean referenced;
+        // Nur solange der Wert berechnet wird
+        volatile Thread owner;
+        final CountDownLatch done;
+
+        Slot(int hash, Object context, Term term, Thread owner) {
+            this.hash = hash;
+            this.context = context;
+            this.term = term;
+            this.owner = owner;
+            this.done = new CountDownLatch(1);
+        }
+
+        boolean matches(int hash, Object context, Term term) {
+            return this.hash == hash && this.context.equals(context) && this.term.equals(term);
+        }
+    }
+
+    /**
+     * Result of {@link #claim}: a known value, or the duty to compute it and pass it to
+     * {@link #complete} or {@link #abandon}. {@link #NONE} if the term cannot be shared now.
+     */
+    static final class Claim {
+        private final MemoTable.Entry hit;
+        private final Slot slot;
+
+        private Claim(MemoTable.Entry hit, Slot slot) {
+            this.hit = hit;
+            this.slot = slot;
+        }
+
+        MemoTable.Entry hit() {
+            return hit;
+        }
+
+        boolean isOwner() {
+            return slot != null;
+        }
+    }
+
+    static final Claim NONE = new Claim(null, null);
+
+    private final RuleSet ruleSet;
+    private final AtomicReferenceArray<Slot> slots;
+    private final int bucketMask;
+    private final Object[] stripes = new Object[STRIPES];
+    private volatile long seenVersion;
+    private volatile Duration maxWait = DEFAULT_MAX_WAIT;
+
+    // Wartender Thread -> Slot, auf dessen Ergebnis er wartet
+    private final Map<Thread, Slot> waits = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong waitsGivenUp = new AtomicLong();
+
+    /**
+     * @param capacity number of results kept, rounded up to a power of two of at least {@link #WAYS}
+     */
+    public SharedMemo(RuleSet ruleSet, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.ruleSet = ruleSet;
+        int buckets = 1;
+        while ((long) buckets * WAYS < capacity) {
+            buckets <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(buckets * WAYS);
+        this.bucketMask = buckets - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.seenVersion = ruleSet.getVersion();
+    }
+
+    RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.entry != null) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Lookups answered from the table, including those that waited for another thread.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Lookups that waited for a result another thread was computing.
+     */
+    public long getWaits() {
+        return waited.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Waits that ran out of time, after which the term was computed again.
+     */
+    public long getWaitsGivenUp() {
+        return waitsGivenUp.get();
+    }
+
+    /**
+     * How long a thread waits for a term another thread is computing.
+     */
+    public void setMaxWait(Duration maxWait) {
+        if (maxWait.isNegative()) {
+            throw new IllegalArgumentException("Wait must not be negative: " + maxWait);
+        }
+        this.maxWait = maxWait;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Drops the results that used a rule changed since the last call. Called by each
+     * evaluator before an outermost evaluation, while it holds the read lock of the rules.
+     */
+    void sync() {
+        long version = ruleSet.getVersion();
+        if (version == seenVersion) {
+            return;
+        }
+        synchronized (this) {
+            if (version == seenVersion) {
+                return;
+            }
+            Set<String> changed = ruleSet.changedSymbolsSince(seenVersion);
+            for (int i = 0; i < slots.length(); i++) {
+                Slot slot = slots.get(i);
+                MemoTable.Entry entry = slot != null ? slot.entry : null;
+                if (entry != null && (changed == null || !java.util.Collections.disjoint(changed, entry.symbols()))) {
+                    synchronized (stripe(i / WAYS)) {
+                        slots.compareAndSet(i, slot, null);
+                    }
+                }
+            }
+            seenVersion = version;
+        }
+    }
+
+    /**
+     * The value of the term if known, after waiting for a thread that is computing it;
+     * otherwise the caller may own the term until it completes or abandons it.
+     */
+    Claim claim(Object context, Term term) {
+        int hash = spread(Objects.hash(context, term));
+        int base = (hash & bucketMask) * WAYS;
+        Slot found = find(base, hash, context, term);
+        if (found == null) {
+            synchronized (stripe(hash & bucketMask)) {
+                found = find(base, hash, context, term);
+                if (found == null) {
+                    Slot slot = new Slot(hash, context, term, Thread.currentThread());
+                    return install(base, slot) ? new Claim(null, slot) : NONE;
+                }
+            }
+        }
+        MemoTable.Entry entry = found.entry;
+        if (entry == null && found.owner != null && await(found)) {
+            waited.incrementAndGet();
+            entry = found.entry;
+        }
+        if (entry == null) {
+            return NONE;
+        }
+        found.referenced = true;
+        hits.incrementAndGet();
+        return new Claim(entry, null);
+    }
+
+    /**
+     * Shares the result of an owned claim and wakes the threads waiting for it.
+     * The symbol set must be immutable. A claim already abandoned stays so.
+     */
+    void complete(Claim claim, Term value, Set<String> symbols) {
+        Slot slot = claim.slot;
+        if (slot.owner == null) {
+            return;
+        }
+        slot.entry = new MemoTable.Entry(value, symbols);
+        slot.referenced = true;
+        release(slot);
+    }
+
+    /**
+     * Gives up an owned claim without a result, e.g. after an error, a cycle cut or
+     * when the evaluation is suspended. Giving it up again does nothing.
+     */
+    void abandon(Claim claim) {
+        Slot slot = claim.slot;
+        if (slot.owner == null) {
+            return;
+        }
+        int base = (slot.hash & bucketMask) * WAYS;
+        synchronized (stripe(slot.hash & bucketMask)) {
+            for (int i = base; i < base + WAYS; i++) {
+                slots.compareAndSet(i, slot, null);
+            }
+        }
+        release(slot);
+    }
+
+    private void release(Slot slot) {
+        slot.owner = null;
+        slot.done.countDown();
+    }
+
+    private Slot find(int base, int hash, Object context, Term term) {
+        for (int i = base; i < base + WAYS; i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && slot.matches(hash, context, term)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts the slot into a free place of the bucket or evicts by CLOCK. Slots still
+     * being computed are never evicted; a bucket full of them takes no new claim.
+     */
+    private boolean install(int base, Slot slot) {
+        for (int i = base; i < base + WAYS; i++) {
+            if (slots.get(i) == null) {
+                slots.set(i, slot);
+                return true;
+            }
+        }
+        for (int sweep = 0; sweep < 2; sweep++) {
+            for (int i = base; i < base + WAYS; i++) {
+                Slot victim = slots.get(i);
+                if (victim.owner != null || victim.entry == null) {
+                    continue;
+                }
+                if (victim.referenced) {
+                    victim.referenced = false;
+                    continue;
+                }
+                slots.set(i, slot);
+                evictions.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the owner of the slot unless that would close a cycle of waiting
+     * threads, at most for the maximum wait.
+     */
+    private boolean await(Slot slot) {
+        Thread current = Thread.currentThread();
+        synchronized (waits) {
+            Slot next = slot;
+            while (next != null) {
+                Thread owner = next.owner;
+                if (owner == null) {
+                    break;
+                }
+                if (owner == current) {
+                    return false;
+                }
+                next = waits.get(owner);
+            }
+            waits.put(current, slot);
+        }
+        try {
+            if (slot.done.await(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            waitsGivenUp.incrementAndGet();
+            return false;
+        } catch (InterruptedException e) {
+            current.interrupt();
+            return false;
+        } finally {
+            synchronized (waits) {
+                waits.remove(current);
+            }
+        }
+    }
+
+    private Object stripe(int bucket) {
+        return stripes[bucket & (STRIPES - 1)];
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,406 @@
+package core;
+
+import java.util.*;
+
+/**
+ * Native implementations of hot list functions from standard.modal.
+ * Each intrinsic only fires for argument shapes where it provably produces the
+ * same term as the rule chain it replaces; everything else is left to the rules.
+ */
+public class StandardIntrinsics implements IntrinsicProvider {
+
+    private static final java.util.List<String> CONS_RULES = java.util.List.of(
+            "<list.cons> (cons ?elem ?list) (?elem . ?list)");
+
+    private static final Term DOT = Term.atom(".");
+    private static final Term APPLY = Term.atom("apply");
+    private static final Term MAP = Term.atom("map");
+    private static final Term FILTER = Term.atom("filter");
+    private static final Term TAKE = Term.atom("take");
+    private static final Term.Atom ZERO = new Term.Atom("0");
+    private static final Term.Atom ONE = new Term.Atom("1");
+
+    @Override
+    public void register(IntrinsicRegistry registry) {
+        registry.register("length", 1, StandardIntrinsics::length, Map.of(
+                "length", java.util.List.of(
+                        "<list.length.empty> (length ()) 0",
+                        "<list.length> (length (?head . ?tail)) (+ 1 (length ?tail))")));
+
+        registry.register("sum", 1, StandardIntrinsics::sum, Map.of(
+                "sum", java.util.List.of(
+                        "<math.sum.empty> (sum ()) 0",
+                        "<math.sum> (sum (?head . ?tail)) (+ ?head (sum ?tail))")));
+
+        registry.register("product", 1, StandardIntrinsics::product, Map.of(
+                "product", java.util.List.of(
+                        "<math.product.empty> (product ()) 1",
+                        "<math.product> (product (?head . ?tail)) (* ?head (product ?tail))")));
+
+        // Liest eine Datei, keine Regeln
+        registry.register(DataSource.SYMBOL, 1, DataSource::read);
+
+        registry.register("member?", 2, StandardIntrinsics::member, Map.of(
+                "member?", java.util.List.of(
+                        "<list.member.empty> (member? ?elem ()) false",
+                        "<list.member.found> (member? ?elem (?elem . ?tail)) true",
+                        "<list.member> (member? ?elem (?head . ?tail)) (if (= ?elem ?head) true (member? ?elem ?tail))")));
+
+        registry.register("append", 2, StandardIntrinsics::append, Map.of(
+                "append", java.util.List.of(
+                        "<list.append.empty.left> (append () ?list) ?list",
+                        "<list.append> (append (?head . ?tail) ?list) (cons ?head (append ?tail ?list))"),
+                "cons", CONS_RULES));
+
+        registry.register("reverse", 1, StandardIntrinsics::reverse, Map.of(
+                "reverse", java.util.List.of(
+                        "<list.reverse> (reverse ?list) (reverse-helper ?list ())"),
+                "reverse-helper", java.util.List.of(
+                        "<list.reverse.helper.empty> (reverse-helper () ?acc) ?acc",
+                        "<list.reverse.helper> (reverse-helper (?head . ?tail) ?acc) (reverse-helper ?tail (cons ?head ?acc))"),
+                "cons", CONS_RULES));
+
+        registry.register("range", 2, StandardIntrinsics::range, Map.of(
+                "range", java.util.List.of(
+                        "<list.range.end> (range ?n ?n) ()",
+                        "<list.range> (range ?start ?end) (if (< ?start ?end) (cons ?start (range (+ ?start 1) ?end)) ())"),
+                "cons", CONS_RULES));
+
+        registry.register("take", 2, StandardIntrinsics::take, Map.of(
+                "take", java.util.List.of(
+                        "<list.take.zero> (take 0 ?list) ()",
+                        "<list.take.empty> (take ?n ()) ()",
+                        "<list.take> (take ?n (?head . ?tail)) (if (> ?n 0) (cons ?head (take (- ?n 1) ?tail)) ())"),
+                "cons", CONS_RULES));
+
+        registry.register("map", 2, StandardIntrinsics::map, Map.of(
+                "map", java.util.List.of(
+                        "<hof.map.empty> (map ?fn ()) ()",
+                        "<hof.map> (map ?fn (?head . ?tail)) (cons (apply ?fn ?head) (map ?fn ?tail))"),
+                "cons", CONS_RULES));
+
+        registry.register("filter", 2, StandardIntrinsics::filter, Map.of(
+                "filter", java.util.List.of(
+                        "<hof.filter.empty> (filter ?pred ()) ()",
+                        "<hof.filter.true> (filter ?pred (?head . ?tail)) (if (apply ?pred ?head) (cons ?head (filter ?pred ?tail)) (filter ?pred ?tail))"),
+                "cons", CONS_RULES));
+    }
+
+    private static Term length(Term.List call, TermEvaluator evaluator) {
+        if (DataSource.cellOf(call.elements().get(1)) != null) {
+            return DataSource.length(call.elements().get(1));
+        }
+        java.util.List<Term> elements = spine(call.elements().get(1));
+        return elements != null ? Term.number(elements.size()) : null;
+    }
+
+    private static Term sum(Term.List call, TermEvaluator evaluator) {
+        if (call.elements().get(1) instanceof Term.List list && list.elements() instanceof PackedNumbers packed) {
+            return packed.sum();
+        }
+        if (DataSource.cellOf(call.elements().get(1)) != null) {
+            return DataSource.sum(call.elements().get(1));
+        }
+        java.util.List<Term> elements = spine(call.elements().get(1));
+        if (elements == null || !allNumbers(elements)) {
+            return null;
+        }
+
+        // Rechts-Faltung wie (+ ?head (sum ?tail)), inklusive Rundung pro Schritt
+        Term.Atom acc = new Term.Atom("0");
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            acc = (Term.Atom) Evaluator.evaluateBinaryOp("+", (Term.Atom) elements.get(i), acc);
+        }
+        return acc;
+    }
+
+    private static Term product(Term.List call, TermEvaluator evaluator) {
+        if (call.elements().get(1) instanceof Term.List list && list.elements() instanceof PackedNumbers packed) {
+            return packed.product();
+        }
+        if (DataSource.cellOf(call.elements().get(1)) != null) {
+            return DataSource.product(call.elements().get(1));
+        }
+        java.util.List<Term> elements = spine(call.elements().get(1));
+        if (elements == null || !allNumbers(elements)) {
+            return null;
+        }
+
+        Term.Atom acc = new Term.Atom("1");
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            acc = (Term.Atom) Evaluator.evaluateBinaryOp("*", (Term.Atom) elements.get(i), acc);
+        }
+        return acc;
+    }
+
+    private static Term member(Term.List call, TermEvaluator evaluator) {
+        if (!(call.elements().get(1) instanceof Term.Atom elem)) {
+            return null;
+        }
+
+        // Schrittweise, damit eine Datei nur bis zum Treffer gelesen wird
+        Spine spine = new Spine(call.elements().get(2));
+        while (spine.hasNext()) {
+            Term element = spine.next();
+            if (!(element instanceof Term.Atom)) {
+                return null;
+            }
+            if (element.equals(elem)) {
+                return Term.bool(true);
+            }
+        }
+        return spine.isProper() ? Term.bool(false) : null;
+    }
+
+    private static Term append(Term.List call, TermEvaluator evaluator) {
+        Term right = call.elements().get(2);
+        java.util.List<Term> left = spine(call.elements().get(1));
+
+        if (left == null || !allInert(left, evaluator)) {
+            return null;
+        }
+        if (right instanceof Term.List rightList && !allInert(rightList.elements(), evaluator)) {
+            return null;
+        }
+        if (!(right instanceof Term.Atom) && !(right instanceof Term.List)) {
+            return null;
+        }
+
+        return dotted(left, right, false);
+    }
+
+    private static Term reverse(Term.List call, TermEvaluator evaluator) {
+        if (call.elements().get(1) instanceof Term.List list && list.elements() instanceof PackedNumbers packed &&
+                packed.isIntegral() && evaluator.areNumbersInert()) {
+            long[] reversed = new long[packed.size()];
+            for (int i = 0; i < reversed.length; i++) {
+                reversed[i] = (long) packed.getDouble(reversed.length - 1 - i);
+            }
+            return PackedNumbers.ofLongs(reversed).toChain();
+        }
+
+        java.util.List<Term> elements = spine(call.elements().get(1));
+        if (elements == null || !allInert(elements, evaluator)) {
+            return null;
+        }
+        return dotted(elements, Term.nil(), true);
+    }
+
+    private static Term range(Term.List call, TermEvaluator evaluator) {
+        if (!(call.elements().get(1) instanceof Term.Atom start) || !start.isNumber() ||
+                !(call.elements().get(2) instanceof Term.Atom end) || !end.isNumber()) {
+            return null;
+        }
+
+        Term lazy = lazyRange(start, end, evaluator);
+        if (lazy != null) {
+            return lazy;
+        }
+
+        java.util.List<Term> elements = new ArrayList<>();
+        Term.Atom one = new Term.Atom("1");
+        Term.Atom current = start;
+        while (!current.equals(end) && Evaluator.evaluateBinaryOp("<", current, end).equals(Term.bool(true))) {
+            if (!evaluator.isInertSymbol(current.value())) {
+                return null;
+            }
+            elements.add(current);
+            current = (Term.Atom) Evaluator.evaluateBinaryOp("+", current, one);
+        }
+        return dotted(elements, Term.nil(), false);
+    }
+
+    /**
+     * (cons ?head (take (- ?n 1) ?tail)) - the rest is only taken when it is consumed.
+     */
+    private static Term take(Term.List call, TermEvaluator evaluator) {
+        if (!(call.elements().get(1) instanceof Term.Atom count) || !count.isNumber() ||
+                !(call.elements().get(2) instanceof Term.List list)) {
+            return null;
+        }
+        if (count.equals(ZERO) || list.isEmpty() || !(count.asDouble() > 0)) {
+            return Term.nil();
+        }
+
+        Term head = list.head();
+        // (?head . ...) würde mit einem Atom mit Regeln als Kopf erneut umgeschrieben
+        if (head instanceof Term.Atom headAtom && !evaluator.isInertSymbol(headAtom.value())) {
+            return null;
+        }
+        Term rest = Evaluator.evaluateBinaryOp("-", count, ONE);
+        Term tail = RuleMatcher.tail(list);
+        EvaluationStrategy strategy = evaluator.getStrategy();
+        return LazySeq.cell(evaluator.evaluateNested(head),
+                () -> evaluator.evaluate(new Term.List(TAKE, rest, tail), strategy));
+    }
+
+    /**
+     * (cons (apply ?fn ?head) (map ?fn ?tail)) - the tail is only mapped when it is consumed.
+     * Like all lazy tails it is forced through {@link TermEvaluator#evaluate(Term)},
+     * which takes the read lock of the rules again if the evaluation that built the
+     * cell has ended.
+     */
+    private static Term map(Term.List call, TermEvaluator evaluator) {
+        Term fn = call.elements().get(1);
+        if (!(call.elements().get(2) instanceof Term.List list)) {
+            return null;
+        }
+        if (list.isEmpty()) {
+            return Term.nil();
+        }
+
+        Term value = evaluator.evaluateNested(new Term.List(APPLY, fn, list.head()));
+        // (?head . ...) würde mit einem Atom mit Regeln als Kopf erneut umgeschrieben
+        if (value instanceof Term.Atom valueAtom && !evaluator.isInertSymbol(valueAtom.value())) {
+            return null;
+        }
+        Term tail = RuleMatcher.tail(list);
+        EvaluationStrategy strategy = evaluator.getStrategy();
+        return LazySeq.cell(value, () -> evaluator.evaluate(new Term.List(MAP, fn, tail), strategy));
+    }
+
+    /**
+     * Skips to the first element that satisfies the predicate; the rest is filtered on demand.
+     */
+    private static Term filter(Term.List call, TermEvaluator evaluator) {
+        Term pred = call.elements().get(1);
+        if (!(call.elements().get(2) instanceof Term.List)) {
+            return null;
+        }
+
+        Term rest = call.elements().get(2);
+        while (rest instanceof Term.List list && !list.isEmpty()) {
+            Term head = list.head();
+            Term tail = RuleMatcher.tail(list);
+            Term condition = evaluator.evaluateNested(new Term.List(APPLY, pred, head));
+            if (!(condition instanceof Term.Atom atom) || !atom.isBoolean()) {
+                throw new IllegalArgumentException("if condition must be boolean, got: " + condition);
+            }
+            if (atom.asBoolean()) {
+                // (?head . ...) würde mit einem Atom mit Regeln als Kopf erneut umgeschrieben
+                if (head instanceof Term.Atom headAtom && !evaluator.isInertSymbol(headAtom.value())) {
+                    return null;
+                }
+                EvaluationStrategy strategy = evaluator.getStrategy();
+                return LazySeq.cell(evaluator.evaluateNested(head),
+                        () -> evaluator.evaluate(new Term.List(FILTER, pred, tail), strategy));
+            }
+            rest = tail;
+        }
+        return rest instanceof Term.List ? Term.nil() : evaluator.evaluateNested(new Term.List(FILTER, pred, rest));
+    }
+
+    /**
+     * Integer ranges are generated on demand, one cell per consumed element.
+     */
+    private static Term lazyRange(Term.Atom start, Term.Atom end, TermEvaluator evaluator) {
+        long from;
+        long to;
+        try {
+            from = Integer.parseInt(start.value());
+            to = Integer.parseInt(end.value());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (!Long.toString(from).equals(start.value()) || !evaluator.areNumbersInert()) {
+            return null;
+        }
+        return LazySeq.range(from, to);
+    }
+
+    /**
+     * The elements a chain of (?head . ?tail) matches visits, or null if it does
+     * not end in (). Lists other than data cells are returned as they are.
+     */
+    private static java.util.List<Term> spine(Term term) {
+        if (term instanceof Term.List list && DataSource.cellOf(list) == null) {
+            return list.elements();
+        }
+        Spine spine = new Spine(term);
+        java.util.List<Term> elements = new ArrayList<>();
+        while (spine.hasNext()) {
+            elements.add(spine.next());
+        }
+        return spine.isProper() ? elements : null;
+    }
+
+    /**
+     * Walks a list the way (?head . ?tail) does, reading data cells one at a time.
+     */
+    private static final class Spine implements Iterator<Term> {
+        private Term rest;
+        private java.util.List<Term> flat;
+        private int index;
+
+        Spine(Term term) {
+            this.rest = term;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (flat == null || index == flat.size()) {
+                if (!(rest instanceof Term.List list) || list.isEmpty()) {
+                    return false;
+                }
+                if (DataSource.cellOf(list) != null) {
+                    flat = java.util.List.of(list.elements().get(0));
+                    rest = list.elements().get(2);
+                } else {
+                    flat = list.elements();
+                    rest = Term.nil();
+                }
+                index = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Term next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return flat.get(index++);
+        }
+
+        /**
+         * After the walk: whether the chain ended in ().
+         */
+        boolean isProper() {
+            return rest instanceof Term.List list && list.isEmpty();
+        }
+    }
+
+    /**
+     * Builds (e1 . (e2 . ... (en . tail))) - the shape the cons rule produces.
+     */
+    private static Term dotted(java.util.List<Term> elements, Term tail, boolean reversed) {
+        Term result = tail;
+        int size = elements.size();
+        for (int i = 0; i < size; i++) {
+            Term element = reversed ? elements.get(i) : elements.get(size - 1 - i);
+            result = new Term.List(element, DOT, result);
+        }
+        return result;
+    }
+
+    private static boolean allNumbers(java.util.List<Term> elements) {
+        for (Term element : elements) {
+            if (!(element instanceof Term.Atom atom) || !atom.isNumber()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Atoms without rules evaluate to themselves, and so does a list headed by one.
+     */
+    private static boolean allInert(java.util.List<Term> elements, TermEvaluator evaluator) {
+        for (Term element : elements) {
+            if (!(element instanceof Term.Atom atom) || !evaluator.isInertSymbol(atom.value())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
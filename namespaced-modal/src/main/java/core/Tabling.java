@@ -0,0 +1,26 @@
+package core;
+
+/**
+ * Declared with {@code @table symbol size [lru|fifo]}: results of the symbol are
+ * kept per evaluated argument list, at most {@code capacity} of them, until a
+ * rule they depend on changes.
+ */
+public record Tabling(int capacity, Eviction eviction) {
+
+    public enum Eviction {
+        /** Drop the entry that was used longest ago. */
+        LRU,
+        /** Drop the entry that was added first. */
+        FIFO;
+
+        public static Eviction parse(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    public Tabling {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Table size must be positive: " + capacity);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package core;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * A rule replacement compiled once for instantiation. Subtrees without variables
+ * are kept as they are and shared by every result, variables are slots looked up
+ * in the bindings, so a rewrite only allocates the lists on the path to a variable.
+ * Gives the same result as {@link RuleMatcher#substitute}.
+ */
+abstract sealed class Template {
+
+    abstract Term instantiate(Map<String, Term> bindings);
+
+    static Template compile(Term replacement) {
+        if (isGround(replacement)) {
+            // Einmal normalisieren wie beim Einsetzen, danach nur noch teilen
+            return new Ground(RuleMatcher.substitute(replacement, Map.of()));
+        }
+        if (replacement instanceof Term.Atom atom) {
+            return new Slot(atom);
+        }
+        if (replacement instanceof Term.List list) {
+            Template[] elements = new Template[list.elements().size()];
+            for (int i = 0; i < elements.length; i++) {
+                elements[i] = compile(list.elements().get(i));
+            }
+            return new ListNode(elements);
+        }
+        Term.Cons cons = (Term.Cons) replacement;
+        return new ConsNode(compile(cons.car()), compile(cons.cdr()));
+    }
+
+    private static boolean isGround(Term term) {
+        if (term instanceof Term.Atom atom) {
+            return !atom.isVariable();
+        }
+        if (term instanceof Term.List list) {
+            return list.isGround();
+        }
+        Term.Cons cons = (Term.Cons) term;
+        return isGround(cons.car()) && isGround(cons.cdr());
+    }
+
+    private static final class Ground extends Template {
+        private final Term term;
+
+        Ground(Term term) {
+            this.term = term;
+        }
+
+        @Override
+        Term instantiate(Map<String, Term> bindings) {
+            return term;
+        }
+    }
+
+    private static final class Slot extends Template {
+        private final Term.Atom variable;
+
+        Slot(Term.Atom variable) {
+            this.variable = variable;
+        }
+
+        @Override
+        Term instantiate(Map<String, Term> bindings) {
+            Term bound = bindings.get(variable.value());
+            return bound != null ? bound : variable;
+        }
+    }
+
+    private static final class ListNode extends Template {
+        private final Template[] elements;
+
+        ListNode(Template[] elements) {
+            this.elements = elements;
+        }
+
+        @Override
+        Term instantiate(Map<String, Term> bindings) {
+            java.util.List<Term> instantiated = new ArrayList<>(elements.length);
+            for (Template element : elements) {
+                instantiated.add(element.instantiate(bindings));
+            }
+            return Term.List.wrap(instantiated);
+        }
+    }
+
+    private static final class ConsNode extends Template {
+        private final Template car;
+        private final Template cdr;
+
+        ConsNode(Template car, Template cdr) {
+            this.car = car;
+            this.cdr = cdr;
+        }
+
+        @Override
+        Term instantiate(Map<String, Term> bindings) {
+            Term.Cons result = new Term.Cons(car.instantiate(bindings), cdr.instantiate(bindings));
+            return result.toList().<Term>map(list -> list).orElse(result);
+        }
+    }
+}
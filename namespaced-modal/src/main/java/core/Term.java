@@ -48,14 +48,69 @@ public sealed interface Term permits Term.Atom, Term.List, Term.Cons {
     /**
      * Proper list: finite sequence of elements
      * Represented as (e1 e2 ... en)
+     *
+     * Node count, depth and groundness are computed once per node on first use
+     * (iteratively, children first) and then cached, so checks against budgets
+     * cost O(1). Lazy cells and views on a {@link TermArena} are not descended
+     * into; such lists are not {@link #isPlain() plain}, and only views on a
+     * {@link RuleIndex} can be ground.
      */
-    record List(java.util.List<Term> elements) implements Term {
+    final class List implements Term {
+        private static final int UNKNOWN = -1;
+        private static final byte GROUND = 1;
+        private static final byte PLAIN = 2;
+
+        private final java.util.List<Term> elements;
+        private int nodeCount = UNKNOWN;
+        private int depth;
+        private byte flags;
+        private int hash;
+        // Metadaten aller Restlisten, geteilt mit den per tail() abgeschnittenen Listen
+        private Suffixes suffixes;
+        private int suffixStart;
+        // Von TermEvaluator gesetzt: dieser Knoten ist unter der Epoche eine Normalform
+        private volatile NormalForm normalForm;
+
+        record NormalForm(long epoch, Set<String> symbols) {
+        }
+
+        /**
+         * Copies the elements, so later changes to the given list do not reach the
+         * term. Lazy cells, packed numbers and the views of data files, arenas and
+         * the rule index cannot change and are kept as they are.
+         */
+        public List(java.util.List<Term> elements) {
+            this(isImmutable(elements) ? elements : java.util.List.copyOf(elements), true);
+        }
+
         public List(Term... elements) {
-            this(Arrays.asList(elements));
+            this(java.util.List.of(elements), true);
         }
 
         public List(Collection<Term> elements) {
-            this(new ArrayList<>(elements));
+            this(new ArrayList<>(elements), true);
+        }
+
+        // Übernimmt die Liste; der zweite Parameter unterscheidet nur die Signatur
+        private List(java.util.List<Term> elements, boolean owned) {
+            this.elements = elements;
+        }
+
+        /**
+         * Takes the list without copying it. Only for lists core builds itself and
+         * does not change afterwards.
+         */
+        static List wrap(java.util.List<Term> elements) {
+            return new List(elements, true);
+        }
+
+        private static boolean isImmutable(java.util.List<Term> elements) {
+            return elements instanceof PackedNumbers || elements instanceof LazySeq || elements instanceof DataSource.Cell
+                    || TermArena.isView(elements) || RuleIndex.isView(elements) || PackedNumbers.isChain(elements);
+        }
+
+        public java.util.List<Term> elements() {
+            return elements;
         }
 
         public boolean isEmpty() {
@@ -67,9 +122,28 @@ public sealed interface Term permits Term.Atom, Term.List, Term.Cons {
             return elements.get(0);
         }
 
+        /**
+         * The elements after the head, as a view. All tails cut from one list share
+         * its suffix metadata, so a rule walking it by tails hashes each in O(1).
+         */
         public List tail() {
             if (isEmpty()) throw new IllegalStateException("Empty list has no tail");
-            return new List(elements.subList(1, elements.size()));
+            if (elements instanceof LazySeq seq) {
+                // Eine Sicht auf die Zelle, ohne ihren Tail zu berechnen
+                return seq.rest();
+            }
+            List tail = wrap(elements.subList(1, elements.size()));
+            if (!isOpaque() && !isConsCell(elements)) {
+                if (suffixes == null) {
+                    ensureMetadata();
+                    suffixes = scan(true);
+                    suffixStart = 0;
+                }
+                tail.suffixes = suffixes;
+                tail.suffixStart = suffixStart + 1;
+                suffixes.applyTo(tail, tail.suffixStart);
+            }
+            return tail;
         }
 
         public String getFunctionSymbol() {
@@ -81,12 +155,242 @@ public sealed interface Term permits Term.Atom, Term.List, Term.Cons {
             return "";
         }
 
+        /**
+         * Number of atoms and lists in this term, including the list itself.
+         * Saturates at Integer.MAX_VALUE.
+         */
+        public int nodeCount() {
+            ensureMetadata();
+            return nodeCount;
+        }
+
+        /**
+         * Nesting depth of lists, 1 for a list of atoms.
+         */
+        public int depth() {
+            ensureMetadata();
+            return depth;
+        }
+
+        /**
+         * True if no ?variable occurs in the term.
+         */
+        public boolean isGround() {
+            ensureMetadata();
+            return (flags & GROUND) != 0;
+        }
+
+        /**
+         * True if the term consists of atoms and eager lists on the heap only:
+         * no lazy cells, no arena views and no cons pairs.
+         */
+        public boolean isPlain() {
+            ensureMetadata();
+            return (flags & PLAIN) != 0;
+        }
+
+        NormalForm normalForm() {
+            return normalForm;
+        }
+
+        void markNormal(long epoch, Set<String> symbols) {
+            normalForm = new NormalForm(epoch, symbols);
+        }
+
+        private void ensureMetadata() {
+            if (nodeCount != UNKNOWN) {
+                return;
+            }
+            Deque<List> stack = new ArrayDeque<>();
+            stack.push(this);
+            while (!stack.isEmpty()) {
+                List list = stack.peek();
+                if (list.nodeCount != UNKNOWN) {
+                    stack.pop();
+                    continue;
+                }
+                boolean pending = false;
+                if (!list.isOpaque()) {
+                    for (Term element : list.elements) {
+                        if (element instanceof List child && child.nodeCount == UNKNOWN) {
+                            stack.push(child);
+                            pending = true;
+                        }
+                    }
+                }
+                if (!pending) {
+                    list.computeMetadata();
+                    stack.pop();
+                }
+            }
+        }
+
+        boolean isOpaque() {
+            return elements instanceof LazySeq || elements instanceof DataSource.Cell
+                    || TermArena.isView(elements) || RuleIndex.isView(elements)
+                    || PackedNumbers.isChain(elements);
+        }
+
+        private void computeMetadata() {
+            if (isOpaque()) {
+                depth = 1;
+                // Der Regel-Index speichert, ob ein Knoten Variablen enthält
+                flags = RuleIndex.isGroundView(elements) ? GROUND : 0;
+                nodeCount = 1;
+                return;
+            }
+            scan(false).applyTo(this, 0);
+        }
+
+        /**
+         * Metadata of the elements from each index on, last element first. Only the
+         * first entry is filled unless all are asked for; children must be done.
+         */
+        private Suffixes scan(boolean all) {
+            int size = elements.size();
+            Suffixes result = new Suffixes(all ? size + 1 : 1);
+            long count = 1;
+            int maxDepth = 0;
+            boolean ground = true;
+            boolean plain = true;
+            int hash = 1;
+            ListIterator<Term> iterator = elements.listIterator(size);
+            for (int i = size; ; i--) {
+                if (all || i == 0) {
+                    int entry = all ? i : 0;
+                    result.counts[entry] = (int) Math.min(count, Integer.MAX_VALUE);
+                    result.depths[entry] = maxDepth + 1;
+                    result.flags[entry] = (byte) ((ground ? GROUND : 0) | (plain ? PLAIN : 0));
+                    // Ein Rest (h . t) hasht wie jede Cons-Zelle nur seinen Kopf
+                    result.hashes[entry] = size - i == 3 && isConsCell(elements.subList(i, size))
+                            ? computeHash(elements.subList(i, size)) : hash;
+                }
+                if (i == 0) {
+                    return result;
+                }
+                Term element = iterator.previous();
+                if (element instanceof List child) {
+                    count += child.nodeCount;
+                    maxDepth = Math.max(maxDepth, child.depth);
+                    ground &= (child.flags & GROUND) != 0;
+                    plain &= (child.flags & PLAIN) != 0;
+                } else if (element instanceof Atom atom) {
+                    count++;
+                    ground &= !atom.isVariable();
+                } else {
+                    long[] cons = consMetadata((Cons) element);
+                    count += cons[0];
+                    maxDepth = (int) Math.max(maxDepth, cons[1]);
+                    ground &= cons[2] != 0;
+                    plain = false;
+                }
+                hash = 31 * hash + element.hashCode();
+            }
+        }
+
+        private static final class Suffixes {
+            final int[] counts;
+            final int[] depths;
+            final byte[] flags;
+            final int[] hashes;
+
+            Suffixes(int size) {
+                counts = new int[size];
+                depths = new int[size];
+                flags = new byte[size];
+                hashes = new int[size];
+            }
+
+            void applyTo(List list, int entry) {
+                list.depth = depths[entry];
+                list.flags = flags[entry];
+                list.hash = hashes[entry];
+                list.nodeCount = counts[entry];
+            }
+        }
+
+        /**
+         * Count, depth and groundness of a cons structure, which has no place to cache them.
+         * A cdr chain stays on one level, like the elements of a list.
+         */
+        private static long[] consMetadata(Cons cons) {
+            long count = 0;
+            long maxDepth = 0;
+            boolean ground = true;
+            Deque<Term> terms = new ArrayDeque<>();
+            Deque<Integer> levels = new ArrayDeque<>();
+            terms.push(cons);
+            levels.push(1);
+            while (!terms.isEmpty()) {
+                Term term = terms.pop();
+                int level = levels.pop();
+                if (term instanceof Cons pair) {
+                    count++;
+                    maxDepth = Math.max(maxDepth, level);
+                    terms.push(pair.car());
+                    levels.push(pair.car() instanceof Cons ? level + 1 : level);
+                    terms.push(pair.cdr());
+                    levels.push(level);
+                } else if (term instanceof List list) {
+                    count += list.nodeCount();
+                    maxDepth = Math.max(maxDepth, level + list.depth() - 1);
+                    ground &= list.isGround();
+                } else {
+                    count++;
+                    ground &= !((Atom) term).isVariable();
+                }
+            }
+            return new long[]{count, maxDepth, ground ? 1 : 0};
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof List other)) {
+                return false;
+            }
+            // Bekannte Größen nur bei reinen Heap-Listen vergleichen, lazy Zellen zählen als ein Knoten
+            if (nodeCount != UNKNOWN && other.nodeCount != UNKNOWN && (flags & other.flags & PLAIN) != 0
+                    && nodeCount != other.nodeCount) {
+                return false;
+            }
+            return elements.equals(other.elements);
+        }
+
+        /**
+         * Hashes all elements, folded from the right; a cons cell only its head, so
+         * a lazy tail is not forced. Heap lists compute it once with their metadata,
+         * children first, so memo lookups on long lists cost O(1) after the first.
+         */
+        @Override
+        public int hashCode() {
+            if (isOpaque()) {
+                return computeHash(elements);
+            }
+            ensureMetadata();
+            return hash;
+        }
+
+        private static int computeHash(java.util.List<Term> elements) {
+            if (isConsCell(elements)) {
+                return 31 * (31 + elements.get(1).hashCode()) + elements.get(0).hashCode();
+            }
+            int hash = 1;
+            for (int i = elements.size() - 1; i >= 0; i--) {
+                hash = 31 * hash + elements.get(i).hashCode();
+            }
+            return hash;
+        }
+
+        private static boolean isConsCell(java.util.List<Term> elements) {
+            return elements.size() == 3 && elements.get(1) instanceof Atom dot && ".".equals(dot.value());
+        }
+
         @Override
         public String toString() {
-            return "(" + String.join(" ",
-                    elements.stream()
-                            .map(Term::toString)
-                            .toArray(String[]::new)) + ")";
+            return TermPrinter.UNLIMITED.toString(this);
         }
     }
 
@@ -110,7 +414,7 @@ public sealed interface Term permits Term.Atom, Term.List, Term.Cons {
 
             // Proper list ends with empty list
             if (current instanceof List list && list.isEmpty()) {
-                return Optional.of(new List(elements));
+                return Optional.of(List.wrap(elements));
             }
 
             return Optional.empty(); // Improper list
@@ -130,16 +434,12 @@ public sealed interface Term permits Term.Atom, Term.List, Term.Cons {
             return toList().map(list -> list.elements.size()).orElse(-1);
         }
 
+        /**
+         * A proper list prints as (a b c), otherwise as dotted pairs (a . (b . c)).
+         */
         @Override
         public String toString() {
-            Optional<List> asList = toList();
-            if (asList.isPresent()) {
-                // Display as proper list: (a b c)
-                return asList.get().toString();
-            } else {
-                // Display as dotted pair: (a . b)
-                return "(" + car + " . " + cdr + ")";
-            }
+            return TermPrinter.UNLIMITED.toString(this);
         }
     }
 
@@ -0,0 +1,327 @@
+package core;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.*;
+
+/**
+ * Off-heap store for very large terms. Every node is a fixed-width record of
+ * 16 bytes in native memory:
+ *
+ *   int tag | int a | long b
+ *   ATOM:    a = symbol id
+ *   NUMBER:  b = value (canonical integers only, as in {@link PackedNumbers})
+ *   LIST:    a = element count, b = index of the first child in the edge area
+ *
+ * Edges are node ids (int), the children of a list are stored contiguously.
+ * Symbols are interned in a small table on the heap, so a million equal atoms
+ * cost one string.
+ *
+ * {@link #term(int)} returns an ordinary {@link Term}: a list node is a
+ * {@link Term.List} whose elements are a view on the arena, so TermEvaluator
+ * works on stored terms unchanged. Through the view each access to a number or
+ * a list element creates a new atom or view. {@link RuleMatcher} therefore reads
+ * stored terms by node id, see {@link TermStore}: matching a pattern creates
+ * only the terms its variables bind.
+ *
+ * The REPL stores large input terms in an arena while they are evaluated, see
+ * its :arena command; otherwise callers fill one explicitly. It belongs to the thread
+ * that created it: the native memory is a confined {@link Arena}, and every other
+ * thread gets a WrongThreadException, also through the views. The views must not
+ * be used after {@link #close()}.
+ */
+public final class TermArena implements TermStore, AutoCloseable {
+    private static final int ATOM = 1;
+    private static final int NUMBER = 2;
+    private static final int LIST = 3;
+
+    private static final long NODE_BYTES = 16;
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final Arena arena = Arena.ofConfined();
+    private final Thread owner = Thread.currentThread();
+    // Feste Blöcke statt Umkopieren beim Wachsen, Adressen bleiben stabil
+    private final ArrayList<MemorySegment> nodeChunks = new ArrayList<>();
+    private final ArrayList<MemorySegment> edgeChunks = new ArrayList<>();
+    private int nodeCount;
+    private long edgeCount;
+
+    private final ArrayList<Term.Atom> symbols = new ArrayList<>();
+    private final Map<String, Integer> atomNodes = new HashMap<>();
+
+    public int atom(String value) {
+        checkThread();
+        long number = canonicalLong(value);
+        if (number != Long.MIN_VALUE) {
+            return number(number);
+        }
+        Integer node = atomNodes.get(value);
+        if (node == null) {
+            symbols.add(new Term.Atom(value));
+            node = addNode(ATOM, symbols.size() - 1, 0);
+            atomNodes.put(value, node);
+        }
+        return node;
+    }
+
+    public int number(long value) {
+        checkThread();
+        return addNode(NUMBER, 0, value);
+    }
+
+    public int list(int... children) {
+        checkThread();
+        long first = edgeCount;
+        for (int child : children) {
+            addEdge(child);
+        }
+        return addNode(LIST, children.length, first);
+    }
+
+    /**
+     * Copies a heap term into the arena. Works iteratively, so deeply nested
+     * cons chains do not overflow the stack.
+     */
+    public int store(Term term) {
+        Deque<Object[]> stack = new ArrayDeque<>();
+        int result = -1;
+        Term current = term;
+
+        while (true) {
+            if (current != null) {
+                if (current instanceof Term.List list) {
+                    java.util.List<Term> elements = list.elements();
+                    stack.push(new Object[]{elements, new int[elements.size()], new int[]{0}});
+                } else if (current instanceof Term.Atom atom) {
+                    result = atom(atom.value());
+                } else {
+                    throw new IllegalArgumentException("Only atoms and lists can be stored: " + current);
+                }
+                current = null;
+            }
+
+            if (stack.isEmpty()) {
+                return result;
+            }
+
+            Object[] frame = stack.peek();
+            @SuppressWarnings("unchecked")
+            java.util.List<Term> elements = (java.util.List<Term>) frame[0];
+            int[] children = (int[]) frame[1];
+            int[] index = (int[]) frame[2];
+            // Ergebnis des zuletzt fertig gewordenen Kindes eintragen
+            if (result >= 0 && index[0] > 0) {
+                children[index[0] - 1] = result;
+            }
+            result = -1;
+
+            if (index[0] < elements.size()) {
+                current = elements.get(index[0]++);
+            } else {
+                stack.pop();
+                result = list(children);
+            }
+        }
+    }
+
+    /**
+     * A view on the stored node.
+     */
+    @Override
+    public Term term(int node) {
+        checkThread();
+        return switch (tag(node)) {
+            case ATOM -> symbols.get(a(node));
+            case NUMBER -> new Term.Atom(Long.toString(b(node)));
+            case LIST -> slice(node, 0, a(node));
+            default -> throw new IllegalStateException("Corrupt node " + node + " with tag " + tag(node));
+        };
+    }
+
+    @Override
+    public Term.List slice(int node, int from, int size) {
+        checkThread();
+        Objects.checkFromIndexSize(from, size, size(node));
+        return new Term.List(new Elements(this, node, from, size));
+    }
+
+    @Override
+    public boolean isList(int node) {
+        checkThread();
+        return tag(node) == LIST;
+    }
+
+    @Override
+    public int size(int node) {
+        checkThread();
+        if (tag(node) != LIST) {
+            throw new IllegalArgumentException("Node " + node + " is not a list");
+        }
+        return a(node);
+    }
+
+    @Override
+    public int element(int node, int index) {
+        Objects.checkIndex(index, size(node));
+        return edge(b(node) + index);
+    }
+
+    @Override
+    public boolean isAtom(int node, String value) {
+        checkThread();
+        return switch (tag(node)) {
+            case ATOM -> symbols.get(a(node)).value().equals(value);
+            case NUMBER -> spells(value, b(node));
+            default -> false;
+        };
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int symbolCount() {
+        return symbols.size();
+    }
+
+    /**
+     * Native memory reserved for nodes and edges.
+     */
+    public long byteSize() {
+        return (nodeChunks.size() * NODE_BYTES + edgeChunks.size() * 4L) * CHUNK_SIZE;
+    }
+
+    static boolean isView(java.util.List<Term> elements) {
+        return elements instanceof Elements;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    // Auch die Tabellen auf dem Heap sind nicht synchronisiert
+    private void checkThread() {
+        if (Thread.currentThread() != owner) {
+            throw new WrongThreadException("Term arena belongs to " + owner.getName());
+        }
+    }
+
+    private int addNode(int tag, int a, long b) {
+        if (nodeCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Term arena is full");
+        }
+        int node = nodeCount++;
+        if ((node & CHUNK_MASK) == 0) {
+            nodeChunks.add(arena.allocate(NODE_BYTES * CHUNK_SIZE, 8));
+        }
+        MemorySegment chunk = nodeChunks.get(node >>> CHUNK_SHIFT);
+        long offset = (node & CHUNK_MASK) * NODE_BYTES;
+        chunk.set(ValueLayout.JAVA_INT, offset, tag);
+        chunk.set(ValueLayout.JAVA_INT, offset + 4, a);
+        chunk.set(ValueLayout.JAVA_LONG, offset + 8, b);
+        return node;
+    }
+
+    private void addEdge(int child) {
+        long edge = edgeCount++;
+        if ((edge & CHUNK_MASK) == 0) {
+            edgeChunks.add(arena.allocate(4L * CHUNK_SIZE, 4));
+        }
+        edgeChunks.get((int) (edge >>> CHUNK_SHIFT)).setAtIndex(ValueLayout.JAVA_INT, edge & CHUNK_MASK, child);
+    }
+
+    private int tag(int node) {
+        return nodeChunks.get(node >>> CHUNK_SHIFT).get(ValueLayout.JAVA_INT, (node & CHUNK_MASK) * NODE_BYTES);
+    }
+
+    private int a(int node) {
+        return nodeChunks.get(node >>> CHUNK_SHIFT).get(ValueLayout.JAVA_INT, (node & CHUNK_MASK) * NODE_BYTES + 4);
+    }
+
+    private long b(int node) {
+        return nodeChunks.get(node >>> CHUNK_SHIFT).get(ValueLayout.JAVA_LONG, (node & CHUNK_MASK) * NODE_BYTES + 8);
+    }
+
+    private int edge(long index) {
+        return edgeChunks.get((int) (index >>> CHUNK_SHIFT)).getAtIndex(ValueLayout.JAVA_INT, index & CHUNK_MASK);
+    }
+
+    // Vergleicht mit der Dezimalschreibweise, ohne sie als String anzulegen
+    private static boolean spells(String value, long number) {
+        if (number == 0) {
+            return value.equals("0");
+        }
+        int i = value.length();
+        for (long rest = number; rest != 0; rest /= 10) {
+            if (--i < 0 || value.charAt(i) != '0' + Math.abs(rest % 10)) {
+                return false;
+            }
+        }
+        return number < 0 ? i == 1 && value.charAt(0) == '-' : i == 0;
+    }
+
+    private static long canonicalLong(String value) {
+        if (value.isEmpty() || value.length() > 19) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            long number = Long.parseLong(value);
+            return Long.toString(number).equals(value) ? number : Long.MIN_VALUE;
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Element list of a stored list node, from a position on.
+     */
+    private static final class Elements extends AbstractList<Term> implements RandomAccess, View {
+        private final TermArena arena;
+        private final int node;
+        private final int from;
+        private final int size;
+
+        private Elements(TermArena arena, int node, int from, int size) {
+            this.arena = arena;
+            this.node = node;
+            this.from = from;
+            this.size = size;
+        }
+
+        @Override
+        public Term get(int index) {
+            Objects.checkIndex(index, size);
+            return arena.term(arena.element(node, from + index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public java.util.List<Term> subList(int fromIndex, int toIndex) {
+            Objects.checkFromToIndex(fromIndex, toIndex, size);
+            return new Elements(arena, node, from + fromIndex, toIndex - fromIndex);
+        }
+
+        @Override
+        public TermStore store() {
+            return arena;
+        }
+
+        @Override
+        public int node() {
+            return node;
+        }
+
+        @Override
+        public int from() {
+            return from;
+        }
+    }
+}
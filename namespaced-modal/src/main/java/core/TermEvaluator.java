@@ -2,31 +2,307 @@ package core;
 
 import debug.Debugger;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TermEvaluator {
+    private final RuleSet ruleSet;
     private final RuleRewriter rewriter;
     private final Evaluator specialEvaluator;
     private final Debugger debugger;
+    private final IntrinsicRegistry intrinsics;
+    private final EvaluationRegion region = new EvaluationRegion();
+    private static final int MAX_RETAINED_NODES = 256;
+    private static final int MAX_STORED_NODES = 4096;
+    // Billigere Ergebnisse rechnet man schneller neu, als man sie liest
+    private static final int MIN_STORED_STEPS = 16;
 
-    private final Map<Term, Term> memoCache = new HashMap<>();
+    private boolean verifyIntrinsics = false;
+    // Meldungen der Prüfung kürzen, eine lazy Liste wird dafür nur am Anfang erzeugt
+    private static final TermPrinter VERIFY_PRINTER = new TermPrinter(12, 20, 500);
+    private boolean graphReduction = false;
+    private boolean listFusion = true;
+    private final ListFusion fusion = new ListFusion();
+    private EvaluationStrategy strategy = EvaluationStrategy.OUTERMOST;
+    private RuleScope scope;
+
+    // Ergebnisse mit ihren Abhängigkeiten, bleiben über Auswertungen hinweg bis zur Regeländerung
+    private final Map<EvaluationStrategy, MemoTable> memoTables = new EnumMap<>(EvaluationStrategy.class);
+    private static final int DEFAULT_MEMO_CAPACITY = 1 << 16;
+    private int memoCapacity = DEFAULT_MEMO_CAPACITY;
+    private MemoTable memo;
+    // Nur innerhalb einer Auswertung: große Terme und Werte hinter einem Zyklus-Abbruch
+    private final MemoTable scratchMemo = new MemoTable();
+    private final Map<Set<String>, Set<String>> dependencySets = new HashMap<>();
+    // @table: eigene Tabelle pro Symbol, Schlüssel sind die ausgewerteten Aufrufe
+    private final Map<String, MemoTable> tables = new HashMap<>();
+
+    // Normalform-Markierungen an den Termknoten gelten nur für die Epoche, unter der sie gesetzt wurden
+    private static final AtomicLong EPOCHS = new AtomicLong();
+    private final Map<EvaluationStrategy, Long> normalEpochs = new EnumMap<>(EvaluationStrategy.class);
+    private long normalEpoch;
+
+    private ResultStore resultStore;
+    private SharedMemo sharedMemo;
+    private Set<String> scopeNamespaces;
+    private long storeFingerprint;
+    private int steps = 0;
+    // Zeitscheiben: der Hook läuft alle sliceSteps Schritte, zwischen zwei Schritten
+    private Runnable yieldHook;
+    private int sliceSteps;
+    private int sliceLeft;
+    // Die äußerste Auswertung hat die Lesesperre selbst genommen und darf sie im Hook abgeben
+    private boolean pausable;
+    // Alle Symbole, die die Auswertung in Zeitscheiben bisher benutzt hat
+    private final Set<String> slicedSymbols = new HashSet<>();
+    // Geteilte Terme, die diese Auswertung gerade berechnet, der innerste zuerst
+    private final Deque<SharedMemo.Claim> ownedClaims = new ArrayDeque<>();
     private final Set<Term> activeEvaluations = new HashSet<>();
 
+    // Graph-Reduktion: Wert pro Termknoten (Identität), überlebt verschachtelte evaluate()-Aufrufe
+    private final Map<Term, MemoTable.Entry> sharedValues = new IdentityHashMap<>();
+    private int evaluationDepth = 0;
+    private int cycleCuts = 0;
+    // Intrinsics ohne Regeldefinition sind Host-Code und dürfen Seiteneffekte haben
+    private int opaqueCalls = 0;
+
+    // Symbole, deren Regeln die gerade laufenden Auswertungen benutzen
+    private final Deque<HashSet<String>> dependencyFrames = new ArrayDeque<>();
+    private long seenVersion;
+    private long seenIntrinsicVersion;
+
     public TermEvaluator(RuleSet ruleSet, Debugger debugger) {
-        this.rewriter = new RuleRewriter(ruleSet, debugger);
+        this(ruleSet, debugger, IntrinsicRegistry.loadDefault());
+    }
+
+    public TermEvaluator(RuleSet ruleSet, Debugger debugger, IntrinsicRegistry intrinsics) {
+        this.ruleSet = ruleSet;
+        this.rewriter = new RuleRewriter(ruleSet, debugger, region);
         this.specialEvaluator = new Evaluator();
         this.debugger = debugger;
+        this.intrinsics = intrinsics;
+        this.seenVersion = ruleSet.getVersion();
+        this.seenIntrinsicVersion = intrinsics.getVersion();
+        this.memo = memoFor(strategy);
+        this.normalEpoch = epochFor(strategy);
+    }
+
+    public void registerIntrinsic(String symbol, int arity, Intrinsic intrinsic) {
+        intrinsics.register(symbol, arity, intrinsic);
+        seenIntrinsicVersion = intrinsics.getVersion();
+        clearMemo();
+        renewEpochs();
+    }
+
+    public IntrinsicRegistry getIntrinsics() {
+        return intrinsics;
+    }
+
+    /**
+     * In verification mode every result of an intrinsic that replaces rules is compared
+     * against the result of the plain rules; a mismatch raises an IllegalStateException.
+     */
+    public void setVerifyIntrinsics(boolean verifyIntrinsics) {
+        this.verifyIntrinsics = verifyIntrinsics;
+    }
+
+    public boolean isVerifyIntrinsics() {
+        return verifyIntrinsics;
+    }
+
+    /**
+     * In graph reduction mode a substituted variable is evaluated at most once:
+     * the compiled replacement of a rule puts the same bound term object at every
+     * occurrence, and the value of that node is kept until the outermost
+     * evaluation finishes. Matching still sees the unevaluated term, so results
+     * are the same as without sharing.
+     */
+    public void setGraphReduction(boolean graphReduction) {
+        this.graphReduction = graphReduction;
+    }
+
+    public boolean isGraphReduction() {
+        return graphReduction;
+    }
+
+    /**
+     * With list fusion, a consumer of a data file like (fold-left f 0 (data-file p))
+     * is evaluated atom by atom without walking the chain of cells, see
+     * {@link ListFusion}. On by default; it only applies where the result is the same.
+     */
+    public void setListFusion(boolean listFusion) {
+        this.listFusion = listFusion;
+    }
+
+    public boolean isListFusion() {
+        return listFusion;
+    }
+
+    /**
+     * Tries the rules of each symbol in the order learned by the profile, see
+     * {@link RuleProfile}. Results are the same as without; null disables it.
+     */
+    public void setRuleProfile(RuleProfile profile) {
+        rewriter.setProfile(profile);
+    }
+
+    public RuleProfile getRuleProfile() {
+        return rewriter.getProfile();
+    }
+
+    /**
+     * Default strategy for this evaluator. Namespace strategies and @strict
+     * declarations of the rule set take precedence.
+     */
+    public void setStrategy(EvaluationStrategy strategy) {
+        this.strategy = strategy;
+        this.memo = memoFor(strategy);
+        this.normalEpoch = epochFor(strategy);
+    }
+
+    /**
+     * Results may differ between strategies, so each has its own table.
+     */
+    private MemoTable memoFor(EvaluationStrategy strategy) {
+        return memoTables.computeIfAbsent(strategy, s -> new MemoTable(new Tabling(memoCapacity, Tabling.Eviction.LRU)));
+    }
+
+    /**
+     * Most results kept per strategy across evaluations; beyond that the least
+     * recently used are dropped. Changing it drops all kept results.
+     */
+    public void setMemoCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Memo capacity must be positive: " + capacity);
+        }
+        memoCapacity = capacity;
+        memoTables.clear();
+        memo = memoFor(strategy);
+    }
+
+    public int getMemoCapacity() {
+        return memoCapacity;
+    }
+
+    /**
+     * A term found to be in normal form is marked with the epoch of the strategy;
+     * any change to rules, scope or intrinsics starts new epochs.
+     */
+    private long epochFor(EvaluationStrategy strategy) {
+        return normalEpochs.computeIfAbsent(strategy, s -> EPOCHS.incrementAndGet());
+    }
+
+    private void renewEpochs() {
+        normalEpochs.clear();
+        normalEpoch = epochFor(strategy);
+    }
+
+    public EvaluationStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Evaluates a term with the given default strategy for this one evaluation.
+     */
+    public Term evaluate(Term term, EvaluationStrategy strategy) {
+        EvaluationStrategy previous = this.strategy;
+        this.strategy = strategy;
+        try {
+            return evaluate(term);
+        } finally {
+            this.strategy = previous;
+        }
+    }
+
+    /**
+     * Only rules visible from this scope are used, null means all rules.
+     */
+    public void setScope(RuleScope scope) {
+        this.scope = scope;
+        this.scopeNamespaces = scope != null ? Set.copyOf(scope.getNamespaces()) : null;
+        rewriter.setScope(scope);
+        clearMemo();
+        renewEpochs();
+    }
+
+    public RuleScope getScope() {
+        return scope;
+    }
+
+    private java.util.List<Rule> rulesFor(String symbol) {
+        return scope != null ? scope.getRulesForFunction(symbol) : ruleSet.getRulesForFunction(symbol);
+    }
+
+    /**
+     * True if a term headed by this symbol can never be rewritten.
+     */
+    public boolean isInertSymbol(String symbol) {
+        return rulesFor(symbol).isEmpty() &&
+                !specialEvaluator.isSpecialOperator(symbol) &&
+                !intrinsics.defines(symbol);
     }
 
     public Term evaluate(Term term) {
-        memoCache.clear();
+        if (evaluationDepth > 0) {
+            return evaluateLocked(term);
+        }
+        // Module vor dem Sperren laden; braucht die Auswertung doch noch eines, beginnt sie danach neu
+        if (resultStore != null) {
+            // Der Fingerabdruck umfasst alle Module
+            ruleSet.loadAllModules();
+        } else {
+            ruleSet.loadModulesFor(term);
+        }
+        if (scope != null) {
+            scope.getVisibleNamespaces();
+        }
+        pausable = !ruleSet.isLockedByCurrentThread();
+        try {
+            // Die äußerste Auswertung läuft komplett auf einer Version der Regeln
+            return ruleSet.read(() -> {
+                // Erst unter der Sperre: dieselbe Version der Regeln, die die Auswertung sieht
+                if (resultStore != null) {
+                    storeFingerprint = storeFingerprint();
+                }
+                invalidateChangedRules();
+                if (sharedMemo != null) {
+                    sharedMemo.sync();
+                }
+                slicedSymbols.clear();
+                return evaluateLocked(term);
+            });
+        } finally {
+            pausable = false;
+            if (resultStore != null) {
+                resultStore.flush();
+            }
+        }
+    }
+
+    private Term evaluateLocked(Term term) {
+        scratchMemo.clear();
         activeEvaluations.clear();
 
         if (debugger.getMode() == Debugger.Mode.DEBUG) {
             System.out.println("DEBUG: Starting evaluation of: " + term);
         }
 
-        Term result = evaluateRecursive(term);
-
+        evaluationDepth++;
+        MemoTable previousMemo = memo;
+        long previousEpoch = normalEpoch;
+        memo = memoFor(strategy);
+        normalEpoch = epochFor(strategy);
+        Term result;
+        try {
+            result = evaluateRecursive(term);
+        } finally {
+            memo = previousMemo;
+            normalEpoch = previousEpoch;
+            if (--evaluationDepth == 0) {
+                sharedValues.clear();
+                dependencyFrames.clear();
+                scratchMemo.clear();
+            }
+        }
 
         if (result instanceof Term.Cons cons) {
             var asList = cons.toList();
@@ -38,25 +314,315 @@ public class TermEvaluator {
         return result;
     }
 
+    private void invalidateChangedRules() {
+        // Direkt an der Registry geänderte Intrinsics: welche Ergebnisse sie berührt haben, ist unbekannt
+        if (intrinsics.getVersion() != seenIntrinsicVersion) {
+            seenIntrinsicVersion = intrinsics.getVersion();
+            clearMemo();
+            renewEpochs();
+        }
+        long version = ruleSet.getVersion();
+        if (version == seenVersion) {
+            return;
+        }
+        Set<String> changed = ruleSet.changedSymbolsSince(seenVersion);
+        if (changed == null) {
+            clearMemo();
+        } else {
+            for (MemoTable table : memoTables.values()) {
+                table.invalidate(changed);
+            }
+            // Die Deklaration selbst kann sich geändert haben
+            tables.keySet().removeAll(changed);
+            for (MemoTable table : tables.values()) {
+                table.invalidate(changed);
+            }
+        }
+        seenVersion = version;
+        renewEpochs();
+    }
+
+    private void clearMemo() {
+        memoTables.values().forEach(MemoTable::clear);
+        tables.clear();
+        dependencySets.clear();
+    }
+
+    /**
+     * Number of memoized results, kept across evaluations until a rule they
+     * depend on changes.
+     */
+    public int getCacheSize() {
+        int size = 0;
+        for (MemoTable table : memoTables.values()) {
+            size += table.size();
+        }
+        return size;
+    }
+
+    /**
+     * Number of results in the table of a symbol declared with @table.
+     */
+    public int getTableSize(String symbol) {
+        MemoTable table = tables.get(symbol);
+        return table != null ? table.size() : 0;
+    }
+
+    public long getTableEvictions(String symbol) {
+        MemoTable table = tables.get(symbol);
+        return table != null ? table.evictions() : 0;
+    }
+
+    /**
+     * Results missing from memory are looked up in this store, and expensive new
+     * ones are added to it at the end of each outermost evaluation. Null disables it.
+     */
+    public void setResultStore(ResultStore resultStore) {
+        this.resultStore = resultStore;
+    }
+
+    public ResultStore getResultStore() {
+        return resultStore;
+    }
+
+    /**
+     * Results missing from this evaluator's memo are looked up in a table shared
+     * with the evaluators of other threads on the same rule set, and a term another
+     * thread is computing is waited for instead of computed twice. Null disables it.
+     */
+    public void setSharedMemo(SharedMemo sharedMemo) {
+        if (sharedMemo != null && sharedMemo.getRuleSet() != ruleSet) {
+            throw new IllegalArgumentException("Shared memo belongs to another rule set");
+        }
+        this.sharedMemo = sharedMemo;
+    }
+
+    public SharedMemo getSharedMemo() {
+        return sharedMemo;
+    }
+
+    /**
+     * Shared results only apply to evaluations with the same strategy and scope.
+     */
+    private Object sharedContext() {
+        return scopeNamespaces == null ? strategy : java.util.List.of(strategy, scopeNamespaces);
+    }
+
+    /**
+     * Results only carry over between evaluators with the same rules, strategy and scope.
+     */
+    private long storeFingerprint() {
+        long hash = ruleSet.contentHash();
+        hash = hash * 31 + strategy.name().hashCode();
+        if (scope != null) {
+            hash = hash * 31 + new TreeSet<>(scope.getNamespaces()).toString().hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Runs the hook every given number of steps, before the next step starts; the
+     * hook may block or throw to suspend or abort the evaluation. Null removes it.
+     * While it runs, the evaluation holds nothing other threads wait for: its
+     * shared terms are given up and the read lock is released if the evaluation
+     * took it. If rules it has used changed meanwhile, the evaluation starts
+     * again; otherwise it goes on and uses the changed rules from then on.
+     */
+    void setYieldHook(int sliceSteps, Runnable hook) {
+        if (hook != null && sliceSteps < 1) {
+            throw new IllegalArgumentException("Slice must have at least one step: " + sliceSteps);
+        }
+        this.yieldHook = hook;
+        this.sliceSteps = sliceSteps;
+        this.sliceLeft = sliceSteps;
+    }
+
+    void beginDependencies() {
+        dependencyFrames.push(region.acquireSymbols());
+    }
+
+    /**
+     * The symbols used since the matching begin, as an immutable set that may be cached.
+     */
+    Set<String> endDependencies() {
+        HashSet<String> frame = dependencyFrames.pop();
+        recordDependencies(frame);
+        // Die meisten Einträge teilen sich wenige verschiedene Mengen
+        Set<String> symbols = dependencySets.get(frame);
+        if (symbols == null) {
+            symbols = Set.copyOf(frame);
+            dependencySets.put(symbols, symbols);
+        }
+        region.release(frame);
+        return symbols;
+    }
+
+    void recordDependencies(Set<String> symbols) {
+        if (!dependencyFrames.isEmpty()) {
+            dependencyFrames.peek().addAll(symbols);
+        }
+        if (yieldHook != null) {
+            slicedSymbols.addAll(symbols);
+        }
+    }
+
+    private void recordDependency(String symbol) {
+        if (!dependencyFrames.isEmpty()) {
+            dependencyFrames.peek().add(symbol);
+        }
+        if (yieldHook != null) {
+            slicedSymbols.add(symbol);
+        }
+    }
+
+    /**
+     * Evaluates a subterm within the current evaluation, e.g. when a lazy tail is forced.
+     */
+    Term evaluateNested(Term term) {
+        return evaluateRecursive(term);
+    }
+
     private Term evaluateRecursive(Term term) {
-        if (memoCache.containsKey(term)) {
-            return memoCache.get(term);
+        if (term instanceof Term.Atom) {
+            return term;
+        }
+
+        if (term instanceof Term.List list) {
+            Term.List.NormalForm normal = list.normalForm();
+            if (normal != null && normal.epoch() == normalEpoch) {
+                recordDependencies(normal.symbols());
+                return term;
+            }
+        }
+
+        if (graphReduction && term instanceof Term.List) {
+            MemoTable.Entry shared = sharedValues.get(term);
+            if (shared != null) {
+                recordDependencies(shared.symbols());
+                return shared.value();
+            }
+        }
+
+        MemoTable.Entry memoized = memo.get(term);
+        if (memoized == null) {
+            memoized = scratchMemo.get(term);
+        }
+        if (memoized != null) {
+            recordDependencies(memoized.symbols());
+            return memoized.value();
+        }
+
+        if (resultStore != null && resultStore.contains(storeFingerprint) && isRetainable(term)) {
+            MemoTable.Entry stored = resultStore.get(storeFingerprint, term);
+            if (stored != null) {
+                memo.put(term, stored.value(), stored.symbols());
+                recordDependencies(stored.symbols());
+                return stored.value();
+            }
         }
 
         if (activeEvaluations.contains(term)) {
+            cycleCuts++;
             return term;
         }
 
+        SharedMemo.Claim claim = SharedMemo.NONE;
+        if (sharedMemo != null && isRetainable(term)) {
+            claim = sharedMemo.claim(sharedContext(), term);
+            if (claim.hit() != null) {
+                memo.put(term, claim.hit().value(), claim.hit().symbols());
+                recordDependencies(claim.hit().symbols());
+                return claim.hit().value();
+            }
+            if (claim.isOwner()) {
+                ownedClaims.push(claim);
+            }
+        }
+
+        int cutsBefore = cycleCuts;
+        int opaqueBefore = opaqueCalls;
+        int stepsBefore = steps;
         activeEvaluations.add(term);
+        beginDependencies();
+        Term result = null;
+        Set<String> symbols;
         try {
-            Term result = evaluateCore(term);
-            if (!result.equals(term)) {
-                memoCache.put(term, result);
-            }
-            return result;
+            result = evaluateCore(term);
         } finally {
+            symbols = endDependencies();
             activeEvaluations.remove(term);
+            // Fehlt er, hat ihn eine Pause schon aufgegeben
+            if (ownedClaims.peek() == claim) {
+                ownedClaims.pop();
+            }
+            if (claim.isOwner() && result == null) {
+                sharedMemo.abandon(claim);
+            }
+        }
+
+        // Durch Zyklus-Abbruch entstandene Werte werden weder geteilt noch behalten
+        boolean complete = cycleCuts == cutsBefore;
+        if (result == term) {
+            if (complete && opaqueCalls == opaqueBefore && term instanceof Term.List list) {
+                list.markNormal(normalEpoch, symbols);
+            }
+        } else if (!result.equals(term)) {
+            boolean retain = complete && opaqueCalls == opaqueBefore && isRetainable(term);
+            (retain ? memo : scratchMemo).put(term, result, symbols);
+            // Metadaten des Werts sind berechnet, bevor ihn ein anderer Thread sieht
+            if (claim.isOwner() && retain && fitsNodes(result, MAX_STORED_NODES)) {
+                sharedMemo.complete(claim, result, symbols);
+                claim = SharedMemo.NONE;
+            }
+            if (retain && resultStore != null && steps - stepsBefore >= MIN_STORED_STEPS
+                    && fitsNodes(result, MAX_STORED_NODES)) {
+                resultStore.put(storeFingerprint, term, result, symbols);
+            }
+        }
+        if (claim.isOwner()) {
+            sharedMemo.abandon(claim);
+        }
+        if (graphReduction && term instanceof Term.List && complete) {
+            sharedValues.put(term, new MemoTable.Entry(result, symbols));
         }
+        return result;
+    }
+
+    /**
+     * Runs the yield hook without holding anything other threads wait for.
+     */
+    private void yieldSlice() {
+        // Wer auf einen dieser Terme wartet, rechnet ihn selbst
+        while (!ownedClaims.isEmpty()) {
+            sharedMemo.abandon(ownedClaims.pop());
+        }
+        if (pausable) {
+            ruleSet.pauseReading(yieldHook, slicedSymbols);
+            // Geändert hat sich nichts, was die Auswertung benutzt hat; was sie noch braucht, gilt neu
+            if (ruleSet.getVersion() != seenVersion) {
+                invalidateChangedRules();
+                if (sharedMemo != null) {
+                    sharedMemo.sync();
+                }
+            }
+        } else {
+            yieldHook.run();
+        }
+    }
+
+    /**
+     * Only small, self-contained terms are kept across evaluations: no lazy cells
+     * and no views on a {@link TermArena}, which may be closed by then.
+     */
+    private static boolean isRetainable(Term term) {
+        return fitsNodes(term, MAX_RETAINED_NODES);
+    }
+
+    private static boolean fitsNodes(Term term, int budget) {
+        if (term instanceof Term.List list) {
+            return list.isPlain() && list.nodeCount() - 1 <= budget;
+        }
+        return term instanceof Term.Atom;
     }
 
     private Term evaluateCore(Term term) {
@@ -68,9 +634,20 @@ public class TermEvaluator {
             return term;
         }
 
+        // Lazy Zellen sind bereits Werte, ihr Tail wird erst beim Zugriff berechnet
+        if (RuleMatcher.isLazyCell(list)) {
+            return term;
+        }
+
+        if (yieldHook != null && --sliceLeft <= 0) {
+            sliceLeft = sliceSteps;
+            yieldSlice();
+        }
         debugger.onStepStart(term);
+        steps++;
 
         String funcSymbol = list.getFunctionSymbol();
+        recordDependency(funcSymbol);
 
         if (specialEvaluator.isSpecialOperator(funcSymbol)) {
             Term result = specialEvaluator.evaluate(list, this);
@@ -78,6 +655,75 @@ public class TermEvaluator {
             return result;
         }
 
+        Tabling tabling = ruleSet.getTabling(funcSymbol);
+        if (tabling != null && list.elements().size() > 1) {
+            return evaluateTabled(list, funcSymbol, tabling);
+        }
+        return evaluateCall(list, funcSymbol);
+    }
+
+    /**
+     * The arguments are evaluated first, so (fib (- 5 1)) and (fib 4) share one entry.
+     */
+    private Term evaluateTabled(Term.List list, String funcSymbol, Tabling tabling) {
+        boolean[] all = new boolean[list.elements().size() - 1];
+        Arrays.fill(all, true);
+        Term.List call = evaluateArguments(list, all);
+
+        MemoTable table = tables.get(funcSymbol);
+        if (table == null) {
+            table = new MemoTable(tabling);
+            tables.put(funcSymbol, table);
+        }
+        MemoTable.Entry tabled = table.get(call);
+        if (tabled != null) {
+            recordDependencies(tabled.symbols());
+            debugger.onStepEnd(tabled.value());
+            return tabled.value();
+        }
+
+        int cutsBefore = cycleCuts;
+        int opaqueBefore = opaqueCalls;
+        beginDependencies();
+        recordDependency(funcSymbol);
+        Term result;
+        Set<String> symbols;
+        try {
+            result = evaluateCall(call, funcSymbol);
+        } finally {
+            symbols = endDependencies();
+        }
+        if (cycleCuts == cutsBefore && opaqueCalls == opaqueBefore && isRetainable(call)) {
+            table.put(call, result, symbols);
+        }
+        return result;
+    }
+
+    private Term evaluateCall(Term.List list, String funcSymbol) {
+        if (listFusion && ListFusion.isConsumer(funcSymbol)) {
+            Term fused = fusion.tryFuse(list, this);
+            if (fused != null) {
+                debugger.onIntrinsicApplied("fusion", list, fused);
+                if (verifyIntrinsics) {
+                    verifyAgainstRules("Fusion", list, fused);
+                }
+                debugger.onStepEnd(fused);
+                return fused;
+            }
+        }
+
+        Term.List call = list;
+        boolean[] strict = strictArguments(list, funcSymbol);
+        if (strict != null) {
+            list = evaluateArguments(list, strict);
+        }
+
+        Term intrinsicResult = applyIntrinsic(list, funcSymbol, call);
+        if (intrinsicResult != null) {
+            debugger.onStepEnd(intrinsicResult);
+            return intrinsicResult;
+        }
+
         Optional<Term> rewriteResult = rewriter.tryRewrite(list);
         if (rewriteResult.isPresent()) {
             Term result = evaluateRecursive(rewriteResult.get());
@@ -85,23 +731,210 @@ public class TermEvaluator {
             return result;
         }
 
-        Term result = evaluateSubterms(list);
+        // Strikt ausgewertete Argumente sind schon fertig, nur der Kopf fehlt noch
+        Term result = strict != null && allStrict(strict, list) ? evaluateHead(list) : evaluateSubterms(list);
         debugger.onStepEnd(result);
         return result;
     }
 
+    /**
+     * Which arguments to evaluate before rewriting, or null for none.
+     */
+    private boolean[] strictArguments(Term.List list, String funcSymbol) {
+        boolean[] declared = ruleSet.getStrictness(funcSymbol);
+        if (declared != null) {
+            return declared;
+        }
+
+        EvaluationStrategy effective = strategy;
+        java.util.List<Rule> rules = rulesFor(funcSymbol);
+        if (!rules.isEmpty()) {
+            EvaluationStrategy namespaceStrategy = ruleSet.getNamespaceStrategy(rules.get(0).namespace());
+            if (namespaceStrategy != null) {
+                effective = namespaceStrategy;
+            }
+        }
+        if (effective == EvaluationStrategy.OUTERMOST || list.elements().size() < 2) {
+            return null;
+        }
+
+        boolean[] all = new boolean[list.elements().size() - 1];
+        Arrays.fill(all, true);
+        return all;
+    }
+
+    /**
+     * True if the rules would see every argument of the call evaluated.
+     */
+    boolean evaluatesAllArguments(Term.List list) {
+        boolean[] strict = strictArguments(list, list.getFunctionSymbol());
+        return strict != null && allStrict(strict, list);
+    }
+
+    boolean seesAllRulesOf(String symbol) {
+        return scope == null || scope.seesAllRulesOf(symbol);
+    }
+
+    RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    private static boolean allStrict(boolean[] strict, Term.List list) {
+        if (strict.length < list.elements().size() - 1) {
+            return false;
+        }
+        for (int i = 0; i < list.elements().size() - 1; i++) {
+            if (!strict[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Term.List evaluateArguments(Term.List list, boolean[] strict) {
+        java.util.List<Term> elements = list.elements();
+        java.util.List<Term> newElements = null;
+
+        for (int i = 1; i < elements.size() && i - 1 < strict.length; i++) {
+            if (!strict[i - 1]) {
+                continue;
+            }
+            Term argument = elements.get(i);
+            Term evaluated = evaluateRecursive(argument);
+            if (!evaluated.equals(argument)) {
+                if (newElements == null) {
+                    newElements = new ArrayList<>(elements);
+                }
+                newElements.set(i, evaluated);
+            }
+        }
+
+        return newElements != null ? Term.List.wrap(newElements) : list;
+    }
+
+    private Term evaluateHead(Term.List list) {
+        Term head = list.elements().get(0);
+        Term evaluated = evaluateRecursive(head);
+        if (evaluated.equals(head)) {
+            return list;
+        }
+        java.util.List<Term> newElements = new ArrayList<>(list.elements());
+        newElements.set(0, evaluated);
+        return Term.List.wrap(newElements);
+    }
+
+    /**
+     * True if no number is used as a function symbol, so numbers stay as they are.
+     */
+    public boolean areNumbersInert() {
+        if (ruleSet.hasNumberSymbols()) {
+            return false;
+        }
+        for (IntrinsicRegistry.Binding binding : intrinsics.getBindings()) {
+            if (new Term.Atom(binding.symbol()).isNumber()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if a call of the symbol with that many arguments is first tried by an intrinsic.
+     */
+    boolean hasIntrinsic(String symbol, int arity) {
+        IntrinsicRegistry.Binding binding = intrinsics.lookup(symbol, arity);
+        return binding != null && binding.isActiveFor(ruleSet) && isVisibleInScope(binding);
+    }
+
+    /**
+     * @param call the call before its arguments were evaluated, for verification
+     */
+    private Term applyIntrinsic(Term.List list, String funcSymbol, Term.List call) {
+        IntrinsicRegistry.Binding binding = intrinsics.lookup(funcSymbol, list.elements().size() - 1);
+        if (binding == null || !binding.isActiveFor(ruleSet) || !isVisibleInScope(binding)) {
+            return null;
+        }
+
+        Term result = binding.intrinsic().apply(list, this);
+        if (result == null) {
+            return null;
+        }
+
+        debugger.onIntrinsicApplied(binding.toString(), list, result);
+        for (String symbol : binding.definedSymbols()) {
+            recordDependency(symbol);
+        }
+        if (!binding.replacesRules()) {
+            opaqueCalls++;
+        }
+
+        if (verifyIntrinsics && binding.replacesRules()) {
+            verifyAgainstRules("Intrinsic " + binding, call, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Evaluates the call again with the rules alone, starting from its unevaluated
+     * arguments, so the rules never see a lazy cell an intrinsic produced. Only
+     * intrinsics without rules, like data-file, are kept.
+     */
+    private void verifyAgainstRules(String name, Term.List call, Term result) {
+        IntrinsicRegistry referenceIntrinsics = IntrinsicRegistry.empty();
+        for (IntrinsicRegistry.Binding binding : intrinsics.getBindings()) {
+            if (!binding.replacesRules()) {
+                referenceIntrinsics.register(binding.symbol(), binding.arity(), binding.intrinsic());
+            }
+        }
+        TermEvaluator reference = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), referenceIntrinsics);
+        reference.setScope(scope);
+        reference.setListFusion(false);
+        Term expected;
+        try {
+            expected = reference.evaluate(call, strategy);
+        } catch (StackOverflowError e) {
+            throw new IllegalStateException(name + " returned " + VERIFY_PRINTER.toString(result) + " for "
+                    + VERIFY_PRINTER.toString(call) + ", the rules recurse too deep to check it");
+        }
+        if (!expected.equals(result)) {
+            throw new IllegalStateException(name + " returned " + VERIFY_PRINTER.toString(result) + " for "
+                    + VERIFY_PRINTER.toString(call) + ", rules give " + VERIFY_PRINTER.toString(expected));
+        }
+    }
+
+    /**
+     * An intrinsic for rules the scope only partly sees would compute something else.
+     */
+    private boolean isVisibleInScope(IntrinsicRegistry.Binding binding) {
+        if (scope == null) {
+            return true;
+        }
+        for (String symbol : binding.definedSymbols()) {
+            if (!scope.seesAllRulesOf(symbol)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private Term evaluateSubterms(Term.List list) {
-        List<Term> newElements = new ArrayList<>();
-        boolean changed = false;
+        java.util.List<Term> elements = list.elements();
+        java.util.List<Term> newElements = null;
 
-        for (Term element : list.elements()) {
+        // Kopiert wird erst, wenn sich ein Element wirklich ändert
+        for (int i = 0; i < elements.size(); i++) {
+            Term element = elements.get(i);
             Term evaluatedElement = evaluateRecursive(element);
-            newElements.add(evaluatedElement);
-            if (!evaluatedElement.equals(element)) {
-                changed = true;
+            if (newElements == null && !evaluatedElement.equals(element)) {
+                newElements = new ArrayList<>(elements.size());
+                newElements.addAll(elements.subList(0, i));
+            }
+            if (newElements != null) {
+                newElements.add(evaluatedElement);
             }
         }
 
-        return changed ? new Term.List(newElements) : list;
+        return newElements != null ? Term.List.wrap(newElements) : list;
     }
 }
\ No newline at end of file
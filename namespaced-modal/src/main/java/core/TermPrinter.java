@@ -0,0 +1,223 @@
+package core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Writes terms to an {@link Appendable} without recursion, so deep results do
+ * not overflow the stack, and in time linear in the output. Output goes to the
+ * target token by token, nothing is built up in between.
+ *
+ * Limits elide what lies beyond them with "...":
+ *   maxDepth   lists nested deeper are printed as (...)
+ *   maxLength  elements per list
+ *   maxChars   total output
+ *
+ * {@link #UNLIMITED} is what {@link Term#toString()} uses.
+ */
+public record TermPrinter(int maxDepth, int maxLength, long maxChars) {
+    public static final TermPrinter UNLIMITED = new TermPrinter(Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+    private static final String ELISION = "...";
+
+    public TermPrinter {
+        if (maxDepth < 1 || maxLength < 1 || maxChars < 1) {
+            throw new IllegalArgumentException("Print limits must be positive");
+        }
+    }
+
+    public TermPrinter withMaxDepth(int maxDepth) {
+        return new TermPrinter(maxDepth, maxLength, maxChars);
+    }
+
+    public TermPrinter withMaxLength(int maxLength) {
+        return new TermPrinter(maxDepth, maxLength, maxChars);
+    }
+
+    public TermPrinter withMaxChars(long maxChars) {
+        return new TermPrinter(maxDepth, maxLength, maxChars);
+    }
+
+    public String toString(Term term) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            print(term, builder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns false if anything was elided.
+     */
+    public boolean print(Term term, Appendable target) throws IOException {
+        Output out = new Output(target, maxChars);
+        Deque<Frame> stack = new ArrayDeque<>();
+        Term current = term;
+        int depth = 0;
+
+        while (true) {
+            if (current != null) {
+                if (!open(current, depth, out, stack)) {
+                    return false;
+                }
+                current = null;
+            }
+            if (stack.isEmpty()) {
+                return !out.elided;
+            }
+            Frame frame = stack.peek();
+            current = frame.next(out);
+            if (out.full) {
+                return false;
+            }
+            if (current == null) {
+                stack.pop();
+            } else {
+                depth = frame.depth;
+            }
+        }
+    }
+
+    private boolean open(Term term, int depth, Output out, Deque<Frame> stack) throws IOException {
+        if (term instanceof Term.List list) {
+            if (list.isEmpty()) {
+                out.write("()");
+            } else if (depth >= maxDepth) {
+                out.write("(" + ELISION + ")");
+                out.elided = true;
+            } else {
+                out.write("(");
+                stack.push(new ListFrame(list.elements(), depth + 1));
+            }
+        } else if (term instanceof Term.Cons cons) {
+            if (depth >= maxDepth) {
+                out.write("(" + ELISION + ")");
+                out.elided = true;
+            } else {
+                out.write("(");
+                stack.push(new ConsFrame(cons, depth + 1));
+            }
+        } else {
+            out.write(term.toString());
+        }
+        return !out.full;
+    }
+
+    private abstract static class Frame {
+        final int depth;
+
+        Frame(int depth) {
+            this.depth = depth;
+        }
+
+        /**
+         * Writes the separator and returns the next element, or writes the closing
+         * parenthesis and returns null.
+         */
+        abstract Term next(Output out) throws IOException;
+    }
+
+    private final class ListFrame extends Frame {
+        private final java.util.List<Term> elements;
+        private int index;
+
+        ListFrame(java.util.List<Term> elements, int depth) {
+            super(depth);
+            this.elements = elements;
+        }
+
+        @Override
+        Term next(Output out) throws IOException {
+            if (index == elements.size()) {
+                out.write(")");
+                return null;
+            }
+            if (index > 0) {
+                out.write(" ");
+            }
+            if (index == maxLength) {
+                out.write(ELISION + ")");
+                out.elided = true;
+                return null;
+            }
+            return elements.get(index++);
+        }
+    }
+
+    /**
+     * A proper cons chain prints as (a b c), an improper one as (a . (b . c)).
+     */
+    private final class ConsFrame extends Frame {
+        private final boolean proper;
+        private Term rest;
+        private int count;
+        private int closers = 1;
+
+        ConsFrame(Term.Cons cons, int depth) {
+            super(depth);
+            Term end = cons;
+            while (end instanceof Term.Cons next) {
+                end = next.cdr();
+            }
+            this.proper = end instanceof Term.List list && list.isEmpty();
+            this.rest = cons;
+        }
+
+        @Override
+        Term next(Output out) throws IOException {
+            if (rest instanceof Term.Cons cons) {
+                if (count == maxLength) {
+                    out.write(" " + ELISION + ")".repeat(closers));
+                    out.elided = true;
+                    return null;
+                }
+                if (count > 0) {
+                    out.write(proper ? " " : " . (");
+                    closers += proper ? 0 : 1;
+                }
+                count++;
+                rest = cons.cdr();
+                return cons.car();
+            }
+            if (rest != null && !proper) {
+                out.write(" . ");
+                Term last = rest;
+                rest = null;
+                return last;
+            }
+            out.write(")".repeat(closers));
+            return null;
+        }
+    }
+
+    private static final class Output {
+        private final Appendable target;
+        private final long maxChars;
+        private long written;
+        boolean elided;
+        boolean full;
+
+        Output(Appendable target, long maxChars) {
+            this.target = target;
+            this.maxChars = maxChars;
+        }
+
+        void write(String text) throws IOException {
+            if (full) {
+                return;
+            }
+            if (written + text.length() > maxChars) {
+                target.append(ELISION);
+                elided = true;
+                full = true;
+                return;
+            }
+            target.append(text);
+            written += text.length();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package core;
+
+/**
+ * Terms kept as numbered nodes outside the heap, as {@link TermArena} stores them,
+ * read node by node. {@link RuleMatcher} compares stored atoms and walks stored
+ * lists through it by node id, so matching creates no atom or list view per
+ * access; only what a pattern variable binds becomes a {@link Term}.
+ */
+public interface TermStore {
+
+    /**
+     * Element list of a stored list node, from a position on. A {@link Term.List}
+     * with such elements is a view on the store.
+     */
+    interface View {
+        TermStore store();
+
+        int node();
+
+        int from();
+    }
+
+    boolean isList(int node);
+
+    /**
+     * Number of elements of a list node.
+     */
+    int size(int node);
+
+    /**
+     * Node id of an element of a list node.
+     */
+    int element(int node, int index);
+
+    /**
+     * True if the node is an atom written exactly as the value.
+     */
+    boolean isAtom(int node, String value);
+
+    /**
+     * The node as a term; a list node is a view on the store.
+     */
+    Term term(int node);
+
+    /**
+     * Elements from..from+size-1 of a list node, as a view on the store.
+     */
+    Term.List slice(int node, int from, int size);
+}
@@ -0,0 +1,145 @@
+package core;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * An evaluation on a thread of its own, run in slices of a fixed number of
+ * rewrite steps. The evaluator is recursive and cannot be suspended as data, so
+ * the thread is what keeps its state between slices: each {@link #resume()}
+ * lets it run until the end of the next slice or until it is done, while the
+ * caller waits. Only one of the two ever runs.
+ *
+ * The thread is started by the first slice and reserves {@link #STACK_SIZE}
+ * until the evaluation is done, so the number of evaluations started at a time
+ * must be bounded, as {@link EvaluationScheduler} does.
+ *
+ * The evaluator must not be used for anything else until the evaluation is done.
+ * A suspended evaluation holds neither the read lock of the rules nor terms of a
+ * {@link SharedMemo}, so rule changes, module loads and other evaluations go
+ * ahead. Only a change to the rules of a symbol it has already used makes it
+ * start again on resuming; after any other change it goes on where it stopped.
+ */
+public final class ThreadedEvaluation {
+    // Die Auswertung ist rekursiv; reserviert, belegt wird nur, was sie braucht
+    static final long STACK_SIZE = 256L << 20;
+
+    private final TermEvaluator evaluator;
+    private final Term term;
+    private final int sliceSteps;
+
+    private final Semaphore running = new Semaphore(0);
+    private final Semaphore paused = new Semaphore(0);
+    private Thread thread;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private Term result;
+    private RuntimeException failure;
+    private int slices;
+
+    public ThreadedEvaluation(TermEvaluator evaluator, Term term, int sliceSteps) {
+        if (sliceSteps < 1) {
+            throw new IllegalArgumentException("Slice must have at least one step: " + sliceSteps);
+        }
+        this.evaluator = evaluator;
+        this.term = term;
+        this.sliceSteps = sliceSteps;
+    }
+
+    /**
+     * Runs the next slice and returns true once the evaluation is done.
+     */
+    public synchronized boolean resume() {
+        if (done) {
+            return true;
+        }
+        slices++;
+        if (thread == null) {
+            thread = new Thread(null, this::run, "modal-evaluation", STACK_SIZE);
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            running.release();
+        }
+        paused.acquireUninterruptibly();
+        return done;
+    }
+
+    private void run() {
+        evaluator.setYieldHook(sliceSteps, this::yieldSlice);
+        try {
+            result = evaluator.evaluate(term);
+        } catch (RuleSet.Restart e) {
+            throw e;
+        } catch (RuntimeException e) {
+            failure = e;
+        } catch (StackOverflowError e) {
+            failure = new IllegalStateException("Evaluation too deep: " + term, e);
+        } finally {
+            evaluator.setYieldHook(0, null);
+            done = true;
+            paused.release();
+        }
+    }
+
+    private void yieldSlice() {
+        paused.release();
+        running.acquireUninterruptibly();
+        if (cancelled) {
+            throw new CancellationException("Evaluation cancelled: " + term);
+        }
+    }
+
+    /**
+     * Ends a suspended evaluation: it unwinds at its next step, {@link #getResult()}
+     * then throws a CancellationException.
+     */
+    public synchronized void cancel() {
+        if (done) {
+            return;
+        }
+        cancelled = true;
+        if (thread == null) {
+            failure = new CancellationException("Evaluation cancelled: " + term);
+            done = true;
+            return;
+        }
+        resume();
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Number of slices started so far, the last one possibly shorter.
+     */
+    public synchronized int getSlices() {
+        return slices;
+    }
+
+    public int getSliceSteps() {
+        return sliceSteps;
+    }
+
+    public Term getTerm() {
+        return term;
+    }
+
+    TermEvaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * The value of the term; the exception of a failed evaluation is thrown again.
+     */
+    public synchronized Term getResult() {
+        if (!done) {
+            throw new IllegalStateException("Evaluation not done: " + term);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+}
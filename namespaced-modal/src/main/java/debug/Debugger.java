@@ -16,6 +16,7 @@ public class Debugger {
     private final BufferedReader reader;
     private boolean shouldContinue = true;
     private boolean runToEnd = false;
+    private long rewriteCount = 0;
 
     public Debugger(Mode mode) {
         this.mode = mode;
@@ -26,6 +27,13 @@ public class Debugger {
         return mode;
     }
 
+    /**
+     * Number of rule applications seen by this debugger so far.
+     */
+    public long getRewriteCount() {
+        return rewriteCount;
+    }
+
     public void onStepStart(Term term) {
         if (mode == Mode.TRACE) {
             System.out.println("Step: " + term);
@@ -39,6 +47,7 @@ public class Debugger {
     }
 
     public void onRuleApplied(Rule rule, Term before, Term after) {
+        rewriteCount++;
         switch (mode) {
             case DEBUG -> {
                 // KORRIGIERT: Regel-Namespace und -Name anzeigen
@@ -71,6 +80,14 @@ public class Debugger {
         }
     }
 
+    public void onIntrinsicApplied(String intrinsic, Term before, Term after) {
+        switch (mode) {
+            case DEBUG -> System.out.println("Intrinsic " + intrinsic + ": " + before + " -> " + after);
+            case TRACE -> System.out.println("Native " + intrinsic + ": " + before + " -> " + after);
+            default -> { /* nothing to show */ }
+        }
+    }
+
     public void onEvaluation(Term before, Term after) {
         if (mode == Mode.DEBUG || mode == Mode.TRACE) {
             System.out.println("Evaluated: " + before + " -> " + after);
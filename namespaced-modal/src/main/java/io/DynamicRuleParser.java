@@ -1,6 +1,7 @@
 package io;
 
 import core.Rule;
+import core.RuleSet;
 import core.Term;
 
 import java.util.regex.Matcher;
@@ -142,6 +143,25 @@ public class DynamicRuleParser {
         }
     }
 
+    /**
+     * Parses all commands first and then applies them as one transaction,
+     * so a syntax error or an unknown rule name leaves the rule set unchanged.
+     *
+     * @return the number of rules added plus removed
+     */
+    public static int applyAll(RuleSet ruleSet, java.util.List<String> commands) {
+        RuleSet.Transaction transaction = ruleSet.transaction();
+        for (String command : commands) {
+            ParseResult result = parse(command);
+            if (result.getType() == ParseResult.Type.ADD) {
+                transaction.add(result.getRule());
+            } else {
+                transaction.remove(result.getFullName());
+            }
+        }
+        return transaction.commit();
+    }
+
     public static boolean isDynamicRuleCommand(String input) {
         input = input.trim();
         return input.startsWith("<") || input.startsWith(">");
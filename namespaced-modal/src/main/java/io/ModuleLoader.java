@@ -0,0 +1,70 @@
+package io;
+
+import core.RuleSet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.*;
+
+/**
+ * Registers the modules of a manifest with a {@link RuleSet}, without parsing them.
+ *
+ * A manifest line is {@code namespace: symbol symbol ...}; the module itself is
+ * {@code <namespace>.modal} next to the manifest and is parsed on the first lookup
+ * of one of the listed symbols.
+ */
+public class ModuleLoader {
+    public static final String STANDARD_MANIFEST = "rules/modules/manifest";
+
+    /**
+     * @return the number of modules registered
+     */
+    public static int install(RuleSet ruleSet, String manifestResource) {
+        String directory = manifestResource.substring(0, manifestResource.lastIndexOf('/') + 1);
+        Map<String, java.util.List<String>> manifest = readManifest(manifestResource);
+        manifest.forEach((namespace, symbols) -> {
+            String resource = directory + namespace + ".modal";
+            ruleSet.addModule(namespace, symbols, () -> RuleParser.loadFromResource(resource));
+        });
+        return manifest.size();
+    }
+
+    public static RuleSet loadLazily(String manifestResource) {
+        RuleSet ruleSet = new RuleSet();
+        install(ruleSet, manifestResource);
+        return ruleSet;
+    }
+
+    public static Map<String, java.util.List<String>> readManifest(String manifestResource) {
+        try (InputStream is = ModuleLoader.class.getClassLoader().getResourceAsStream(manifestResource)) {
+            if (is == null) {
+                throw new IllegalArgumentException("Resource not found: " + manifestResource);
+            }
+
+            Map<String, java.util.List<String>> manifest = new LinkedHashMap<>();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(is));
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                int colon = line.indexOf(':');
+                if (colon <= 0) {
+                    throw new IllegalArgumentException("Expected 'namespace: symbols' at line " + lineNumber + ": " + line);
+                }
+                String namespace = line.substring(0, colon).trim();
+                String symbols = line.substring(colon + 1).trim();
+                manifest.put(namespace, symbols.isEmpty() ? java.util.List.of() : java.util.List.of(symbols.split("\\s+")));
+            }
+            return manifest;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read module manifest: " + manifestResource, e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+
+/**
+ * Console output broken into lines of a fixed width. After every page the user is
+ * asked whether to go on; answering q ends the output with {@link Stopped}. At most
+ * one line is buffered.
+ */
+public class PagedWriter extends Writer {
+
+    /**
+     * The user does not want to see more.
+     */
+    public static class Stopped extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public Stopped() {
+            super("Output stopped");
+        }
+    }
+
+    private final PrintStream out;
+    private final BufferedReader input;
+    private final int width;
+    private final int pageLines;
+    private final StringBuilder line = new StringBuilder();
+    private int lines;
+
+    /**
+     * A pageLines of 0 never asks.
+     */
+    public PagedWriter(PrintStream out, BufferedReader input, int width, int pageLines) {
+        this.out = out;
+        this.input = input;
+        this.width = width;
+        this.pageLines = pageLines;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            if (buffer[i] == '\n') {
+                endLine();
+            } else {
+                if (line.length() == width) {
+                    endLine();
+                }
+                line.append(buffer[i]);
+            }
+        }
+    }
+
+    private void endLine() throws IOException {
+        out.println(line);
+        line.setLength(0);
+        lines++;
+        if (pageLines > 0 && lines % pageLines == 0) {
+            out.print("-- more (Enter), q to stop -- ");
+            out.flush();
+            String answer = input.readLine();
+            if (answer == null || answer.trim().equalsIgnoreCase("q")) {
+                throw new Stopped();
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+
+    /**
+     * Ends the last line.
+     */
+    @Override
+    public void close() {
+        if (!line.isEmpty()) {
+            out.println(line);
+            line.setLength(0);
+        }
+        out.flush();
+    }
+}
@@ -14,18 +14,43 @@ public class REPL {
     private final BufferedReader reader;
     private Debugger debugger;
     private TermEvaluator evaluator;
+    // Ausgabe großer Ergebnisse begrenzen und seitenweise anzeigen
+    private TermPrinter printer = DEFAULT_PRINTER;
+    private int pageLines = 40;
+    // Eingaben ab so vielen Knoten werden in einer TermArena ausgewertet, 0 = nie
+    private int arenaNodes;
+
+    private static final TermPrinter DEFAULT_PRINTER = new TermPrinter(100, 1000, 200_000);
+    private static final int LINE_WIDTH = 120;
 
     public REPL(RuleSet ruleSet) {
+        this(ruleSet, null);
+    }
+
+    /**
+     * Results are also kept in the given store across sessions, if not null.
+     */
+    public REPL(RuleSet ruleSet, ResultStore resultStore) {
         this.ruleSet = ruleSet;
         this.reader = new BufferedReader(new InputStreamReader(System.in));
         this.debugger = new Debugger(Debugger.Mode.QUIET);
         this.evaluator = new TermEvaluator(ruleSet, debugger);
+        this.evaluator.setResultStore(resultStore);
+    }
+
+    /**
+     * Tries rules in the order learned by the profile, see {@link RuleProfile}.
+     */
+    public void setRuleProfile(RuleProfile profile) {
+        evaluator.setRuleProfile(profile);
     }
 
 
     public void run() throws IOException {
         System.out.println("Namespaced-Modal Term-Rewriting Language");
-        System.out.println("Loaded " + ruleSet.size() + " rules");
+        readingRules(() -> System.out.println("Loaded " + ruleSet.size() + " rules" +
+                (ruleSet.getDeferredNamespaces().isEmpty() ? "" :
+                        ", " + ruleSet.getDeferredNamespaces().size() + " modules load on first use")));
         System.out.println("Type :help for commands or :exit to quit");
         System.out.println();
 
@@ -98,7 +123,63 @@ public class REPL {
                     showAllRules();
                 }
             }
-            case ":namespaces" -> showNamespaces();
+            case ":namespaces" -> readingRules(this::showNamespaces);
+            case ":intrinsics" -> {
+                if (parts.length > 1) {
+                    setIntrinsicVerification(parts[1]);
+                } else {
+                    readingRules(this::showIntrinsics);
+                }
+            }
+            case ":strategy" -> {
+                if (parts.length > 1) {
+                    setStrategy(parts[1]);
+                } else {
+                    System.out.println("Current strategy: " + evaluator.getStrategy().name().toLowerCase());
+                }
+            }
+            case ":scope" -> {
+                if (parts.length > 1) {
+                    setScope(java.util.Arrays.copyOfRange(parts, 1, parts.length));
+                } else {
+                    readingRules(this::showScope);
+                }
+            }
+            case ":print" -> {
+                if (parts.length > 1) {
+                    setPrintLimits(parts);
+                } else {
+                    showPrintLimits();
+                }
+            }
+            case ":sharing" -> {
+                if (parts.length > 1) {
+                    setSharing(parts[1]);
+                } else {
+                    System.out.println("Graph reduction " + (evaluator.isGraphReduction() ? "on" : "off"));
+                }
+            }
+            case ":fusion" -> {
+                if (parts.length > 1) {
+                    setFusion(parts[1]);
+                } else {
+                    System.out.println("List fusion " + (evaluator.isListFusion() ? "on" : "off"));
+                }
+            }
+            case ":arena" -> {
+                if (parts.length > 1) {
+                    setArena(parts[1]);
+                } else {
+                    System.out.println(arenaNodes == 0 ? "Arena off" : "Arena for inputs of " + arenaNodes + " nodes or more");
+                }
+            }
+            case ":profile" -> {
+                if (parts.length > 1) {
+                    setProfile(parts);
+                } else {
+                    showProfile();
+                }
+            }
             default -> System.out.println("Unknown command: " + command);
         }
     }
@@ -109,6 +190,14 @@ public class REPL {
         System.out.println("  :mode [debug|trace|quiet|step-by-step]  Set or show evaluation mode");
         System.out.println("  :rules [namespace]    Show rules (all or for specific namespace)");
         System.out.println("  :namespaces          Show all available namespaces");
+        System.out.println("  :intrinsics [verify|trust]  Show native intrinsics or toggle verification");
+        System.out.println("  :strategy [outermost|innermost]  Set or show the default evaluation strategy");
+        System.out.println("  :scope [all|namespace ...]  Restrict evaluation to namespaces and their imports");
+        System.out.println("  :sharing [on|off]     Evaluate substituted variables only once (graph reduction)");
+        System.out.println("  :fusion [on|off]      Fold a data file like (fold-left f 0 (data-file p)) atom by atom");
+        System.out.println("  :arena [off|n]        Keep inputs of n nodes or more off the heap while they are evaluated");
+        System.out.println("  :print [depth|length|chars|page n] [all|default]  Limit or show how results are printed");
+        System.out.println("  :profile [on|off|save file|load file]  Order rules by their hits, or show the learned order");
         System.out.println("  :exit                 Exit the REPL");
         System.out.println();
         System.out.println("Dynamic rule management:");
@@ -125,8 +214,24 @@ public class REPL {
     private void setMode(String mode) {
         try {
             Debugger.Mode newMode = Debugger.Mode.valueOf(mode.toUpperCase().replace("-", "_"));
+            boolean verifyIntrinsics = evaluator.isVerifyIntrinsics();
+            boolean graphReduction = evaluator.isGraphReduction();
+            boolean listFusion = evaluator.isListFusion();
+            EvaluationStrategy strategy = evaluator.getStrategy();
+            RuleScope scope = evaluator.getScope();
+            ResultStore resultStore = evaluator.getResultStore();
+            RuleProfile profile = evaluator.getRuleProfile();
+            // Zur Laufzeit registrierte Intrinsics bleiben erhalten
+            IntrinsicRegistry intrinsics = evaluator.getIntrinsics();
             debugger = new Debugger(newMode);
-            evaluator = new TermEvaluator(ruleSet, debugger);
+            evaluator = new TermEvaluator(ruleSet, debugger, intrinsics);
+            evaluator.setVerifyIntrinsics(verifyIntrinsics);
+            evaluator.setGraphReduction(graphReduction);
+            evaluator.setListFusion(listFusion);
+            evaluator.setStrategy(strategy);
+            evaluator.setScope(scope);
+            evaluator.setResultStore(resultStore);
+            evaluator.setRuleProfile(profile);
 
             System.out.println("Mode set to: " + mode);
         } catch (IllegalArgumentException e) {
@@ -135,19 +240,36 @@ public class REPL {
         }
     }
 
+    /**
+     * Runs a command that reads the rules under their read lock, so a reload by
+     * the file watcher cannot change them halfway through the output. A command
+     * that needs a module runs again after loading it, so it prints only at the end.
+     */
+    private void readingRules(Runnable command) {
+        ruleSet.read(() -> {
+            command.run();
+            return null;
+        });
+    }
+
     private void showRules(String namespace) {
-        var rules = ruleSet.getRulesForNamespace(namespace);
-        if (rules.isEmpty()) {
-            System.out.println("No rules found for namespace: " + namespace);
-        } else {
-            System.out.println("Rules for namespace " + namespace + ":");
-            rules.forEach(System.out::println);
-        }
+        readingRules(() -> {
+            var rules = ruleSet.getRulesForNamespace(namespace);
+            if (rules.isEmpty()) {
+                System.out.println("No rules found for namespace: " + namespace);
+            } else {
+                System.out.println("Rules for namespace " + namespace + ":");
+                rules.forEach(System.out::println);
+            }
+        });
     }
 
     private void showAllRules() {
-        System.out.println("All rules (" + ruleSet.size() + "):");
-        ruleSet.getAllRules().forEach(System.out::println);
+        ruleSet.loadAllModules();
+        readingRules(() -> {
+            System.out.println("All rules (" + ruleSet.size() + "):");
+            ruleSet.getAllRules().forEach(System.out::println);
+        });
     }
 
     private void showNamespaces() {
@@ -155,6 +277,158 @@ public class REPL {
         ruleSet.getNamespaces().forEach(ns -> System.out.println("  " + ns));
     }
 
+    private void showIntrinsics() {
+        // Erst alles bestimmen: lädt das ein Modul, beginnt der Befehl von vorn
+        java.util.List<String> lines = new java.util.ArrayList<>();
+        for (IntrinsicRegistry.Binding binding : evaluator.getIntrinsics().getBindings()) {
+            String state = binding.isActiveFor(ruleSet) ? "active" : "inactive, rules redefined";
+            lines.add("  " + binding + " (" + state + ")");
+        }
+        System.out.println("Intrinsics" + (evaluator.isVerifyIntrinsics() ? " (verified against rules)" : "") + ":");
+        lines.forEach(System.out::println);
+    }
+
+    private void setIntrinsicVerification(String option) {
+        switch (option) {
+            case "verify" -> evaluator.setVerifyIntrinsics(true);
+            case "trust" -> evaluator.setVerifyIntrinsics(false);
+            default -> {
+                System.out.println("Invalid option: " + option);
+                System.out.println("Valid options: verify, trust");
+                return;
+            }
+        }
+        System.out.println("Intrinsic verification " + (evaluator.isVerifyIntrinsics() ? "enabled" : "disabled"));
+    }
+
+    private void setStrategy(String option) {
+        try {
+            evaluator.setStrategy(EvaluationStrategy.parse(option));
+            System.out.println("Strategy set to: " + evaluator.getStrategy().name().toLowerCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid strategy: " + option);
+            System.out.println("Valid strategies: outermost, innermost");
+        }
+    }
+
+    private void setScope(String[] namespaces) {
+        if (namespaces.length == 1 && namespaces[0].equals("all")) {
+            evaluator.setScope(null);
+        } else {
+            evaluator.setScope(ruleSet.scope(namespaces));
+        }
+        readingRules(this::showScope);
+    }
+
+    private void showScope() {
+        RuleScope scope = evaluator.getScope();
+        if (scope == null) {
+            System.out.println("Scope: all namespaces");
+        } else {
+            System.out.println("Scope: " + String.join(", ", scope.getVisibleNamespaces()));
+        }
+    }
+
+    private void setSharing(String option) {
+        switch (option) {
+            case "on" -> evaluator.setGraphReduction(true);
+            case "off" -> evaluator.setGraphReduction(false);
+            default -> {
+                System.out.println("Invalid option: " + option);
+                System.out.println("Valid options: on, off");
+                return;
+            }
+        }
+        System.out.println("Graph reduction " + (evaluator.isGraphReduction() ? "enabled" : "disabled"));
+    }
+
+    private void setFusion(String option) {
+        switch (option) {
+            case "on" -> evaluator.setListFusion(true);
+            case "off" -> evaluator.setListFusion(false);
+            default -> {
+                System.out.println("Invalid option: " + option);
+                System.out.println("Valid options: on, off");
+                return;
+            }
+        }
+        System.out.println("List fusion " + (evaluator.isListFusion() ? "enabled" : "disabled"));
+    }
+
+    private void setArena(String option) {
+        if (option.equals("off")) {
+            arenaNodes = 0;
+        } else {
+            try {
+                arenaNodes = Math.max(1, Integer.parseInt(option));
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid option: " + option);
+                System.out.println("Valid options: off, a node count");
+                return;
+            }
+        }
+        System.out.println(arenaNodes == 0 ? "Arena disabled" : "Arena for inputs of " + arenaNodes + " nodes or more");
+    }
+
+    private void setProfile(String[] parts) {
+        try {
+            switch (parts[1]) {
+                case "on" -> {
+                    if (evaluator.getRuleProfile() == null) {
+                        evaluator.setRuleProfile(new RuleProfile());
+                    }
+                }
+                case "off" -> evaluator.setRuleProfile(null);
+                case "save" -> {
+                    RuleProfile profile = evaluator.getRuleProfile();
+                    if (profile == null || parts.length < 3) {
+                        System.out.println(profile == null ? "Profiling is off" : "Usage: :profile save file");
+                        return;
+                    }
+                    profile.save(java.nio.file.Path.of(parts[2]));
+                    System.out.println("Profile saved to " + parts[2]);
+                    return;
+                }
+                case "load" -> {
+                    if (parts.length < 3) {
+                        System.out.println("Usage: :profile load file");
+                        return;
+                    }
+                    evaluator.setRuleProfile(RuleProfile.load(java.nio.file.Path.of(parts[2])));
+                }
+                default -> {
+                    System.out.println("Invalid option: " + parts[1]);
+                    System.out.println("Valid options: on, off, save file, load file");
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Profile error: " + e.getMessage());
+            return;
+        }
+        System.out.println("Rule profiling " + (evaluator.getRuleProfile() != null ? "enabled" : "disabled"));
+    }
+
+    private void showProfile() {
+        RuleProfile profile = evaluator.getRuleProfile();
+        if (profile == null) {
+            System.out.println("Rule profiling off");
+            return;
+        }
+        var learned = profile.getLearnedOrders();
+        if (learned.isEmpty()) {
+            System.out.println("Rule profiling on, all rules in declared order");
+            return;
+        }
+        System.out.println("Learned rule order:");
+        learned.forEach((symbol, rules) -> {
+            System.out.println("  " + symbol + ":");
+            for (Rule rule : rules) {
+                System.out.printf("    %8d  %s%n", profile.getHits(rule), rule.fullName());
+            }
+        });
+    }
+
     private void evaluateExpression(String expression) {
         try {
             Term term = TermParser.parse(expression);
@@ -173,6 +447,17 @@ public class REPL {
             System.out.println("DEBUG: Evaluating: " + term);
         }
 
+        if (arenaNodes > 0 && term instanceof Term.List list && list.isPlain() && list.nodeCount() >= arenaNodes) {
+            // Das Ergebnis kann auf die Arena zeigen, daher vor dem Schließen ausgeben
+            try (TermArena arena = new TermArena()) {
+                evaluateAndPrint(arena.term(arena.store(term)));
+            }
+        } else {
+            evaluateAndPrint(term);
+        }
+    }
+
+    private void evaluateAndPrint(Term term) {
         Term result = evaluator.evaluate(term);
 
         if (debugger.getMode() == Debugger.Mode.DEBUG) {
@@ -182,7 +467,60 @@ public class REPL {
         if (debugger.getMode() == Debugger.Mode.QUIET ||
                 debugger.getMode() == Debugger.Mode.STEP_BY_STEP ||
                 debugger.getMode() == Debugger.Mode.TRACE) {
-            System.out.println(result);
+            printResult(result);
+        }
+    }
+
+    private void printResult(Term result) {
+        PagedWriter writer = new PagedWriter(System.out, reader, LINE_WIDTH, pageLines);
+        try {
+            printer.print(result, writer);
+        } catch (PagedWriter.Stopped e) {
+            return;
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void setPrintLimits(String[] parts) {
+        if (parts.length == 2 && parts[1].equals("all")) {
+            printer = TermPrinter.UNLIMITED;
+            pageLines = 0;
+        } else if (parts.length == 2 && parts[1].equals("default")) {
+            printer = DEFAULT_PRINTER;
+            pageLines = 40;
+        } else if (parts.length == 3) {
+            try {
+                int value = Integer.parseInt(parts[2]);
+                switch (parts[1]) {
+                    case "depth" -> printer = printer.withMaxDepth(value);
+                    case "length" -> printer = printer.withMaxLength(value);
+                    case "chars" -> printer = printer.withMaxChars(value);
+                    case "page" -> pageLines = Math.max(0, value);
+                    default -> {
+                        System.out.println("Usage: :print [depth|length|chars|page n] [all|default]");
+                        return;
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                System.out.println("Invalid limit: " + parts[2]);
+                return;
+            }
+        } else {
+            System.out.println("Usage: :print [depth|length|chars|page n] [all|default]");
+            return;
         }
+        showPrintLimits();
+    }
+
+    private void showPrintLimits() {
+        System.out.println("Print depth " + limit(printer.maxDepth()) + ", length " + limit(printer.maxLength()) +
+                ", chars " + limit(printer.maxChars()) + ", page " + (pageLines > 0 ? pageLines + " lines" : "off"));
+    }
+
+    private static String limit(long value) {
+        return value >= Integer.MAX_VALUE ? "unlimited" : String.valueOf(value);
     }
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package io;
+
+import core.EvaluationStrategy;
+import core.Rule;
+import core.RuleSet;
+import core.Tabling;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Loads rule files into a live {@link RuleSet} and reloads them when they change.
+ *
+ * A changed file is parsed on its own and compared with the rules it contributed
+ * last time. Only rule names whose rules differ are removed and added again, as
+ * one transaction, so evaluators keep their cached results for everything else.
+ * A rule name is expected to come from a single file.
+ *
+ * Directives are applied when they are new or changed. Deleting a directive from
+ * the file does not undo it.
+ */
+public class RuleFileWatcher implements AutoCloseable {
+
+    public record Diff(java.util.List<String> removed, java.util.List<Rule> added) {
+        public boolean isEmpty() {
+            return removed.isEmpty() && added.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return added.size() + " rules added, " + removed.size() + " rule names removed";
+        }
+    }
+
+    private final RuleSet ruleSet;
+    private final Map<Path, java.util.List<Rule>> rulesByFile = new java.util.concurrent.ConcurrentHashMap<>();
+    private WatchService watchService;
+    private Thread thread;
+
+    public RuleFileWatcher(RuleSet ruleSet) {
+        this.ruleSet = ruleSet;
+    }
+
+    /**
+     * Loads a file for the first time; later calls for the same file reload it.
+     */
+    public Diff load(Path file) {
+        return reload(file.toAbsolutePath().normalize());
+    }
+
+    public Set<Path> getFiles() {
+        return Collections.unmodifiableSet(rulesByFile.keySet());
+    }
+
+    /**
+     * Parses the file again and applies the difference to the rule set.
+     * A file that does not parse leaves the rule set unchanged.
+     */
+    public synchronized Diff reload(Path file) {
+        RuleSet parsed = RuleParser.loadFromFile(file);
+        java.util.List<Rule> newRules = parsed.getAllRules();
+        Diff diff = diff(rulesByFile.getOrDefault(file, java.util.List.of()), newRules);
+
+        if (!diff.isEmpty()) {
+            RuleSet.Transaction transaction = ruleSet.transaction();
+            diff.removed().forEach(transaction::remove);
+            diff.added().forEach(transaction::add);
+            transaction.commit();
+        }
+        rulesByFile.put(file, java.util.List.copyOf(newRules));
+        applyDirectives(parsed);
+        return diff;
+    }
+
+    static Diff diff(java.util.List<Rule> oldRules, java.util.List<Rule> newRules) {
+        Map<String, java.util.List<Rule>> oldByName = byName(oldRules);
+        Map<String, java.util.List<Rule>> newByName = byName(newRules);
+
+        java.util.List<String> removed = new ArrayList<>();
+        for (Map.Entry<String, java.util.List<Rule>> entry : oldByName.entrySet()) {
+            if (!entry.getValue().equals(newByName.get(entry.getKey()))) {
+                removed.add(entry.getKey());
+            }
+        }
+        java.util.List<Rule> added = new ArrayList<>();
+        for (Map.Entry<String, java.util.List<Rule>> entry : newByName.entrySet()) {
+            if (!entry.getValue().equals(oldByName.get(entry.getKey()))) {
+                added.addAll(entry.getValue());
+            }
+        }
+        return new Diff(removed, added);
+    }
+
+    private static Map<String, java.util.List<Rule>> byName(java.util.List<Rule> rules) {
+        Map<String, java.util.List<Rule>> byName = new LinkedHashMap<>();
+        for (Rule rule : rules) {
+            byName.computeIfAbsent(rule.fullName(), k -> new ArrayList<>()).add(rule);
+        }
+        return byName;
+    }
+
+    private void applyDirectives(RuleSet parsed) {
+        for (Map.Entry<String, EvaluationStrategy> entry : parsed.getNamespaceStrategies().entrySet()) {
+            if (ruleSet.getNamespaceStrategy(entry.getKey()) != entry.getValue()) {
+                ruleSet.setNamespaceStrategy(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, boolean[]> entry : parsed.getStrictnessDeclarations().entrySet()) {
+            if (!Arrays.equals(ruleSet.getStrictness(entry.getKey()), entry.getValue())) {
+                ruleSet.setStrictness(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Tabling> entry : parsed.getTablingDeclarations().entrySet()) {
+            if (!entry.getValue().equals(ruleSet.getTabling(entry.getKey()))) {
+                ruleSet.setTabling(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : parsed.getImportDeclarations().entrySet()) {
+            if (!ruleSet.getImports(entry.getKey()).containsAll(entry.getValue())) {
+                ruleSet.addImports(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Watches the directories of all loaded files on a daemon thread.
+     */
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        Set<Path> directories = new HashSet<>();
+        for (Path file : rulesByFile.keySet()) {
+            if (directories.add(file.getParent())) {
+                file.getParent().register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+
+        thread = new Thread(this::watch, "rule-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Path directory = (Path) key.watchable();
+                // Editoren melden oft mehrere Events pro Speichern, ein Reload pro Datei reicht
+                Set<Path> changed = new LinkedHashSet<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.context() instanceof Path name) {
+                        Path file = directory.resolve(name).normalize();
+                        if (rulesByFile.containsKey(file)) {
+                            changed.add(file);
+                        }
+                    }
+                }
+                key.reset();
+
+                for (Path file : changed) {
+                    try {
+                        Diff diff = reload(file);
+                        if (!diff.isEmpty()) {
+                            System.out.println("Reloaded " + file.getFileName() + ": " + diff);
+                        }
+                    } catch (RuntimeException e) {
+                        System.err.println("Reload of " + file.getFileName() + " failed: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Watcher wurde geschlossen
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
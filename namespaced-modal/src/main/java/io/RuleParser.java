@@ -1,7 +1,9 @@
 package io;
 
+import core.EvaluationStrategy;
 import core.Rule;
 import core.RuleSet;
+import core.Tabling;
 import core.Term;
 
 import java.io.BufferedReader;
@@ -20,15 +22,35 @@ public class RuleParser {
                 throw new IllegalArgumentException("Resource not found: " + resourcePath);
             }
 
-            return loadFromStream(is);
+            return loadFromStream(is, resourcePath.substring(0, resourcePath.lastIndexOf('/') + 1));
         } catch (IOException e) {
             throw new RuntimeException("Failed to load rules from resource: " + resourcePath, e);
         }
     }
 
-    private static RuleSet loadFromStream(InputStream is) throws IOException {
+    public static RuleSet loadFromString(String source) {
+        try {
+            return loadFromStream(new java.io.ByteArrayInputStream(source.getBytes(java.nio.charset.StandardCharsets.UTF_8)), null);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load rules from string", e);
+        }
+    }
+
+    public static RuleSet loadFromFile(java.nio.file.Path file) {
+        try (InputStream is = java.nio.file.Files.newInputStream(file)) {
+            return loadFromStream(is, null);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load rules from file: " + file, e);
+        }
+    }
+
+    private static RuleSet loadFromStream(InputStream is, String resourceDirectory) throws IOException {
         RuleSet ruleSet = new RuleSet();
+        loadInto(ruleSet, is, resourceDirectory);
+        return ruleSet;
+    }
 
+    private static void loadInto(RuleSet ruleSet, InputStream is, String resourceDirectory) throws IOException {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(is))) {
             String line;
             int lineNumber = 0;
@@ -42,6 +64,15 @@ public class RuleParser {
                 }
 
                 try {
+                    if (line.startsWith("@include")) {
+                        include(line, ruleSet, resourceDirectory);
+                        continue;
+                    }
+                    if (line.startsWith("@")) {
+                        parseDirective(line, ruleSet);
+                        continue;
+                    }
+
                     Rule rule = parseRule(line);
                     ruleSet.addRule(rule);
                 } catch (Exception e) {
@@ -49,8 +80,73 @@ public class RuleParser {
                 }
             }
         }
+    }
 
-        return ruleSet;
+    /**
+     * @include path   (relative to the including resource)
+     */
+    private static void include(String line, RuleSet ruleSet, String resourceDirectory) throws IOException {
+        String[] parts = line.split("\\s+");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Usage: @include path");
+        }
+        if (resourceDirectory == null) {
+            throw new IllegalArgumentException("@include is only supported in resources");
+        }
+
+        String resourcePath = resourceDirectory + parts[1];
+        try (InputStream is = RuleParser.class.getClassLoader().getResourceAsStream(resourcePath)) {
+            if (is == null) {
+                throw new IllegalArgumentException("Resource not found: " + resourcePath);
+            }
+            loadInto(ruleSet, is, resourcePath.substring(0, resourcePath.lastIndexOf('/') + 1));
+        }
+    }
+
+    /**
+     * @strategy namespace innermost|outermost
+     * @strict symbol strict|lazy ...   (one entry per argument)
+     * @import namespace other ...
+     * @table symbol size [lru|fifo]
+     */
+    private static void parseDirective(String line, RuleSet ruleSet) {
+        String[] parts = line.split("\\s+");
+        switch (parts[0]) {
+            case "@strategy" -> {
+                if (parts.length != 3) {
+                    throw new IllegalArgumentException("Usage: @strategy namespace innermost|outermost");
+                }
+                ruleSet.setNamespaceStrategy(parts[1], EvaluationStrategy.parse(parts[2]));
+            }
+            case "@strict" -> {
+                if (parts.length < 3) {
+                    throw new IllegalArgumentException("Usage: @strict symbol strict|lazy ...");
+                }
+                boolean[] strict = new boolean[parts.length - 2];
+                for (int i = 0; i < strict.length; i++) {
+                    strict[i] = switch (parts[i + 2]) {
+                        case "strict" -> true;
+                        case "lazy" -> false;
+                        default -> throw new IllegalArgumentException("Expected strict or lazy: " + parts[i + 2]);
+                    };
+                }
+                ruleSet.setStrictness(parts[1], strict);
+            }
+            case "@import" -> {
+                if (parts.length < 3) {
+                    throw new IllegalArgumentException("Usage: @import namespace other ...");
+                }
+                ruleSet.addImports(parts[1], java.util.List.of(parts).subList(2, parts.length));
+            }
+            case "@table" -> {
+                if (parts.length != 3 && parts.length != 4) {
+                    throw new IllegalArgumentException("Usage: @table symbol size [lru|fifo]");
+                }
+                Tabling.Eviction eviction = parts.length == 4 ? Tabling.Eviction.parse(parts[3]) : Tabling.Eviction.LRU;
+                ruleSet.setTabling(parts[1], new Tabling(Integer.parseInt(parts[2]), eviction));
+            }
+            default -> throw new IllegalArgumentException("Unknown directive: " + parts[0]);
+        }
     }
 
     private static Rule parseRule(String line) {
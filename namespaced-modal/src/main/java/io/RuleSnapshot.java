@@ -0,0 +1,63 @@
+package io;
+
+import core.EvaluationStrategy;
+import core.Rule;
+import core.RuleSet;
+import core.Tabling;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Writes a rule set back as a rule file: directives first, then every rule in
+ * match order. {@link RuleParser} reads it into a rule set with the same
+ * {@link RuleSet#contentHash()}, so another process evaluates with exactly the
+ * rules this one has right now, whatever files and reloads they came from.
+ */
+public final class RuleSnapshot {
+    private static final String HEADER = "# modal rule snapshot";
+
+    private RuleSnapshot() {
+    }
+
+    /**
+     * The rule file for the current state of the rule set. Loads all deferred modules.
+     */
+    public static String of(RuleSet ruleSet) {
+        ruleSet.loadAllModules();
+        StringBuilder source = new StringBuilder(HEADER).append('\n');
+        for (Map.Entry<String, EvaluationStrategy> entry : new TreeMap<>(ruleSet.getNamespaceStrategies()).entrySet()) {
+            source.append("@strategy ").append(entry.getKey()).append(' ')
+                    .append(entry.getValue().name().toLowerCase()).append('\n');
+        }
+        for (Map.Entry<String, boolean[]> entry : new TreeMap<>(ruleSet.getStrictnessDeclarations()).entrySet()) {
+            source.append("@strict ").append(entry.getKey());
+            for (boolean strict : entry.getValue()) {
+                source.append(strict ? " strict" : " lazy");
+            }
+            source.append('\n');
+        }
+        for (Map.Entry<String, Set<String>> entry : new TreeMap<>(ruleSet.getImportDeclarations()).entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                source.append("@import ").append(entry.getKey()).append(' ')
+                        .append(String.join(" ", entry.getValue())).append('\n');
+            }
+        }
+        for (Map.Entry<String, Tabling> entry : new TreeMap<>(ruleSet.getTablingDeclarations()).entrySet()) {
+            Tabling tabling = entry.getValue();
+            source.append("@table ").append(entry.getKey()).append(' ').append(tabling.capacity())
+                    .append(' ').append(tabling.eviction().name().toLowerCase()).append('\n');
+        }
+        for (Rule rule : ruleSet.getAllRules()) {
+            source.append(rule).append('\n');
+        }
+        return source.toString();
+    }
+
+    public static void write(RuleSet ruleSet, Path file) throws IOException {
+        Files.writeString(file, of(ruleSet), StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,6 @@
 package io;
 
+import core.PackedNumbers;
 import core.Term;
 
 import java.util.ArrayList;
@@ -46,6 +47,12 @@ public class TermParser {
         }
 
         expect(')');
+
+        // Rein numerische Listen ungeboxt ablegen
+        PackedNumbers packed = PackedNumbers.tryPack(elements);
+        if (packed != null) {
+            return new Term.List(packed);
+        }
         return new Term.List(elements);
     }
 
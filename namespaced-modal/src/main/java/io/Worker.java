@@ -0,0 +1,69 @@
+package io;
+
+import core.EvaluationStrategy;
+import core.RuleSet;
+import core.Term;
+import core.TermEvaluator;
+import debug.Debugger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * A worker JVM of a {@link WorkerPool}: loads a rule snapshot and evaluates the
+ * terms it reads from stdin, one per line, until stdin is closed.
+ *
+ *   request:   id TAB term
+ *   response:  id TAB ok TAB result   or   id TAB error TAB message
+ *
+ * stdout carries only responses; anything else printed goes to stderr. Memoized
+ * results are kept across requests.
+ *
+ * Usage: io.Worker snapshot.modal [outermost|innermost]
+ */
+public final class Worker {
+
+    private Worker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: io.Worker snapshot.modal [outermost|innermost]");
+            System.exit(2);
+        }
+        PrintStream responses = new PrintStream(new FileOutputStream(FileDescriptor.out), false, StandardCharsets.UTF_8);
+        System.setOut(System.err);
+
+        RuleSet ruleSet = RuleParser.loadFromFile(Path.of(args[0]));
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        if (args.length == 2) {
+            evaluator.setStrategy(EvaluationStrategy.parse(args[1]));
+        }
+
+        BufferedReader requests = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = requests.readLine()) != null) {
+            int tab = line.indexOf('\t');
+            if (tab < 0) {
+                continue;
+            }
+            String id = line.substring(0, tab);
+            try {
+                Term result = evaluator.evaluate(TermParser.parse(line.substring(tab + 1)));
+                responses.print(id + "\tok\t" + oneLine(result.toString()) + "\n");
+            } catch (RuntimeException | StackOverflowError e) {
+                responses.print(id + "\terror\t" + oneLine(String.valueOf(e.getMessage())) + "\n");
+            }
+            // Erst schreiben, wenn keine weitere Anfrage wartet
+            if (!requests.ready()) {
+                responses.flush();
+            }
+        }
+        responses.flush();
+    }
+
+    static String oneLine(String text) {
+        return text.replace('\n', ' ').replace('\r', ' ');
+    }
+}
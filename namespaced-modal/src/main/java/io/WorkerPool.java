@@ -0,0 +1,316 @@
+package io;
+
+import core.EvaluationStrategy;
+import core.RuleSet;
+import core.Term;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluates batches of terms in local worker JVMs ({@link Worker}), each with
+ * its own heap and garbage collector. All workers load a snapshot of the rule
+ * set taken when the pool is created ({@link RuleSnapshot}); later changes to
+ * the rule set do not reach them.
+ *
+ * The terms of a batch are handed out in chunks to whichever worker is free and
+ * the results are returned in the order of the terms. A worker that dies is
+ * started again and its unanswered terms are retried one at a time; a term
+ * that takes down a worker {@link #MAX_ATTEMPTS} times gets an error result.
+ * A worker that has not answered a chunk within the timeout is killed and
+ * counts as died; the timeout includes the start of a worker that was started
+ * again for the chunk.
+ */
+public final class WorkerPool implements AutoCloseable {
+    static final int CHUNK = 16;
+    static final int MAX_ATTEMPTS = 2;
+    static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1);
+
+    public record Result(String value, String error) {
+        public boolean isOk() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            return isOk() ? value : "Error: " + error;
+        }
+    }
+
+    private final java.util.List<String> command;
+    private final Path snapshot;
+    private final Connection[] connections;
+    private final AtomicInteger restarts = new AtomicInteger();
+    // Beendet Worker, die eine Frist überschreiten
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(body -> {
+        Thread thread = new Thread(body, "modal-worker-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Duration timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * @param heap maximum heap of each worker, e.g. "512m", or null for the JVM default
+     */
+    public WorkerPool(RuleSet ruleSet, EvaluationStrategy strategy, int workers, String heap) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is needed: " + workers);
+        }
+        snapshot = Files.createTempFile("modal-snapshot", ".modal");
+        RuleSnapshot.write(ruleSet, snapshot);
+
+        command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("--enable-preview");
+        if (heap != null) {
+            command.add("-Xmx" + heap);
+        }
+        command.addAll(java.util.List.of("-cp", System.getProperty("java.class.path"), Worker.class.getName(),
+                snapshot.toString(), strategy.name().toLowerCase()));
+
+        connections = new Connection[workers];
+        for (int i = 0; i < workers; i++) {
+            connections[i] = new Connection();
+        }
+    }
+
+    public int size() {
+        return connections.length;
+    }
+
+    /**
+     * How long a worker may take for one chunk of terms before it is killed.
+     */
+    public void setTimeout(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        this.timeout = timeout;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * How often a worker had to be started again.
+     */
+    public int getRestarts() {
+        return restarts.get();
+    }
+
+    public java.util.List<ProcessHandle> getWorkerProcesses() {
+        java.util.List<ProcessHandle> processes = new ArrayList<>();
+        for (Connection connection : connections) {
+            synchronized (connection) {
+                if (connection.process != null) {
+                    processes.add(connection.process.toHandle());
+                }
+            }
+        }
+        return processes;
+    }
+
+    public java.util.List<Result> evaluate(java.util.List<Term> terms) {
+        Batch batch = new Batch(terms);
+        Thread[] threads = new Thread[connections.length];
+        for (int i = 0; i < threads.length; i++) {
+            Connection connection = connections[i];
+            threads[i] = new Thread(() -> batch.drain(connection), "modal-worker-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for workers", e);
+            }
+        }
+        return java.util.List.of(batch.results);
+    }
+
+    private final class Batch {
+        private final String[] requests;
+        private final Result[] results;
+        private final int[] attempts;
+        private final AtomicInteger next = new AtomicInteger();
+        private final Queue<Integer> retries = new ConcurrentLinkedQueue<>();
+
+        Batch(java.util.List<Term> terms) {
+            requests = new String[terms.size()];
+            for (int i = 0; i < requests.length; i++) {
+                requests[i] = i + "\t" + Worker.oneLine(terms.get(i).toString()) + "\n";
+            }
+            results = new Result[requests.length];
+            attempts = new int[requests.length];
+        }
+
+        void drain(Connection connection) {
+            while (true) {
+                java.util.List<Integer> chunk = take();
+                if (chunk.isEmpty()) {
+                    return;
+                }
+                try {
+                    connection.evaluate(chunk, requests, results);
+                } catch (IOException e) {
+                    connection.stop();
+                    restarts.incrementAndGet();
+                    for (int index : chunk) {
+                        if (results[index] != null) {
+                            continue;
+                        }
+                        if (++attempts[index] >= MAX_ATTEMPTS) {
+                            results[index] = new Result(null, "Worker failed: " + e.getMessage());
+                        } else {
+                            retries.add(index);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * A retried term on its own, so it cannot take others down with it; otherwise the next chunk.
+         */
+        private java.util.List<Integer> take() {
+            Integer retry = retries.poll();
+            if (retry != null) {
+                return java.util.List.of(retry);
+            }
+            int start = next.getAndAdd(CHUNK);
+            if (start >= requests.length) {
+                return java.util.List.of();
+            }
+            java.util.List<Integer> chunk = new ArrayList<>(CHUNK);
+            for (int i = start; i < Math.min(start + CHUNK, requests.length); i++) {
+                chunk.add(i);
+            }
+            return chunk;
+        }
+    }
+
+    /**
+     * One worker process, started on first use and again after it died.
+     */
+    private final class Connection {
+        private Process process;
+        private Writer requests;
+        private BufferedReader responses;
+
+        Connection() throws IOException {
+            start();
+        }
+
+        private synchronized void start() throws IOException {
+            process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            requests = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            responses = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        void evaluate(java.util.List<Integer> chunk, String[] requestLines, Result[] results) throws IOException {
+            if (process == null || !process.isAlive()) {
+                if (process != null) {
+                    stop();
+                    restarts.incrementAndGet();
+                }
+                start();
+            }
+            Process current = process;
+            AtomicBoolean timedOut = new AtomicBoolean();
+            Duration limit = timeout;
+            ScheduledFuture<?> kill = watchdog.schedule(() -> {
+                timedOut.set(true);
+                current.destroyForcibly();
+            }, limit.toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                for (int index : chunk) {
+                    requests.write(requestLines[index]);
+                }
+                requests.flush();
+                read(chunk, results);
+            } catch (IOException e) {
+                // Der Watchdog hat den Prozess beendet, das ist der eigentliche Grund
+                if (kill.cancel(false) || !timedOut.get()) {
+                    throw e;
+                }
+                throw new IOException("no answer within " + limit.toMillis() + " ms", e);
+            }
+            kill.cancel(false);
+        }
+
+        private void read(java.util.List<Integer> chunk, Result[] results) throws IOException {
+            for (int i = 0; i < chunk.size(); i++) {
+                String line = responses.readLine();
+                if (line == null) {
+                    throw new IOException("worker exited with " + exitCode());
+                }
+                String[] parts = line.split("\t", 3);
+                if (parts.length != 3) {
+                    throw new IOException("unexpected response: " + line);
+                }
+                int index = Integer.parseInt(parts[0]);
+                results[index] = parts[1].equals("ok") ? new Result(parts[2], null) : new Result(null, parts[2]);
+            }
+        }
+
+        private String exitCode() {
+            try {
+                return process.waitFor(1, TimeUnit.SECONDS) ? String.valueOf(process.exitValue()) : "no exit code";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "no exit code";
+            }
+        }
+
+        synchronized void stop() {
+            if (process == null) {
+                return;
+            }
+            process.destroyForcibly();
+            process = null;
+        }
+
+        /**
+         * Closing stdin ends the worker; one that does not exit in time is killed.
+         */
+        synchronized void close() {
+            if (process == null) {
+                return;
+            }
+            try {
+                requests.close();
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (IOException e) {
+                process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+            process = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchdog.shutdownNow();
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        Files.deleteIfExists(snapshot);
+    }
+}
@@ -0,0 +1,140 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class DataSourceTest {
+    private RuleSet ruleSet;
+
+    @BeforeEach
+    public void setUp() {
+        ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.addRule(new Rule("t", "apply2.plus", TermParser.parse("(apply2 plus ?a ?b)"), TermParser.parse("(+ ?a ?b)")));
+    }
+
+    private static Path file(String content) throws Exception {
+        Path file = Files.createTempFile("modal", ".data");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private TermEvaluator rules() {
+        // Regeln für sum, product und length über die Zellen der Datei
+        IntrinsicRegistry registry = IntrinsicRegistry.empty();
+        new StandardIntrinsics().register(registry);
+        registry.unregister("sum", 1);
+        registry.unregister("product", 1);
+        registry.unregister("length", 1);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), registry);
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        evaluator.setListFusion(false);
+        return evaluator;
+    }
+
+    private TermEvaluator streaming() {
+        IntrinsicRegistry registry = IntrinsicRegistry.empty();
+        new StandardIntrinsics().register(registry);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), registry);
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        return evaluator;
+    }
+
+    private static String evaluate(TermEvaluator evaluator, String expression, Path file) {
+        return evaluator.evaluate(TermParser.parse(expression.replace("FILE", file.toString()))).toString();
+    }
+
+    @Test
+    public void testRulesConsumeTheFile() throws Exception {
+        Path file = file("3 1\n4  1\t5\n");
+        TermEvaluator evaluator = rules();
+        assertEquals("5", evaluate(evaluator, "(length (data-file FILE))", file));
+        assertEquals("14", evaluate(evaluator, "(sum (data-file FILE))", file));
+        assertEquals("true", evaluate(evaluator, "(member? 4 (data-file FILE))", file));
+        assertEquals("0", evaluate(evaluator, "(length (data-file " + file("\n  \n") + "))", file));
+    }
+
+    @Test
+    public void testCellsAreNotKept() throws Exception {
+        Term chain = DataSource.open(file("a b c")).chain();
+        Term.List cell = (Term.List) chain;
+        assertEquals("a", cell.head().toString());
+        Term tail = cell.elements().get(2);
+        assertNotSame(tail, cell.elements().get(2));
+        assertEquals(tail, cell.elements().get(2));
+        assertEquals(TermParser.parse("(b . (c . ()))"), tail);
+        assertFalse(cell.isPlain());
+        assertEquals(1, cell.nodeCount());
+    }
+
+    @Test
+    public void testCellsCompareByPosition() throws Exception {
+        Path file = file("7 7 7");
+        Term.List first = (Term.List) DataSource.open(file).chain();
+        Term.List second = (Term.List) first.elements().get(2);
+        assertEquals(first.head(), second.head());
+        assertNotEquals(first, second);
+        assertEquals(second, first.elements().get(2));
+        assertEquals(second.hashCode(), first.elements().get(2).hashCode());
+        // Dieselbe Datei, aber eine andere Quelle
+        assertNotEquals(first, DataSource.open(file).chain());
+
+        Term last = ((Term.List) second.elements().get(2)).elements().get(2);
+        assertEquals(Term.nil(), last);
+    }
+
+    @Test
+    public void testSameResultsAsRules() throws Exception {
+        Path[] files = {
+                file("1 2 3 4 5 6 7 8 9 10"),
+                file("07 -3 1.5 2e3"),
+                file("2000000000 2000000000 1 0.25"),
+                file("3.0000001 1 2"),
+                file("")
+        };
+        String[] expressions = {
+                "(sum (data-file FILE))",
+                "(product (data-file FILE))",
+                "(length (data-file FILE))",
+                "(fold-left plus 0 (data-file FILE))",
+                "(length (take 3 (data-file FILE)))",
+                "(member? 1 (data-file FILE))"
+        };
+        for (Path file : files) {
+            for (String expression : expressions) {
+                assertEquals(evaluate(rules(), expression, file), evaluate(streaming(), expression, file),
+                        expression + " " + Files.readString(file));
+            }
+        }
+    }
+
+    @Test
+    public void testLargeFileInConstantMemory() throws Exception {
+        Path file = Files.createTempFile("modal", ".data");
+        int count = 500_000;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(Integer.toString(i % 100));
+                writer.write(i % 10 == 9 ? '\n' : ' ');
+            }
+        }
+        // Die Regeln allein würden hier einmal pro Element rekursieren
+        TermEvaluator evaluator = streaming();
+        assertEquals(Integer.toString(count), evaluate(evaluator, "(length (data-file FILE))", file));
+        assertEquals(Integer.toString(count / 100 * 4950), evaluate(evaluator, "(sum (data-file FILE))", file));
+        assertEquals(Integer.toString(count / 100 * 4950), evaluate(evaluator, "(fold-left plus 0 (data-file FILE))", file));
+    }
+
+    @Test
+    public void testMissingFile() {
+        TermEvaluator evaluator = streaming();
+        assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate(TermParser.parse("(data-file /nonexistent/modal.data)")));
+    }
+}
@@ -0,0 +1,116 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DependencyMemoTest {
+    private RuleSet ruleSet;
+    private Debugger debugger;
+    private TermEvaluator evaluator;
+
+    @BeforeEach
+    public void setUp() {
+        ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.loadAllModules();
+        debugger = new Debugger(Debugger.Mode.QUIET);
+        evaluator = new TermEvaluator(ruleSet, debugger, IntrinsicRegistry.empty());
+    }
+
+    private String eval(String expression) {
+        return evaluator.evaluate(TermParser.parse(expression)).toString();
+    }
+
+    @Test
+    public void testResultsSurviveEvaluations() {
+        assertEquals("720", eval("(fact 6)"));
+        long rewrites = debugger.getRewriteCount();
+        assertEquals("720", eval("(fact 6)"));
+        assertEquals(rewrites, debugger.getRewriteCount());
+    }
+
+    @Test
+    public void testUnitChangeKeepsMathResults() {
+        assertEquals("720", eval("(fact 6)"));
+        assertEquals("0.500000", eval("(to-kg (g 500))"));
+        int cached = evaluator.getCacheSize();
+
+        Rule grams = ruleSet.getRulesByName("unit.mass.g.to.kg").get(0);
+        ruleSet.removeRule(grams.fullName());
+        ruleSet.addRule(new Rule("unit", "mass.g.to.kg", grams.pattern(), TermParser.parse("(/ (* ?x 2) 2000)")));
+
+        long rewrites = debugger.getRewriteCount();
+        assertEquals("720", eval("(fact 6)"));
+        assertEquals(rewrites, debugger.getRewriteCount());
+
+        // Nur (to-kg (g 500)) wird neu berechnet, dazu kommen (/ (* 500 2) 2000) und (* 500 2)
+        assertEquals("0.500000", eval("(to-kg (g 500))"));
+        assertTrue(debugger.getRewriteCount() > rewrites);
+        assertEquals(cached + 2, evaluator.getCacheSize());
+    }
+
+    @Test
+    public void testChangedRuleGivesNewResult() {
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g ?x)"), TermParser.parse("(* ?x 2)")));
+        ruleSet.addRule(new Rule("t", "h", TermParser.parse("(h ?x)"), TermParser.parse("(+ (g ?x) 1)")));
+        assertEquals("6", eval("(g 3)"));
+        // (g 3) kommt hier aus dem Cache, (h 3) hängt trotzdem von g ab
+        assertEquals("7", eval("(h 3)"));
+
+        ruleSet.removeRule("t.g");
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g ?x)"), TermParser.parse("(* ?x 3)")));
+        assertEquals("10", eval("(h 3)"));
+    }
+
+    @Test
+    public void testHostIntrinsicsAreNotRetained() {
+        int[] calls = {0};
+        evaluator.registerIntrinsic("now", 1, (call, ev) -> Term.number(++calls[0]));
+        assertEquals("2", eval("(+ (now x) 1)"));
+        assertEquals("3", eval("(+ (now x) 1)"));
+    }
+
+    @Test
+    public void testNewIntrinsicDropsResults() {
+        ruleSet.addRule(new Rule("t", "f", TermParser.parse("(f ?x)"), TermParser.parse("rules")));
+        assertEquals("rules", eval("(f 1)"));
+        evaluator.registerIntrinsic("f", 1, (call, e) -> Term.atom("native"));
+        assertEquals(0, evaluator.getCacheSize());
+        assertEquals("native", eval("(f 1)"));
+
+        // Auch direkt an der Registry
+        evaluator.getIntrinsics().register("f", 1, (call, e) -> Term.atom("other"));
+        assertEquals("other", eval("(f 1)"));
+        evaluator.getIntrinsics().unregister("f", 1);
+        assertEquals("rules", eval("(f 1)"));
+    }
+
+    @Test
+    public void testSharedValueKeepsItsDependencies() {
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g)"), TermParser.parse("one")));
+        ruleSet.addRule(new Rule("t", "id", TermParser.parse("(id ?x)"), TermParser.parse("?x")));
+        ruleSet.addRule(new Rule("t", "id2", TermParser.parse("(id2 ?x)"), TermParser.parse("?x")));
+        ruleSet.addRule(new Rule("t", "both", TermParser.parse("(both ?x)"), TermParser.parse("(pair (id ?x) (id2 ?x))")));
+        evaluator.setGraphReduction(true);
+        assertEquals("(pair one one)", eval("(both (g))"));
+
+        // (id2 (g)) bekam den Wert von (g) geteilt und hängt trotzdem an g
+        ruleSet.removeRule("t.g");
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g)"), TermParser.parse("two")));
+        assertEquals("two", eval("(id2 (g))"));
+    }
+
+    @Test
+    public void testMemoIsBounded() {
+        evaluator.setMemoCapacity(10);
+        for (int i = 0; i < 50; i++) {
+            assertEquals(Integer.toString(i * 2), eval("(* " + i + " 2)"));
+            eval("(fact " + (i % 8) + ")");
+        }
+        assertTrue(evaluator.getCacheSize() <= 10, "cache " + evaluator.getCacheSize());
+        assertEquals("720", eval("(fact 6)"));
+    }
+}
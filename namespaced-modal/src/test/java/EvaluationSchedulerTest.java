@@ -0,0 +1,181 @@
+package core;
+
+import debug.Debugger;
+import io.ModuleLoader;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class EvaluationSchedulerTest {
+    private RuleSet ruleSet;
+
+    @BeforeEach
+    public void setUp() {
+        ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.loadAllModules();
+        ruleSet.addRule(new Rule("t", "loop.done", TermParser.parse("(loop 0 ?acc)"), TermParser.parse("?acc")));
+        ruleSet.addRule(new Rule("t", "loop", TermParser.parse("(loop ?n ?acc)"),
+                TermParser.parse("(loop (- ?n 1) (+ ?acc 1))")));
+    }
+
+    private TermEvaluator evaluator() {
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        return evaluator;
+    }
+
+    @Test
+    public void testResumedEvaluationGivesSameResult() {
+        ThreadedEvaluation evaluation = new ThreadedEvaluation(evaluator(), TermParser.parse("(fib 12)"), 10);
+        int resumes = 1;
+        while (!evaluation.resume()) {
+            resumes++;
+        }
+        assertTrue(resumes > 1);
+        assertEquals(resumes, evaluation.getSlices());
+        assertEquals(evaluator().evaluate(TermParser.parse("(fib 12)")), evaluation.getResult());
+        assertTrue(evaluation.resume());
+    }
+
+    @Test
+    public void testFailureIsThrownAgain() {
+        ThreadedEvaluation evaluation = new ThreadedEvaluation(evaluator(), TermParser.parse("(/ 1 0)"), 10);
+        assertThrows(IllegalStateException.class, evaluation::getResult);
+        while (!evaluation.resume()) {
+        }
+        assertThrows(ArithmeticException.class, evaluation::getResult);
+    }
+
+    @Test
+    public void testCancelReleasesRules() {
+        ThreadedEvaluation evaluation = new ThreadedEvaluation(evaluator(), TermParser.parse("(loop 500 0)"), 5);
+        assertFalse(evaluation.resume());
+        evaluation.cancel();
+        assertTrue(evaluation.isDone());
+        assertThrows(CancellationException.class, evaluation::getResult);
+
+        // Die Auswertung hat die Lesesperre der Regeln freigegeben
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g ?x)"), TermParser.parse("(* ?x 2)")));
+        assertEquals("6", evaluator().evaluate(TermParser.parse("(g 3)")).toString());
+    }
+
+    private long rewrites(String expression) {
+        Debugger debugger = new Debugger(Debugger.Mode.QUIET);
+        new TermEvaluator(ruleSet, debugger).evaluate(TermParser.parse(expression), EvaluationStrategy.INNERMOST);
+        return debugger.getRewriteCount();
+    }
+
+    @Test
+    public void testSuspendedEvaluationLetsRulesChange() {
+        long uninterrupted = rewrites("(loop 500 0)");
+        Debugger debugger = new Debugger(Debugger.Mode.QUIET);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, debugger);
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        ThreadedEvaluation evaluation = new ThreadedEvaluation(evaluator, TermParser.parse("(loop 500 0)"), 5);
+        assertFalse(evaluation.resume());
+
+        // Ohne Lesesperre kommt der Schreiber durch; g benutzt die Auswertung nicht, sie geht weiter
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g ?x)"), TermParser.parse("(* ?x 2)")));
+        while (!evaluation.resume()) {
+        }
+        assertEquals("500", evaluation.getResult().toString());
+        assertEquals(uninterrupted, debugger.getRewriteCount());
+    }
+
+    @Test
+    public void testChangeToUsedRulesRestarts() {
+        Debugger debugger = new Debugger(Debugger.Mode.QUIET);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, debugger);
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        ThreadedEvaluation evaluation = new ThreadedEvaluation(evaluator, TermParser.parse("(loop 500 0)"), 5);
+        assertFalse(evaluation.resume());
+
+        ruleSet.removeRule("t.loop.done");
+        ruleSet.addRule(new Rule("t", "loop.done", TermParser.parse("(loop 0 ?acc)"), TermParser.parse("(done ?acc)")));
+        while (!evaluation.resume()) {
+        }
+        assertEquals("(done 500)", evaluation.getResult().toString());
+        assertTrue(debugger.getRewriteCount() > rewrites("(loop 500 0)"));
+    }
+
+    @Test
+    public void testSuspendedJobLetsModulesLoad() throws Exception {
+        RuleSet lazy = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        lazy.addRule(new Rule("t", "loop.done", TermParser.parse("(loop 0 ?acc)"), TermParser.parse("?acc")));
+        lazy.addRule(new Rule("t", "loop", TermParser.parse("(loop ?n ?acc)"),
+                TermParser.parse("(loop (- ?n 1) (+ ?acc 1))")));
+        SharedMemo shared = new SharedMemo(lazy, 1024);
+        java.util.function.Supplier<TermEvaluator> evaluators = () -> {
+            TermEvaluator evaluator = new TermEvaluator(lazy, new Debugger(Debugger.Mode.QUIET));
+            evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+            evaluator.setSharedMemo(shared);
+            return evaluator;
+        };
+
+        // Ein Thread: der lange Job ist angehalten, während der kurze math lädt und auf dieselben Terme trifft
+        try (EvaluationScheduler scheduler = new EvaluationScheduler(1, 20)) {
+            CompletableFuture<Term> longJob = scheduler.submit(evaluators.get(), TermParser.parse("(loop 2000 0)"));
+            CompletableFuture<Term> shortJob = scheduler.submit(evaluators.get(), TermParser.parse("(fib 10)"));
+            CompletableFuture<Term> sameJob = scheduler.submit(evaluators.get(), TermParser.parse("(loop 2000 0)"));
+            assertEquals("55", shortJob.get(30, TimeUnit.SECONDS).toString());
+            assertEquals("2000", longJob.get(60, TimeUnit.SECONDS).toString());
+            assertEquals("2000", sameJob.get(60, TimeUnit.SECONDS).toString());
+        }
+        assertFalse(lazy.getDeferredNamespaces().contains("math"));
+        assertEquals(0, shared.getWaitsGivenUp());
+    }
+
+    @Test
+    public void testLiveJobsAreBounded() throws Exception {
+        try (EvaluationScheduler scheduler = new EvaluationScheduler(1, 20, 2)) {
+            java.util.List<CompletableFuture<Term>> jobs = new java.util.ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                jobs.add(scheduler.submit(evaluator(), TermParser.parse("(loop 300 " + i + ")")));
+            }
+            while (!jobs.get(4).isDone()) {
+                assertTrue(scheduler.getLive() <= 2);
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < 5; i++) {
+                assertEquals(String.valueOf(300 + i), jobs.get(i).get(30, TimeUnit.SECONDS).toString());
+            }
+            assertEquals(0, scheduler.getLive());
+        }
+    }
+
+    @Test
+    public void testShortJobOvertakesLongJob() throws Exception {
+        try (EvaluationScheduler scheduler = new EvaluationScheduler(1, 20)) {
+            CompletableFuture<Term> longJob = scheduler.submit(evaluator(), TermParser.parse("(loop 3000 0)"));
+            CompletableFuture<Term> shortJob = scheduler.submit(evaluator(), TermParser.parse("(fib 5)"));
+            assertEquals("5", shortJob.get(30, TimeUnit.SECONDS).toString());
+            assertFalse(longJob.isDone());
+            assertEquals("3000", longJob.get(60, TimeUnit.SECONDS).toString());
+        }
+    }
+
+    @Test
+    public void testFailuresAndClose() throws Exception {
+        EvaluationScheduler scheduler = new EvaluationScheduler(2, 50);
+        TermEvaluator evaluator = evaluator();
+        CompletableFuture<Term> failing = scheduler.submit(evaluator, TermParser.parse("(/ 1 0)"));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> failing.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(ArithmeticException.class, error.getCause());
+        assertEquals("4", scheduler.submit(evaluator, TermParser.parse("(+ 2 2)")).get(30, TimeUnit.SECONDS).toString());
+
+        CompletableFuture<Term> endless = scheduler.submit(evaluator(), TermParser.parse("(loop 1000000 0)"));
+        assertThrows(IllegalArgumentException.class, () -> {
+            TermEvaluator shared = evaluator();
+            scheduler.submit(shared, TermParser.parse("(loop 1000000 0)"));
+            scheduler.submit(shared, TermParser.parse("(fib 3)"));
+        });
+        scheduler.close();
+        assertThrows(CancellationException.class, () -> endless.get(30, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,72 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvaluationStrategyTest {
+
+    private static final String RULES = """
+            <list.length.empty> (length ()) 0
+            <list.length> (length (?head . ?tail)) (+ 1 (length ?tail))
+            <list.pair> (pair ?a ?b) (?a ?b)
+            <list.twice> (twice ?x) (?x ?x)
+            <list.first> (first (?head . ?tail)) ?head
+            <list.second> (second ?a (?head . ?tail)) ?head
+            <num.one> (one) 1
+            """;
+
+    private TermEvaluator evaluator(RuleSet ruleSet) {
+        return new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+    }
+
+    @Test
+    public void testOutermostMatchesArgumentsAsWritten() {
+        TermEvaluator evaluator = evaluator(RuleParser.loadFromString(RULES));
+        // (pair x y) wird als Liste mit drei Elementen gezählt
+        assertEquals("3", evaluator.evaluate(TermParser.parse("(length (pair x y))")).toString());
+    }
+
+    @Test
+    public void testInnermostEvaluatesArgumentsFirst() {
+        TermEvaluator evaluator = evaluator(RuleParser.loadFromString(RULES));
+        assertEquals("2", evaluator.evaluate(TermParser.parse("(length (pair x y))"), EvaluationStrategy.INNERMOST).toString());
+        assertEquals(EvaluationStrategy.OUTERMOST, evaluator.getStrategy());
+        assertEquals("(1 1)", evaluator.evaluate(TermParser.parse("(twice (one))"), EvaluationStrategy.INNERMOST).toString());
+    }
+
+    @Test
+    public void testNamespaceStrategyDirective() {
+        RuleSet ruleSet = RuleParser.loadFromString("@strategy list innermost\n" + RULES);
+        assertEquals(EvaluationStrategy.INNERMOST, ruleSet.getNamespaceStrategy("list"));
+        assertEquals("2", evaluator(ruleSet).evaluate(TermParser.parse("(length (pair x y))")).toString());
+    }
+
+    @Test
+    public void testStrictDirective() {
+        TermEvaluator lazy = evaluator(RuleParser.loadFromString(RULES));
+        assertEquals("pair", lazy.evaluate(TermParser.parse("(first (pair a b))")).toString());
+
+        RuleSet ruleSet = RuleParser.loadFromString(RULES + "@strict first strict\n@strict second lazy strict\n");
+        assertArrayEquals(new boolean[]{false, true}, ruleSet.getStrictness("second"));
+        TermEvaluator strict = evaluator(ruleSet);
+        assertEquals("a", strict.evaluate(TermParser.parse("(first (pair a b))")).toString());
+        assertEquals("c", strict.evaluate(TermParser.parse("(second (pair a b) (pair c d))")).toString());
+
+        assertThrows(RuntimeException.class, () -> RuleParser.loadFromString("@strict pair eager"));
+        assertThrows(RuntimeException.class, () -> RuleParser.loadFromString("@unknown x"));
+    }
+
+    @Test
+    public void testStandardWorkloadsAgree() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        String[] expressions = {"(fact 6)", "(fib 10)", "(reverse (a b c))", "(and true (not false))", "(max 3 7)"};
+        for (String expression : expressions) {
+            Term term = TermParser.parse(expression);
+            assertEquals(evaluator(ruleSet).evaluate(term),
+                    evaluator(ruleSet).evaluate(term, EvaluationStrategy.INNERMOST), expression);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GraphReductionTest {
+    private RuleSet ruleSet;
+    private TermEvaluator evaluator;
+    private int ticks;
+
+    @BeforeEach
+    public void setUp() {
+        ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.addRule(new Rule("math", "square", TermParser.parse("(square ?x)"), TermParser.parse("(* ?x ?x)")));
+        ruleSet.addRule(new Rule("math", "cube", TermParser.parse("(cube ?x)"), TermParser.parse("(* ?x (* ?x ?x))")));
+        evaluator = countingEvaluator();
+        ticks = 0;
+    }
+
+    private TermEvaluator countingEvaluator() {
+        TermEvaluator counting = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        counting.registerIntrinsic("tick", 1, (call, ev) -> {
+            ticks++;
+            return call.elements().get(1);
+        });
+        return counting;
+    }
+
+    @Test
+    public void testSubstitutedVariableIsEvaluatedOnce() {
+        assertEquals("25", evaluator.evaluate(TermParser.parse("(square (tick 5))")).toString());
+        assertEquals(2, ticks);
+
+        // Neuer Evaluator, da Evaluator Ergebnisse von Operatoren dauerhaft cached
+        ticks = 0;
+        evaluator = countingEvaluator();
+        evaluator.setGraphReduction(true);
+        assertEquals("25", evaluator.evaluate(TermParser.parse("(square (tick 5))")).toString());
+        assertEquals(1, ticks);
+
+        ticks = 0;
+        assertEquals("27", evaluator.evaluate(TermParser.parse("(cube (tick 3))")).toString());
+        assertEquals(1, ticks);
+    }
+
+    @Test
+    public void testResultsMatchWithoutSharing() {
+        TermEvaluator sharing = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        sharing.setGraphReduction(true);
+
+        String[] expressions = {
+                "(square (fib 10))", "(cube (fact 4))", "(fib 12)", "(length (a b c))",
+                "(reverse (a b c))", "(member? c (a b c))", "(square (+ 1 2))", "(and true (not false))"
+        };
+        for (String expression : expressions) {
+            Term term = TermParser.parse(expression);
+            assertEquals(evaluator.evaluate(term), sharing.evaluate(term), expression);
+        }
+    }
+}
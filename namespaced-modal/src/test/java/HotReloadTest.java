@@ -0,0 +1,151 @@
+package core;
+
+import debug.Debugger;
+import io.RuleFileWatcher;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class HotReloadTest {
+    private RuleSet ruleSet;
+    private RuleFileWatcher watcher;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        ruleSet = new RuleSet();
+        watcher = new RuleFileWatcher(ruleSet);
+        file = Files.createTempDirectory("modal").resolve("test.modal");
+        write("<t.f> (f ?x) (+ ?x 1)",
+              "<t.g> (g ?x) (* ?x 2)");
+        watcher.load(file);
+    }
+
+    private void write(String... lines) throws Exception {
+        Files.writeString(file, String.join("\n", lines) + "\n");
+    }
+
+    private Term eval(TermEvaluator evaluator, String expression) {
+        return evaluator.evaluate(TermParser.parse(expression));
+    }
+
+    @Test
+    public void testReloadReplacesOnlyChangedRules() throws Exception {
+        Rule g = ruleSet.getRulesByName("t.g").get(0);
+
+        write("<t.f> (f ?x) (+ ?x 10)",
+              "<t.g> (g ?x) (* ?x 2)",
+              "<t.h> (h ?x) ?x");
+        RuleFileWatcher.Diff diff = watcher.reload(file.toAbsolutePath().normalize());
+
+        assertEquals(java.util.List.of("t.f"), diff.removed());
+        assertEquals(2, diff.added().size());
+        assertEquals(3, ruleSet.size());
+        assertSame(g, ruleSet.getRulesByName("t.g").get(0));
+
+        write("<t.g> (g ?x) (* ?x 2)");
+        diff = watcher.reload(file.toAbsolutePath().normalize());
+        assertEquals(java.util.List.of("t.f", "t.h"), diff.removed());
+        assertTrue(diff.added().isEmpty());
+        assertEquals(1, ruleSet.size());
+    }
+
+    @Test
+    public void testUnchangedFileDoesNotChangeVersion() throws Exception {
+        long version = ruleSet.getVersion();
+        assertTrue(watcher.reload(file.toAbsolutePath().normalize()).isEmpty());
+        assertEquals(version, ruleSet.getVersion());
+    }
+
+    @Test
+    public void testParseErrorKeepsRules() throws Exception {
+        write("<t.f> (f ?x) (+ ?x 10)",
+              "<t.g> (g ?x");
+        assertThrows(RuntimeException.class, () -> watcher.reload(file.toAbsolutePath().normalize()));
+        assertEquals("(+ ?x 1)", ruleSet.getRulesByName("t.f").get(0).replacement().toString());
+    }
+
+    @Test
+    public void testChangedSymbolsSince() {
+        long version = ruleSet.getVersion();
+        ruleSet.addRule(new Rule("t", "k", TermParser.parse("(k)"), TermParser.parse("1")));
+        ruleSet.removeRule("t.g");
+        assertEquals(Set.of("k", "g"), ruleSet.changedSymbolsSince(version));
+        assertEquals(Set.of(), ruleSet.changedSymbolsSince(ruleSet.getVersion()));
+        assertNull(new RuleSet().changedSymbolsSince(-5));
+    }
+
+    @Test
+    public void testReloadInvalidatesOnlyDependentResults() throws Exception {
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+        assertEquals("3", eval(evaluator, "(+ (f 1) 1)").toString());
+        assertEquals("3", eval(evaluator, "(+ (g 1) 1)").toString());
+        int cached = evaluator.getCacheSize();
+
+        write("<t.f> (f ?x) (+ ?x 10)",
+              "<t.g> (g ?x) (* ?x 2)");
+        watcher.reload(file.toAbsolutePath().normalize());
+
+        assertEquals("12", eval(evaluator, "(+ (f 1) 1)").toString());
+        // Nur das Ergebnis mit f wurde verworfen und neu berechnet (samt neuem (+ 1 10))
+        assertEquals(cached + 1, evaluator.getCacheSize());
+        assertEquals("3", eval(evaluator, "(+ (g 1) 1)").toString());
+    }
+
+    @Test
+    public void testReloadWaitsForRunningEvaluation() throws Exception {
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        evaluator.registerIntrinsic("block", 1, (call, ev) -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return ev.evaluate(call.elements().get(1));
+        });
+
+        Term[] result = new Term[1];
+        Thread evaluation = new Thread(() -> result[0] = eval(evaluator, "(block (f 1))"));
+        evaluation.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        write("<t.f> (f ?x) (+ ?x 10)",
+              "<t.g> (g ?x) (* ?x 2)");
+        Thread reload = new Thread(() -> watcher.reload(file.toAbsolutePath().normalize()));
+        reload.start();
+        reload.join(200);
+        assertTrue(reload.isAlive());
+
+        release.countDown();
+        evaluation.join(5000);
+        reload.join(5000);
+        assertEquals("2", result[0].toString());
+        assertEquals("11", eval(evaluator, "(f 1)").toString());
+    }
+
+    @Test
+    public void testWatcherPicksUpSavedFile() throws Exception {
+        watcher.start();
+        try {
+            write("<t.f> (f ?x) (+ ?x 10)",
+                  "<t.g> (g ?x) (* ?x 2)");
+            TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!eval(evaluator, "(f 1)").toString().equals("11") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals("11", eval(evaluator, "(f 1)").toString());
+        } finally {
+            watcher.close();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntrinsicTest {
+    private RuleSet ruleSet;
+    private TermEvaluator evaluator;
+    private TermEvaluator rulesOnly;
+
+    @BeforeEach
+    public void setUp() {
+        ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setVerifyIntrinsics(true);
+        rulesOnly = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+    }
+
+    @Test
+    public void testStandardIntrinsicsAreLoaded() {
+        assertNotNull(evaluator.getIntrinsics().lookup("length", 1));
+        assertNotNull(evaluator.getIntrinsics().lookup("range", 2));
+        assertNull(evaluator.getIntrinsics().lookup("length", 2));
+        assertNull(evaluator.getIntrinsics().lookup("fact", 1));
+    }
+
+    @Test
+    public void testIntrinsicsMatchRules() {
+        String[] expressions = {
+                "(length ())", "(length (a b c))", "(length (range 0 3))",
+                "(sum ())", "(sum (1 2 3 4 5))", "(sum (0.1 0.2 0.3))",
+                "(member? x ())", "(member? c (a b c))", "(member? 3 (1 2 4))",
+                "(append () (c d))", "(append (a b) (c d))", "(append (a) x)",
+                "(reverse ())", "(reverse (a b c))", "(reverse (length x))",
+                "(range 5 5)", "(range 1 5)", "(range 5 3)", "(range 0.5 3)"
+        };
+        for (String expression : expressions) {
+            Term term = TermParser.parse(expression);
+            assertEquals(rulesOnly.evaluate(term), evaluator.evaluate(term), expression);
+        }
+    }
+
+    @Test
+    public void testRegisterCustomIntrinsic() {
+        evaluator.registerIntrinsic("twice", 1, (call, ev) -> new Term.List(call.elements().get(1), call.elements().get(1)));
+        assertEquals("(a a)", evaluator.evaluate(TermParser.parse("(twice a)")).toString());
+        assertEquals("(twice a b)", evaluator.evaluate(TermParser.parse("(twice a b)")).toString());
+    }
+
+    @Test
+    public void testRedefinedRulesDisableIntrinsic() {
+        ruleSet.removeRule("list.length");
+        ruleSet.addRule(new Rule("list", "length",
+                TermParser.parse("(length (?head . ?tail))"),
+                TermParser.parse("many")));
+
+        assertFalse(evaluator.getIntrinsics().lookup("length", 1).isActiveFor(ruleSet));
+        assertEquals("many", evaluator.evaluate(TermParser.parse("(length (a b c))")).toString());
+    }
+
+    @Test
+    public void testVerificationDetectsMismatch() {
+        ruleSet.addRule(new Rule("test", "double",
+                TermParser.parse("(double ?x)"),
+                TermParser.parse("(* ?x 2)")));
+        evaluator.getIntrinsics().register("double", 1, (call, ev) -> Term.number(42),
+                java.util.Map.of("double", java.util.List.of("<test.double> (double ?x) (* ?x 2)")));
+
+        assertEquals("10", rulesOnly.evaluate(TermParser.parse("(double 5)")).toString());
+        assertThrows(IllegalStateException.class,
+                () -> evaluator.evaluate(TermParser.parse("(double 5)")));
+    }
+
+    @Test
+    public void testVerificationStartsFromTheCall() {
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        rulesOnly.setStrategy(EvaluationStrategy.INNERMOST);
+        for (String expression : new String[]{"(take 2 (range 0 10))", "(length (range 0 5))", "(cdr (range 0 3))"}) {
+            Term term = TermParser.parse(expression);
+            assertEquals(rulesOnly.evaluate(term), evaluator.evaluate(term), expression);
+        }
+    }
+
+    @Test
+    public void testVerificationReportsDeepRecursion() {
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> evaluator.evaluate(TermParser.parse("(sum (take 5 (range 0 1000000)))")));
+        assertTrue(e.getMessage().contains("too deep"), e.getMessage());
+        assertTrue(e.getMessage().length() < 2000, e.getMessage());
+    }
+
+    @Test
+    public void testMismatchIsPrintedWithLimits() {
+        // Eine endlose lazy Liste statt (0 . (1 . (2 . ())))
+        evaluator.getIntrinsics().register("range", 2, (call, ev) -> LazySeq.range(0, Long.MAX_VALUE), java.util.Map.of(
+                "range", java.util.List.of(
+                        "<list.range.end> (range ?n ?n) ()",
+                        "<list.range> (range ?start ?end) (if (< ?start ?end) (cons ?start (range (+ ?start 1) ?end)) ())"),
+                "cons", java.util.List.of("<list.cons> (cons ?elem ?list) (?elem . ?list)")));
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> evaluator.evaluate(TermParser.parse("(range 0 3)")));
+        assertTrue(e.getMessage().contains("rules give (0 . (1 . (2 . ())))"), e.getMessage());
+        assertTrue(e.getMessage().length() < 2000, e.getMessage());
+    }
+}
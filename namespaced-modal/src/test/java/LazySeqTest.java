@@ -0,0 +1,140 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LazySeqTest {
+    private RuleSet ruleSet;
+    private TermEvaluator evaluator;
+    private TermEvaluator rulesOnly;
+
+    @BeforeEach
+    public void setUp() {
+        ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.addRule(new Rule("list", "take.zero", TermParser.parse("(take 0 ?list)"), TermParser.parse("()")));
+        ruleSet.addRule(new Rule("list", "take", TermParser.parse("(take ?n (?head . ?tail))"),
+                TermParser.parse("(cons ?head (take (- ?n 1) ?tail))")));
+        evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        rulesOnly = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+    }
+
+    /**
+     * The printed value, or the error, so failing evaluations can be compared too.
+     */
+    private static String outcome(TermEvaluator evaluator, Term term, EvaluationStrategy strategy) {
+        try {
+            return evaluator.evaluate(term, strategy).toString();
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+    @Test
+    public void testRangeIsRealizedOnDemand() {
+        Term range = evaluator.evaluate(TermParser.parse("(range 0 10000000)"));
+        assertTrue(LazySeq.isLazy(range));
+        assertFalse(((LazySeq) ((Term.List) range).elements()).isRealized());
+
+        // Wie bei der Liste aus cons bindet ?tail den Rest (. t)
+        Term.List call = new Term.List(Term.atom("take"), Term.atom("2"), range);
+        assertEquals("(0 . (. . ()))", evaluator.evaluate(call).toString());
+        assertEquals("3", evaluator.evaluate(new Term.List(Term.atom("length"), range)).toString());
+
+        // Nur die konsumierten Zellen wurden erzeugt
+        Term cell = range;
+        int realized = 0;
+        while (cell instanceof Term.List list && list.elements() instanceof LazySeq seq && seq.isRealized()) {
+            realized++;
+            cell = seq.tail();
+        }
+        assertTrue(realized <= 1, "realized " + realized);
+    }
+
+    @Test
+    public void testLazyResultsMatchRules() {
+        evaluator.setVerifyIntrinsics(true);
+        String[] expressions = {
+                "(range 0 4)", "(range 3 3)", "(map f (a b))", "(map f ())",
+                "(length (reverse (a b c)))", "(append (a b) (c . ()))", "(member? b (a b))"
+        };
+        for (String expression : expressions) {
+            Term term = TermParser.parse(expression);
+            Term expected = rulesOnly.evaluate(term);
+            Term actual = evaluator.evaluate(term);
+            assertEquals(expected, actual, expression);
+            assertEquals(expected.toString(), actual.toString(), expression);
+        }
+    }
+
+    @Test
+    public void testLazyArgumentsMatchRules() {
+        // Ausgewertete Argumente: die Regeln sehen die Liste aus cons, die Intrinsics die lazy Zelle
+        String[] expressions = {
+                "(take 2 (range 0 10))", "(member? 0 (range 0 10))", "(member? 3 (range 0 10))",
+                "(length (range 0 5))", "(sum (range 0 5))", "(cdr (range 0 4))", "(reverse (range 0 4))",
+                "(append (range 0 3) (x))", "(map f (range 0 3))", "(drop 1 (range 0 3))", "(take 5 (1 2 3))"
+        };
+        for (String expression : expressions) {
+            Term term = TermParser.parse(expression);
+            assertEquals(outcome(rulesOnly, term, EvaluationStrategy.INNERMOST),
+                    outcome(evaluator, term, EvaluationStrategy.INNERMOST), expression);
+        }
+    }
+
+    @Test
+    public void testFilterIsLazy() {
+        ruleSet.addRule(new Rule("hof", "apply.small", TermParser.parse("(apply small? ?x)"), TermParser.parse("(< ?x 3)")));
+        evaluator.setVerifyIntrinsics(true);
+
+        Term term = TermParser.parse("(filter small? (5 1 7 2))");
+        assertEquals(rulesOnly.evaluate(term), evaluator.evaluate(term));
+        assertEquals("(1 . (2 . ()))", evaluator.evaluate(term).toString());
+    }
+
+    @Test
+    public void testFilterOverLazyRange() {
+        ruleSet.addRule(new Rule("hof", "apply.small", TermParser.parse("(apply small? ?x)"), TermParser.parse("(< ?x 3)")));
+
+        // Nach 0 kommt der Punkt der Zelle, wie bei der Range aus cons
+        Term lazy = new Term.List(Term.atom("filter"), Term.atom("small?"), evaluator.evaluate(TermParser.parse("(range 0 10)")));
+        Term eager = new Term.List(Term.atom("filter"), Term.atom("small?"), rulesOnly.evaluate(TermParser.parse("(range 0 10)")));
+        assertEquals(outcome(rulesOnly, eager, EvaluationStrategy.OUTERMOST),
+                outcome(evaluator, lazy, EvaluationStrategy.OUTERMOST));
+    }
+
+    @Test
+    public void testConsCellTailMatchesTail() {
+        Term pattern = TermParser.parse("(?head . ?tail)");
+        // Eine gewöhnliche Liste bindet den Rest ab dem zweiten Element, wie bisher
+        var plain = RuleMatcher.match(pattern, TermParser.parse("(a . (b . ()))"));
+        assertTrue(plain.isPresent());
+        assertEquals("(. (b . ()))", plain.get().get("?tail").toString());
+
+        // Eine lazy Zelle ebenso, ohne ihren Tail dafür zu berechnen
+        Term range = evaluator.evaluate(TermParser.parse("(range 0 3)"));
+        var lazy = RuleMatcher.match(pattern, range);
+        assertTrue(lazy.isPresent());
+        assertFalse(((LazySeq) ((Term.List) range).elements()).isRealized());
+        assertEquals("0", lazy.get().get("?head").toString());
+        assertEquals(TermParser.parse("(. (1 . (2 . ())))"), lazy.get().get("?tail"));
+    }
+
+    @Test
+    public void testEqualToTheListItIsMatchedAs() {
+        Term lazy = evaluator.evaluate(TermParser.parse("(range 0 3)"));
+        Term eager = rulesOnly.evaluate(TermParser.parse("(range 0 3)"));
+        assertFalse(LazySeq.isLazy(eager));
+        assertEquals(eager, lazy);
+        assertEquals(lazy, eager);
+        assertEquals(eager.hashCode(), lazy.hashCode());
+
+        Term.List tail = ((Term.List) lazy).tail();
+        assertEquals(((Term.List) eager).tail(), tail);
+        assertEquals(((Term.List) eager).tail().hashCode(), tail.hashCode());
+        assertNotEquals(TermParser.parse("(1 . (2 . ()))"), tail);
+    }
+}
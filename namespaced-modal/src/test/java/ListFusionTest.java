@@ -0,0 +1,140 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ListFusionTest {
+    private RuleSet ruleSet;
+
+    /**
+     * Counts the calls answered by fusion.
+     */
+    private static final class FusionCounter extends Debugger {
+        int fused;
+
+        FusionCounter() {
+            super(Mode.QUIET);
+        }
+
+        @Override
+        public void onIntrinsicApplied(String intrinsic, Term before, Term after) {
+            if (intrinsic.equals("fusion")) {
+                fused++;
+            }
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.addRule(new Rule("t", "apply.sq", TermParser.parse("(apply sq ?x)"), TermParser.parse("(* ?x ?x)")));
+        ruleSet.addRule(new Rule("t", "apply2.plus", TermParser.parse("(apply2 plus ?a ?b)"), TermParser.parse("(+ ?a ?b)")));
+    }
+
+    private static Path file(String content) throws Exception {
+        Path file = Files.createTempFile("modal", ".data");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static Term parse(String expression, Path file) {
+        return TermParser.parse(expression.replace("FILE", file.toString()));
+    }
+
+    // Ohne Fusion laufen die Regeln die Zellen der Datei ab
+    private TermEvaluator evaluator(Debugger debugger, boolean fusion) {
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, debugger);
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        evaluator.setListFusion(fusion);
+        return evaluator;
+    }
+
+    @Test
+    public void testSameResultsAsRules() throws Exception {
+        Path[] files = {file("1 2 3 4 5"), file("07 -3 1.5 2e3"), file("2000000000 2000000000 1"), file("")};
+        String[] expressions = {
+                "(sum (data-file FILE))",
+                "(product (data-file FILE))",
+                "(length (data-file FILE))",
+                "(fold-left plus 0 (data-file FILE))"
+        };
+        for (Path file : files) {
+            for (String expression : expressions) {
+                Term term = parse(expression, file);
+                Debugger fusedDebugger = new Debugger(Debugger.Mode.QUIET);
+                Debugger rulesDebugger = new Debugger(Debugger.Mode.QUIET);
+                Term expected = evaluator(rulesDebugger, false).evaluate(term);
+                assertEquals(expected.toString(), evaluator(fusedDebugger, true).evaluate(term).toString(), expression);
+                assertTrue(fusedDebugger.getRewriteCount() <= rulesDebugger.getRewriteCount(), expression);
+            }
+        }
+    }
+
+    @Test
+    public void testFoldWithoutWalkingTheCells() throws Exception {
+        Path file = Files.createTempFile("modal", ".data");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < 100_000; i++) {
+                writer.write(Integer.toString(i % 10));
+                writer.write(' ');
+            }
+        }
+        FusionCounter counter = new FusionCounter();
+        // Die Regel würde einmal pro Atom rekursieren
+        Term term = parse("(fold-left plus 0 (data-file FILE))", file);
+        assertEquals("450000", evaluator(counter, true).evaluate(term).toString());
+        assertEquals(1, counter.fused);
+    }
+
+    @Test
+    public void testVerifiedAgainstRules() throws Exception {
+        TermEvaluator evaluator = evaluator(new Debugger(Debugger.Mode.QUIET), true);
+        evaluator.setVerifyIntrinsics(true);
+        assertEquals("15", evaluator.evaluate(parse("(fold-left plus 0 (data-file FILE))", file("1 2 3 4 5"))).toString());
+    }
+
+    @Test
+    public void testRedefinedRulesAreUsed() throws Exception {
+        Path file = file("1 2 3 4 5");
+        TermEvaluator evaluator = evaluator(new Debugger(Debugger.Mode.QUIET), true);
+        assertEquals("15", evaluator.evaluate(parse("(fold-left plus 0 (data-file FILE))", file)).toString());
+
+        ruleSet.removeRule("hof.fold.left");
+        ruleSet.addRule(new Rule("hof", "fold.left", TermParser.parse("(fold-left ?fn ?acc (?head . ?tail))"),
+                TermParser.parse("(fold-left ?fn (apply2 ?fn ?acc 1) ?tail)")));
+        assertEquals("5", evaluator.evaluate(parse("(fold-left plus 0 (data-file FILE))", file)).toString());
+    }
+
+    @Test
+    public void testListsBuiltByConsAreLeftToRules() {
+        // (?head . ?tail) bindet den Rest von (h . t) als (. t), die Regeln falten solche Listen nicht
+        String[] expressions = {"(length (range 0 5))", "(length (map sq (1 2 3)))", "(length (take 2 (range 0 9)))"};
+        for (String expression : expressions) {
+            Term term = TermParser.parse(expression);
+            FusionCounter counter = new FusionCounter();
+            Term expected = evaluator(new Debugger(Debugger.Mode.QUIET), false).evaluate(term);
+            assertEquals(expected.toString(), evaluator(counter, true).evaluate(term).toString(), expression);
+            assertEquals(0, counter.fused, expression);
+        }
+    }
+
+    @Test
+    public void testOutermostIsNotFused() {
+        Debugger fused = new Debugger(Debugger.Mode.QUIET);
+        Debugger rules = new Debugger(Debugger.Mode.QUIET);
+        TermEvaluator withFusion = new TermEvaluator(ruleSet, fused, IntrinsicRegistry.empty());
+        TermEvaluator without = new TermEvaluator(ruleSet, rules, IntrinsicRegistry.empty());
+        without.setListFusion(false);
+
+        Term term = TermParser.parse("(length (range 0 5))");
+        assertEquals(without.evaluate(term), withFusion.evaluate(term));
+        assertEquals(rules.getRewriteCount(), fused.getRewriteCount());
+    }
+}
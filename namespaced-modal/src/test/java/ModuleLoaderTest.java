@@ -0,0 +1,148 @@
+package core;
+
+import debug.Debugger;
+import io.ModuleLoader;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class ModuleLoaderTest {
+
+    private Term eval(RuleSet ruleSet, String expression) {
+        return new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET)).evaluate(TermParser.parse(expression));
+    }
+
+    @Test
+    public void testModulesLoadOnFirstUse() {
+        RuleSet ruleSet = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        assertEquals(0, ruleSet.size());
+        assertTrue(ruleSet.getNamespaces().contains("physics"));
+
+        // Geladen wird mitten in der Auswertung, während sie die Regeln liest
+        assertEquals("120", eval(ruleSet, "(fact 5)").toString());
+        assertFalse(ruleSet.getDeferredNamespaces().contains("math"));
+        assertTrue(ruleSet.getDeferredNamespaces().contains("physics"));
+        assertTrue(ruleSet.getDeferredNamespaces().contains("unit"));
+    }
+
+    @Test
+    public void testLazyMatchesEager() {
+        RuleSet eager = RuleParser.loadFromResource("rules/standard.modal");
+        String[] expressions = {
+                "(fact 5)", "(fib 7)", "(length (a b c))", "(reverse (1 2 3))", "(and true false)",
+                "(concat ((a b) (c)))", "(to-kg (g 500))", "(brake-distance.si (kmh 50) 0.7)",
+                "(map square (1 2 3))", "(take 2 (a b c))"
+        };
+        for (String expression : expressions) {
+            RuleSet lazy = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+            assertEquals(eval(eager, expression), eval(lazy, expression), expression);
+        }
+    }
+
+    @Test
+    public void testManifestMatchesModules() {
+        Map<String, java.util.List<String>> manifest = ModuleLoader.readManifest(ModuleLoader.STANDARD_MANIFEST);
+        RuleSet eager = RuleParser.loadFromResource("rules/standard.modal");
+        assertEquals(new HashSet<>(manifest.keySet()), eager.getNamespaces());
+
+        for (Map.Entry<String, java.util.List<String>> entry : manifest.entrySet()) {
+            Set<String> defined = new HashSet<>();
+            for (Rule rule : eager.getRulesForNamespace(entry.getKey())) {
+                defined.add(((Term.List) rule.pattern()).getFunctionSymbol());
+            }
+            assertEquals(defined, new HashSet<>(entry.getValue()), entry.getKey());
+        }
+
+        RuleSet lazy = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        lazy.loadAllModules();
+        assertEquals(eager.size(), lazy.size());
+        assertTrue(lazy.getDeferredNamespaces().isEmpty());
+    }
+
+    @Test
+    public void testUndeclaredSymbolIsRejected() {
+        RuleSet ruleSet = new RuleSet();
+        ruleSet.addModule("x", java.util.List.of("a"), () -> RuleParser.loadFromString("<x.b> (b) 1"));
+        assertThrows(IllegalStateException.class, () -> ruleSet.getRulesForFunction("a"));
+    }
+
+    @Test
+    public void testDirectivesOfModuleApplyToFirstCall() {
+        RuleSet ruleSet = new RuleSet();
+        ruleSet.addModule("s", java.util.List.of("f"), () -> RuleParser.loadFromString("""
+                @strict f strict
+                <s.f> (f 1) one
+                """));
+        assertEquals("one", eval(ruleSet, "(f (+ 0 1))").toString());
+    }
+
+    @Test
+    public void testModuleRulesComeBeforeLaterRules() {
+        RuleSet ruleSet = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        ruleSet.addRule(new Rule("user", "fact.two", TermParser.parse("(fact 2)"), TermParser.parse("two")));
+
+        java.util.List<Rule> rules = ruleSet.getRulesForFunction("fact");
+        assertEquals("math.fact.0", rules.get(0).fullName());
+        assertEquals("user.fact.two", rules.get(rules.size() - 1).fullName());
+
+        assertEquals(3, ruleSet.getRulesByName("list.take").size() + ruleSet.getRulesByName("list.take.zero").size()
+                + ruleSet.getRulesByName("list.take.empty").size());
+        assertEquals(1, ruleSet.removeRule("list.cons"));
+    }
+
+    @Test
+    public void testModuleNeededMidwayRestartsEvaluation() {
+        RuleSet ruleSet = new RuleSet();
+        ruleSet.addModule("m", java.util.List.of("twice"), () -> RuleParser.loadFromString("<m.twice> (twice ?x) (* ?x 2)\n"));
+        int[] calls = {0};
+        IntrinsicRegistry intrinsics = IntrinsicRegistry.empty();
+        // Das Symbol steht nicht im Term, das Modul wird erst in der Auswertung gebraucht
+        intrinsics.register("make", 1, (call, evaluator) -> {
+            calls[0]++;
+            return evaluator.evaluate(new Term.List(Term.atom("twice"), call.elements().get(1)));
+        });
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), intrinsics);
+
+        assertEquals("42", evaluator.evaluate(TermParser.parse("(make 21)")).toString());
+        assertEquals(2, calls[0]);
+        assertTrue(ruleSet.getDeferredNamespaces().isEmpty());
+
+        // Unter der Lesesperre wird nicht geladen, sie bliebe sonst nicht gehalten
+        RuleSet other = new RuleSet();
+        other.addModule("m", java.util.List.of("twice"), () -> RuleParser.loadFromString("<m.twice> (twice ?x) (* ?x 2)\n"));
+        other.readLock().lock();
+        try {
+            assertThrows(RuleSet.Restart.class, () -> other.getRulesForFunction("twice"));
+        } finally {
+            other.readLock().unlock();
+        }
+        assertEquals(1, other.read(() -> other.getRulesForFunction("twice")).size());
+    }
+
+    @Test
+    public void testTermSymbolsAreLoadedBeforeEvaluation() {
+        RuleSet ruleSet = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        ruleSet.loadModulesFor(TermParser.parse("(brake-distance.si (kmh 50) 0.7)"));
+        assertFalse(ruleSet.getDeferredNamespaces().contains("physics"));
+        assertFalse(ruleSet.getDeferredNamespaces().contains("unit"));
+        assertTrue(ruleSet.getDeferredNamespaces().contains("list"));
+    }
+
+    @Test
+    public void testLoadedModulesAreOptimized() {
+        RuleSet ruleSet = RuleParser.loadFromString("<app.price> (price ?x) (twice ?x)\n");
+        ruleSet.addModule("m", java.util.List.of("twice"), () -> RuleParser.loadFromString("<m.twice> (twice ?x) (* ?x 2)\n"));
+        ruleSet.setModuleListener(namespace -> RuleSetOptimizer.optimize(ruleSet));
+
+        RuleSetOptimizer.optimize(ruleSet);
+        assertTrue(ruleSet.getDeferredNamespaces().contains("m"));
+        assertEquals("(twice ?x)", ruleSet.getRulesForFunction("price").get(0).replacement().toString());
+
+        assertEquals("20", eval(ruleSet, "(price 10)").toString());
+        assertEquals("(* ?x 2)", ruleSet.getRulesForFunction("price").get(0).replacement().toString());
+    }
+}
@@ -0,0 +1,83 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Map;
+import java.util.Optional;
+
+public class PackedNumbersTest {
+
+    @Test
+    public void testParserPacksNumericLists() {
+        Term.List ints = (Term.List) TermParser.parse("(1 2 3)");
+        assertInstanceOf(PackedNumbers.class, ints.elements());
+        assertTrue(((PackedNumbers) ints.elements()).isIntegral());
+
+        Term.List doubles = (Term.List) TermParser.parse("(1 0.500000)");
+        assertInstanceOf(PackedNumbers.class, doubles.elements());
+
+        // Nicht-kanonische Zahlen bleiben Atome, damit sie unverändert ausgegeben werden
+        assertFalse(((Term.List) TermParser.parse("(1 0.5)")).elements() instanceof PackedNumbers);
+        assertFalse(((Term.List) TermParser.parse("(007 1)")).elements() instanceof PackedNumbers);
+        assertFalse(((Term.List) TermParser.parse("(1 a)")).elements() instanceof PackedNumbers);
+        assertEquals("(1 0.5)", TermParser.parse("(1 0.5)").toString());
+    }
+
+    @Test
+    public void testPackedListBehavesLikeList() {
+        Term packed = TermParser.parse("(1 2 3)");
+        Term boxed = new Term.List(Term.atom("1"), Term.atom("2"), Term.atom("3"));
+
+        assertEquals(boxed, packed);
+        assertEquals(packed, boxed);
+        assertEquals(boxed.hashCode(), packed.hashCode());
+        assertEquals("(1 2 3)", packed.toString());
+
+        Optional<Map<String, Term>> match = RuleMatcher.match(TermParser.parse("(?head . ?tail)"), packed);
+        assertTrue(match.isPresent());
+        assertEquals("1", match.get().get("?head").toString());
+        assertEquals("(2 3)", match.get().get("?tail").toString());
+        assertInstanceOf(PackedNumbers.class, ((Term.List) match.get().get("?tail")).elements());
+    }
+
+    @Test
+    public void testAggregates() {
+        PackedNumbers numbers = PackedNumbers.ofLongs(new long[]{4, -2, 7, 1});
+        assertEquals("10", numbers.sum().toString());
+        assertEquals("-56", numbers.product().toString());
+        assertEquals("8", numbers.subList(2, 4).sum().toString());
+
+        // Über int hinaus wird wie in den Regeln schrittweise gerundet
+        assertEquals("2.14748e+09", PackedNumbers.ofLongs(new long[]{Integer.MAX_VALUE, 1}).sum().toString());
+    }
+
+    @Test
+    public void testAggregatesMatchRules() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setVerifyIntrinsics(true);
+
+        assertEquals("15", evaluator.evaluate(TermParser.parse("(sum (1 2 3 4 5))")).toString());
+        assertEquals("120", evaluator.evaluate(TermParser.parse("(product (1 2 3 4 5))")).toString());
+        assertEquals("0", evaluator.evaluate(TermParser.parse("(product (3 0 5))")).toString());
+        assertEquals("1.50000", evaluator.evaluate(TermParser.parse("(sum (1 0.500000))")).toString());
+
+        // (min liste) ist kein Intrinsic mehr und bleibt wie die Regeln es lassen
+        assertEquals("(min (3 1 2))", evaluator.evaluate(TermParser.parse("(min (3 1 2))")).toString());
+    }
+
+    @Test
+    public void testRangeChainEqualsRuleResult() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        TermEvaluator rulesOnly = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+        Term expected = rulesOnly.evaluate(TermParser.parse("(range 2 6)"));
+
+        Term chain = PackedNumbers.ofLongs(new long[]{2, 3, 4, 5}).toChain();
+        assertEquals(expected, chain);
+        assertEquals(expected.hashCode(), chain.hashCode());
+        assertEquals("(2 . (3 . (4 . (5 . ()))))", chain.toString());
+    }
+}
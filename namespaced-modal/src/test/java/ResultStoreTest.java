@@ -0,0 +1,95 @@
+package core;
+
+import debug.Debugger;
+import io.ModuleLoader;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class ResultStoreTest {
+    private static final String EXPRESSION = "(* (fact 8) (brake-distance.si (kmh 50) 0.7))";
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        file = Files.createTempDirectory("modal").resolve("results.store");
+    }
+
+    /**
+     * Evaluates in a fresh evaluator, as a new process would, and returns the number of rewrites.
+     */
+    private long evaluate(RuleSet ruleSet, String expected) throws IOException {
+        Debugger debugger = new Debugger(Debugger.Mode.QUIET);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, debugger, IntrinsicRegistry.empty());
+        try (ResultStore store = ResultStore.open(file)) {
+            evaluator.setResultStore(store);
+            assertEquals(expected, evaluator.evaluate(TermParser.parse(EXPRESSION)).toString());
+        }
+        return debugger.getRewriteCount();
+    }
+
+    @Test
+    public void testResultsSurviveRestart() throws Exception {
+        String expected = new TermEvaluator(RuleParser.loadFromResource("rules/standard.modal"),
+                new Debugger(Debugger.Mode.QUIET)).evaluate(TermParser.parse(EXPRESSION)).toString();
+
+        long cold = evaluate(RuleParser.loadFromResource("rules/standard.modal"), expected);
+        assertTrue(cold > 0);
+        assertEquals(0, evaluate(ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST), expected));
+    }
+
+    @Test
+    public void testChangedRulesIgnoreStore() throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        String expected = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET))
+                .evaluate(TermParser.parse(EXPRESSION)).toString();
+        long cold = evaluate(ruleSet, expected);
+
+        RuleSet changed = RuleParser.loadFromResource("rules/standard.modal");
+        changed.addRule(new Rule("t", "unused", TermParser.parse("(unused)"), TermParser.parse("1")));
+        assertEquals(cold, evaluate(changed, expected));
+    }
+
+    @Test
+    public void testContentHashIgnoresLoadOrder() {
+        RuleSet eager = RuleParser.loadFromResource("rules/standard.modal");
+        RuleSet lazy = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        lazy.getRulesForFunction("to-kg");
+        assertEquals(eager.contentHash(), lazy.contentHash());
+
+        long before = eager.contentHash();
+        eager.setTabling("fact", new Tabling(10, Tabling.Eviction.FIFO));
+        assertNotEquals(before, eager.contentHash());
+    }
+
+    @Test
+    public void testTornRecordIsCutOff() throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        evaluate(ruleSet, "566512");
+        int stored;
+        try (ResultStore store = ResultStore.open(file)) {
+            stored = store.size();
+        }
+        long size = Files.size(file);
+        Files.write(file, new byte[]{0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+
+        try (ResultStore store = ResultStore.open(file)) {
+            assertEquals(stored, store.size());
+        }
+        assertEquals(size, Files.size(file));
+        assertEquals(0, evaluate(ruleSet, "566512"));
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws Exception {
+        Files.writeString(file, "not a result store");
+        assertThrows(IOException.class, () -> ResultStore.open(file));
+    }
+}
@@ -0,0 +1,92 @@
+package core;
+
+import debug.Debugger;
+import io.ModuleLoader;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class RuleIndexTest {
+
+    private static RuleSet standard() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.setStrictness("take", new boolean[]{true, false});
+        ruleSet.addImports("physics", java.util.List.of("unit", "math"));
+        return ruleSet;
+    }
+
+    private static RuleIndex written(RuleSet ruleSet) throws Exception {
+        Path file = Files.createTempFile("modal", ".index");
+        RuleIndex.write(ruleSet, file);
+        return RuleIndex.open(file);
+    }
+
+    @Test
+    public void testSameContentAsSource() throws Exception {
+        RuleSet ruleSet = standard();
+        RuleIndex index = written(ruleSet);
+        assertEquals(ruleSet.getAllRules().size(), index.ruleCount());
+        assertEquals(ruleSet.contentHash(), index.load().contentHash());
+
+        RuleSet lazy = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        assertEquals(lazy.contentHash(), written(lazy).load().contentHash());
+    }
+
+    @Test
+    public void testRulesAreReadFromTheMapping() throws Exception {
+        RuleSet loaded = written(standard()).load();
+        assertEquals(0, loaded.size());
+        assertTrue(loaded.getDeferredNamespaces().contains("math"));
+
+        Rule rule = loaded.getRulesForFunction("length").get(0);
+        assertTrue(RuleIndex.isView(((Term.List) rule.pattern()).elements()));
+        assertFalse(loaded.getDeferredNamespaces().contains("list"));
+        assertTrue(loaded.getDeferredNamespaces().contains("hof"));
+        // Gleiche Teilterme liegen nur einmal in der Datei
+        assertSame(((Term.List) rule.pattern()).head(), ((Term.List) rule.pattern()).head());
+    }
+
+    private static String evaluate(RuleSet ruleSet, Term term) {
+        try {
+            return new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET)).evaluate(term).toString();
+        } catch (RuntimeException e) {
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    @Test
+    public void testSameResults() throws Exception {
+        RuleSet source = standard();
+        RuleSet mapped = written(source).load();
+        for (String expression : new String[]{"(fib 15)", "(reverse (1 2 3))", "(length (a b c d))",
+                "(take 2 (range 0 5))", "(fact 6)", "(and true (not false))"}) {
+            Term term = TermParser.parse(expression);
+            assertEquals(evaluate(source, term), evaluate(mapped, term), expression);
+        }
+    }
+
+    @Test
+    public void testGroundPartsAreShared() throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromString("<t.f> (f ?x) (g ?x (1 (2 3)))\n");
+        Rule rule = written(ruleSet).load().getRulesForFunction("f").get(0);
+        Term.List replacement = (Term.List) rule.replacement();
+        assertFalse(replacement.isGround());
+        assertTrue(((Term.List) replacement.elements().get(2)).isGround());
+
+        Term.List first = (Term.List) rule.template().instantiate(java.util.Map.of("?x", Term.atom("a")));
+        Term.List second = (Term.List) rule.template().instantiate(java.util.Map.of("?x", Term.atom("b")));
+        assertEquals(TermParser.parse("(g a (1 (2 3)))"), first);
+        assertSame(first.elements().get(2), second.elements().get(2));
+        assertTrue(first.isPlain());
+    }
+
+    @Test
+    public void testNotAnIndex() throws Exception {
+        Path file = Files.createTempFile("modal", ".index");
+        Files.writeString(file, "<t.x> (x) 1\n");
+        assertThrows(java.io.IOException.class, () -> RuleIndex.open(file));
+    }
+}
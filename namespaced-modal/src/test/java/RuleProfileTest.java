@@ -0,0 +1,110 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class RuleProfileTest {
+
+    private static final String COLORS = """
+            <t.red> (color red) 1
+            <t.green> (color green) 2
+            <t.blue> (color blue) 3
+            <t.any> (color ?x) 0
+            """;
+
+    private static java.util.List<String> names(java.util.List<Rule> rules) {
+        return rules.stream().map(Rule::fullName).toList();
+    }
+
+    private static RuleRewriter rewriter(RuleSet ruleSet, RuleProfile profile) {
+        RuleRewriter rewriter = new RuleRewriter(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        rewriter.setProfile(profile);
+        return rewriter;
+    }
+
+    private static String rewrite(RuleRewriter rewriter, String term) {
+        return rewriter.tryRewrite(TermParser.parse(term)).map(Term::toString).orElse(null);
+    }
+
+    @Test
+    public void testDisjointPatterns() {
+        assertTrue(RuleProfile.disjoint(TermParser.parse("(f 1)"), TermParser.parse("(f 2)")));
+        assertTrue(RuleProfile.disjoint(TermParser.parse("(f ())"), TermParser.parse("(f (?h . ?t))")));
+        assertTrue(RuleProfile.disjoint(TermParser.parse("(f a ?x)"), TermParser.parse("(f ?y)")));
+        assertTrue(RuleProfile.disjoint(TermParser.parse("(f (g ?x))"), TermParser.parse("(f h)")));
+        assertFalse(RuleProfile.disjoint(TermParser.parse("(f ?x)"), TermParser.parse("(f 2)")));
+        assertFalse(RuleProfile.disjoint(TermParser.parse("(f (a . ?t))"), TermParser.parse("(f (a b c))")));
+        assertFalse(RuleProfile.disjoint(TermParser.parse("(f ?x ?x)"), TermParser.parse("(f 1 2)")));
+    }
+
+    @Test
+    public void testFrequentRuleMovesForward() {
+        RuleSet ruleSet = RuleParser.loadFromString(COLORS);
+        RuleProfile profile = new RuleProfile();
+        RuleRewriter rewriter = rewriter(ruleSet, profile);
+        for (int i = 0; i < RuleProfile.REORDER_INTERVAL; i++) {
+            assertEquals("3", rewrite(rewriter, "(color blue)"));
+        }
+        rewrite(rewriter, "(color red)");
+
+        // Die allgemeine Regel überlappt mit allen anderen und bleibt hinten
+        assertEquals(java.util.List.of("t.blue", "t.red", "t.green", "t.any"),
+                names(profile.ordering("color", ruleSet.getRulesForFunction("color")).rules()));
+        assertEquals("0", rewrite(rewriter, "(color purple)"));
+        assertEquals("1", rewrite(rewriter, "(color red)"));
+        assertEquals(1, profile.getLearnedOrders().size());
+    }
+
+    @Test
+    public void testOverlappingRulesKeepTheirOrder() {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                <t.general> (g ?x) 1
+                <t.special> (g 5) 2
+                """);
+        RuleProfile profile = new RuleProfile();
+        RuleRewriter rewriter = rewriter(ruleSet, profile);
+        for (int i = 0; i < 2 * RuleProfile.REORDER_INTERVAL; i++) {
+            assertEquals("1", rewrite(rewriter, "(g 5)"));
+        }
+        assertEquals(java.util.List.of("t.general", "t.special"),
+                names(profile.ordering("g", ruleSet.getRulesForFunction("g")).rules()));
+        assertTrue(profile.getLearnedOrders().isEmpty());
+    }
+
+    @Test
+    public void testSavedProfileIsReused() throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromString(COLORS);
+        RuleProfile profile = new RuleProfile();
+        RuleRewriter rewriter = rewriter(ruleSet, profile);
+        for (int i = 0; i < 10; i++) {
+            rewrite(rewriter, "(color green)");
+        }
+        Path file = Files.createTempDirectory("modal").resolve("rules.profile");
+        profile.save(file);
+
+        RuleProfile loaded = RuleProfile.load(file);
+        assertEquals(10, loaded.getHits(ruleSet.getRulesByName("t.green").get(0)));
+        assertEquals(java.util.List.of("t.green", "t.red", "t.blue", "t.any"),
+                names(loaded.ordering("color", ruleSet.getRulesForFunction("color")).rules()));
+
+        Files.writeString(file, "t.green many\n");
+        assertThrows(java.io.IOException.class, () -> RuleProfile.load(file));
+    }
+
+    @Test
+    public void testEvaluatorResultsUnchanged() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        TermEvaluator plain = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        TermEvaluator profiled = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        profiled.setRuleProfile(new RuleProfile());
+        for (String expression : new String[]{"(fib 12)", "(length (1 2 3 4))", "(reverse (1 2 3))", "(fact 7)"}) {
+            Term term = TermParser.parse(expression);
+            assertEquals(plain.evaluate(term), profiled.evaluate(term));
+        }
+    }
+}
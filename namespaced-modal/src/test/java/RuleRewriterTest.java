@@ -95,4 +95,15 @@ public class RuleRewriterTest {
         Optional<Term> result = rewriter.tryRewrite(emptyList);
         assertFalse(result.isPresent());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFailedMatchLeavesNoBindings() {
+        // Die erste Regel bindet ?x und scheitert erst danach, die zweite darf das nicht sehen
+        ruleSet.addRule(new Rule("test", "same", TermParser.parse("(f ?x ?x)"), TermParser.parse("same")));
+        ruleSet.addRule(new Rule("test", "diff", TermParser.parse("(f ?y ?x)"), TermParser.parse("(diff ?x)")));
+
+        assertEquals("(diff 2)", rewriter.tryRewrite(TermParser.parse("(f 1 2)")).get().toString());
+        assertEquals("same", rewriter.tryRewrite(TermParser.parse("(f 3 3)")).get().toString());
+        assertEquals("(diff 5)", rewriter.tryRewrite(TermParser.parse("(f 4 5)")).get().toString());
+    }
+}
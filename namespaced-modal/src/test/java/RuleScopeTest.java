@@ -0,0 +1,109 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleScopeTest {
+
+    @Test
+    public void testImportsAreTransitive() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        assertEquals(java.util.Set.of("physics", "unit", "math"), ruleSet.visibleNamespaces(java.util.List.of("physics")));
+
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setScope(ruleSet.scope("physics"));
+        Term term = TermParser.parse("(brake-distance.si (kmh 50) 0.7)");
+        assertEquals(new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET)).evaluate(term), evaluator.evaluate(term));
+
+        // list ist nicht importiert
+        assertEquals("(length (a b))", evaluator.evaluate(TermParser.parse("(length (a b))")).toString());
+    }
+
+    @Test
+    public void testTenantsDoNotSeeEachOther() {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                <base.double> (double ?x) (* ?x 2)
+                <tenantA.price> (price ?x) (double ?x)
+                <tenantB.price> (price ?x) (* ?x 3)
+                @import tenantA base
+                @import tenantB base
+                """);
+
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setScope(ruleSet.scope("tenantB"));
+        assertEquals("30", evaluator.evaluate(TermParser.parse("(price 10)")).toString());
+        evaluator.setScope(ruleSet.scope("tenantA"));
+        assertEquals("20", evaluator.evaluate(TermParser.parse("(price 10)")).toString());
+
+        RuleScope scope = ruleSet.scope("tenantB");
+        assertEquals(1, scope.getRulesForFunction("price").size());
+        assertFalse(scope.seesAllRulesOf("price"));
+        assertTrue(scope.seesAllRulesOf("double"));
+    }
+
+    @Test
+    public void testScopeFollowsRuleChanges() {
+        RuleSet ruleSet = RuleParser.loadFromString("<a.f> (f) one\n");
+        RuleScope scope = ruleSet.scope("a");
+        assertEquals(1, scope.getRulesForFunction("f").size());
+
+        ruleSet.addRule(new Rule("a", "g", TermParser.parse("(g)"), TermParser.parse("two")));
+        ruleSet.addRule(new Rule("b", "g", TermParser.parse("(g)"), TermParser.parse("three")));
+        assertEquals(1, scope.getRulesForFunction("g").size());
+        assertEquals(java.util.List.of("a", "b"), java.util.List.copyOf(ruleSet.getNamespaces()));
+
+        ruleSet.removeRule("b.g");
+        assertEquals(java.util.List.of("a"), java.util.List.copyOf(ruleSet.getNamespaces()));
+        assertTrue(ruleSet.getRulesForNamespace("b").isEmpty());
+        assertEquals(2, ruleSet.getRulesForNamespace("a").size());
+    }
+
+    @Test
+    public void testIntrinsicOnlyWhenAllItsRulesAreVisible() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setVerifyIntrinsics(true);
+        evaluator.setScope(ruleSet.scope("list", "math"));
+        assertEquals("3", evaluator.evaluate(TermParser.parse("(length (a b c))")).toString());
+        assertEquals("6", evaluator.evaluate(TermParser.parse("(sum (1 2 3))")).toString());
+    }
+
+    @Test
+    public void testOnlyChangedSymbolsAreResolvedAgain() {
+        RuleSet ruleSet = RuleParser.loadFromString("<a.f> (f) one\n<a.g> (g) two\n");
+        RuleScope scope = ruleSet.scope("a");
+        java.util.List<Rule> f = scope.getRulesForFunction("f");
+        java.util.List<Rule> g = scope.getRulesForFunction("g");
+
+        ruleSet.addRule(new Rule("a", "g2", TermParser.parse("(g)"), TermParser.parse("three")));
+        assertSame(f, scope.getRulesForFunction("f"));
+        assertEquals(2, scope.getRulesForFunction("g").size());
+        assertNotSame(g, scope.getRulesForFunction("g"));
+
+        // Ein neuer Import ändert die Sichtbarkeit aller Symbole
+        ruleSet.addRule(new Rule("b", "f", TermParser.parse("(f)"), TermParser.parse("four")));
+        assertFalse(scope.seesAllRulesOf("f"));
+        ruleSet.addImports("a", java.util.List.of("b"));
+        assertTrue(scope.seesAllRulesOf("f"));
+        assertEquals(2, scope.getRulesForFunction("f").size());
+    }
+
+    @Test
+    public void testInlinedRulesOutsideTheScopeAreNotRun() {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                <lib.twice> (twice ?x) (* ?x 2)
+                <app.price> (price ?x) (twice ?x)
+                """);
+        RuleSetOptimizer.optimize(ruleSet);
+        assertEquals("(* ?x 2)", ruleSet.getRulesForFunction("price").get(0).replacement().toString());
+
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setScope(ruleSet.scope("app"));
+        assertEquals("(twice 10)", evaluator.evaluate(TermParser.parse("(price 10)")).toString());
+        evaluator.setScope(ruleSet.scope("app", "lib"));
+        assertEquals("20", evaluator.evaluate(TermParser.parse("(price 10)")).toString());
+    }
+}
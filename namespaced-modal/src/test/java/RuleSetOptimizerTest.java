@@ -0,0 +1,92 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleSetOptimizerTest {
+
+    private static final String[] WORKLOADS = {
+            "(fact 6)", "(fib 10)", "(append (a b) (c d))", "(reverse (a b c))", "(range 0 4)",
+            "(take 2 (a b c))", "(map f (a b))", "(brake-distance.si (kmh 50) 0.7)", "(square 7)", "(max 3 7)"
+    };
+
+    private TermEvaluator rulesOnly(RuleSet ruleSet) {
+        return new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+    }
+
+    @Test
+    public void testOptimizedRulesGiveSameResults() {
+        RuleSet original = RuleParser.loadFromResource("rules/standard.modal");
+        RuleSet optimized = RuleParser.loadFromResource("rules/standard.modal");
+        RuleSetOptimizer.Report report = RuleSetOptimizer.optimize(optimized);
+        assertTrue(report.optimizedRules() > 0);
+
+        for (String workload : WORKLOADS) {
+            Term term = TermParser.parse(workload);
+            assertEquals(rulesOnly(original).evaluate(term), rulesOnly(optimized).evaluate(term), workload);
+        }
+    }
+
+    @Test
+    public void testConstantFoldingAndInlining() {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                <t.ms> (seconds ?x) (* ?x (* 60 1000))
+                <t.const> (g) 9.81
+                <t.weight> (weight ?m) (* ?m (g))
+                <t.check> (check) (if (= a a) yes no)
+                <t.div> (broken) (/ 1 0)
+                """);
+        RuleSetOptimizer.optimize(ruleSet);
+
+        assertEquals("(* ?x 60000)", ruleSet.getRulesForFunction("seconds").get(0).replacement().toString());
+        assertEquals("(* ?m 9.81)", ruleSet.getRulesForFunction("weight").get(0).replacement().toString());
+        assertEquals("yes", ruleSet.getRulesForFunction("check").get(0).replacement().toString());
+        // Fehler bleiben Laufzeitfehler
+        assertEquals("(/ 1 0)", ruleSet.getRulesForFunction("broken").get(0).replacement().toString());
+    }
+
+    @Test
+    public void testDeadRulesAreReported() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        var dead = RuleSetOptimizer.findDeadRules(ruleSet).stream().map(f -> f.rule().fullName()).toList();
+        assertTrue(dead.contains("math.+"));
+        assertTrue(dead.contains("cond.if.true"));
+        assertFalse(dead.contains("list.cons.build"));
+
+        RuleSet shadowed = RuleParser.loadFromString("""
+                <t.any> (f ?x) any
+                <t.one> (f one) one
+                """);
+        var findings = RuleSetOptimizer.findDeadRules(shadowed);
+        assertEquals(1, findings.size());
+        assertEquals("t.one: shadowed by t.any", findings.get(0).toString());
+    }
+
+    @Test
+    public void testChangingInlinedRuleRestoresOriginal() {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                <t.const> (g) 9.81
+                <t.weight> (weight ?m) (* ?m (g))
+                """);
+        RuleSetOptimizer.optimize(ruleSet);
+        Rule weight = ruleSet.getRulesForFunction("weight").get(0);
+        assertEquals("<t.weight> (weight ?m) (* ?m (g))", ruleSet.sourceOf(weight).toString());
+
+        ruleSet.removeRule("t.const");
+        ruleSet.addRule(new Rule("t", "const", TermParser.parse("(g)"), TermParser.parse("10")));
+        assertEquals("(* ?m (g))", ruleSet.getRulesForFunction("weight").get(0).replacement().toString());
+        assertEquals("20", rulesOnly(ruleSet).evaluate(TermParser.parse("(weight 2)")).toString());
+    }
+
+    @Test
+    public void testIntrinsicsStayActiveOnOptimizedRules() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        RuleSetOptimizer.optimize(ruleSet);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        assertTrue(evaluator.getIntrinsics().lookup("append", 2).isActiveFor(ruleSet));
+        assertTrue(evaluator.getIntrinsics().lookup("range", 2).isActiveFor(ruleSet));
+    }
+}
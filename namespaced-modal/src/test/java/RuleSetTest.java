@@ -0,0 +1,109 @@
+package core;
+
+import io.DynamicRuleParser;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuleSetTest {
+
+    private static Rule rule(String namespace, String name, String pattern, String replacement) {
+        return new Rule(namespace, name, TermParser.parse(pattern), TermParser.parse(replacement));
+    }
+
+    @Test
+    public void testRemoveKeepsOrderOfRemainingRules() {
+        RuleSet ruleSet = new RuleSet();
+        ruleSet.addRule(rule("t", "a", "(f 1)", "one"));
+        ruleSet.addRule(rule("t", "b", "(f 2)", "two"));
+        ruleSet.addRule(rule("t", "c", "(f ?x)", "many"));
+        ruleSet.addRule(rule("t", "b", "(f 3)", "three"));
+
+        assertEquals(2, ruleSet.removeRule("t.b"));
+        assertEquals(0, ruleSet.removeRule("t.b"));
+        assertEquals(java.util.List.of("t.a", "t.c"),
+                ruleSet.getRulesForFunction("f").stream().map(Rule::fullName).toList());
+        assertEquals(2, ruleSet.size());
+        assertTrue(ruleSet.getRulesByName("t.b").isEmpty());
+    }
+
+    @Test
+    public void testTransactionAppliesAllChanges() {
+        RuleSet ruleSet = RuleParser.loadFromString("<t.a> (f) a\n<t.b> (g) b\n");
+        long version = ruleSet.getVersion();
+
+        int changes = DynamicRuleParser.applyAll(ruleSet, java.util.List.of(
+                ">t.a<", "<t.a> (f) new", "<t.c> (h) c", ">t.c<"));
+
+        assertEquals(4, changes);
+        assertEquals(version + 1, ruleSet.getVersion());
+        assertEquals("new", ruleSet.getRulesForFunction("f").get(0).replacement().toString());
+        assertTrue(ruleSet.getRulesForFunction("h").isEmpty());
+    }
+
+    @Test
+    public void testFailedTransactionChangesNothing() {
+        RuleSet ruleSet = RuleParser.loadFromString("<t.a> (f) a\n");
+        long version = ruleSet.getVersion();
+
+        assertThrows(IllegalArgumentException.class, () -> DynamicRuleParser.applyAll(ruleSet,
+                java.util.List.of("<t.b> (g) b", ">t.missing<")));
+        assertThrows(IllegalArgumentException.class, () -> DynamicRuleParser.applyAll(ruleSet,
+                java.util.List.of(">t.a<", ">t.a<")));
+
+        assertEquals(version, ruleSet.getVersion());
+        assertEquals(1, ruleSet.size());
+        assertTrue(ruleSet.getRulesForFunction("g").isEmpty());
+    }
+
+    @Test
+    public void testFullNameIsCached() {
+        Rule rule = rule("math", "double", "(double ?x)", "(* ?x 2)");
+        assertSame(rule.fullName(), rule.fullName());
+        assertEquals(rule, rule("math", "double", "(double ?x)", "(* ?x 2)"));
+        assertNotEquals(rule, rule("math.double", "x", "(double ?x)", "(* ?x 2)"));
+    }
+
+    @Test
+    public void testViewsFollowChangesWithoutRebuilding() {
+        RuleSet ruleSet = new RuleSet();
+        ruleSet.addRule(rule("t", "a", "(f 1)", "one"));
+        java.util.List<Rule> before = ruleSet.getAllRules();
+        java.util.Map<String, java.util.List<Rule>> index = ruleSet.getFunctionIndex();
+
+        ruleSet.addRule(rule("t", "b", "(g)", "two"));
+        ruleSet.addRule(rule("t", "c", "(f 2)", "three"));
+        // Ältere Listen bleiben, wie sie waren
+        assertEquals(1, before.size());
+        assertEquals(java.util.List.of("t.a", "t.b", "t.c"), ruleSet.getAllRules().stream().map(Rule::fullName).toList());
+        assertSame(index, ruleSet.getFunctionIndex());
+        assertEquals(2, index.get("f").size());
+        assertEquals(java.util.Set.of("f", "g"), index.keySet());
+
+        ruleSet.removeRule("t.a");
+        assertEquals(java.util.List.of("t.b", "t.c"), ruleSet.getAllRules().stream().map(Rule::fullName).toList());
+        assertEquals(java.util.List.of("t.c"), index.get("f").stream().map(Rule::fullName).toList());
+    }
+
+    @Test
+    public void testNumberSymbolsAreCounted() {
+        RuleSet ruleSet = new RuleSet();
+        ruleSet.addRule(rule("t", "a", "(f 1)", "one"));
+        assertFalse(ruleSet.hasNumberSymbols());
+        ruleSet.addRule(rule("t", "n", "(1 ?x)", "?x"));
+        ruleSet.addRule(rule("t", "m", "(1 ?x ?y)", "?y"));
+        assertTrue(ruleSet.hasNumberSymbols());
+        ruleSet.removeRule("t.n");
+        assertTrue(ruleSet.hasNumberSymbols());
+        ruleSet.removeRule("t.m");
+        assertFalse(ruleSet.hasNumberSymbols());
+
+        ruleSet.addModule("m", java.util.List.of("2"), () -> RuleParser.loadFromString("<m.two> (2) two\n"));
+        assertTrue(ruleSet.hasNumberSymbols());
+        ruleSet.loadAllModules();
+        assertTrue(ruleSet.hasNumberSymbols());
+        ruleSet.removeRule("m.two");
+        assertFalse(ruleSet.hasNumberSymbols());
+    }
+}
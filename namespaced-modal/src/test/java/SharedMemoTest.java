@@ -0,0 +1,185 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class SharedMemoTest {
+    private RuleSet ruleSet;
+    private SharedMemo shared;
+
+    @BeforeEach
+    public void setUp() {
+        ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.loadAllModules();
+        shared = new SharedMemo(ruleSet, 1024);
+    }
+
+    private TermEvaluator evaluator(Debugger debugger) {
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, debugger, IntrinsicRegistry.empty());
+        evaluator.setSharedMemo(shared);
+        return evaluator;
+    }
+
+    @Test
+    public void testSecondEvaluatorReusesResults() {
+        assertEquals("610", evaluator(new Debugger(Debugger.Mode.QUIET)).evaluate(TermParser.parse("(fib 15)")).toString());
+
+        Debugger debugger = new Debugger(Debugger.Mode.QUIET);
+        assertEquals("610", evaluator(debugger).evaluate(TermParser.parse("(fib 15)")).toString());
+        assertEquals(0, debugger.getRewriteCount());
+        assertEquals(1, shared.getHits());
+    }
+
+    @Test
+    public void testThreadsAgree() throws Exception {
+        java.util.List<CompletableFuture<String>> results = new java.util.ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            int offset = i;
+            results.add(CompletableFuture.supplyAsync(() -> {
+                TermEvaluator evaluator = evaluator(new Debugger(Debugger.Mode.QUIET));
+                StringBuilder values = new StringBuilder();
+                for (int n = 0; n < 18; n++) {
+                    values.append(evaluator.evaluate(TermParser.parse("(fib " + (n + offset) % 18 + ")"))).append(' ');
+                }
+                return values.toString();
+            }));
+        }
+        TermEvaluator local = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+        for (int i = 0; i < 4; i++) {
+            StringBuilder expected = new StringBuilder();
+            for (int n = 0; n < 18; n++) {
+                expected.append(local.evaluate(TermParser.parse("(fib " + (n + i) % 18 + ")"))).append(' ');
+            }
+            assertEquals(expected.toString(), results.get(i).get(30, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testWaitsForTermInFlight() throws Exception {
+        Term fib = TermParser.parse("(fib 30)");
+        SharedMemo.Claim owned = shared.claim(EvaluationStrategy.OUTERMOST, fib);
+        assertTrue(owned.isOwner());
+
+        CompletableFuture<SharedMemo.Claim> waiter = CompletableFuture.supplyAsync(
+                () -> shared.claim(EvaluationStrategy.OUTERMOST, fib));
+        Thread.sleep(100);
+        assertFalse(waiter.isDone());
+
+        shared.complete(owned, Term.number(832040), Set.of("fib"));
+        SharedMemo.Claim claim = waiter.get(10, TimeUnit.SECONDS);
+        assertEquals(Term.number(832040), claim.hit().value());
+        assertEquals(1, shared.getWaits());
+    }
+
+    @Test
+    public void testNoWaitOnOwnWaiter() throws Exception {
+        Term x = TermParser.parse("(x)");
+        Term y = TermParser.parse("(y)");
+        SharedMemo.Claim ownX = shared.claim(EvaluationStrategy.OUTERMOST, x);
+
+        // Der andere Thread besitzt y und wartet auf x
+        CompletableFuture<SharedMemo.Claim> ownY = new CompletableFuture<>();
+        CompletableFuture<SharedMemo.Claim> other = CompletableFuture.supplyAsync(() -> {
+            ownY.complete(shared.claim(EvaluationStrategy.OUTERMOST, y));
+            return shared.claim(EvaluationStrategy.OUTERMOST, x);
+        });
+        assertTrue(ownY.get(10, TimeUnit.SECONDS).isOwner());
+        Thread.sleep(100);
+
+        SharedMemo.Claim claimY = shared.claim(EvaluationStrategy.OUTERMOST, y);
+        assertFalse(claimY.isOwner());
+        assertNull(claimY.hit());
+
+        shared.abandon(ownX);
+        assertNull(other.get(10, TimeUnit.SECONDS).hit());
+    }
+
+    @Test
+    public void testWaitIsBounded() throws Exception {
+        shared.setMaxWait(java.time.Duration.ofMillis(200));
+        Term fib = TermParser.parse("(fib 15)");
+        SharedMemo.Claim owned = shared.claim(EvaluationStrategy.OUTERMOST, fib);
+        assertTrue(owned.isOwner());
+
+        // Der Besitzer kommt nicht weiter, der Wartende rechnet selbst
+        CompletableFuture<Term> waiter = CompletableFuture.supplyAsync(
+                () -> evaluator(new Debugger(Debugger.Mode.QUIET)).evaluate(fib));
+        assertEquals("610", waiter.get(30, TimeUnit.SECONDS).toString());
+        assertEquals(1, shared.getWaitsGivenUp());
+        shared.abandon(owned);
+    }
+
+    @Test
+    public void testOwnerLoadingModuleReleasesWaiters() throws Exception {
+        RuleSet lazy = new RuleSet();
+        lazy.addModule("m", java.util.List.of("twice"), () -> RuleParser.loadFromString("<m.twice> (twice ?x) (* ?x 2)\n"));
+        SharedMemo memo = new SharedMemo(lazy, 64);
+        memo.setMaxWait(java.time.Duration.ofMinutes(1));
+        java.util.concurrent.CountDownLatch ownerInside = new java.util.concurrent.CountDownLatch(1);
+        IntrinsicRegistry intrinsics = IntrinsicRegistry.empty();
+        // Das Modul wird erst gebraucht, während der Besitzer den Term hält und der andere wartet
+        intrinsics.register("make", 1, (call, evaluator) -> {
+            if (ownerInside.getCount() > 0) {
+                ownerInside.countDown();
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return evaluator.evaluate(new Term.List(Term.atom("twice"), call.elements().get(1)));
+        });
+        java.util.function.Supplier<String> evaluation = () -> {
+            TermEvaluator evaluator = new TermEvaluator(lazy, new Debugger(Debugger.Mode.QUIET), intrinsics);
+            evaluator.setSharedMemo(memo);
+            return evaluator.evaluate(TermParser.parse("(make 21)")).toString();
+        };
+
+        CompletableFuture<String> owner = CompletableFuture.supplyAsync(evaluation);
+        assertTrue(ownerInside.await(30, TimeUnit.SECONDS));
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(evaluation);
+        assertEquals("42", owner.get(30, TimeUnit.SECONDS));
+        assertEquals("42", waiter.get(30, TimeUnit.SECONDS));
+        assertEquals(0, memo.getWaitsGivenUp());
+        assertTrue(lazy.getDeferredNamespaces().isEmpty());
+    }
+
+    @Test
+    public void testBoundedByEviction() {
+        SharedMemo small = new SharedMemo(ruleSet, 8);
+        for (int i = 0; i < 20; i++) {
+            SharedMemo.Claim claim = small.claim(EvaluationStrategy.OUTERMOST, TermParser.parse("(f " + i + ")"));
+            assertTrue(claim.isOwner());
+            small.complete(claim, Term.number(i), Set.of("f"));
+        }
+        assertEquals(8, small.capacity());
+        assertEquals(8, small.size());
+        assertEquals(12, small.getEvictions());
+    }
+
+    @Test
+    public void testChangedRuleIsNotShared() {
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g ?x)"), TermParser.parse("(* ?x 2)")));
+        assertEquals("6", evaluator(new Debugger(Debugger.Mode.QUIET)).evaluate(TermParser.parse("(g 3)")).toString());
+
+        ruleSet.removeRule("t.g");
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g ?x)"), TermParser.parse("(* ?x 3)")));
+        assertEquals("9", evaluator(new Debugger(Debugger.Mode.QUIET)).evaluate(TermParser.parse("(g 3)")).toString());
+    }
+
+    @Test
+    public void testStrategiesAreSeparate() {
+        evaluator(new Debugger(Debugger.Mode.QUIET)).evaluate(TermParser.parse("(fib 10)"));
+        TermEvaluator innermost = evaluator(new Debugger(Debugger.Mode.QUIET));
+        innermost.setStrategy(EvaluationStrategy.INNERMOST);
+        assertEquals("55", innermost.evaluate(TermParser.parse("(fib 10)")).toString());
+        assertEquals(0, shared.getHits());
+    }
+}
@@ -0,0 +1,83 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TablingTest {
+
+    private static TermEvaluator evaluator(RuleSet ruleSet, Debugger debugger) {
+        return new TermEvaluator(ruleSet, debugger, IntrinsicRegistry.empty());
+    }
+
+    private static String eval(TermEvaluator evaluator, String expression) {
+        return evaluator.evaluate(TermParser.parse(expression)).toString();
+    }
+
+    @Test
+    public void testDirectiveIsParsed() {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                @table f 100
+                @table g 5 fifo
+                <t.f> (f ?x) ?x
+                """);
+        assertEquals(new Tabling(100, Tabling.Eviction.LRU), ruleSet.getTabling("f"));
+        assertEquals(new Tabling(5, Tabling.Eviction.FIFO), ruleSet.getTabling("g"));
+        assertNull(ruleSet.getTabling("h"));
+        assertThrows(RuntimeException.class, () -> RuleParser.loadFromString("@table f 0"));
+        assertThrows(RuntimeException.class, () -> RuleParser.loadFromString("@table f 10 random"));
+    }
+
+    @Test
+    public void testTabledFibIsLinear() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.loadAllModules();
+        // Die Standardregeln tabellieren nichts von sich aus
+        assertNull(ruleSet.getTabling("fib"));
+        ruleSet.setTabling("fib", new Tabling(10_000, Tabling.Eviction.LRU));
+        Debugger debugger = new Debugger(Debugger.Mode.QUIET);
+        TermEvaluator evaluator = evaluator(ruleSet, debugger);
+
+        assertEquals("75025", eval(evaluator, "(fib 25)"));
+        // Ein math.fib.n pro n, dazu die beiden Base Cases
+        assertEquals(26, evaluator.getTableSize("fib"));
+        assertTrue(debugger.getRewriteCount() < 30);
+
+        long rewrites = debugger.getRewriteCount();
+        assertEquals("75025", eval(evaluator, "(fib (+ 20 5))"));
+        assertEquals(rewrites, debugger.getRewriteCount());
+    }
+
+    @Test
+    public void testTableSizeIsBounded() {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                @table sq 2 fifo
+                <t.sq> (sq ?x) (: * ?x ?x)
+                """);
+        TermEvaluator evaluator = evaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        for (String argument : new String[]{"1", "2", "3", "4"}) {
+            assertEquals(String.valueOf(Integer.parseInt(argument) * Integer.parseInt(argument)),
+                    eval(evaluator, "(sq " + argument + ")"));
+        }
+        assertEquals(2, evaluator.getTableSize("sq"));
+        assertEquals(2, evaluator.getTableEvictions("sq"));
+    }
+
+    @Test
+    public void testRuleChangeDropsTabledResults() {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                @table f 10
+                <t.f> (f ?x) (g ?x)
+                <t.g> (g ?x) (: + ?x 1)
+                """);
+        TermEvaluator evaluator = evaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        assertEquals("2", eval(evaluator, "(f 1)"));
+        assertEquals(1, evaluator.getTableSize("f"));
+
+        ruleSet.removeRule("t.g");
+        ruleSet.addRule(new Rule("t", "g", TermParser.parse("(g ?x)"), TermParser.parse("(: + ?x 2)")));
+        assertEquals("3", eval(evaluator, "(f 1)"));
+    }
+}
@@ -0,0 +1,57 @@
+package core;
+
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Map;
+
+public class TemplateTest {
+
+    private static final Map<String, Term> BINDINGS = Map.of(
+            "?mu", TermParser.parse("(kg 3)"),
+            "?x", Term.atom("7"));
+
+    @Test
+    public void testSameResultAsSubstitute() {
+        String[] replacements = {
+                "(* 2 ?mu)", "?x", "42", "(if (<= ?x 1) ?x (+ (fib (- ?x 1)) (fib (- ?x 2))))",
+                "(a (b c) (d ?unbound))", "()", "(pair (1 2) ?x)"
+        };
+        for (String replacement : replacements) {
+            Term term = TermParser.parse(replacement);
+            assertEquals(RuleMatcher.substitute(term, BINDINGS), Template.compile(term).instantiate(BINDINGS), replacement);
+        }
+
+        Term cons = Term.cons(Term.atom("?x"), Term.cons(Term.atom("b"), Term.nil()));
+        assertEquals(RuleMatcher.substitute(cons, BINDINGS), Template.compile(cons).instantiate(BINDINGS));
+        Term dotted = Term.cons(Term.atom("?x"), Term.atom("end"));
+        assertEquals(RuleMatcher.substitute(dotted, BINDINGS), Template.compile(dotted).instantiate(BINDINGS));
+    }
+
+    @Test
+    public void testGroundSubtreesAreShared() {
+        Template template = Template.compile(TermParser.parse("(f (g 1 2) ?x (h (i)))"));
+        Term.List first = (Term.List) template.instantiate(BINDINGS);
+        Term.List second = (Term.List) template.instantiate(Map.of("?x", Term.atom("8")));
+
+        assertNotSame(first, second);
+        assertSame(first.elements().get(1), second.elements().get(1));
+        assertSame(first.elements().get(3), second.elements().get(3));
+        assertEquals("(f (g 1 2) 8 (h (i)))", second.toString());
+
+        Template ground = Template.compile(TermParser.parse("(* 60 1000)"));
+        assertSame(ground.instantiate(BINDINGS), ground.instantiate(Map.of()));
+    }
+
+    @Test
+    public void testVariableOccurrencesShareBinding() {
+        Term.List result = (Term.List) Template.compile(TermParser.parse("(* ?mu ?mu)")).instantiate(BINDINGS);
+        assertSame(result.elements().get(1), result.elements().get(2));
+    }
+
+    @Test
+    public void testRuleCompilesOnce() {
+        Rule rule = new Rule("t", "double", TermParser.parse("(double ?x)"), TermParser.parse("(* 2 ?x)"));
+        assertSame(rule.template(), rule.template());
+    }
+}
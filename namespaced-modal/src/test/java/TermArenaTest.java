@@ -0,0 +1,150 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Map;
+import java.util.Optional;
+
+public class TermArenaTest {
+
+    @Test
+    public void testStoredTermEqualsHeapTerm() {
+        try (TermArena arena = new TermArena()) {
+            Term heap = TermParser.parse("(force-u (kg 12) (mps2 -3) () (a (b 0.5) 007))");
+            Term stored = arena.term(arena.store(heap));
+
+            assertEquals(heap, stored);
+            assertEquals(stored, heap);
+            assertEquals(heap.hashCode(), stored.hashCode());
+            assertEquals(heap.toString(), stored.toString());
+        }
+    }
+
+    @Test
+    public void testSymbolsAreInterned() {
+        try (TermArena arena = new TermArena()) {
+            int first = arena.atom("x");
+            assertEquals(first, arena.atom("x"));
+            arena.store(TermParser.parse("(x x x y 1 2)"));
+            assertEquals(2, arena.symbolCount());
+        }
+    }
+
+    @Test
+    public void testMatcherBindsViews() {
+        try (TermArena arena = new TermArena()) {
+            Term stored = arena.term(arena.store(TermParser.parse("(1 2 3 4)")));
+            Optional<Map<String, Term>> match = RuleMatcher.match(TermParser.parse("(?head . ?tail)"), stored);
+
+            assertTrue(match.isPresent());
+            assertEquals("1", match.get().get("?head").toString());
+            assertEquals("(2 3 4)", match.get().get("?tail").toString());
+        }
+    }
+
+    @Test
+    public void testMatchingStoredTermsBindsLikeHeapTerms() {
+        String term = "(f (kg 12) -3 0 (a b) (a b) 007 (1 2 3))";
+        String[] patterns = {
+                "(f ?x . ?rest)", "(f (kg 12) -3 0 ?y ?y 007 (1 . ?t))", "(f (kg ?n) -3 . ?rest)",
+                "(f ?x ?x . ?rest)", "(f ?a ?b ?c ?d ?e ?f ?g)", "(f (kg 12) 3 . ?rest)",
+                "(f (kg 12) -3 0 (a b) (a c) 007 ?l)", "(f ?x ?n ?z ?y ?y 7 ?l)", "(f . (?x . ?y))", "(f ?x)"
+        };
+        try (TermArena arena = new TermArena()) {
+            Term heap = TermParser.parse(term);
+            Term stored = arena.term(arena.store(heap));
+            for (String pattern : patterns) {
+                assertEquals(RuleMatcher.match(TermParser.parse(pattern), heap),
+                        RuleMatcher.match(TermParser.parse(pattern), stored), pattern);
+            }
+        }
+    }
+
+    @Test
+    public void testStoredNumbersMatchOnlyTheirCanonicalSpelling() {
+        try (TermArena arena = new TermArena()) {
+            int list = arena.store(TermParser.parse("(0 -12 12 " + Long.MIN_VALUE + ")"));
+            assertTrue(arena.isAtom(arena.element(list, 0), "0"));
+            assertTrue(arena.isAtom(arena.element(list, 1), "-12"));
+            assertFalse(arena.isAtom(arena.element(list, 1), "12"));
+            assertFalse(arena.isAtom(arena.element(list, 2), "-12"));
+            assertFalse(arena.isAtom(arena.element(list, 2), "012"));
+            assertTrue(arena.isAtom(arena.element(list, 3), Long.toString(Long.MIN_VALUE)));
+            assertFalse(arena.isAtom(list, "0"));
+        }
+    }
+
+    @Test
+    public void testEvaluatorOnStoredTerms() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        TermEvaluator rulesOnly = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty());
+
+        try (TermArena arena = new TermArena()) {
+            int[] numbers = new int[100_000];
+            for (int i = 0; i < numbers.length; i++) {
+                numbers[i] = arena.number(i % 7);
+            }
+            Term list = arena.term(arena.list(numbers));
+
+            assertEquals("299995", evaluator.evaluate(new Term.List(Term.atom("sum"), list)).toString());
+            assertEquals("100000", evaluator.evaluate(new Term.List(Term.atom("length"), list)).toString());
+
+            Term small = arena.term(arena.store(TermParser.parse("(3 1 2)")));
+            assertEquals(rulesOnly.evaluate(new Term.List(Term.atom("reverse"), small)),
+                    evaluator.evaluate(new Term.List(Term.atom("reverse"), small)));
+        }
+    }
+
+    @Test
+    public void testDeepChainDoesNotOverflow() {
+        Term chain = Term.nil();
+        for (int i = 0; i < 200_000; i++) {
+            chain = new Term.List(Term.atom("n"), Term.atom("."), chain);
+        }
+        try (TermArena arena = new TermArena()) {
+            Term stored = arena.term(arena.store(chain));
+            // n, . und () gibt es je einmal
+            assertEquals(200_000 + 3, arena.nodeCount());
+
+            Term current = stored;
+            int depth = 0;
+            while (current instanceof Term.List cell && !cell.isEmpty()) {
+                current = cell.elements().get(2);
+                depth++;
+            }
+            assertEquals(200_000, depth);
+        }
+    }
+
+    @Test
+    public void testViewsFailAfterClose() {
+        TermArena arena = new TermArena();
+        Term stored = arena.term(arena.store(TermParser.parse("(a b)")));
+        arena.close();
+        assertThrows(IllegalStateException.class, () -> ((Term.List) stored).elements().get(0));
+    }
+
+    @Test
+    public void testArenaBelongsToItsThread() throws Exception {
+        try (TermArena arena = new TermArena()) {
+            Term.List stored = (Term.List) arena.term(arena.store(TermParser.parse("(x x 1)")));
+            assertSame(stored.elements().get(0), stored.elements().get(1));
+
+            Throwable[] failure = new Throwable[1];
+            Thread other = new Thread(() -> {
+                try {
+                    stored.elements().get(2);
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            other.start();
+            other.join();
+            assertInstanceOf(WrongThreadException.class, failure[0]);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package core;
+
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TermMetadataTest {
+
+    @Test
+    public void testMetadata() {
+        Term.List term = (Term.List) TermParser.parse("(a (b ?x) (c (d)) 1)");
+        assertEquals(10, term.nodeCount());
+        assertEquals(3, term.depth());
+        assertFalse(term.isGround());
+        assertTrue(term.isPlain());
+
+        Term.List ground = (Term.List) TermParser.parse("(a (b c))");
+        assertTrue(ground.isGround());
+        assertEquals(1, ((Term.List) Term.nil()).nodeCount());
+
+        Term.List withCons = new Term.List(Term.atom("f"), Term.cons(Term.atom("x"), Term.nil()));
+        assertFalse(withCons.isPlain());
+        assertTrue(withCons.isGround());
+
+        Term.List lazy = new Term.List(Term.atom("f"), LazySeq.range(0, Long.MAX_VALUE));
+        assertFalse(lazy.isPlain());
+        assertFalse(lazy.isGround());
+    }
+
+    @Test
+    public void testDeepTermDoesNotOverflow() {
+        Term nested = Term.nil();
+        for (int i = 0; i < 200_000; i++) {
+            nested = new Term.List(Term.atom("n"), nested);
+        }
+        Term.List list = (Term.List) nested;
+        assertEquals(200_000 * 2 + 1, list.nodeCount());
+        assertEquals(200_001, list.depth());
+        assertTrue(list.isGround());
+    }
+
+    @Test
+    public void testEqualityUnaffected() {
+        Term.List left = (Term.List) TermParser.parse("(a (b c))");
+        Term.List right = (Term.List) TermParser.parse("(a (b c))");
+        left.nodeCount();
+        assertEquals(left, right);
+        assertEquals(left.hashCode(), right.hashCode());
+        assertNotEquals(left, TermParser.parse("(a (b c d))"));
+    }
+
+    @Test
+    public void testHashCoversWholeList() {
+        java.util.List<Term> prefix = new java.util.ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            prefix.add(Term.number(i));
+        }
+        java.util.List<Term> longer = new java.util.ArrayList<>(prefix);
+        longer.set(999, Term.number(-1));
+        assertNotEquals(new Term.List(prefix).hashCode(), new Term.List(longer).hashCode());
+
+        // Abgeschnittene Restlisten hashen wie frisch gebaute
+        Term.List list = new Term.List(prefix);
+        Term.List tail = list.tail().tail();
+        assertEquals(new Term.List(new java.util.ArrayList<>(prefix.subList(2, 1000))).hashCode(), tail.hashCode());
+        assertEquals(new Term.List().hashCode(), new Term.List(Term.atom("x")).tail().hashCode());
+    }
+
+    @Test
+    public void testNormalFormIsNotRevisited() {
+        RuleSet ruleSet = RuleParser.loadFromString("<t.f> (f ?x) (g ?x)");
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET),
+                IntrinsicRegistry.empty());
+        Term.List stuck = (Term.List) TermParser.parse("(h (k 1) (k 2))");
+
+        assertSame(stuck, evaluator.evaluate(stuck));
+        assertNotNull(stuck.normalForm());
+        assertSame(stuck, evaluator.evaluate(stuck));
+
+        // Neue Regeln, neue Epoche: die Markierung gilt nicht mehr
+        ruleSet.addRule(new Rule("t", "k", TermParser.parse("(k ?x)"), TermParser.parse("?x")));
+        assertEquals("(h 1 2)", evaluator.evaluate(stuck).toString());
+    }
+
+    @Test
+    public void testGroundReplacementIsShared() {
+        Term ground = TermParser.parse("(a (b c))");
+        assertSame(ground, RuleMatcher.substitute(ground, java.util.Map.of()));
+        Term open = TermParser.parse("(a ?x)");
+        assertEquals("(a 1)", RuleMatcher.substitute(open, java.util.Map.of("?x", Term.number(1))).toString());
+    }
+}
@@ -0,0 +1,70 @@
+package core;
+
+import io.TermParser;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.StringWriter;
+
+public class TermPrinterTest {
+
+    @Test
+    public void testSameOutputAsBefore() {
+        assertEquals("(a (b c) () 1.5)", TermParser.parse("(a (b c) () 1.5)").toString());
+        Term proper = Term.cons(Term.atom("a"), Term.cons(Term.atom("b"), Term.nil()));
+        assertEquals("(a b)", proper.toString());
+        Term improper = Term.cons(Term.atom("a"), Term.cons(Term.atom("b"), Term.atom("c")));
+        assertEquals("(a . (b . c))", improper.toString());
+        assertEquals("(a . (b c))", Term.cons(Term.atom("a"), TermParser.parse("(b c)")).toString());
+    }
+
+    @Test
+    public void testDeepTermsDoNotOverflow() {
+        Term nested = Term.nil();
+        Term chain = Term.nil();
+        for (int i = 0; i < 200_000; i++) {
+            nested = new Term.List(Term.atom("n"), nested);
+            chain = Term.cons(Term.atom("x"), chain);
+        }
+        String printed = nested.toString();
+        assertEquals(200_000 * 4 + 2, printed.length());
+        assertTrue(printed.startsWith("(n (n "));
+        assertEquals(200_000 * 2 + 1, chain.toString().length());
+
+        Term dotted = Term.atom("end");
+        for (int i = 0; i < 200_000; i++) {
+            dotted = Term.cons(Term.atom("x"), dotted);
+        }
+        assertTrue(dotted.toString().endsWith("(x . end" + ")".repeat(200_000)));
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        Term term = TermParser.parse("(a (b (c (d))) 1 2 3 4 5)");
+        assertEquals("(a (b (...)) 1 2 3 4 5)", TermPrinter.UNLIMITED.withMaxDepth(2).toString(term));
+        assertEquals("(a (b (c (d))) 1 ...)", TermPrinter.UNLIMITED.withMaxLength(3).toString(term));
+        assertEquals("(a (b (c...", TermPrinter.UNLIMITED.withMaxChars(8).toString(term));
+
+        StringWriter writer = new StringWriter();
+        assertFalse(TermPrinter.UNLIMITED.withMaxLength(3).print(term, writer));
+        assertTrue(TermPrinter.UNLIMITED.print(term, new StringWriter()));
+
+        Term chain = Term.cons(Term.atom("x"), Term.cons(Term.atom("y"), Term.cons(Term.atom("z"), Term.nil())));
+        assertEquals("(x y ...)", TermPrinter.UNLIMITED.withMaxLength(2).toString(chain));
+    }
+
+    @Test
+    public void testInfiniteLazySequenceWithLimit() {
+        Term naturals = LazySeq.range(0, Long.MAX_VALUE);
+        assertEquals("(0 . (1 . (2 . (...))))", TermPrinter.UNLIMITED.withMaxDepth(3).toString(naturals));
+    }
+
+    @Test
+    public void testMillionElementsWithLimit() {
+        java.util.List<Term> elements = new java.util.ArrayList<>();
+        for (int i = 0; i < 1_000_000; i++) {
+            elements.add(Term.number(i));
+        }
+        String printed = TermPrinter.UNLIMITED.withMaxLength(4).toString(new Term.List(elements));
+        assertEquals("(0 1 2 3 ...)", printed);
+    }
+}
@@ -52,6 +52,22 @@ public class TermTest {
         assertEquals("world", ((Term.Atom) list.elements().get(1)).value());
     }
 
+    @Test
+    public void testListCopiesItsElements() {
+        java.util.List<Term> elements = new java.util.ArrayList<>(java.util.List.of(new Term.Atom("a"), new Term.Atom("b")));
+        Term.List list = new Term.List(elements);
+        elements.set(0, new Term.Atom("c"));
+        elements.add(new Term.Atom("d"));
+        assertEquals("(a b)", list.toString());
+
+        // Unveränderliche Listen werden weder kopiert noch ausgewertet
+        PackedNumbers numbers = PackedNumbers.ofLongs(new long[]{1, 2, 3});
+        assertSame(numbers, new Term.List(numbers).elements());
+        Term.List lazy = (Term.List) LazySeq.range(0, Long.MAX_VALUE);
+        assertSame(lazy.elements(), new Term.List(lazy.elements()).elements());
+        assertFalse(((LazySeq) lazy.elements()).isRealized());
+    }
+
     @Test
     public void testListOperations() {
         Term.List list = new Term.List(
@@ -0,0 +1,108 @@
+package core;
+
+import debug.Debugger;
+import io.ModuleLoader;
+import io.RuleParser;
+import io.RuleSnapshot;
+import io.TermParser;
+import io.WorkerPool;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkerPoolTest {
+
+    private static RuleSet ruleSet() {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.addRule(new Rule("t", "twice", TermParser.parse("(twice ?x)"), TermParser.parse("(+ ?x ?x)")));
+        ruleSet.setStrictness("twice", new boolean[]{true});
+        ruleSet.setTabling("twice", new Tabling(100, Tabling.Eviction.FIFO));
+        return ruleSet;
+    }
+
+    private static java.util.List<Term> terms(int count) {
+        java.util.List<Term> terms = new java.util.ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            terms.add(TermParser.parse(switch (i % 4) {
+                case 0 -> "(fib " + (i % 15) + ")";
+                case 1 -> "(twice " + i + ")";
+                case 2 -> "(reverse (1 2 " + i + "))";
+                default -> "(/ " + i + " 0)";
+            }));
+        }
+        return terms;
+    }
+
+    private static String local(RuleSet ruleSet, EvaluationStrategy strategy, Term term) {
+        try {
+            TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+            evaluator.setStrategy(strategy);
+            return evaluator.evaluate(term).toString();
+        } catch (RuntimeException e) {
+            return "Error: " + e.getMessage();
+        }
+    }
+
+    @Test
+    public void testSnapshotHasSameContent() {
+        RuleSet ruleSet = ruleSet();
+        RuleSet loaded = RuleParser.loadFromString(RuleSnapshot.of(ruleSet));
+        assertEquals(ruleSet.contentHash(), loaded.contentHash());
+
+        RuleSet lazy = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        assertEquals(lazy.contentHash(), RuleParser.loadFromString(RuleSnapshot.of(lazy)).contentHash());
+    }
+
+    @Test
+    public void testResultsInOrder() throws Exception {
+        RuleSet ruleSet = ruleSet();
+        java.util.List<Term> terms = terms(100);
+        try (WorkerPool pool = new WorkerPool(ruleSet, EvaluationStrategy.OUTERMOST, 3, "256m")) {
+            java.util.List<WorkerPool.Result> results = pool.evaluate(terms);
+            assertEquals(terms.size(), results.size());
+            for (int i = 0; i < terms.size(); i++) {
+                assertEquals(local(ruleSet, EvaluationStrategy.OUTERMOST, terms.get(i)), results.get(i).toString(),
+                        terms.get(i).toString());
+            }
+            assertFalse(results.get(3).isOk());
+            assertEquals(0, pool.getRestarts());
+        }
+    }
+
+    @Test
+    public void testDeadWorkerIsRestarted() throws Exception {
+        RuleSet ruleSet = ruleSet();
+        try (WorkerPool pool = new WorkerPool(ruleSet, EvaluationStrategy.INNERMOST, 2, "256m")) {
+            assertEquals("55", pool.evaluate(java.util.List.of(TermParser.parse("(fib 10)"))).get(0).value());
+
+            for (ProcessHandle worker : pool.getWorkerProcesses()) {
+                worker.destroyForcibly();
+                worker.onExit().get();
+            }
+            java.util.List<Term> terms = terms(40);
+            java.util.List<WorkerPool.Result> results = pool.evaluate(terms);
+            for (int i = 0; i < terms.size(); i++) {
+                assertEquals(local(ruleSet, EvaluationStrategy.INNERMOST, terms.get(i)), results.get(i).toString());
+            }
+            assertEquals(2, pool.getRestarts());
+        }
+    }
+
+    @Test
+    public void testWorkerOverTimeIsKilled() throws Exception {
+        RuleSet ruleSet = ruleSet();
+        // 2^30 verschiedene Aufrufe, flach genug für den Stack und nichts für das Memo
+        ruleSet.addRule(new Rule("t", "spin", TermParser.parse("(spin ?n ?k)"), TermParser.parse(
+                "(if (= ?n 0) 0 (+ (spin (- ?n 1) (* 2 ?k)) (spin (- ?n 1) (+ (* 2 ?k) 1))))")));
+        try (WorkerPool pool = new WorkerPool(ruleSet, EvaluationStrategy.INNERMOST, 1, "256m")) {
+            pool.setTimeout(java.time.Duration.ofSeconds(3));
+            java.util.List<WorkerPool.Result> results = pool.evaluate(java.util.List.of(TermParser.parse("(fib 10)"),
+                    TermParser.parse("(spin 30 0)"), TermParser.parse("(twice 4)")));
+            assertEquals("55", results.get(0).value());
+            assertFalse(results.get(1).isOk());
+            assertTrue(results.get(1).error().contains("no answer within 3000 ms"), results.get(1).error());
+            assertEquals("8", results.get(2).value());
+            // Einmal im Block, einmal allein
+            assertEquals(2, pool.getRestarts());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Dauerlast aus vielen kleinen Auswertungen: allokierte Bytes pro Auswertung
+ * und Anzahl der GCs für eine feste Zahl von Auswertungen.
+ *
+ * ./gradlew bench -Pbenchmark=AllocationBenchmark
+ */
+public class AllocationBenchmark {
+
+    private static final int EVALUATIONS = 500;
+
+    public static void main(String[] args) {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        String[] workloads = {"(fib 6)", "(fact 6)", "(brake-distance.si (kmh 50) 0.7)", "(pow 2 10)"};
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        System.out.printf("%36s %14s %12s %10s%n", "workload", "bytes/eval", "us/eval", "gc count");
+        for (String workload : workloads) {
+            Term term = TermParser.parse(workload);
+            for (int i = 0; i < 100; i++) {
+                evaluate(ruleSet, term);
+            }
+
+            long thread = Thread.currentThread().threadId();
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long gcs = gcCount();
+            long start = System.nanoTime();
+            for (int i = 0; i < EVALUATIONS; i++) {
+                evaluate(ruleSet, term);
+            }
+            long micros = (System.nanoTime() - start) / 1_000;
+            System.out.printf("%36s %14d %12.1f %10d%n", workload,
+                    (threads.getThreadAllocatedBytes(thread) - bytes) / EVALUATIONS,
+                    (double) micros / EVALUATIONS, gcCount() - gcs);
+        }
+    }
+
+    /**
+     * Ein Evaluator pro Anfrage, sonst beantwortet sein Cache alles.
+     */
+    private static Term evaluate(RuleSet ruleSet, Term term) {
+        return new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), IntrinsicRegistry.empty()).evaluate(term);
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Kleine Hilfen für die Benchmarks: Aufwärmen, Median, Thread mit großem Stack.
+ */
+final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Median in Millisekunden nach einer Aufwärmrunde.
+     */
+    static double time(int runs, Runnable body) {
+        body.run();
+        double[] millis = new double[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            body.run();
+            millis[i] = (System.nanoTime() - start) / 1e6;
+        }
+        Arrays.sort(millis);
+        return millis[runs / 2];
+    }
+
+    /**
+     * Die Regel-Auswertung ist rekursiv, tiefe Terme brauchen einen großen Stack.
+     */
+    static <T> T runWithStack(Callable<T> body) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(body.call());
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        }, "benchmark", 1L << 30);
+        thread.start();
+        thread.join();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+}
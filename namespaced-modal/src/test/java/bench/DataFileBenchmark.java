@@ -0,0 +1,69 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Summen über eine Datei mit Zahlen: einmal als Liste geparst, einmal über
+ * (data-file ...) direkt aus der gemappten Datei gelesen. Die geparste Liste
+ * nur bis 1M Atome, darüber wird der Speicher knapp.
+ *
+ * ./gradlew bench -Pbenchmark=DataFileBenchmark
+ */
+public class DataFileBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.addRule(new Rule("bench", "apply.even", TermParser.parse("(apply ev? ?x)"), TermParser.parse("(even? ?x)")));
+
+        System.out.printf("%10s %-36s %10s %12s %14s%n", "atoms", "workload", "ms", "atoms/us", "result");
+        for (int count : new int[]{100_000, 1_000_000, 10_000_000}) {
+            Path file = Files.createTempFile("modal-bench", ".data");
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                for (int i = 0; i < count; i++) {
+                    writer.write(Integer.toString(i % 100));
+                    writer.write(i % 16 == 15 ? '\n' : ' ');
+                }
+            }
+            if (count <= 1_000_000) {
+                run(ruleSet, count, "parsed (sum ...)", () -> {
+                    Term list = TermParser.parse("(" + Files.readString(file) + ")");
+                    return evaluator(ruleSet).evaluate(new Term.List(Term.atom("sum"), list));
+                });
+            }
+            for (String workload : new String[]{"(sum (data-file FILE))", "(length (filter ev? (data-file FILE)))"}) {
+                Term term = TermParser.parse(workload.replace("FILE", file.toString()));
+                run(ruleSet, count, workload.replace(" FILE", ""), () -> evaluator(ruleSet).evaluate(term));
+            }
+            Files.delete(file);
+        }
+    }
+
+    private interface Workload {
+        Term run() throws Exception;
+    }
+
+    private static void run(RuleSet ruleSet, int count, String name, Workload workload) throws Exception {
+        Term[] result = new Term[1];
+        double millis = Benchmarks.time(3, () -> {
+            try {
+                result[0] = workload.run();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        System.out.printf("%10d %-36s %10.1f %12.1f %14s%n", count, name, millis, count / millis / 1000, result[0]);
+    }
+
+    private static TermEvaluator evaluator(RuleSet ruleSet) {
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        return evaluator;
+    }
+}
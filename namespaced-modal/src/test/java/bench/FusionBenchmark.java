@@ -0,0 +1,58 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Verbraucher einer Datei mit innermost, einmal über die Regeln, die die Zellen
+ * der Datei ablaufen, einmal fusioniert. Frischer Evaluator pro Lauf.
+ *
+ * ./gradlew bench -Pbenchmark=FusionBenchmark
+ */
+public class FusionBenchmark {
+
+    private static final String[] WORKLOADS = {
+            "(fold-left plus 0 (data-file FILE))",
+            "(length (data-file FILE))"
+    };
+
+    public static void main(String[] args) throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.addRule(new Rule("bench", "apply2.plus", TermParser.parse("(apply2 plus ?a ?b)"), TermParser.parse("(+ ?a ?b)")));
+
+        System.out.printf("%10s %-36s %12s %12s %12s%n", "atoms", "workload", "rules ms", "fused ms", "speedup");
+        for (int count : new int[]{2_000, 20_000}) {
+            Path file = Files.createTempFile("modal-bench", ".data");
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                for (int i = 0; i < count; i++) {
+                    writer.write(Integer.toString(i % 100));
+                    writer.write(' ');
+                }
+            }
+            for (String workload : WORKLOADS) {
+                Term term = TermParser.parse(workload.replace("FILE", file.toString()));
+                double rules = Benchmarks.runWithStack(() -> Benchmarks.time(5, () -> run(ruleSet, term, false)));
+                double fused = Benchmarks.runWithStack(() -> Benchmarks.time(5, () -> run(ruleSet, term, true)));
+                System.out.printf("%10d %-36s %12.2f %12.2f %11.1fx%n", count, workload.replace(" FILE", ""),
+                        rules, fused, rules / fused);
+            }
+            Files.delete(file);
+        }
+    }
+
+    private static void run(RuleSet ruleSet, Term term, boolean fusion) {
+        IntrinsicRegistry registry = IntrinsicRegistry.loadDefault();
+        // Ohne Fusion zählt die Regel von length, nicht DataSource
+        registry.unregister("length", 1);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET), registry);
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        evaluator.setListFusion(fusion);
+        evaluator.evaluate(term);
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+/**
+ * Start einer Sitzung, die nur zwei von vielen Namespaces benutzt:
+ * alles vorab parsen gegenüber Modulen, die erst beim ersten Zugriff geladen werden.
+ *
+ * ./gradlew bench -Pbenchmark=ModuleLoadBenchmark
+ */
+public class ModuleLoadBenchmark {
+
+    private static final int RULES_PER_MODULE = 50;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %14s %14s %14s %14s%n", "modules", "eager ms", "lazy ms", "eager rules", "lazy rules");
+        for (int modules : new int[]{10, 100, 500}) {
+            String[] sources = new String[modules];
+            for (int m = 0; m < modules; m++) {
+                sources[m] = moduleSource(m);
+            }
+            Term workload = TermParser.parse("(+ (ns0.f7 3) (ns1.f8 4))");
+
+            int[] sizes = new int[2];
+            double eager = Benchmarks.time(ROUNDS, () -> {
+                RuleSet ruleSet = RuleParser.loadFromString(String.join("\n", sources));
+                evaluate(ruleSet, workload);
+                sizes[0] = ruleSet.size();
+            });
+            double lazy = Benchmarks.time(ROUNDS, () -> {
+                RuleSet ruleSet = new RuleSet();
+                for (int m = 0; m < modules; m++) {
+                    String source = sources[m];
+                    java.util.List<String> symbols = new java.util.ArrayList<>();
+                    for (int r = 0; r < RULES_PER_MODULE; r++) {
+                        symbols.add("ns" + m + ".f" + r);
+                    }
+                    ruleSet.addModule("ns" + m, symbols, () -> RuleParser.loadFromString(source));
+                }
+                evaluate(ruleSet, workload);
+                sizes[1] = ruleSet.size();
+            });
+            System.out.printf("%10d %14.3f %14.3f %14d %14d%n", modules, eager, lazy, sizes[0], sizes[1]);
+        }
+    }
+
+    private static void evaluate(RuleSet ruleSet, Term workload) {
+        Term result = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET)).evaluate(workload);
+        if (!result.toString().equals("11")) {
+            throw new IllegalStateException("Unexpected result " + result);
+        }
+    }
+
+    private static String moduleSource(int m) {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < RULES_PER_MODULE; r++) {
+            sb.append("<ns").append(m).append(".r").append(r).append("> (ns").append(m).append(".f").append(r)
+                    .append(" ?x) (* ?x ").append(r % 3).append(")\n");
+        }
+        return sb.toString();
+    }
+}
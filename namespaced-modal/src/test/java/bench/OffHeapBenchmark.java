@@ -0,0 +1,100 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Große Liste von Paaren (key value) auf dem Heap gegenüber der TermArena:
+ * belegter Heap, solange der Term lebt, und GC-Zeit bei gleicher Last daneben.
+ *
+ * ./gradlew bench -Pbenchmark=OffHeapBenchmark
+ */
+public class OffHeapBenchmark {
+
+    private static final int PAIRS = 2_000_000;
+    private static final int CHURN_ROUNDS = 20;
+
+    public static void main(String[] args) {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+
+        System.out.printf("%10s %12s %12s %12s %10s %12s %10s%n",
+                "store", "churn ms", "heap MB", "native MB", "gc count", "gc ms", "length");
+
+        long baseline = usedHeap();
+        Term heap = heapPairs();
+        report("heap", baseline, 0, heap, evaluator);
+        heap = null;
+
+        baseline = usedHeap();
+        try (TermArena arena = new TermArena()) {
+            Term stored = arenaPairs(arena);
+            report("arena", baseline, arena.byteSize(), stored, evaluator);
+        }
+    }
+
+    private static Term heapPairs() {
+        java.util.List<Term> pairs = new java.util.ArrayList<>(PAIRS);
+        for (int i = 0; i < PAIRS; i++) {
+            pairs.add(new Term.List(new Term.Atom("k" + (i % 1000)), new Term.Atom(Integer.toString(i))));
+        }
+        return new Term.List(pairs);
+    }
+
+    private static Term arenaPairs(TermArena arena) {
+        int[] pairs = new int[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            pairs[i] = arena.list(arena.atom("k" + (i % 1000)), arena.number(i));
+        }
+        return arena.term(arena.list(pairs));
+    }
+
+    private static void report(String name, long baseline, long nativeBytes, Term term, TermEvaluator evaluator) {
+        long retained = usedHeap() - baseline;
+
+        long start = System.nanoTime();
+        long gcCount = gcCount();
+        long gcMillis = gcMillis();
+        Term length = null;
+        for (int round = 0; round < CHURN_ROUNDS; round++) {
+            // Kurzlebige Objekte erzeugen, der große Term bleibt dabei erreichbar
+            length = evaluator.evaluate(new Term.List(Term.atom("length"), term));
+            java.util.List<String> garbage = new java.util.ArrayList<>();
+            for (int i = 0; i < 500_000; i++) {
+                garbage.add("g" + i);
+            }
+        }
+        double churnMs = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%10s %12.1f %12.1f %12.1f %10d %12d %10s%n", name, churnMs,
+                retained / 1e6, nativeBytes / 1e6, gcCount() - gcCount, gcMillis() - gcMillis, length);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += gc.getCollectionCount();
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += gc.getCollectionTime();
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,49 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+/**
+ * Rewrite-Schritte und Laufzeit der standard.modal-Workloads vor und nach RuleSetOptimizer.
+ *
+ * ./gradlew bench -Pbenchmark=OptimizerBenchmark
+ */
+public class OptimizerBenchmark {
+
+    private static final String[] WORKLOADS = {
+            "(fact 12)",
+            "(fib 15)",
+            "(range 0 200)",
+            "(append (a b c d e f g h i j k l m n o p) (q))",
+            "(take 10 (a b c d e f g h i j k l m n o p))",
+            "(map f (a b c d e f g h i j k l m n o p))",
+            "(brake-distance.si (kmh 50) 0.7)",
+            "(brake-distance.school (kmh 100) 0.8)"
+    };
+
+    public static void main(String[] args) throws Exception {
+        RuleSet original = RuleParser.loadFromResource("rules/standard.modal");
+        RuleSet optimized = RuleParser.loadFromResource("rules/standard.modal");
+        System.out.println(RuleSetOptimizer.optimize(optimized));
+        System.out.println();
+
+        System.out.printf("%-48s %8s %8s %10s %10s%n", "workload", "steps", "opt", "ms", "opt ms");
+        for (String workload : WORKLOADS) {
+            Term term = TermParser.parse(workload);
+            long steps = Benchmarks.runWithStack(() -> steps(original, term));
+            long optimizedSteps = Benchmarks.runWithStack(() -> steps(optimized, term));
+            // Ohne Intrinsics, damit die Regeln selbst gemessen werden
+            double millis = Benchmarks.runWithStack(() -> Benchmarks.time(5, () -> steps(original, term)));
+            double optimizedMillis = Benchmarks.runWithStack(() -> Benchmarks.time(5, () -> steps(optimized, term)));
+            System.out.printf("%-48s %8d %8d %10.3f %10.3f%n", workload, steps, optimizedSteps, millis, optimizedMillis);
+        }
+    }
+
+    private static long steps(RuleSet ruleSet, Term term) {
+        Debugger counting = new Debugger(Debugger.Mode.QUIET);
+        new TermEvaluator(ruleSet, counting, IntrinsicRegistry.empty()).evaluate(term);
+        return counting.getRewriteCount();
+    }
+}
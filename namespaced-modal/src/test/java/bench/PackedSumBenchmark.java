@@ -0,0 +1,63 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * (sum list) über die Regeln, über das Intrinsic mit Atomen und über gepackte Listen.
+ *
+ * ./gradlew bench -Pbenchmark=PackedSumBenchmark
+ */
+public class PackedSumBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        Debugger quiet = new Debugger(Debugger.Mode.QUIET);
+
+        System.out.println("variant            elements      ms/op   ns/element");
+
+        // Regelbasiert: rekursiv, daher mit großem Stack
+        for (int n : new int[]{20_000, 100_000, 1_000_000}) {
+            Term call = call(boxed(n));
+            // Frischer Evaluator pro Lauf, sonst misst man nur den Cache von Evaluator
+            report("rules", n, Benchmarks.runWithStack(() -> Benchmarks.time(3,
+                    () -> new TermEvaluator(ruleSet, quiet, IntrinsicRegistry.empty()).evaluate(call))));
+        }
+
+        for (int n : new int[]{20_000, 1_000_000, 10_000_000}) {
+            Term boxedCall = call(boxed(n));
+            report("intrinsic/boxed", n, Benchmarks.time(5, () -> new TermEvaluator(ruleSet, quiet).evaluate(boxedCall)));
+
+            Term packedCall = call(PackedNumbers.ofLongs(longs(n)));
+            report("intrinsic/packed", n, Benchmarks.time(5, () -> new TermEvaluator(ruleSet, quiet).evaluate(packedCall)));
+        }
+    }
+
+    private static Term call(List<Term> elements) {
+        return new Term.List(Term.atom("sum"), new Term.List(elements));
+    }
+
+    private static List<Term> boxed(int n) {
+        List<Term> elements = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            elements.add(Term.number(i % 1000));
+        }
+        return elements;
+    }
+
+    private static long[] longs(int n) {
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i % 1000;
+        }
+        return values;
+    }
+
+    private static void report(String variant, int n, double millis) {
+        System.out.printf("%-18s %9d %10.3f %12.2f%n", variant, n, millis, millis * 1e6 / n);
+    }
+}
@@ -0,0 +1,55 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.ModuleLoader;
+import io.TermParser;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Batch-Lauf aus Einheiten- und Physikformeln, jeweils in einem frischen
+ * Evaluator wie nach einem Neustart: ohne Store, mit leerem Store (schreibt)
+ * und mit gefülltem Store (liest).
+ *
+ * ./gradlew bench -Pbenchmark=ResultStoreBenchmark
+ */
+public class ResultStoreBenchmark {
+
+    private static final String[] BATCH = {
+            "(* (fact 8) (brake-distance.si (kmh 50) 0.7))",
+            "(brake-distance.si (kmh 120) 0.4)",
+            "(pow 3 40)",
+            "(fib 40)",
+            "(sum (1 2 3 4 5 6 7 8 9 10 11 12 13 14 15 16))",
+    };
+
+    public static void main(String[] args) throws Exception {
+        Path file = Files.createTempDirectory("modal").resolve("results.store");
+
+        System.out.printf("%12s %12s %10s %12s%n", "run", "ms", "rewrites", "store KB");
+        run("no store", null);
+        run("cold store", file);
+        run("warm store", file);
+    }
+
+    private static void run(String name, Path file) throws Exception {
+        RuleSet ruleSet = ModuleLoader.loadLazily(ModuleLoader.STANDARD_MANIFEST);
+        Debugger debugger = new Debugger(Debugger.Mode.QUIET);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, debugger, IntrinsicRegistry.empty());
+        ResultStore store = file != null ? ResultStore.open(file) : null;
+        evaluator.setResultStore(store);
+
+        long start = System.nanoTime();
+        for (String expression : BATCH) {
+            evaluator.evaluate(TermParser.parse(expression));
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (store != null) {
+            store.close();
+        }
+        System.out.printf("%12s %12.1f %10d %12.1f%n", name, millis, debugger.getRewriteCount(),
+                file != null ? Files.size(file) / 1024.0 : 0.0);
+    }
+}
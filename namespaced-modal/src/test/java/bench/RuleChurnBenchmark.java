@@ -0,0 +1,58 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+/**
+ * Hinzufügen und Entfernen vieler Regeln, abwechselnd mit Auswertungen.
+ * Die Kosten pro Änderung sollen nicht mit der Gesamtzahl der Regeln wachsen.
+ *
+ * ./gradlew bench -Pbenchmark=RuleChurnBenchmark
+ */
+public class RuleChurnBenchmark {
+
+    private static final int CHANGES_PER_BATCH = 1_000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        System.out.printf("%12s %14s %14s %14s%n", "rules", "single us/op", "batch us/op", "eval ms");
+        for (int size : new int[]{1_000, 10_000, 100_000}) {
+            RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+            for (int i = 0; i < size; i++) {
+                ruleSet.addRule(tenantRule(i));
+            }
+            TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+            Term workload = TermParser.parse("(tenant.price.7 (fact 10))");
+
+            int[] next = {size};
+            double single = Benchmarks.time(ROUNDS, () -> {
+                for (int i = 0; i < CHANGES_PER_BATCH; i++) {
+                    ruleSet.addRule(tenantRule(next[0]));
+                    ruleSet.removeRule("tenant.r" + (next[0] - size));
+                    next[0]++;
+                }
+            }) * 1000 / (2 * CHANGES_PER_BATCH);
+
+            double batch = Benchmarks.time(ROUNDS, () -> {
+                RuleSet.Transaction transaction = ruleSet.transaction();
+                for (int i = 0; i < CHANGES_PER_BATCH; i++) {
+                    transaction.add(tenantRule(next[0]));
+                    transaction.remove("tenant.r" + (next[0] - size));
+                    next[0]++;
+                }
+                transaction.commit();
+            }) * 1000 / (2 * CHANGES_PER_BATCH);
+
+            double eval = Benchmarks.time(ROUNDS, () -> evaluator.evaluate(workload));
+            System.out.printf("%12d %14.3f %14.3f %14.3f%n", ruleSet.size(), single, batch, eval);
+        }
+    }
+
+    private static Rule tenantRule(int i) {
+        return new Rule("tenant", "r" + i,
+                TermParser.parse("(tenant.price." + (i % 100) + " " + i + ")"),
+                TermParser.parse("(* " + i + " 2)"));
+    }
+}
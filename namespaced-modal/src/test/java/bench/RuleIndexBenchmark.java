@@ -0,0 +1,103 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Mehrere JVMs mit derselben großen Regelmenge: geparst in den eigenen Heap
+ * gegen einen gemeinsam gemappten Regel-Index. Jeder Kindprozess lädt die
+ * Regeln, wendet aus jedem Namensraum eine Regel an und wartet dann; solange
+ * alle leben, werden Rss und Pss (Anteil an geteilten Seiten) gelesen.
+ *
+ * Die Ersparnis hat ihren Preis: Muster werden auf den Views des Index
+ * abgeglichen, und jeder Zugriff auf ein Element erzeugt eine neue View. Nur
+ * die variablenfreien Teile der Ersetzungen liegen einmal je Regel im Heap.
+ *
+ * ./gradlew bench -Pbenchmark=RuleIndexBenchmark
+ */
+public class RuleIndexBenchmark {
+    private static final int NAMESPACES = 200;
+    private static final int RULES = 500;
+    private static final int PROCESSES = 4;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && args[0].equals("child")) {
+            child(args[1], Path.of(args[2]));
+            return;
+        }
+        StringBuilder source = new StringBuilder();
+        for (int n = 0; n < NAMESPACES; n++) {
+            for (int r = 0; r < RULES; r++) {
+                source.append("<n").append(n).append(".r").append(r).append("> (f").append(n)
+                        .append(" k").append(r).append(" (?x ?y (w").append(r % 7).append(" ?z)))")
+                        .append(" (pair ?z (?y ?x) (v").append(r).append(" n").append(n).append("))\n");
+            }
+        }
+        Path text = Files.createTempFile("modal-bench", ".modal");
+        Path index = Files.createTempFile("modal-bench", ".index");
+        Files.writeString(text, source);
+        RuleIndex.write(RuleParser.loadFromFile(text), index);
+        System.out.printf("%d rules, source %.1f MB, index %.1f MB%n", NAMESPACES * RULES,
+                Files.size(text) / 1e6, Files.size(index) / 1e6);
+
+        System.out.printf("%8s %12s %12s %12s %12s%n", "mode", "start ms", "rss MB", "pss MB", "anon MB");
+        for (String mode : new String[]{"parse", "index"}) {
+            run(mode, mode.equals("parse") ? text : index);
+        }
+        Files.deleteIfExists(text);
+        Files.deleteIfExists(index);
+    }
+
+    private static void run(String mode, Path file) throws Exception {
+        Process[] processes = new Process[PROCESSES];
+        double startup = 0;
+        for (int i = 0; i < PROCESSES; i++) {
+            processes[i] = new ProcessBuilder(ProcessHandle.current().info().command().orElse("java"),
+                    "--enable-preview", "-cp", System.getProperty("java.class.path"),
+                    RuleIndexBenchmark.class.getName(), "child", mode, file.toString())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        }
+        for (Process process : processes) {
+            String line = new BufferedReader(new InputStreamReader(process.getInputStream())).readLine();
+            startup += Double.parseDouble(line);
+        }
+        // Alle leben noch: geteilte Seiten werden in Pss auf die Prozesse verteilt
+        double rss = 0, pss = 0, anon = 0;
+        for (Process process : processes) {
+            for (String line : Files.readAllLines(Path.of("/proc/" + process.pid() + "/smaps_rollup"))) {
+                String[] parts = line.split("\\s+");
+                switch (parts[0]) {
+                    case "Rss:" -> rss += Long.parseLong(parts[1]) / 1024.0;
+                    case "Pss:" -> pss += Long.parseLong(parts[1]) / 1024.0;
+                    case "Anonymous:" -> anon += Long.parseLong(parts[1]) / 1024.0;
+                    default -> { }
+                }
+            }
+        }
+        for (Process process : processes) {
+            process.getOutputStream().close();
+            process.waitFor();
+        }
+        System.out.printf("%8s %12.1f %12.1f %12.1f %12.1f%n", mode, startup / PROCESSES,
+                rss / PROCESSES, pss / PROCESSES, anon / PROCESSES);
+    }
+
+    private static void child(String mode, Path file) throws Exception {
+        long start = System.nanoTime();
+        RuleSet ruleSet = mode.equals("parse") ? RuleParser.loadFromFile(file) : RuleIndex.open(file).load();
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        for (int n = 0; n < NAMESPACES; n++) {
+            evaluator.evaluate(TermParser.parse("(f" + n + " k" + (RULES - 1) + " (a b (w" + (RULES - 1) % 7 + " c)))"));
+        }
+        System.gc();
+        System.out.println((System.nanoTime() - start) / 1e6);
+        System.out.flush();
+        System.in.read();
+    }
+}
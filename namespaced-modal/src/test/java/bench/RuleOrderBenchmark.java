@@ -0,0 +1,47 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.TermParser;
+
+/**
+ * Ein Symbol mit vielen disjunkten Regeln, von denen fast immer die letzte
+ * feuert: Regelreihenfolge wie deklariert gegen die aus dem Profil gelernte.
+ *
+ * ./gradlew bench -Pbenchmark=RuleOrderBenchmark
+ */
+public class RuleOrderBenchmark {
+    private static final int ROUNDS = 200_000;
+
+    public static void main(String[] args) {
+        System.out.printf("%8s %10s %12s %12s%n", "rules", "profile", "ns/rewrite", "checksum");
+        for (int count : new int[]{8, 32, 128}) {
+            RuleSet ruleSet = new RuleSet();
+            for (int i = 0; i < count; i++) {
+                ruleSet.addRule(new Rule("bench", "op." + i,
+                        TermParser.parse("(op k" + i + " ?x)"), TermParser.parse("(done ?x)")));
+            }
+            run(ruleSet, count, null);
+            run(ruleSet, count, new RuleProfile());
+        }
+    }
+
+    private static void run(RuleSet ruleSet, int count, RuleProfile profile) {
+        RuleRewriter rewriter = new RuleRewriter(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        rewriter.setProfile(profile);
+        Term hot = TermParser.parse("(op k" + (count - 1) + " 1)");
+        Term cold = TermParser.parse("(op k0 1)");
+
+        long checksum = 0;
+        // Aufwärmen, auch damit das Profil seine Reihenfolge lernt
+        for (int i = 0; i < 5 * ROUNDS; i++) {
+            checksum += rewriter.tryRewrite(i % 10 == 0 ? cold : hot).isPresent() ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum += rewriter.tryRewrite(i % 10 == 0 ? cold : hot).isPresent() ? 1 : 0;
+        }
+        double perRewrite = (System.nanoTime() - start) / (double) ROUNDS;
+        System.out.printf("%8d %10s %12.1f %12d%n", count, profile != null ? "on" : "off", perRewrite, checksum);
+    }
+}
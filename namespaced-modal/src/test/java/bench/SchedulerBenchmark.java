@@ -0,0 +1,109 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Gemischte Last auf zwei Threads: einige lange Schleifen, dazu alle paar
+ * Millisekunden eine kleine Anfrage. Ein fester Thread-Pool rechnet jeden Job
+ * am Stück, der {@link EvaluationScheduler} in Zeitscheiben. Gemessen wird die
+ * Latenz der kleinen Anfragen (p50, p99, max) und wann die langen fertig sind.
+ *
+ * ./gradlew bench -Pbenchmark=SchedulerBenchmark
+ */
+public class SchedulerBenchmark {
+    private static final int THREADS = 2;
+    private static final int LONG_JOBS = 4;
+    private static final int LONG_STEPS = 20_000;
+    private static final int SHORT_JOBS = 200;
+    private static final long ARRIVAL_MILLIS = 5;
+
+    interface Pool extends AutoCloseable {
+        CompletableFuture<Term> submit(TermEvaluator evaluator, Term term);
+
+        @Override
+        void close();
+    }
+
+    public static void main(String[] args) throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        ruleSet.loadAllModules();
+        ruleSet.addRule(new Rule("bench", "loop.done", TermParser.parse("(loop 0 ?acc)"), TermParser.parse("?acc")));
+        ruleSet.addRule(new Rule("bench", "loop", TermParser.parse("(loop ?n ?acc)"),
+                TermParser.parse("(loop (- ?n 1) (+ ?acc 1))")));
+
+        System.out.printf("%14s %10s %10s %10s %12s%n", "pool", "p50 ms", "p99 ms", "max ms", "long done s");
+        run("fixed", ruleSet, SchedulerBenchmark::fixedPool);
+        for (int slice : new int[]{100, 1_000, 10_000}) {
+            run("slice " + slice, ruleSet, () -> {
+                EvaluationScheduler scheduler = new EvaluationScheduler(THREADS, slice);
+                return new Pool() {
+                    @Override
+                    public CompletableFuture<Term> submit(TermEvaluator evaluator, Term term) {
+                        return scheduler.submit(evaluator, term);
+                    }
+
+                    @Override
+                    public void close() {
+                        scheduler.close();
+                    }
+                };
+            });
+        }
+    }
+
+    private static Pool fixedPool() {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS,
+                body -> new Thread(null, body, "bench-fixed", 1L << 28));
+        return new Pool() {
+            @Override
+            public CompletableFuture<Term> submit(TermEvaluator evaluator, Term term) {
+                return CompletableFuture.supplyAsync(() -> evaluator.evaluate(term), executor);
+            }
+
+            @Override
+            public void close() {
+                executor.shutdownNow();
+            }
+        };
+    }
+
+    private static void run(String name, RuleSet ruleSet, java.util.function.Supplier<Pool> pools) throws Exception {
+        try (Pool pool = pools.get()) {
+            long start = System.nanoTime();
+            CompletableFuture<?>[] longJobs = new CompletableFuture<?>[LONG_JOBS];
+            for (int i = 0; i < LONG_JOBS; i++) {
+                longJobs[i] = pool.submit(evaluator(ruleSet), TermParser.parse("(loop " + LONG_STEPS + " " + i + ")"));
+            }
+            double[] latencies = new double[SHORT_JOBS];
+            CompletableFuture<?>[] shortJobs = new CompletableFuture<?>[SHORT_JOBS];
+            for (int i = 0; i < SHORT_JOBS; i++) {
+                Thread.sleep(ARRIVAL_MILLIS);
+                int index = i;
+                long submitted = System.nanoTime();
+                shortJobs[i] = pool.submit(evaluator(ruleSet), TermParser.parse("(fib " + (8 + i % 5) + ")"))
+                        .thenRun(() -> latencies[index] = (System.nanoTime() - submitted) / 1e6);
+            }
+            CompletableFuture.allOf(shortJobs).join();
+            CompletableFuture.allOf(longJobs).join();
+            double longDone = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            System.out.printf("%14s %10.1f %10.1f %10.1f %12.2f%n", name, latencies[SHORT_JOBS / 2],
+                    latencies[SHORT_JOBS * 99 / 100], latencies[SHORT_JOBS - 1], longDone);
+        }
+    }
+
+    private static TermEvaluator evaluator(RuleSet ruleSet) {
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+        evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+        return evaluator;
+    }
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+/**
+ * Mehrere Threads werten dieselben teuren Terme in verschiedener Reihenfolge aus:
+ * jeder mit eigenem Memo gegen ein gemeinsames {@link SharedMemo}. Mit dem
+ * gemeinsamen wird jeder Term einmal berechnet, gleichzeitige Anfragen warten.
+ *
+ * ./gradlew bench -Pbenchmark=SharedMemoBenchmark
+ */
+public class SharedMemoBenchmark {
+    private static final int TERMS = 64;
+    private static final int STEPS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                <bench.loop.done> (loop 0 ?acc) ?acc
+                <bench.loop> (loop ?n ?acc) (loop (- ?n 1) (+ ?acc 1))
+                """);
+
+        System.out.printf("%8s %12s %12s %10s %10s%n", "threads", "own ms", "shared ms", "hits", "waits");
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            int[] round = {0};
+            double own = Benchmarks.time(3, () -> run(ruleSet, null, threads, round[0]++));
+            SharedMemo[] last = new SharedMemo[1];
+            double shared = Benchmarks.time(3, () -> {
+                last[0] = new SharedMemo(ruleSet, 1 << 16);
+                run(ruleSet, last[0], threads, round[0]++);
+            });
+            System.out.printf("%8d %12.1f %12.1f %10d %10d%n", threads, own, shared,
+                    last[0].getHits(), last[0].getWaits());
+        }
+    }
+
+    private static void run(RuleSet ruleSet, SharedMemo shared, int threads, int round) {
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t * TERMS / threads;
+            workers[t] = new Thread(null, () -> {
+                TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+                evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+                evaluator.setSharedMemo(shared);
+                for (int i = 0; i < TERMS; i++) {
+                    long start = (round * TERMS + (i + offset) % TERMS) * 1_000_000L;
+                    evaluator.evaluate(TermParser.parse("(loop " + STEPS + " " + start + ")"));
+                }
+            }, "bench-" + t, 1L << 28);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
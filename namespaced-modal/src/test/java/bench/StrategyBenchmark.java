@@ -0,0 +1,42 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+/**
+ * Laufzeit der standard.modal-Workloads je Auswertungsstrategie.
+ *
+ * ./gradlew bench -Pbenchmark=StrategyBenchmark
+ */
+public class StrategyBenchmark {
+
+    private static final String[] WORKLOADS = {
+            "(fact 12)",
+            "(fib 18)",
+            "(max (fib 15) (fib 16))",
+            "(and (fib 18) false)",
+            "(or true (fib 18))",
+            "(abs (- 3 (fact 8)))",
+            "(reverse (a b c d e f g h i j k l m n o p))",
+            "(member? p (a b c d e f g h i j k l m n o p))"
+    };
+
+    public static void main(String[] args) throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromResource("rules/standard.modal");
+        Debugger quiet = new Debugger(Debugger.Mode.QUIET);
+
+        System.out.printf("%-48s %14s %14s%n", "workload", "outermost ms", "innermost ms");
+        for (String workload : WORKLOADS) {
+            Term term = TermParser.parse(workload);
+            double[] millis = new double[2];
+            for (EvaluationStrategy strategy : EvaluationStrategy.values()) {
+                // Frischer Evaluator pro Lauf, sonst misst man nur den Cache von Evaluator
+                millis[strategy.ordinal()] = Benchmarks.runWithStack(() -> Benchmarks.time(5,
+                        () -> new TermEvaluator(ruleSet, quiet).evaluate(term, strategy)));
+            }
+            System.out.printf("%-48s %14.3f %14.3f%n", workload, millis[0], millis[1]);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+
+/**
+ * fib und pow aus den Regeln mit und ohne @table, jeweils auf einem frischen
+ * Evaluator (kalt) und ein zweites Mal auf demselben (warm).
+ *
+ * ./gradlew bench -Pbenchmark=TablingBenchmark
+ */
+public class TablingBenchmark {
+
+    public static void main(String[] args) {
+        RuleSet tabled = RuleParser.loadFromResource("rules/standard.modal");
+        tabled.loadAllModules();
+        tabled.setTabling("fib", new Tabling(10_000, Tabling.Eviction.LRU));
+        tabled.setTabling("pow", new Tabling(10_000, Tabling.Eviction.LRU));
+
+        // Gleiche Regeln ohne Direktiven
+        RuleSet plain = new RuleSet();
+        tabled.getAllRules().forEach(plain::addRule);
+
+        System.out.printf("%14s %10s %12s %12s %12s%n", "workload", "tabling", "cold ms", "warm ms", "rewrites");
+        String[] slow = {"(fib 8)", "(fib 10)", "(pow 2 30)"};
+        for (String workload : slow) {
+            run(workload, plain, "off");
+            run(workload, tabled, "on");
+        }
+        for (String workload : new String[]{"(fib 30)", "(fib 90)", "(pow 3 200)"}) {
+            run(workload, tabled, "on");
+        }
+    }
+
+    private static void run(String workload, RuleSet ruleSet, String tabling) {
+        Term term = TermParser.parse(workload);
+        Debugger debugger = new Debugger(Debugger.Mode.QUIET);
+        TermEvaluator evaluator = new TermEvaluator(ruleSet, debugger, IntrinsicRegistry.empty());
+
+        long start = System.nanoTime();
+        evaluator.evaluate(term);
+        double cold = (System.nanoTime() - start) / 1e6;
+        long rewrites = debugger.getRewriteCount();
+
+        start = System.nanoTime();
+        evaluator.evaluate(term);
+        double warm = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("%14s %10s %12.1f %12.3f %12d%n", workload, tabling, cold, warm, rewrites);
+    }
+}
@@ -0,0 +1,51 @@
+package bench;
+
+import core.*;
+import debug.Debugger;
+import io.RuleParser;
+import io.TermParser;
+import io.WorkerPool;
+
+/**
+ * Ein Stapel unabhängiger, teurer Terme: im eigenen Prozess gegen 1, 2 und 4
+ * Worker-JVMs. Die Schleifen-Zähler sind pro Term verschieden, damit kein
+ * Ergebnis aus dem Memo eines Workers kommt. Start der Worker zählt nicht mit.
+ *
+ * ./gradlew bench -Pbenchmark=WorkerPoolBenchmark
+ */
+public class WorkerPoolBenchmark {
+    private static final int TERMS = 64;
+    private static final int STEPS = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        RuleSet ruleSet = RuleParser.loadFromString("""
+                <bench.loop.done> (loop 0 ?acc) ?acc
+                <bench.loop> (loop ?n ?acc) (loop (- ?n 1) (+ ?acc 1))
+                """);
+
+        System.out.printf("%8s %12s %10s %12s%n", "workers", "ms", "speedup", "restarts");
+        double local = Benchmarks.runWithStack(() -> {
+            TermEvaluator evaluator = new TermEvaluator(ruleSet, new Debugger(Debugger.Mode.QUIET));
+            evaluator.setStrategy(EvaluationStrategy.INNERMOST);
+            int[] round = {0};
+            return Benchmarks.time(3, () -> batch(round[0]++).forEach(evaluator::evaluate));
+        });
+        System.out.printf("%8s %12.1f %10s %12s%n", "-", local, "1.0x", "-");
+
+        for (int workers : new int[]{1, 2, 4}) {
+            try (WorkerPool pool = new WorkerPool(ruleSet, EvaluationStrategy.INNERMOST, workers, "256m")) {
+                int[] round = {0};
+                double millis = Benchmarks.time(3, () -> pool.evaluate(batch(round[0]++)));
+                System.out.printf("%8d %12.1f %9.1fx %12d%n", workers, millis, local / millis, pool.getRestarts());
+            }
+        }
+    }
+
+    private static java.util.List<Term> batch(int round) {
+        java.util.List<Term> terms = new java.util.ArrayList<>();
+        for (int i = 0; i < TERMS; i++) {
+            terms.add(TermParser.parse("(loop " + STEPS + " " + (round * TERMS + i) * 1_000_000L + ")"));
+        }
+        return terms;
+    }
+}